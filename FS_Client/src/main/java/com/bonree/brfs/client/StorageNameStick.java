@@ -2,13 +2,33 @@ package com.bonree.brfs.client;
 
 import java.io.Closeable;
 import java.text.ParseException;
+import java.util.concurrent.CompletableFuture;
 
 import org.joda.time.DateTime;
 
 public interface StorageNameStick extends Closeable {
 	String[] writeData(InputItem[] itemArrays);
 	String writeData(InputItem item);
+	/**
+	 * 概述：异步写入数据，数据会在客户端缓存并按批次发送
+	 * @param item 数据
+	 * @return 数据的fid
+	 */
+	CompletableFuture<String> writeDataAsync(InputItem item);
 	InputItem readData(String fid) throws Exception;
+	/**
+	 * 概述：异步读取数据，同一个数据节点的连接上可以同时存在多个读请求
+	 * @param fid 文件ID
+	 * @return 读取结果，所有副本都读取失败时以异常结束
+	 */
+	CompletableFuture<InputItem> readDataAsync(String fid);
+	/**
+	 * 概述：批量读取数据，同一个文件中的数据合并为一个请求
+	 * @param fids 文件ID列表
+	 * @return 与fids顺序一致的读取结果，读取失败的数据为null
+	 */
+	InputItem[] readData(String[] fids) throws Exception;
+	CompletableFuture<InputItem[]> readDataAsync(String[] fids);
 	/**
 	 * 概述：
 	 * @param startTime 开始时间 格式为 yyyy-MM-dd HH:mm:ss
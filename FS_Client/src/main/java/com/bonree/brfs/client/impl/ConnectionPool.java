@@ -1,10 +1,16 @@
 package com.bonree.brfs.client.impl;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.lang.reflect.Array;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
-import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.bonree.brfs.common.net.tcp.client.TcpClient;
 import com.bonree.brfs.common.net.tcp.client.TcpClientCloseListener;
@@ -13,86 +19,115 @@ import com.bonree.brfs.common.net.tcp.file.ReadObject;
 import com.bonree.brfs.common.net.tcp.file.client.AsyncFileReaderCreateConfig;
 import com.bonree.brfs.common.net.tcp.file.client.FileContentPart;
 import com.bonree.brfs.common.service.Service;
+import com.bonree.brfs.common.utils.CloseUtils;
 
+/**
+ * 每个数据节点维持固定数量的异步读连接，同一个连接上可以同时发送多个读请求，
+ * 响应通过请求的token进行匹配
+ */
+public class ConnectionPool implements Closeable {
+	private static final Logger LOG = LoggerFactory.getLogger(ConnectionPool.class);
 
-public class ConnectionPool {
 	private TcpClientGroup<ReadObject, FileContentPart, AsyncFileReaderCreateConfig> group;
 	private int connectionPerRoute;
+	private int connectTimeoutMillis;
+	private Executor executor;
 	private ConcurrentHashMap<String, TcpClient<ReadObject, FileContentPart>[]> clientCache;
-	
-	private Random random = new Random();
-	
+
+	private AtomicInteger roundRobin = new AtomicInteger(0);
+
 	public ConnectionPool(int connectionPerRoute, TcpClientGroup<ReadObject, FileContentPart, AsyncFileReaderCreateConfig> group) {
+		this(connectionPerRoute, 3000, group, null);
+	}
+
+	public ConnectionPool(int connectionPerRoute, int connectTimeoutMillis,
+			TcpClientGroup<ReadObject, FileContentPart, AsyncFileReaderCreateConfig> group, Executor executor) {
 		this.connectionPerRoute = connectionPerRoute;
+		this.connectTimeoutMillis = connectTimeoutMillis;
 		this.group = group;
+		this.executor = executor;
 		this.clientCache = new ConcurrentHashMap<>();
 	}
-	
+
 	@SuppressWarnings("unchecked")
 	public TcpClient<ReadObject, FileContentPart> getConnection(Service service) {
 		TcpClient<ReadObject, FileContentPart>[] clients = clientCache.get(service.getServiceId());
-		
-		TcpClient<ReadObject, FileContentPart> client = null;
-		int index = random.nextInt(connectionPerRoute);
-		
 		if(clients == null) {
 			clientCache.putIfAbsent(service.getServiceId(),
 					(TcpClient<ReadObject, FileContentPart>[]) Array.newInstance(TcpClient.class, connectionPerRoute));
 			clients = clientCache.get(service.getServiceId());
 		}
-		
-		client = clients[index];
+
+		int index = (roundRobin.getAndIncrement() & Integer.MAX_VALUE) % connectionPerRoute;
+		TcpClient<ReadObject, FileContentPart> client = clients[index];
 		if(client != null) {
 			return client;
 		}
-		
+
 		synchronized (clients) {
 			if(clients[index] != null) {
 				return clients[index];
 			}
-			
+
 			try {
 				client = group.createClient(new AsyncFileReaderCreateConfig() {
-					
+
 					@Override
 					public SocketAddress remoteAddress() {
 						return new InetSocketAddress(service.getHost(), service.getExtraPort());
 					}
-					
+
 					@Override
 					public int connectTimeoutMillis() {
-						return 3000;
+						return connectTimeoutMillis;
 					}
 
 					@Override
 					public int maxPendingRead() {
 						return 1000 * 100;
 					}
-					
-				});
-				
+
+				}, executor);
+
 				if(client == null) {
 					return null;
 				}
-				
+
+				final TcpClient<ReadObject, FileContentPart> createdClient = client;
+				final TcpClient<ReadObject, FileContentPart>[] clientArray = clients;
 				client.setClientCloseListener(new TcpClientCloseListener() {
-					
+
 					@Override
 					public void clientClosed() {
-						TcpClient<ReadObject, FileContentPart>[] clientArray = clientCache.get(service.getServiceId());
 						synchronized (clientArray) {
-							clientArray[index] = null;
+							if(clientArray[index] == createdClient) {
+								clientArray[index] = null;
+							}
 						}
 					}
 				});
-				
+
 				clients[index] = client;
 				return client;
 			} catch (Exception e) {
-				e.printStackTrace();
+				LOG.error("create read connection to service[{}] error", service, e);
 			}
 		}
-		
+
 		return null;
 	}
+
+	@Override
+	public void close() throws IOException {
+		for(TcpClient<ReadObject, FileContentPart>[] clients : clientCache.values()) {
+			synchronized (clients) {
+				for(int i = 0; i < clients.length; i++) {
+					CloseUtils.closeQuietly(clients[i]);
+					clients[i] = null;
+				}
+			}
+		}
+
+		clientCache.clear();
+	}
 }
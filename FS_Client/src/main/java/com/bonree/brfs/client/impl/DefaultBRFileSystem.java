@@ -3,8 +3,12 @@ package com.bonree.brfs.client.impl;
 import java.io.IOException;
 import java.net.URI;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.curator.RetryPolicy;
@@ -24,10 +28,12 @@ import com.bonree.brfs.common.net.http.client.ClientConfig;
 import com.bonree.brfs.common.net.http.client.HttpClient;
 import com.bonree.brfs.common.net.http.client.HttpResponse;
 import com.bonree.brfs.common.net.http.client.URIBuilder;
+import com.bonree.brfs.common.net.tcp.file.client.AsyncFileReaderGroup;
 import com.bonree.brfs.common.service.Service;
 import com.bonree.brfs.common.service.ServiceManager;
 import com.bonree.brfs.common.service.impl.DefaultServiceManager;
 import com.bonree.brfs.common.utils.CloseUtils;
+import com.bonree.brfs.common.utils.PooledThreadFactory;
 
 public class DefaultBRFileSystem implements BRFileSystem {
     private static final Logger LOG = LoggerFactory.getLogger(DefaultBRFileSystem.class);
@@ -39,6 +45,13 @@ public class DefaultBRFileSystem implements BRFileSystem {
     private ServiceSelectorManager serviceSelectorManager;
     private RegionNodeSelector regionNodeSelector;
     
+    private AsyncFileReaderGroup readerGroup;
+    private ScheduledExecutorService readExecutor;
+    private ConnectionPool readConnectionPool;
+    
+    // 关闭时需要先发送各个StorageName中缓存的写入数据
+    private List<StorageNameStick> openedSticks = new CopyOnWriteArrayList<StorageNameStick>();
+    
     private FileSystemConfig config;
     
     private Map<String, String> defaultHeaders = new HashMap<String, String>();
@@ -72,6 +85,11 @@ public class DefaultBRFileSystem implements BRFileSystem {
         		zkPaths.getBaseServerIdPath(), zkPaths.getBaseRoutePath(), serviceManager, config.getDiskServiceGroup());
         
         this.regionNodeSelector = new RegionNodeSelector(serviceManager, config.getDuplicateServiceGroup());
+        
+        this.readerGroup = new AsyncFileReaderGroup(config.getReaderThreadNum());
+        this.readExecutor = Executors.newScheduledThreadPool(config.getReaderThreadNum(), new PooledThreadFactory("brfs_read_callback"));
+        this.readConnectionPool = new ConnectionPool(config.getReadConnectionPerServer(),
+        		config.getReadConnectTimeoutMillis(), readerGroup, readExecutor);
     }
 
     @Override
@@ -228,12 +246,14 @@ public class DefaultBRFileSystem implements BRFileSystem {
 					int storageId = Ints.fromByteArray(response
 							.getResponseBody());
 
-					stick = new DefaultStorageNameStick(storageName, storageId,
+					DefaultStorageNameStick opened = new DefaultStorageNameStick(storageName, storageId,
 							httpClient,
 							serviceSelectorManager.useDiskSelector(storageId),
-							regionNodeSelector, config);
+							regionNodeSelector, readConnectionPool, readExecutor, config);
+					opened.setCloseListener(() -> openedSticks.remove(opened));
+					openedSticks.add(opened);
 
-					return stick;
+					return opened;
 				}
 			}
 		} catch (Exception e) {
@@ -245,9 +265,17 @@ public class DefaultBRFileSystem implements BRFileSystem {
 
     @Override
     public void close() throws IOException {
+        // 关闭时会把自己从列表中移除
+        for(StorageNameStick stick : openedSticks) {
+            CloseUtils.closeQuietly(stick);
+        }
+        
         CloseUtils.closeQuietly(serviceSelectorManager);
         CloseUtils.closeQuietly(zkClient);
         CloseUtils.closeQuietly(httpClient);
+        CloseUtils.closeQuietly(readConnectionPool);
+        CloseUtils.closeQuietly(readerGroup);
+        readExecutor.shutdown();
     }
 
 }
@@ -1,11 +1,19 @@
 package com.bonree.brfs.client.impl;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.joda.time.DateTime;
 import org.joda.time.format.DateTimeFormat;
@@ -23,18 +31,25 @@ import com.bonree.brfs.common.exception.BRFSException;
 import com.bonree.brfs.common.net.http.client.HttpClient;
 import com.bonree.brfs.common.net.http.client.HttpResponse;
 import com.bonree.brfs.common.net.http.client.URIBuilder;
+import com.bonree.brfs.common.net.tcp.client.ResponseHandler;
+import com.bonree.brfs.common.net.tcp.client.TcpClient;
 import com.bonree.brfs.common.net.tcp.file.ReadObject;
-import com.bonree.brfs.common.proto.FileDataProtos.Fid;
+import com.bonree.brfs.common.net.tcp.file.client.FileContentPart;
 import com.bonree.brfs.common.serialize.ProtoStuffUtils;
 import com.bonree.brfs.common.service.Service;
 import com.bonree.brfs.common.utils.BrStringUtils;
 import com.bonree.brfs.common.write.data.DataItem;
 import com.bonree.brfs.common.write.data.FidDecoder;
+import com.bonree.brfs.common.write.data.FidInfo;
+import com.bonree.brfs.common.write.data.FileDecoder;
 import com.bonree.brfs.common.write.data.WriteDataMessage;
 
 public class DefaultStorageNameStick implements StorageNameStick {
 	private static final Logger LOG = LoggerFactory
 			.getLogger(DefaultStorageNameStick.class);
+	
+	// 单个批量读请求中包含的最大数据条数
+	private static final int MAX_BATCH_READ_SIZE = 512;
 
 	private final String storageName;
 	private final int storageId;
@@ -46,12 +61,17 @@ public class DefaultStorageNameStick implements StorageNameStick {
 	private FileSystemConfig config;
 	private Map<String, String> defaultHeaders = new HashMap<String, String>();
 
-	// private ConnectionPool connectionPool;
-	private ReadConnectionPool connectionPool;
+	private ConnectionPool connectionPool;
+	private ScheduledExecutorService executor;
+	
+	private WriteBatcher writeBatcher;
+	// 关闭后通知所属的文件系统
+	private Runnable closeListener;
 
 	public DefaultStorageNameStick(String storageName, int storageId,
 			HttpClient client, ReaderServiceSelector selector,
-			RegionNodeSelector regionNodeSelector, FileSystemConfig config) {
+			RegionNodeSelector regionNodeSelector, ConnectionPool connectionPool,
+			ScheduledExecutorService executor, FileSystemConfig config) {
 		this.storageName = storageName;
 		this.storageId = storageId;
 		this.client = client;
@@ -62,8 +82,15 @@ public class DefaultStorageNameStick implements StorageNameStick {
 		this.defaultHeaders.put("username", config.getName());
 		this.defaultHeaders.put("password", config.getPasswd());
 
-		// this.connectionPool = connectionPool;
-		this.connectionPool = new ReadConnectionPool();
+		this.connectionPool = connectionPool;
+		this.executor = executor;
+		
+		this.writeBatcher = new WriteBatcher(config.getWriteBatchMaxItems(),
+				config.getWriteBatchMaxBytes(),
+				config.getWriteBatchLingerMillis(),
+				config.getWriteMaxPendingItems(),
+				items -> writeBatchAsync(items),
+				executor);
 	}
 
 	@Override
@@ -126,82 +153,587 @@ public class DefaultStorageNameStick implements StorageNameStick {
 		return null;
 	}
 
+	@Override
+	public CompletableFuture<String> writeDataAsync(InputItem item) {
+		return writeBatcher.add(item);
+	}
+	
+	/**
+	 * 异步发送批量写请求，请求失败时依次尝试其他的region节点
+	 */
+	private CompletableFuture<String[]> writeBatchAsync(InputItem[] itemArrays) {
+		CompletableFuture<String[]> result = new CompletableFuture<String[]>();
+		
+		WriteDataMessage dataMessage = new WriteDataMessage();
+		dataMessage.setStorageNameId(storageId);
+
+		DataItem[] dataItems = new DataItem[itemArrays.length];
+		for (int i = 0; i < dataItems.length; i++) {
+			dataItems[i] = new DataItem();
+			dataItems[i].setBytes(itemArrays[i].getBytes());
+		}
+		dataMessage.setItems(dataItems);
+		
+		Service[] serviceList = regionNodeSelector.select(regionNodeSelector.serviceNum());
+		if (serviceList.length == 0) {
+			result.completeExceptionally(new BRFSException("none disknode!!!"));
+			return result;
+		}
+		
+		byte[] bytes;
+		try {
+			bytes = ProtoStuffUtils.serialize(dataMessage);
+		} catch (Exception e) {
+			result.completeExceptionally(e);
+			return result;
+		}
+		
+		postData(serviceList, 0, bytes, result);
+		return result;
+	}
+	
+	private void postData(Service[] serviceList, int index, byte[] bytes, CompletableFuture<String[]> result) {
+		if(index >= serviceList.length) {
+			result.completeExceptionally(new BRFSException("no region node can write data"));
+			return;
+		}
+		
+		Service service = serviceList[index];
+		URI uri;
+		try {
+			uri = new URIBuilder().setScheme(config.getUrlSchema())
+					.setHost(service.getHost()).setPort(service.getPort())
+					.setPath(config.getDuplicateUrlRoot() + "/").build();
+		} catch (Exception e) {
+			result.completeExceptionally(e);
+			return;
+		}
+		
+		client.executePost(uri, defaultHeaders, bytes, new com.bonree.brfs.common.net.http.client.ResponseHandler() {
+			
+			@Override
+			public void onCompleted(HttpResponse response) {
+				if (response.isReponseOK()) {
+					try {
+						List<String> results = JSON.parseArray(BrStringUtils.fromUtf8Bytes(response.getResponseBody()), String.class);
+						result.complete(results.toArray(new String[results.size()]));
+					} catch (Exception e) {
+						LOG.error("parse fids of write response error", e);
+						result.completeExceptionally(e);
+					}
+					
+					return;
+				}
+				
+				postData(serviceList, index + 1, bytes, result);
+			}
+			
+			@Override
+			public void onThrowable(Throwable e) {
+				LOG.warn("write data http request failed", e);
+				postData(serviceList, index + 1, bytes, result);
+			}
+		});
+	}
+
 	@Override
 	public InputItem readData(String fid) throws Exception {
-		Fid fidObj = FidDecoder.build(fid);
+		try {
+			return readDataAsync(fid).get();
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof IllegalAccessException) {
+				throw (IllegalAccessException) e.getCause();
+			}
+			
+			LOG.error("read data of fid[{}] error", fid, e.getCause());
+		}
+
+		return null;
+	}
+
+	@Override
+	public CompletableFuture<InputItem> readDataAsync(String fid) {
+		CompletableFuture<InputItem> result = new CompletableFuture<InputItem>();
+		
+		FidInfo fidObj;
+		try {
+			fidObj = FidDecoder.decode(fid, new FidInfo());
+		} catch (Exception e) {
+			result.completeExceptionally(e);
+			return result;
+		}
+		
 		if (fidObj.getStorageNameCode() != storageId) {
-			throw new IllegalAccessException(
-					"Storage name of fid is not legal!");
+			result.completeExceptionally(new IllegalAccessException(
+					"Storage name of fid is not legal!"));
+			return result;
 		}
 
-		StringBuilder nameBuilder = new StringBuilder(fidObj.getUuid());
+		String uuid = fidObj.getUuid();
+		StringBuilder nameBuilder = new StringBuilder(uuid);
 		String[] serverList = new String[fidObj.getServerIdCount()];
 		for (int i = 0; i < fidObj.getServerIdCount(); i++) {
-			String id = fidObj.getServerId(i);
+			String id = String.valueOf(fidObj.getServerId(i));
 			nameBuilder.append('_').append(id);
 			serverList[i] = id;
 		}
 
-		try {
-			// 最大尝试副本数个server
-			for (int i = 0; i < serverList.length; i++) {
-				ServiceMetaInfo serviceMetaInfo = selector.selectService(
-						fidObj.getUuid(), serverList);
-				if (serviceMetaInfo.getFirstServer() == null) {
-					serverList[serviceMetaInfo.getReplicatPot() - 1] = null;
-					continue;
+		new ReplicaRead(fidObj, uuid, nameBuilder.toString(), serverList, result).next();
+		return result;
+	}
+	
+	/**
+	 * 单条数据的读取过程，副本读取失败时切换到下一个副本；
+	 * 开启对冲读取时，请求超过指定时间未返回会同时向下一个副本发送请求，使用最先返回的结果
+	 */
+	private class ReplicaRead {
+		private final FidInfo fidObj;
+		private final String uuid;
+		private final String fileName;
+		// 已经发送过请求的副本会被置为null
+		private final String[] serverList;
+		private final CompletableFuture<InputItem> result;
+		
+		private int inFlight = 0;
+		
+		ReplicaRead(FidInfo fidObj, String uuid, String fileName, String[] serverList, CompletableFuture<InputItem> result) {
+			this.fidObj = fidObj;
+			this.uuid = uuid;
+			this.fileName = fileName;
+			this.serverList = serverList;
+			this.result = result;
+		}
+		
+		private boolean hasReplica() {
+			for(String serverId : serverList) {
+				if(serverId != null) {
+					return true;
 				}
-
-				Service service = serviceMetaInfo.getFirstServer();
-				LOG.info("read service[{}]", service);
-
-				ReadConnection fileReader = connectionPool
-						.getConnection(service);
-
-				try {
-					ReadObject readObject = new ReadObject();
-					readObject.setSn(storageName);
-					readObject.setIndex(serviceMetaInfo.getReplicatPot());
-					readObject.setTime(fidObj.getTime());
-					readObject.setDuration(fidObj.getDuration());
-					readObject.setFileName(nameBuilder.toString());
-
-					// readObject.setFilePath(FilePathBuilder.buildPath(fidObj,
-					// timeCache.get(new
-					// TimePair(TimeUtils.prevTimeStamp(fidObj.getTime(),
-					// fidObj.getDuration()), fidObj.getDuration())),
-					// storageName, serviceMetaInfo.getReplicatPot()));
-					readObject.setOffset(fidObj.getOffset());
-					readObject.setLength((int) fidObj.getSize());
-
-					byte[] fileContent = fileReader.read(readObject);
-					return new InputItem() {
-
-						@Override
-						public byte[] getBytes() {
-							return fileContent;
+			}
+			
+			return false;
+		}
+		
+		void next() {
+			while(true) {
+				ServiceMetaInfo serviceMetaInfo;
+				synchronized (this) {
+					if(result.isDone()) {
+						return;
+					}
+					
+					if(!hasReplica()) {
+						if(inFlight == 0) {
+							result.completeExceptionally(new BRFSException("no replica of file[" + fileName + "] can be read"));
 						}
-					};
-				} catch (Exception e) {
-					// 使用选择的server没有读取到数据，需要进行排除
+						
+						return;
+					}
+					
+					try {
+						serviceMetaInfo = selector.selectService(uuid, serverList);
+					} catch (Exception e) {
+						if(inFlight == 0) {
+							result.completeExceptionally(e);
+						}
+						
+						return;
+					}
+					
 					serverList[serviceMetaInfo.getReplicatPot() - 1] = null;
-					continue;
+					if(serviceMetaInfo.getFirstServer() == null) {
+						continue;
+					}
+					
+					inFlight++;
+				}
+				
+				if(send(serviceMetaInfo)) {
+					return;
+				}
+				
+				synchronized (this) {
+					inFlight--;
 				}
 			}
-		} catch (Exception e) {
-			e.printStackTrace();
 		}
+		
+		private void failed() {
+			synchronized (this) {
+				inFlight--;
+				if(inFlight > 0) {
+					// 还有其他副本的请求没有返回
+					return;
+				}
+			}
+			
+			next();
+		}
+		
+		private boolean send(ServiceMetaInfo serviceMetaInfo) {
+			Service service = serviceMetaInfo.getFirstServer();
+			if(service == null) {
+				return false;
+			}
+			
+			LOG.debug("read service[{}]", service);
+			TcpClient<ReadObject, FileContentPart> client = connectionPool.getConnection(service);
+			if(client == null) {
+				selector.getLatencyTracker().failed(service.getServiceId());
+				return false;
+			}
+			
+			ReadObject readObject = new ReadObject();
+			readObject.setSn(storageName);
+			readObject.setIndex(serviceMetaInfo.getReplicatPot());
+			readObject.setTime(fidObj.getTime());
+			readObject.setDuration(fidObj.getDuration());
+			readObject.setFileName(fileName);
+			readObject.setOffset(fidObj.getOffset());
+			readObject.setLength((int) fidObj.getSize());
+			
+			long startTime = System.currentTimeMillis();
+			try {
+				client.sendMessage(readObject, new ResponseHandler<FileContentPart>() {
+					private ByteArrayOutputStream output = new ByteArrayOutputStream((int) fidObj.getSize());
+
+					@Override
+					public void handle(FileContentPart response) {
+						try {
+							output.write(response.content());
+						} catch (IOException e) {
+							error(e);
+							return;
+						}
+						
+						if(!response.endOfContent()) {
+							return;
+						}
+						
+						selector.getLatencyTracker().update(service.getServiceId(), System.currentTimeMillis() - startTime);
+						
+						// 回调发生在网络线程中，数据解码和结果通知放到读取线程池中处理
+						executor.execute(() -> {
+							try {
+								byte[] fileContent = FileDecoder.data(output.toByteArray());
+								result.complete(new InputItem() {
+
+									@Override
+									public byte[] getBytes() {
+										return fileContent;
+									}
+								});
+							} catch (Exception e) {
+								LOG.warn("decode data from service[{}] failed", service, e);
+								failed();
+							}
+						});
+					}
+
+					@Override
+					public void error(Throwable t) {
+						LOG.warn("read data from service[{}] failed", service, t);
+						selector.getLatencyTracker().failed(service.getServiceId());
+						// 使用选择的server没有读取到数据，尝试其他副本
+						executor.execute(() -> failed());
+					}
+				});
+			} catch (Exception e) {
+				LOG.warn("send read request to service[{}] failed", service, e);
+				selector.getLatencyTracker().failed(service.getServiceId());
+				return false;
+			}
+			
+			if(config.getReadHedgeDelayMillis() > 0) {
+				executor.schedule(() -> {
+					if(!result.isDone()) {
+						LOG.debug("read of file[{}] from service[{}] is slow, try another replica", fileName, service);
+						next();
+					}
+				}, config.getReadHedgeDelayMillis(), TimeUnit.MILLISECONDS);
+			}
+			
+			return true;
+		}
+	}
 
+	@Override
+	public InputItem[] readData(String[] fids) throws Exception {
+		try {
+			return readDataAsync(fids).get();
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof IllegalAccessException) {
+				throw (IllegalAccessException) e.getCause();
+			}
+			
+			LOG.error("read datas error", e.getCause());
+		}
+		
 		return null;
 	}
 
+	@Override
+	public CompletableFuture<InputItem[]> readDataAsync(String[] fids) {
+		InputItem[] results = new InputItem[fids.length];
+		
+		// 同一个聚合文件中的数据合并到一个读请求中
+		Map<String, FileReadGroup> groups = new HashMap<String, FileReadGroup>();
+		List<FileReadGroup> groupList = new ArrayList<FileReadGroup>();
+		// 解码结果只在循环内使用，所有fid共用一个对象
+		FidInfo fidObj = new FidInfo();
+		for(int i = 0; i < fids.length; i++) {
+			try {
+				FidDecoder.decode(fids[i], fidObj);
+			} catch (Exception e) {
+				LOG.error("decode fid[{}] error", fids[i], e);
+				continue;
+			}
+			
+			if (fidObj.getStorageNameCode() != storageId) {
+				CompletableFuture<InputItem[]> result = new CompletableFuture<InputItem[]>();
+				result.completeExceptionally(new IllegalAccessException(
+						"Storage name of fid is not legal!"));
+				return result;
+			}
+			
+			String uuid = fidObj.getUuid();
+			StringBuilder nameBuilder = new StringBuilder(uuid);
+			for (int j = 0; j < fidObj.getServerIdCount(); j++) {
+				nameBuilder.append('_').append(fidObj.getServerId(j));
+			}
+			
+			String fileName = nameBuilder.toString();
+			FileReadGroup group = groups.get(fileName);
+			if(group == null || group.size() >= MAX_BATCH_READ_SIZE) {
+				group = new FileReadGroup(fileName, uuid, fidObj);
+				groups.put(fileName, group);
+				groupList.add(group);
+			}
+			
+			group.add(i, fidObj.getOffset(), (int) fidObj.getSize());
+		}
+		
+		List<CompletableFuture<Void>> groupResults = new ArrayList<CompletableFuture<Void>>();
+		for(FileReadGroup group : groupList) {
+			CompletableFuture<Void> groupResult = new CompletableFuture<Void>();
+			groupResults.add(groupResult);
+			
+			readBatchFromReplica(group, group.serverList.length, results, groupResult);
+		}
+		
+		return CompletableFuture.allOf(groupResults.toArray(new CompletableFuture<?>[groupResults.size()]))
+				.thenApply(v -> results);
+	}
+	
+	private void readBatchFromReplica(FileReadGroup group, int retryCount, InputItem[] results, CompletableFuture<Void> groupResult) {
+		if(retryCount <= 0) {
+			LOG.error("no replica of file[{}] can be read", group.fileName);
+			groupResult.complete(null);
+			return;
+		}
+		
+		ServiceMetaInfo serviceMetaInfo;
+		try {
+			serviceMetaInfo = selector.selectService(group.uuid, group.serverList);
+		} catch (Exception e) {
+			LOG.error("select service for file[{}] error", group.fileName, e);
+			groupResult.complete(null);
+			return;
+		}
+		
+		if (serviceMetaInfo.getFirstServer() == null) {
+			group.serverList[serviceMetaInfo.getReplicatPot() - 1] = null;
+			readBatchFromReplica(group, retryCount - 1, results, groupResult);
+			return;
+		}
+		
+		Service service = serviceMetaInfo.getFirstServer();
+		TcpClient<ReadObject, FileContentPart> client = connectionPool.getConnection(service);
+		if(client == null) {
+			group.serverList[serviceMetaInfo.getReplicatPot() - 1] = null;
+			readBatchFromReplica(group, retryCount - 1, results, groupResult);
+			return;
+		}
+		
+		long[] offsets = Arrays.copyOf(group.offsets, group.size());
+		int[] lengths = Arrays.copyOf(group.lengths, group.size());
+		
+		ReadObject readObject = new ReadObject();
+		readObject.setSn(storageName);
+		readObject.setIndex(serviceMetaInfo.getReplicatPot());
+		readObject.setTime(group.time);
+		readObject.setDuration(group.duration);
+		readObject.setFileName(group.fileName);
+		readObject.setBatch(offsets, lengths);
+		
+		long startTime = System.currentTimeMillis();
+		try {
+			client.sendMessage(readObject, new ResponseHandler<FileContentPart>() {
+				private ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+				@Override
+				public void handle(FileContentPart response) {
+					try {
+						output.write(response.content());
+					} catch (IOException e) {
+						error(e);
+						return;
+					}
+					
+					if(!response.endOfContent()) {
+						return;
+					}
+					
+					selector.getLatencyTracker().update(service.getServiceId(), System.currentTimeMillis() - startTime);
+					executor.execute(() -> {
+						// 没有读到或者无法解析的数据在组内的序号
+						List<Integer> failedItems = new ArrayList<Integer>();
+						int i = 0;
+						try {
+							ByteBuffer buffer = ByteBuffer.wrap(output.toByteArray());
+							for(; i < group.size(); i++) {
+								if(buffer.remaining() < Integer.BYTES) {
+									failedItems.add(i);
+									continue;
+								}
+								
+								int length = buffer.getInt();
+								if(length < 0) {
+									failedItems.add(i);
+									continue;
+								}
+								
+								if(length > buffer.remaining()) {
+									// 长度错误时之后的内容都无法定位
+									LOG.error("content length[{}] of file[{}] at offset[{}] exceeds remaining bytes[{}]",
+											length, group.fileName, offsets[i], buffer.remaining());
+									buffer.position(buffer.limit());
+									failedItems.add(i);
+									continue;
+								}
+								
+								int start = buffer.position();
+								buffer.position(start + length);
+								try {
+									byte[] fileContent = FileDecoder.data(buffer.array(), start, length);
+									results[group.indexes.get(i)] = new InputItem() {
+
+										@Override
+										public byte[] getBytes() {
+											return fileContent;
+										}
+									};
+								} catch (Exception e) {
+									LOG.error("decode content of file[{}] at offset[{}] error", group.fileName, offsets[i], e);
+									failedItems.add(i);
+								}
+							}
+						} finally {
+							// 出现意外异常时，还没有处理的数据同样交给其他副本
+							for(; i < group.size(); i++) {
+								failedItems.add(i);
+							}
+							
+							if(failedItems.isEmpty()) {
+								groupResult.complete(null);
+							} else {
+								group.serverList[serviceMetaInfo.getReplicatPot() - 1] = null;
+								readBatchFromReplica(group.subGroup(failedItems), retryCount - 1, results, groupResult);
+							}
+						}
+					});
+				}
+
+				@Override
+				public void error(Throwable t) {
+					LOG.warn("batch read data from service[{}] failed", service, t);
+					selector.getLatencyTracker().failed(service.getServiceId());
+					executor.execute(() -> {
+						group.serverList[serviceMetaInfo.getReplicatPot() - 1] = null;
+						readBatchFromReplica(group, retryCount - 1, results, groupResult);
+					});
+				}
+			});
+		} catch (Exception e) {
+			LOG.warn("send batch read request to service[{}] failed", service, e);
+			group.serverList[serviceMetaInfo.getReplicatPot() - 1] = null;
+			readBatchFromReplica(group, retryCount - 1, results, groupResult);
+		}
+	}
+	
+	private static class FileReadGroup {
+		private final String fileName;
+		private final String uuid;
+		private final long time;
+		private final long duration;
+		private final String[] serverList;
+		private final List<Integer> indexes = new ArrayList<Integer>();
+		// 组内每条数据在文件中的位置和长度
+		private long[] offsets = new long[8];
+		private int[] lengths = new int[8];
+		
+		FileReadGroup(String fileName, String uuid, FidInfo sample) {
+			this(fileName, uuid, sample.getTime(), sample.getDuration(), new String[sample.getServerIdCount()]);
+			for (int i = 0; i < serverList.length; i++) {
+				serverList[i] = String.valueOf(sample.getServerId(i));
+			}
+		}
+		
+		private FileReadGroup(String fileName, String uuid, long time, long duration, String[] serverList) {
+			this.fileName = fileName;
+			this.uuid = uuid;
+			this.time = time;
+			this.duration = duration;
+			this.serverList = serverList;
+		}
+		
+		void add(int index, long offset, int length) {
+			int size = indexes.size();
+			if(size == offsets.length) {
+				offsets = Arrays.copyOf(offsets, size * 2);
+				lengths = Arrays.copyOf(lengths, size * 2);
+			}
+			
+			offsets[size] = offset;
+			lengths[size] = length;
+			indexes.add(index);
+		}
+		
+		/**
+		 * 包含组内指定数据的新组，继承已经排除的副本
+		 */
+		FileReadGroup subGroup(List<Integer> items) {
+			FileReadGroup group = new FileReadGroup(fileName, uuid, time, duration, serverList.clone());
+			for(int item : items) {
+				group.add(indexes.get(item), offsets[item], lengths[item]);
+			}
+			
+			return group;
+		}
+		
+		int size() {
+			return indexes.size();
+		}
+	}
+
 	@Override
 	public boolean deleteData(String startTime, String endTime) {
 		return deleteData(startTime, endTime, "yyyy-MM-dd HH:mm:ss");
 	}
 
+	void setCloseListener(Runnable closeListener) {
+		this.closeListener = closeListener;
+	}
+
 	@Override
 	public void close() throws IOException {
+		try {
+			writeBatcher.close();
+		} finally {
+			if(closeListener != null) {
+				closeListener.run();
+			}
+		}
 	}
 
 	@Override
@@ -35,6 +35,31 @@ public class FileSystemConfig {
 	private static final int DEFAULT_ZK_CONNECT_TIMEOUT_SECONDS = 15;
 	private int zkConnectTimeoutSeconds;
 	
+	private static final int DEFAULT_READ_CONNECTION_PER_SERVER = 4;
+	private int readConnectionPerServer;
+	
+	private static final int DEFAULT_READER_THREAD_NUM = 4;
+	private int readerThreadNum;
+	
+	private static final int DEFAULT_READ_CONNECT_TIMEOUT_MILLIS = 3000;
+	private int readConnectTimeoutMillis;
+	
+	// 读请求超过此时间未返回时向下一个副本发送相同的请求，0表示不启用
+	private static final int DEFAULT_READ_HEDGE_DELAY_MILLIS = 0;
+	private int readHedgeDelayMillis;
+	
+	private static final int DEFAULT_WRITE_BATCH_MAX_ITEMS = 512;
+	private int writeBatchMaxItems;
+	
+	private static final int DEFAULT_WRITE_BATCH_MAX_BYTES = 4 * 1024 * 1024;
+	private int writeBatchMaxBytes;
+	
+	private static final int DEFAULT_WRITE_BATCH_LINGER_MILLIS = 10;
+	private int writeBatchLingerMillis;
+	
+	private static final int DEFAULT_WRITE_MAX_PENDING_ITEMS = 100000;
+	private int writeMaxPendingItems;
+	
 	private FileSystemConfig() {
 		this.urlSchema = DEFAULT_URL_SCHEMA;
 		this.storageUrlRoot = DEFAULT_STORAGE_URL_ROOT;
@@ -45,6 +70,14 @@ public class FileSystemConfig {
 		this.duplicateServiceGroup = DEFAULT_DUPLICATE_SERVICE_GROUP;
 		this.diskServiceGroup = DEFAULT_DISK_SERVICE_GROUP;
 		this.zkConnectTimeoutSeconds = DEFAULT_ZK_CONNECT_TIMEOUT_SECONDS;
+		this.readConnectionPerServer = DEFAULT_READ_CONNECTION_PER_SERVER;
+		this.readerThreadNum = DEFAULT_READER_THREAD_NUM;
+		this.readConnectTimeoutMillis = DEFAULT_READ_CONNECT_TIMEOUT_MILLIS;
+		this.readHedgeDelayMillis = DEFAULT_READ_HEDGE_DELAY_MILLIS;
+		this.writeBatchMaxItems = DEFAULT_WRITE_BATCH_MAX_ITEMS;
+		this.writeBatchMaxBytes = DEFAULT_WRITE_BATCH_MAX_BYTES;
+		this.writeBatchLingerMillis = DEFAULT_WRITE_BATCH_LINGER_MILLIS;
+		this.writeMaxPendingItems = DEFAULT_WRITE_MAX_PENDING_ITEMS;
 	}
 	
 	public String getName() {
@@ -99,6 +132,38 @@ public class FileSystemConfig {
 		return zkConnectTimeoutSeconds;
 	}
 	
+	public int getReadConnectionPerServer() {
+		return readConnectionPerServer;
+	}
+	
+	public int getReaderThreadNum() {
+		return readerThreadNum;
+	}
+	
+	public int getReadConnectTimeoutMillis() {
+		return readConnectTimeoutMillis;
+	}
+	
+	public int getReadHedgeDelayMillis() {
+		return readHedgeDelayMillis;
+	}
+	
+	public int getWriteBatchMaxItems() {
+		return writeBatchMaxItems;
+	}
+	
+	public int getWriteBatchMaxBytes() {
+		return writeBatchMaxBytes;
+	}
+	
+	public int getWriteBatchLingerMillis() {
+		return writeBatchLingerMillis;
+	}
+	
+	public int getWriteMaxPendingItems() {
+		return writeMaxPendingItems;
+	}
+	
 	public static Builder newBuilder() {
 		return new Builder();
 	}
@@ -175,6 +240,46 @@ public class FileSystemConfig {
 			return this;
 		}
 		
+		public Builder setReadConnectionPerServer(int num) {
+			config.readConnectionPerServer = num;
+			return this;
+		}
+		
+		public Builder setReaderThreadNum(int num) {
+			config.readerThreadNum = num;
+			return this;
+		}
+		
+		public Builder setReadConnectTimeoutMillis(int timeoutMillis) {
+			config.readConnectTimeoutMillis = timeoutMillis;
+			return this;
+		}
+		
+		public Builder setReadHedgeDelayMillis(int delayMillis) {
+			config.readHedgeDelayMillis = delayMillis;
+			return this;
+		}
+		
+		public Builder setWriteBatchMaxItems(int maxItems) {
+			config.writeBatchMaxItems = maxItems;
+			return this;
+		}
+		
+		public Builder setWriteBatchMaxBytes(int maxBytes) {
+			config.writeBatchMaxBytes = maxBytes;
+			return this;
+		}
+		
+		public Builder setWriteBatchLingerMillis(int lingerMillis) {
+			config.writeBatchLingerMillis = lingerMillis;
+			return this;
+		}
+		
+		public Builder setWriteMaxPendingItems(int maxPendingItems) {
+			config.writeMaxPendingItems = maxPendingItems;
+			return this;
+		}
+		
 		public FileSystemConfig build() {
 			Preconditions.checkNotNull(config.name);
 			Preconditions.checkNotNull(config.passwd);
@@ -4,10 +4,10 @@ import java.io.IOException;
 
 import com.bonree.brfs.client.utils.FilePathBuilder;
 import com.bonree.brfs.common.net.tcp.file.ReadObject;
-import com.bonree.brfs.common.proto.FileDataProtos.Fid;
 import com.bonree.brfs.common.service.Service;
 import com.bonree.brfs.common.utils.TimeUtils;
 import com.bonree.brfs.common.write.data.FidDecoder;
+import com.bonree.brfs.common.write.data.FidInfo;
 
 public class PureClient {
 	private ReadConnectionPool connectionPool;
@@ -19,7 +19,7 @@ public class PureClient {
 		this.service = new Service("id", "gp", ip, port);
 		this.service.setExtraPort(port);
 		
-		Fid fidObj = FidDecoder.build(fid);
+		FidInfo fidObj = FidDecoder.decode(fid, new FidInfo());
 
         readObject = new ReadObject();
     	readObject.setFilePath(FilePathBuilder.buildPath(fidObj, TimeUtils.timeInterval(fidObj.getTime(), fidObj.getDuration()),
@@ -9,7 +9,6 @@ import org.apache.curator.shaded.com.google.common.base.Joiner;
 import org.apache.curator.shaded.com.google.common.primitives.Ints;
 
 import com.bonree.brfs.common.net.tcp.file.ReadObject;
-import com.bonree.brfs.common.proto.FileDataProtos.FileContent;
 import com.bonree.brfs.common.utils.InputUtils;
 import com.bonree.brfs.common.write.data.FileDecoder;
 
@@ -43,8 +42,7 @@ public class ReadConnection implements Closeable {
 		byte[] b = new byte[l];
 		InputUtils.readBytes(socket.getInputStream(), b, 0, b.length);
 
-		FileContent content = FileDecoder.contents(b);
-        return content.getData().toByteArray();
+		return FileDecoder.data(b);
 	}
 
 	@Override
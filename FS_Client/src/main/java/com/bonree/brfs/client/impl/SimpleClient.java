@@ -9,21 +9,21 @@ import org.apache.curator.shaded.com.google.common.base.Joiner;
 import org.apache.curator.shaded.com.google.common.primitives.Ints;
 
 import com.bonree.brfs.common.net.tcp.file.ReadObject;
-import com.bonree.brfs.common.proto.FileDataProtos.Fid;
 import com.bonree.brfs.common.utils.InputUtils;
 import com.bonree.brfs.common.write.data.FidDecoder;
+import com.bonree.brfs.common.write.data.FidInfo;
 
 public class SimpleClient {
 	private byte[] request;
 	private Socket socket;
 	
 	public SimpleClient(String fid, String ip, int port, String sr, int index) throws Exception {
-        Fid fidObj = FidDecoder.build(fid);
+        FidInfo fidObj = FidDecoder.decode(fid, new FidInfo());
         
         StringBuilder nameBuilder = new StringBuilder(fidObj.getUuid());
         String[] serverList = new String[fidObj.getServerIdCount()];
         for(int i = 0; i < fidObj.getServerIdCount(); i++) {
-        	String id = fidObj.getServerId(i);
+        	String id = String.valueOf(fidObj.getServerId(i));
         	nameBuilder.append('_').append(id);
         	serverList[i] = id;
         }
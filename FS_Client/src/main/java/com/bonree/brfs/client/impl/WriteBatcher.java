@@ -0,0 +1,203 @@
+package com.bonree.brfs.client.impl;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bonree.brfs.client.InputItem;
+
+/**
+ * 把单条写入的数据合并成批量写请求，
+ * 缓存的数据达到条数或字节数上限，或者第一条数据等待超过linger时间时发送
+ */
+public class WriteBatcher implements Closeable {
+	private static final Logger LOG = LoggerFactory.getLogger(WriteBatcher.class);
+
+	// 关闭时等待已发送的数据返回结果的最长时间
+	private static final long CLOSE_WAIT_SECONDS = 60;
+
+	private final int maxItems;
+	private final int maxBytes;
+	private final int lingerMillis;
+
+	private final Function<InputItem[], CompletableFuture<String[]>> batchWriter;
+	private final ScheduledExecutorService scheduler;
+
+	// 已提交但还未得到结果的数据条数上限，超过时写入线程会被阻塞
+	private final Semaphore pendingPermits;
+	private final int maxPendingItems;
+
+	private List<InputItem> items = new ArrayList<InputItem>();
+	private List<CompletableFuture<String>> futures = new ArrayList<CompletableFuture<String>>();
+	private int bufferedBytes;
+	private ScheduledFuture<?> lingerTask;
+	private boolean closed;
+
+	public WriteBatcher(int maxItems, int maxBytes, int lingerMillis, int maxPendingItems,
+			Function<InputItem[], CompletableFuture<String[]>> batchWriter,
+			ScheduledExecutorService scheduler) {
+		this.maxItems = maxItems;
+		this.maxBytes = maxBytes;
+		this.lingerMillis = lingerMillis;
+		this.pendingPermits = new Semaphore(maxPendingItems);
+		this.maxPendingItems = maxPendingItems;
+		this.batchWriter = batchWriter;
+		this.scheduler = scheduler;
+	}
+
+	public CompletableFuture<String> add(InputItem item) {
+		CompletableFuture<String> future = new CompletableFuture<String>();
+		try {
+			pendingPermits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			future.completeExceptionally(e);
+			return future;
+		}
+
+		Batch batch = null;
+		synchronized (this) {
+			// 关闭后加入的数据不会再被发送
+			if(closed || scheduler.isShutdown()) {
+				pendingPermits.release();
+				future.completeExceptionally(new IllegalStateException("write batcher is closed"));
+				return future;
+			}
+
+			items.add(item);
+			futures.add(future);
+			bufferedBytes += item.getBytes().length;
+
+			if(items.size() >= maxItems || bufferedBytes >= maxBytes) {
+				batch = takeBatch();
+			} else if(lingerTask == null) {
+				try {
+					lingerTask = scheduler.schedule(() -> flush(), lingerMillis, TimeUnit.MILLISECONDS);
+				} catch (RejectedExecutionException e) {
+					// 检查之后线程池才被关闭，不再等待直接发送
+					batch = takeBatch();
+				}
+			}
+		}
+
+		if(batch != null) {
+			send(batch);
+		}
+
+		return future;
+	}
+
+	public void flush() {
+		Batch batch;
+		synchronized (this) {
+			batch = takeBatch();
+		}
+
+		if(batch != null) {
+			send(batch);
+		}
+	}
+
+	private Batch takeBatch() {
+		if(lingerTask != null) {
+			lingerTask.cancel(false);
+			lingerTask = null;
+		}
+
+		if(items.isEmpty()) {
+			return null;
+		}
+
+		Batch batch = new Batch(items.toArray(new InputItem[items.size()]), futures);
+		items = new ArrayList<InputItem>();
+		futures = new ArrayList<CompletableFuture<String>>();
+		bufferedBytes = 0;
+
+		return batch;
+	}
+
+	private void send(Batch batch) {
+		CompletableFuture<String[]> result;
+		try {
+			result = batchWriter.apply(batch.items);
+		} catch (Exception e) {
+			result = new CompletableFuture<String[]>();
+			result.completeExceptionally(e);
+		}
+
+		result.whenComplete((fids, error) -> {
+			try {
+				if(error == null && (fids == null || fids.length != batch.items.length)) {
+					error = new IllegalStateException("fid count is not equal to item count");
+				}
+
+				if(error != null) {
+					LOG.error("write batch of {} items failed", batch.items.length, error);
+					failAll(batch, error);
+					return;
+				}
+
+				for(int i = 0; i < fids.length; i++) {
+					batch.futures.get(i).complete(fids[i]);
+				}
+			} catch (Throwable t) {
+				LOG.error("complete batch of {} items error", batch.items.length, t);
+				failAll(batch, t);
+			} finally {
+				pendingPermits.release(batch.items.length);
+			}
+		});
+	}
+
+	private static void failAll(Batch batch, Throwable error) {
+		for(CompletableFuture<String> future : batch.futures) {
+			future.completeExceptionally(error);
+		}
+	}
+
+	/**
+	 * 发送缓存的数据，并等待已发送的数据返回结果
+	 */
+	@Override
+	public void close() {
+		Batch batch;
+		synchronized (this) {
+			closed = true;
+			batch = takeBatch();
+		}
+
+		if(batch != null) {
+			send(batch);
+		}
+
+		try {
+			if(pendingPermits.tryAcquire(maxPendingItems, CLOSE_WAIT_SECONDS, TimeUnit.SECONDS)) {
+				pendingPermits.release(maxPendingItems);
+			} else {
+				LOG.warn("some written items have no result after {} seconds", CLOSE_WAIT_SECONDS);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static class Batch {
+		private final InputItem[] items;
+		private final List<CompletableFuture<String>> futures;
+
+		Batch(InputItem[] items, List<CompletableFuture<String>> futures) {
+			this.items = items;
+			this.futures = futures;
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package com.bonree.brfs.client.route;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 记录客户端到每个数据节点的读取延迟（指数加权移动平均），
+ * 用于在多个副本之间优先选择响应最快的节点
+ */
+public class ServiceLatencyTracker {
+	private static final double DEFAULT_ALPHA = 0.2;
+	// 读取失败时按此延迟计入，使失败的节点在一段时间内不被优先选择
+	private static final long DEFAULT_FAILURE_PENALTY_MILLIS = 1000;
+
+	private final double alpha;
+	private final long failurePenaltyMillis;
+
+	private ConcurrentHashMap<String, AtomicLong> latencies = new ConcurrentHashMap<String, AtomicLong>();
+
+	public ServiceLatencyTracker() {
+		this(DEFAULT_ALPHA, DEFAULT_FAILURE_PENALTY_MILLIS);
+	}
+
+	public ServiceLatencyTracker(double alpha, long failurePenaltyMillis) {
+		this.alpha = alpha;
+		this.failurePenaltyMillis = failurePenaltyMillis;
+	}
+
+	public void update(String serviceId, long elapsedMillis) {
+		AtomicLong latency = latencies.get(serviceId);
+		if(latency == null) {
+			latency = latencies.putIfAbsent(serviceId, new AtomicLong(Double.doubleToLongBits(elapsedMillis)));
+			if(latency == null) {
+				return;
+			}
+		}
+
+		while(true) {
+			long bits = latency.get();
+			double old = Double.longBitsToDouble(bits);
+			double updated = old + alpha * (elapsedMillis - old);
+			if(latency.compareAndSet(bits, Double.doubleToLongBits(updated))) {
+				return;
+			}
+		}
+	}
+
+	public void failed(String serviceId) {
+		update(serviceId, failurePenaltyMillis);
+	}
+
+	/**
+	 * 获取节点的平均读取延迟，没有记录的节点返回0，以便新节点能够被选中
+	 */
+	public double latency(String serviceId) {
+		AtomicLong latency = latencies.get(serviceId);
+		return latency == null ? 0 : Double.longBitsToDouble(latency.get());
+	}
+
+	public void remove(String serviceId) {
+		latencies.remove(serviceId);
+	}
+}
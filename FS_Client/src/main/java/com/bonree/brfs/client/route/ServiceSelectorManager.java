@@ -25,6 +25,8 @@ public class ServiceSelectorManager implements Closeable {
     private TreeCache treeCache;
     
     private final String diskServiceGroup;
+    
+    private final ServiceLatencyTracker latencyTracker = new ServiceLatencyTracker();
 
     public ServiceSelectorManager(CuratorFramework client, String nameSpace, String zkServerIDPath,
     		String baseRoutePath,
@@ -58,6 +60,7 @@ public class ServiceSelectorManager implements Closeable {
 			@Override
 			public void serviceRemoved(Service service) {
 				diskServiceMetaCache.removeService(service);
+				latencyTracker.remove(service.getServiceId());
 			}
 			
 			@Override
@@ -73,7 +76,7 @@ public class ServiceSelectorManager implements Closeable {
         RouteParser routeParser = new RouteParser(routeCache);
 
         // 兼容余鹏的client读取
-        readServerSelector = new ReaderServiceSelector(diskServiceMetaCache, routeParser);
+        readServerSelector = new ReaderServiceSelector(diskServiceMetaCache, routeParser, latencyTracker);
 
         RouteCacheListener cacheListener = new RouteCacheListener(routeCache);
         treeCache.getListenable().addListener(cacheListener);
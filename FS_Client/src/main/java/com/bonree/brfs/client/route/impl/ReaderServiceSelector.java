@@ -1,5 +1,6 @@
 package com.bonree.brfs.client.route.impl;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
@@ -8,20 +9,36 @@ import org.slf4j.LoggerFactory;
 
 import com.bonree.brfs.client.meta.impl.DiskServiceMetaCache;
 import com.bonree.brfs.client.route.RouteParser;
+import com.bonree.brfs.client.route.ServiceLatencyTracker;
 import com.bonree.brfs.client.route.ServiceMetaInfo;
 import com.bonree.brfs.common.service.Service;
 
 public class ReaderServiceSelector {
 
     private static final Logger LOG = LoggerFactory.getLogger(ReaderServiceSelector.class);
+    // 按延迟加权时给延迟加上的基数，避免没有延迟记录的副本权重无穷大
+    private static final double LATENCY_BASE_MILLIS = 1;
+    // 这个比例的读取在副本之间均匀选择，使延迟较高的副本也能更新延迟并恢复
+    private static final double PROBE_RATIO = 0.05;
     private DiskServiceMetaCache diskServiceMetaCache;
     private RouteParser routeParser;
     
+    private ServiceLatencyTracker latencyTracker;
+    
     private Random rand = new Random();
 
     public ReaderServiceSelector(DiskServiceMetaCache diskServiceMetaCache, RouteParser routeParser) {
+        this(diskServiceMetaCache, routeParser, new ServiceLatencyTracker());
+    }
+    
+    public ReaderServiceSelector(DiskServiceMetaCache diskServiceMetaCache, RouteParser routeParser, ServiceLatencyTracker latencyTracker) {
         this.diskServiceMetaCache = diskServiceMetaCache;
         this.routeParser = routeParser;
+        this.latencyTracker = latencyTracker;
+    }
+    
+    public ServiceLatencyTracker getLatencyTracker() {
+    	return latencyTracker;
     }
 
     public ServiceMetaInfo selectService(String uuid, String[] serverIdList) {
@@ -33,23 +50,60 @@ public class ReaderServiceSelector {
             return diskServiceMetaCache.getFirstServerCache(serverIdList[0]);
         }
         
-        // 多个副本时，选择一个副本
-        int index = rand.nextInt(serverIdList.length);
+        // 多个副本时，按平均读取延迟的倒数加权随机选择副本，延迟越小的副本被选中的概率越大
+        int start = rand.nextInt(serverIdList.length);
+        int fallbackIndex = -1;
+        List<ServiceMetaInfo> candidates = new ArrayList<ServiceMetaInfo>(serverIdList.length);
+        double[] weights = new double[serverIdList.length];
+        double totalWeight = 0;
         for(int i = 0; i < serverIdList.length; i++) {
-        	if(serverIdList[index] != null) {
-        		break;
+        	int index = (start + i) % serverIdList.length;
+        	if(serverIdList[index] == null) {
+        		continue;
+        	}
+        	
+        	if(fallbackIndex < 0) {
+        		fallbackIndex = index;
+        	}
+        	
+        	String aliveSecondID = routeParser.findServerID(serverIdList[index], uuid, serverIdList, aliveServices);
+        	if(aliveSecondID == null) {
+        		continue;
+        	}
+        	
+        	ServiceMetaInfo metaInfo = diskServiceMetaCache.getSecondServerCache(aliveSecondID, index + 1);
+        	Service service = metaInfo.getFirstServer();
+        	if(service == null) {
+        		continue;
         	}
         	
-        	index = ++index % serverIdList.length;
+        	double weight = 1 / (latencyTracker.latency(service.getServiceId()) + LATENCY_BASE_MILLIS);
+        	weights[candidates.size()] = weight;
+        	totalWeight += weight;
+        	candidates.add(metaInfo);
         }
         
-        final int pos = index + 1;
-        String aliveSecondID = routeParser.findServerID(serverIdList[index], uuid, serverIdList, aliveServices);
+        if(candidates.size() == 1) {
+        	return candidates.get(0);
+        }
         
-        if (aliveSecondID != null) {
-            return diskServiceMetaCache.getSecondServerCache(aliveSecondID, pos);
+        if(!candidates.isEmpty()) {
+        	if(rand.nextDouble() < PROBE_RATIO) {
+        		return candidates.get(rand.nextInt(candidates.size()));
+        	}
+        	
+        	double point = rand.nextDouble() * totalWeight;
+        	for(int i = 0; i < candidates.size() - 1; i++) {
+        		point -= weights[i];
+        		if(point < 0) {
+        			return candidates.get(i);
+        		}
+        	}
+        	
+        	return candidates.get(candidates.size() - 1);
         }
         
+        final int pos = Math.max(fallbackIndex, 0) + 1;
         return new ServiceMetaInfo() {
 			
 			@Override
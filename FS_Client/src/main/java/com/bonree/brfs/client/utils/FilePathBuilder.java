@@ -1,6 +1,7 @@
 package com.bonree.brfs.client.utils;
 
 import com.bonree.brfs.common.proto.FileDataProtos.Fid;
+import com.bonree.brfs.common.write.data.FidInfo;
 
 public final class FilePathBuilder {
 	
@@ -23,4 +24,22 @@ public final class FilePathBuilder {
 		
 		return builder.toString();
 	}
+	
+	public static String buildPath(FidInfo fid, String timeInterval, String storageName, int index) {
+		StringBuilder builder = new StringBuilder();
+		builder.append(PATH_SEPARATOR)
+		.append(storageName)
+		.append(PATH_SEPARATOR)
+		.append(index)
+		.append(PATH_SEPARATOR)
+		.append(timeInterval)
+		.append(PATH_SEPARATOR)
+		.append(fid.getUuid());
+		
+		for(int i = 0; i < fid.getServerIdCount(); i++) {
+			builder.append("_").append(fid.getServerId(i));
+		}
+		
+		return builder.toString();
+	}
 }
@@ -10,7 +10,11 @@ public class FileChannelInitializer extends ChannelInitializer<SocketChannel> {
 	private MappedFileReadHandler fileReadHandler;
 	
 	public FileChannelInitializer(ReadObjectTranslator translator) {
-		this.fileReadHandler = new MappedFileReadHandler(translator);
+		this(translator, null);
+	}
+	
+	public FileChannelInitializer(ReadObjectTranslator translator, FileTailReader tailReader) {
+		this.fileReadHandler = new MappedFileReadHandler(translator, tailReader);
 	}
 
 	@Override
@@ -0,0 +1,37 @@
+package com.bonree.brfs.common.net.tcp.file;
+
+/**
+ * 正在写入的文件中还没有写入磁盘的数据
+ * 
+ * 文件中[0, flushedLength)的数据已经写入磁盘，[flushedLength, length)的数据还在写入缓存中，
+ * bytes是缓存数据中从offset开始的一段拷贝
+ */
+public class FileTail {
+	private final long flushedLength;
+	private final long length;
+	private final long offset;
+	private final byte[] bytes;
+	
+	public FileTail(long flushedLength, long length, long offset, byte[] bytes) {
+		this.flushedLength = flushedLength;
+		this.length = length;
+		this.offset = offset;
+		this.bytes = bytes;
+	}
+	
+	public long flushedLength() {
+		return flushedLength;
+	}
+	
+	public long length() {
+		return length;
+	}
+	
+	public long offset() {
+		return offset;
+	}
+	
+	public byte[] bytes() {
+		return bytes;
+	}
+}
@@ -0,0 +1,10 @@
+package com.bonree.brfs.common.net.tcp.file;
+
+public interface FileTailReader {
+	/**
+	 * 读取文件[offset, offset + length)范围内还在写入缓存中的数据
+	 * 
+	 * @return 文件没有在写入时返回null
+	 */
+	FileTail read(String filePath, long offset, int length);
+}
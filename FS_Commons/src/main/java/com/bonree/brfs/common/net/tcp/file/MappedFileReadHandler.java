@@ -11,13 +11,12 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.bonree.brfs.common.delivery.ProducerClient;
-import com.bonree.brfs.common.supervisor.ReadMetric;
+import com.bonree.brfs.common.supervisor.ForegroundActivity;
+import com.bonree.brfs.common.supervisor.MetricsRegistry;
 import com.bonree.brfs.common.supervisor.TimeWatcher;
 import com.bonree.brfs.common.utils.BufferUtils;
 import com.bonree.brfs.common.utils.TimeUtils;
@@ -37,11 +36,18 @@ import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 
+/**
+ * 通过文件映射读取数据文件
+ * 
+ * 正在写入的文件中还没有写入磁盘的数据通过{@link FileTailReader}从写入缓存中读取，
+ * 文件变长或者被截断后会重新建立映射，新写入的数据不需要等待刷盘就可以读取
+ */
 @Sharable
 public class MappedFileReadHandler extends SimpleChannelInboundHandler<ReadObject>{
     private static final Logger LOG = LoggerFactory.getLogger(MappedFileReadHandler.class);
 
     private ReadObjectTranslator translator;
+    private FileTailReader tailReader;
     private ExecutorService releaseRunner = Executors.newSingleThreadExecutor(new ThreadFactory(){
 
         @Override
@@ -59,6 +65,8 @@ public class MappedFileReadHandler extends SimpleChannelInboundHandler<ReadObjec
         @Override
         public void onRemoval(RemovalNotification<String, BufferRef> notification){
             LOG.info("remove file mapping of [{}] from cache", notification.getKey());
+            // 标记为失效后不能再被引用，引用计数为0后才可以释放
+            notification.getValue().evict();
             synchronized(releaseList) {
                 releaseList.addLast(notification.getValue());
             }
@@ -82,15 +90,22 @@ public class MappedFileReadHandler extends SimpleChannelInboundHandler<ReadObjec
     });
 
     public MappedFileReadHandler(ReadObjectTranslator translator){
+        this(translator, null);
+    }
+
+    public MappedFileReadHandler(ReadObjectTranslator translator, FileTailReader tailReader){
         this.translator = translator;
+        this.tailReader = tailReader;
         this.releaseRunner.execute(() -> {
             while(true) {
-                Iterator<BufferRef> iter = releaseList.iterator();
-                while(iter.hasNext()) {
-                    BufferRef bufferRef = iter.next();
-                    if(bufferRef.refCount() == 0) {
-                        BufferUtils.release(bufferRef.buffer());
-                        iter.remove();
+                synchronized(releaseList) {
+                    Iterator<BufferRef> iter = releaseList.iterator();
+                    while(iter.hasNext()) {
+                        BufferRef bufferRef = iter.next();
+                        if(bufferRef.releasable()) {
+                            BufferUtils.release(bufferRef.buffer());
+                            iter.remove();
+                        }
                     }
                 }
 
@@ -112,67 +127,212 @@ public class MappedFileReadHandler extends SimpleChannelInboundHandler<ReadObjec
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, ReadObject readObject) throws Exception{
+        ForegroundActivity.mark();
         if(readObject.getFilePath().equals("-")) {
             readObject.setFilePath(buildPath(readObject));
         }
 
-        ReadMetric readMetric = new ReadMetric();
-        readMetric.setMonitorTime(System.currentTimeMillis());
-        readMetric.setStorageName(readObject.getSn());
-        readMetric.setDataNodeId(readObject.getFileName().split("_")[readObject.getIndex()]);
-        readMetric.setDataCount(1);
         TimeWatcher timeWatcher = new TimeWatcher();
         
         String filePath = (readObject.getRaw() & ReadObject.RAW_PATH) == 0 ? translator.filePath(readObject.getFilePath()) : readObject.getFilePath();
 
-        MappedByteBuffer fileBuffer = null;
         try{
-            BufferRef ref = bufferCache.get(filePath).retain();
-            fileBuffer = ref.buffer();
+            if(readObject.isBatch()) {
+                long[] offsets = readObject.getOffsets();
+                int[] lengths = readObject.getLengths();
+                long[] readOffsets = new long[offsets.length];
+                int[] readLengths = new int[offsets.length];
+                long start = Long.MAX_VALUE;
+                long end = 0;
+                for(int i = 0; i < offsets.length; i++) {
+                    readOffsets[i] = (readObject.getRaw() & ReadObject.RAW_OFFSET) == 0 ? translator.offset(offsets[i]) : offsets[i];
+                    readLengths[i] = (readObject.getRaw() & ReadObject.RAW_LENGTH) == 0 ? translator.length(lengths[i]) : lengths[i];
+                    start = Math.min(start, readOffsets[i]);
+                    end = Math.max(end, readOffsets[i] + readLengths[i]);
+                }
 
-            long readOffset = (readObject.getRaw() & ReadObject.RAW_OFFSET) == 0 ? translator.offset(readObject.getOffset()) : readObject.getOffset();
-            int readLength = (readObject.getRaw() & ReadObject.RAW_LENGTH) == 0 ? translator.length(readObject.getLength()) : readObject.getLength();
-            long fileLength = fileBuffer.capacity();
-            if(readOffset < 0 || readOffset > fileLength) {
-                LOG.error("unexcepted file[{}] offset : {}, file length : {}", filePath, readOffset, fileLength);
-                ctx.writeAndFlush(Unpooled.wrappedBuffer(Ints.toByteArray(readObject.getToken()), Ints.toByteArray(-1))).addListener(ChannelFutureListener.CLOSE);
+                FileTail tail = readTail(filePath, start, end);
+                BufferRef ref = mapping(filePath, tail, start, end);
+                ByteBuf result = batchContent(readObject, ref.buffer(), tail, readOffsets, readLengths);
+                // 去掉token、总长度和每个数据段的长度字段
+                int dataSize = result.readableBytes() - Integer.BYTES * (2 + offsets.length);
+                ctx.writeAndFlush(result).addListener(new ChannelFutureListener(){
+
+                    @Override
+                    public void operationComplete(ChannelFuture future) throws Exception{
+                        ref.release();
+
+                        recordMetric(readObject, offsets.length, dataSize, timeWatcher);
+                    }
+                }).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
                 return;
             }
 
-            int readableLength = (int) Math.min(readLength, fileLength - readOffset);
-            readMetric.setDataSize(readableLength);
+            long readOffset = (readObject.getRaw() & ReadObject.RAW_OFFSET) == 0 ? translator.offset(readObject.getOffset()) : readObject.getOffset();
+            int readLength = (readObject.getRaw() & ReadObject.RAW_LENGTH) == 0 ? translator.length(readObject.getLength()) : readObject.getLength();
 
-            ByteBuffer contentBuffer = fileBuffer.slice();
-            contentBuffer.position((int) readOffset);
-            contentBuffer.limit((int) (readOffset + readableLength));
+            FileTail tail = readTail(filePath, readOffset, readOffset + readLength);
+            BufferRef ref = mapping(filePath, tail, readOffset, readOffset + readLength);
+            ByteBuf content = content(ref.buffer(), tail, readOffset, readLength);
+            if(content == null) {
+                ref.release();
+                LOG.error("unexcepted file[{}] offset : {}, file length : {}", filePath, readOffset, fileLength(ref.buffer(), tail));
+                ctx.writeAndFlush(Unpooled.wrappedBuffer(Ints.toByteArray(readObject.getToken()), Ints.toByteArray(-1))).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+                return;
+            }
 
+            int readableLength = content.readableBytes();
             ByteBuf result = Unpooled.wrappedBuffer(Unpooled.wrappedBuffer(Ints.toByteArray(readObject.getToken())),
             		Unpooled.wrappedBuffer(Ints.toByteArray(readableLength)),
-            		Unpooled.wrappedBuffer(contentBuffer.slice()));
+            		content);
 
             ctx.writeAndFlush(result).addListener(new ChannelFutureListener(){
 
                 @Override
                 public void operationComplete(ChannelFuture future) throws Exception{
-                	readMetric.setElapsedTime(timeWatcher.getElapsedTime());
                     ref.release();
                     
-                    ProducerClient.getInstance().sendReaderMetric(readMetric.toMap());
+                    recordMetric(readObject, 1, readableLength, timeWatcher);
                 }
             }).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
         } catch(ExecutionException e){
             LOG.error("can not open file channel for {}", filePath, e);
-            ctx.writeAndFlush(Unpooled.wrappedBuffer(Ints.toByteArray(readObject.getToken()), Ints.toByteArray(-1))).addListener(ChannelFutureListener.CLOSE);
+            ctx.writeAndFlush(Unpooled.wrappedBuffer(Ints.toByteArray(readObject.getToken()), Ints.toByteArray(-1))).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
             return;
         } catch(Exception e){
             LOG.error("read file error", e);
-            ctx.writeAndFlush(Unpooled.wrappedBuffer(Ints.toByteArray(readObject.getToken()), Ints.toByteArray(-1))).addListener(ChannelFutureListener.CLOSE);
+            ctx.writeAndFlush(Unpooled.wrappedBuffer(Ints.toByteArray(readObject.getToken()), Ints.toByteArray(-1))).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
             return;
         } finally{
             bufferCache.cleanUp();
         }
     }
 
+    private void recordMetric(ReadObject readObject, int dataCount, long dataSize, TimeWatcher timeWatcher) {
+        MetricsRegistry.getInstance().recordRead(readObject.getSn(), readObject.getFileName().split("_")[readObject.getIndex()],
+                dataCount, dataSize, timeWatcher.getElapsedMicros());
+    }
+
+    private FileTail readTail(String filePath, long start, long end){
+        if(tailReader == null || end <= start) {
+            return null;
+        }
+
+        return tailReader.read(filePath, start, (int) Math.min(end - start, Integer.MAX_VALUE));
+    }
+
+    /**
+     * 获取并引用文件映射
+     * 
+     * 只有[start, requiredEnd)中超出映射的部分既不在磁盘文件的映射中，也不在写入缓存的数据中时才重新映射
+     */
+    private BufferRef mapping(String filePath, FileTail tail, long start, long requiredEnd) throws ExecutionException{
+        boolean remapped = false;
+        while(true) {
+            BufferRef ref = bufferCache.get(filePath);
+            if(!ref.tryRetain()) {
+                // 已经被移出缓存，重新获取
+                continue;
+            }
+
+            long mappedLength = ref.buffer().capacity();
+            boolean stale;
+            if(remapped) {
+                stale = false;
+            } else if(tail != null) {
+                long end = Math.min(requiredEnd, tail.length());
+                stale = end > mappedLength && tail.offset() > Math.max(mappedLength, start);
+            } else {
+                stale = requiredEnd > mappedLength && new File(filePath).length() > mappedLength;
+            }
+
+            if(!stale) {
+                return ref;
+            }
+
+            LOG.debug("remap file[{}] with mapped length[{}]", filePath, mappedLength);
+            ref.release();
+            bufferCache.asMap().remove(filePath, ref);
+            remapped = true;
+        }
+    }
+
+    /**
+     * 映射中可以访问的长度，正在写入的文件被截断后映射可能超出文件长度，超出的部分不能访问
+     */
+    private static long mappedLength(MappedByteBuffer fileBuffer, FileTail tail){
+        return tail == null ? fileBuffer.capacity() : Math.min(fileBuffer.capacity(), tail.flushedLength());
+    }
+
+    private static long fileLength(MappedByteBuffer fileBuffer, FileTail tail){
+        return tail == null ? fileBuffer.capacity() : tail.length();
+    }
+
+    /**
+     * 文件中从offset开始最多length字节的数据，已经刷盘的部分来自文件映射，之后的部分来自写入缓存
+     * 
+     * @return offset超出文件范围时返回null
+     */
+    private static ByteBuf content(MappedByteBuffer fileBuffer, FileTail tail, long offset, int length){
+        long fileLength = fileLength(fileBuffer, tail);
+        if(offset < 0 || offset > fileLength) {
+            return null;
+        }
+
+        long end = offset + Math.min(length, fileLength - offset);
+        long mappedEnd = Math.max(offset, Math.min(end, mappedLength(fileBuffer, tail)));
+
+        ByteBuf mapped = Unpooled.EMPTY_BUFFER;
+        if(mappedEnd > offset) {
+            ByteBuffer contentBuffer = fileBuffer.slice();
+            contentBuffer.position((int) offset);
+            contentBuffer.limit((int) mappedEnd);
+            mapped = Unpooled.wrappedBuffer(contentBuffer.slice());
+        }
+        if(tail == null || mappedEnd >= end || tail.offset() > mappedEnd) {
+            return mapped;
+        }
+
+        byte[] bytes = tail.bytes();
+        long tailEnd = Math.min(end, tail.offset() + bytes.length);
+        if(tailEnd <= mappedEnd) {
+            return mapped;
+        }
+
+        return Unpooled.wrappedBuffer(mapped,
+                Unpooled.wrappedBuffer(bytes, (int) (mappedEnd - tail.offset()), (int) (tailEnd - mappedEnd)));
+    }
+
+    /**
+     * 批量读取同一文件中的多段数据，所有数据段共用一次文件映射。
+     * 
+     * 返回内容为[token][总长度]，之后每个数据段为[长度][数据]，无效的数据段长度为-1
+     */
+    private ByteBuf batchContent(ReadObject readObject, MappedByteBuffer fileBuffer, FileTail tail, long[] readOffsets, int[] readLengths){
+        ByteBuf[] parts = new ByteBuf[readOffsets.length * 2 + 2];
+        int totalLength = 0;
+        for(int i = 0; i < readOffsets.length; i++) {
+            ByteBuf content = content(fileBuffer, tail, readOffsets[i], readLengths[i]);
+            if(content == null) {
+                LOG.error("unexcepted file[{}] offset : {}, file length : {}", readObject.getFilePath(), readOffsets[i], fileLength(fileBuffer, tail));
+                parts[i * 2 + 2] = Unpooled.wrappedBuffer(Ints.toByteArray(-1));
+                parts[i * 2 + 3] = Unpooled.EMPTY_BUFFER;
+                totalLength += Integer.BYTES;
+                continue;
+            }
+
+            int readableLength = content.readableBytes();
+            parts[i * 2 + 2] = Unpooled.wrappedBuffer(Ints.toByteArray(readableLength));
+            parts[i * 2 + 3] = content;
+            totalLength += Integer.BYTES + readableLength;
+        }
+
+        parts[0] = Unpooled.wrappedBuffer(Ints.toByteArray(readObject.getToken()));
+        parts[1] = Unpooled.wrappedBuffer(Ints.toByteArray(totalLength));
+
+        return Unpooled.wrappedBuffer(parts);
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception{
         LOG.error("file read error", cause);
@@ -180,29 +340,40 @@ public class MappedFileReadHandler extends SimpleChannelInboundHandler<ReadObjec
     }
 
     private class BufferRef{
-        private AtomicInteger refCount;
+        private int refCount;
+        private boolean evicted;
         private final MappedByteBuffer buffer;
 
         public BufferRef(MappedByteBuffer buffer){
             this.buffer = buffer;
-            this.refCount = new AtomicInteger(0);
         }
 
         public MappedByteBuffer buffer(){
             return this.buffer;
         }
 
-        public int refCount(){
-            return this.refCount.get();
+        /**
+         * 映射已经被移出缓存时引用失败
+         */
+        public synchronized boolean tryRetain(){
+            if(evicted) {
+                return false;
+            }
+
+            refCount++;
+            return true;
+        }
+
+        public synchronized boolean release(){
+            return --refCount == 0;
         }
 
-        public BufferRef retain(){
-            refCount.incrementAndGet();
-            return this;
+        public synchronized void evict(){
+            evicted = true;
         }
 
-        public boolean release(){
-            return refCount.decrementAndGet() == 0;
+        public synchronized boolean releasable(){
+            return evicted && refCount == 0;
         }
     }
 
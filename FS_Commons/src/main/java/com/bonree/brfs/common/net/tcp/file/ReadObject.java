@@ -22,6 +22,14 @@ public class ReadObject {
 	@JsonProperty("raw")
 	private int raw;
 	
+	/**
+	 * 批量读取同一个文件中的多段数据，不为空时忽略offset和length
+	 */
+	@JsonProperty("offsets")
+	private long[] offsets;
+	@JsonProperty("lengths")
+	private int[] lengths;
+	
 	private int index;
 	private String sn;
 	private long time;
@@ -108,6 +116,27 @@ public class ReadObject {
 		this.raw = raw;
 	}
 	
+	public long[] getOffsets() {
+		return offsets;
+	}
+
+	public int[] getLengths() {
+		return lengths;
+	}
+
+	public void setBatch(long[] offsets, int[] lengths) {
+		if(offsets.length != lengths.length) {
+			throw new IllegalArgumentException("size of offsets and lengths is not equal");
+		}
+		
+		this.offsets = offsets;
+		this.lengths = lengths;
+	}
+	
+	public boolean isBatch() {
+		return offsets != null;
+	}
+	
 	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder();
@@ -29,6 +29,21 @@ public class ReadObjectStringDecoder extends ByteToMessageDecoder {
 		object.setRaw(Integer.parseInt(parts.get(index++)));
 		object.setToken(Integer.parseInt(parts.get(index++)));
 		
+		// 批量读取时在token之后附加"offset:length,offset:length..."
+		if(index < parts.size() && !parts.get(index).isEmpty()) {
+			List<String> items = Splitter.on(',').splitToList(parts.get(index));
+			long[] offsets = new long[items.size()];
+			int[] lengths = new int[items.size()];
+			for(int i = 0; i < items.size(); i++) {
+				String item = items.get(i);
+				int split = item.indexOf(':');
+				offsets[i] = Long.parseLong(item.substring(0, split));
+				lengths[i] = Integer.parseInt(item.substring(split + 1));
+			}
+			
+			object.setBatch(offsets, lengths);
+		}
+		
 		out.add(object);
 	}
 
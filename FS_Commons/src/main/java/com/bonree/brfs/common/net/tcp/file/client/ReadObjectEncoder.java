@@ -30,7 +30,27 @@ public class ReadObjectEncoder extends MessageToByteEncoder<TokenMessage<ReadObj
 						readObject.getLength(),
 						readObject.getRaw(),
 						readObject.getToken(),
+						batchString(readObject),
 						"\n").getBytes(Charsets.UTF_8));
 	}
+	
+	private static String batchString(ReadObject readObject) {
+		if(!readObject.isBatch()) {
+			return "";
+		}
+		
+		StringBuilder builder = new StringBuilder();
+		long[] offsets = readObject.getOffsets();
+		int[] lengths = readObject.getLengths();
+		for(int i = 0; i < offsets.length; i++) {
+			if(i > 0) {
+				builder.append(',');
+			}
+			
+			builder.append(offsets[i]).append(':').append(lengths[i]);
+		}
+		
+		return builder.toString();
+	}
 
 }
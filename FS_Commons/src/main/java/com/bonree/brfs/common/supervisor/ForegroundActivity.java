@@ -0,0 +1,40 @@
+package com.bonree.brfs.common.supervisor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录最近一次前台读写请求的时间，后台任务在执行磁盘操作前
+ * 可以等待前台请求空闲一段时间后再继续，从而让出磁盘带宽
+ */
+public final class ForegroundActivity {
+	private static volatile long lastActiveNanos = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+
+	/**
+	 * 前台读写请求到达时调用
+	 */
+	public static void mark() {
+		lastActiveNanos = System.nanoTime();
+	}
+
+	/**
+	 * 等待前台请求空闲超过quietMillis，最多等待maxWaitMillis，避免后台任务被一直阻塞
+	 *
+	 * @return 实际等待的时间，单位毫秒
+	 */
+	public static long awaitQuiet(long quietMillis, long maxWaitMillis) throws InterruptedException {
+		long quietNanos = TimeUnit.MILLISECONDS.toNanos(quietMillis);
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+		while(true) {
+			long now = System.nanoTime();
+			long remain = quietNanos - (now - lastActiveNanos);
+			if(remain <= 0 || now - deadline >= 0) {
+				return TimeUnit.NANOSECONDS.toMillis(now - start);
+			}
+
+			TimeUnit.NANOSECONDS.sleep(Math.min(remain, deadline - now));
+		}
+	}
+
+	private ForegroundActivity() {}
+}
@@ -0,0 +1,117 @@
+package com.bonree.brfs.common.supervisor;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁的对数线性分桶直方图（HDR风格），用于统计延迟分布
+ *
+ * 小于2^SUB_BUCKET_BITS的值每个值一个桶，更大的值在每个2的幂区间内再均分为
+ * 2^SUB_BUCKET_BITS个子桶，因此相对误差不超过1/2^SUB_BUCKET_BITS
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	// 可以区分的最大值为2^MAX_VALUE_BITS - 1，超过的值都计入最后一个桶
+	private static final int MAX_VALUE_BITS = 36;
+	private static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+	private static final int BUCKET_COUNT = (MAX_VALUE_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+	public void record(long value) {
+		buckets.incrementAndGet(bucketIndex(value));
+	}
+
+	/**
+	 * 获取当前的统计数据并清空直方图
+	 */
+	public Snapshot snapshotAndReset() {
+		long[] counts = new long[BUCKET_COUNT];
+		for(int i = 0; i < BUCKET_COUNT; i++) {
+			if(buckets.get(i) != 0) {
+				counts[i] = buckets.getAndSet(i, 0);
+			}
+		}
+
+		return new Snapshot(counts);
+	}
+
+	static int bucketIndex(long value) {
+		if(value < SUB_BUCKET_COUNT) {
+			return value < 0 ? 0 : (int) value;
+		}
+
+		if(value > MAX_VALUE) {
+			value = MAX_VALUE;
+		}
+
+		int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+		return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	/**
+	 * 桶内可以表示的最大值
+	 */
+	static long bucketUpperBound(int index) {
+		if(index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+
+		int shift = index / SUB_BUCKET_COUNT - 1;
+		long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	public static class Snapshot {
+		private final long[] counts;
+		private final long totalCount;
+		private final long maxValue;
+
+		private Snapshot(long[] counts) {
+			this.counts = counts;
+
+			long total = 0;
+			int last = -1;
+			for(int i = 0; i < counts.length; i++) {
+				if(counts[i] != 0) {
+					total += counts[i];
+					last = i;
+				}
+			}
+
+			this.totalCount = total;
+			this.maxValue = last < 0 ? 0 : bucketUpperBound(last);
+		}
+
+		public long getTotalCount() {
+			return totalCount;
+		}
+
+		public long getMaxValue() {
+			return maxValue;
+		}
+
+		/**
+		 * 获取百分位数对应的值
+		 *
+		 * @param percentile 取值范围(0, 100]
+		 */
+		public long getValueAtPercentile(double percentile) {
+			if(totalCount == 0) {
+				return 0;
+			}
+
+			long target = Math.max(1, (long) Math.ceil(totalCount * Math.min(percentile, 100.0) / 100.0));
+			long accumulated = 0;
+			for(int i = 0; i < counts.length; i++) {
+				accumulated += counts[i];
+				if(accumulated >= target) {
+					return bucketUpperBound(i);
+				}
+			}
+
+			return maxValue;
+		}
+	}
+}
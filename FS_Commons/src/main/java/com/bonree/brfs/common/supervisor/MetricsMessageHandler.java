@@ -0,0 +1,26 @@
+package com.bonree.brfs.common.supervisor;
+
+import com.bonree.brfs.common.net.http.HandleResult;
+import com.bonree.brfs.common.net.http.HandleResultCallback;
+import com.bonree.brfs.common.net.http.HttpMessage;
+import com.bonree.brfs.common.net.http.MessageHandler;
+import com.bonree.brfs.common.utils.JsonUtils;
+
+/**
+ * 以json格式返回{@link MetricsRegistry}最近一个周期的汇总数据
+ */
+public class MetricsMessageHandler implements MessageHandler {
+
+	@Override
+	public boolean isValidRequest(HttpMessage message) {
+		return true;
+	}
+
+	@Override
+	public void handle(HttpMessage msg, HandleResultCallback callback) {
+		HandleResult result = new HandleResult();
+		result.setData(JsonUtils.toJsonBytesQuietly(MetricsRegistry.getInstance().getLastSnapshot()));
+		callback.completed(result);
+	}
+
+}
@@ -0,0 +1,161 @@
+package com.bonree.brfs.common.supervisor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bonree.brfs.common.delivery.ProducerClient;
+import com.bonree.brfs.configuration.Configs;
+import com.bonree.brfs.configuration.units.KafkaConfig;
+
+/**
+ * 进程内的读写指标汇总，按存储区域、节点和操作类型分别统计。
+ *
+ * 读写请求只更新对应维度的计数器，由后台线程定期生成汇总数据，
+ * 每个维度每个周期只向{@link ProducerClient}推送一条记录
+ */
+public class MetricsRegistry {
+	private static final Logger LOG = LoggerFactory.getLogger(MetricsRegistry.class);
+
+	public static final String OPERATION_WRITE = "write";
+	public static final String OPERATION_READ = "read";
+
+	private final MetricNode writeMetrics = new MetricNode();
+	private final MetricNode readMetrics = new MetricNode();
+
+	// 最近一个周期的汇总数据
+	private volatile Map<String, List<Map<String, Object>>> lastSnapshot = Collections.emptyMap();
+
+	private final ScheduledExecutorService flushThread;
+
+	private MetricsRegistry() {
+		long interval = Configs.getConfiguration().GetConfig(KafkaConfig.CONFIG_METRIC_FLUSH_INTERVAL);
+		this.flushThread = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "metrics_flusher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.flushThread.scheduleWithFixedDelay(() -> {
+			try {
+				flush();
+			} catch (Exception e) {
+				LOG.error("flush metrics error", e);
+			}
+		}, interval, interval, TimeUnit.SECONDS);
+	}
+
+	public static MetricsRegistry getInstance() {
+		return Holder.registry;
+	}
+
+	private static class Holder {
+		private final static MetricsRegistry registry = new MetricsRegistry();
+	}
+
+	public void recordWrite(String storageName, String regionNodeId, String dataNodeId,
+			int dataCount, long dataSize, long dataMaxSize, long elapsedMicros) {
+		MetricNode node = writeMetrics.child(storageName).child(regionNodeId).child(dataNodeId);
+		OperationMetric metric = node.metric;
+		if(metric == null) {
+			Map<String, Object> tags = new HashMap<String, Object>();
+			tags.put("storage_name", storageName);
+			tags.put("region_node_id", regionNodeId);
+			tags.put("data_node_id", dataNodeId);
+			metric = node.init(tags);
+		}
+
+		metric.record(dataCount, dataSize, dataMaxSize, elapsedMicros);
+	}
+
+	public void recordRead(String storageName, String dataNodeId, int dataCount, long dataSize, long elapsedMicros) {
+		MetricNode node = readMetrics.child(storageName).child(dataNodeId);
+		OperationMetric metric = node.metric;
+		if(metric == null) {
+			Map<String, Object> tags = new HashMap<String, Object>();
+			tags.put("storage_name", storageName);
+			tags.put("data_node_id", dataNodeId);
+			metric = node.init(tags);
+		}
+
+		metric.record(dataCount, dataSize, dataSize, elapsedMicros);
+	}
+
+	/**
+	 * 获取最近一个统计周期的汇总数据，按操作类型分组
+	 */
+	public Map<String, List<Map<String, Object>>> getLastSnapshot() {
+		return lastSnapshot;
+	}
+
+	void flush() {
+		long monitorTime = System.currentTimeMillis();
+		List<Map<String, Object>> writes = new ArrayList<Map<String, Object>>();
+		writeMetrics.collect(monitorTime, writes);
+		List<Map<String, Object>> reads = new ArrayList<Map<String, Object>>();
+		readMetrics.collect(monitorTime, reads);
+
+		Map<String, List<Map<String, Object>>> snapshot = new HashMap<String, List<Map<String, Object>>>();
+		snapshot.put(OPERATION_WRITE, writes);
+		snapshot.put(OPERATION_READ, reads);
+		lastSnapshot = snapshot;
+
+		for(Map<String, Object> data : writes) {
+			ProducerClient.getInstance().sendWriterMetric(data);
+		}
+
+		for(Map<String, Object> data : reads) {
+			ProducerClient.getInstance().sendReaderMetric(data);
+		}
+	}
+
+	/**
+	 * 按维度逐级索引的指标节点，查找已存在的维度时不产生任何对象
+	 */
+	private static class MetricNode {
+		private final ConcurrentHashMap<String, MetricNode> children = new ConcurrentHashMap<String, MetricNode>();
+		private volatile OperationMetric metric;
+
+		MetricNode child(String key) {
+			MetricNode node = children.get(key);
+			if(node == null) {
+				MetricNode created = new MetricNode();
+				node = children.putIfAbsent(key, created);
+				if(node == null) {
+					node = created;
+				}
+			}
+
+			return node;
+		}
+
+		synchronized OperationMetric init(Map<String, Object> tags) {
+			if(metric == null) {
+				metric = new OperationMetric(tags);
+			}
+
+			return metric;
+		}
+
+		void collect(long monitorTime, List<Map<String, Object>> results) {
+			if(metric != null) {
+				Map<String, Object> data = metric.snapshotAndReset(monitorTime);
+				if(data != null) {
+					results.add(data);
+				}
+			}
+
+			for(MetricNode node : children.values()) {
+				node.collect(monitorTime, results);
+			}
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.bonree.brfs.common.supervisor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一个统计维度（存储区域、节点、操作类型）上的累计指标，
+ * 记录操作只更新分段计数器和直方图，不产生任何对象
+ */
+public class OperationMetric {
+	private final Map<String, Object> tags;
+
+	private final LongAdder requestCount = new LongAdder();
+	private final LongAdder dataCount = new LongAdder();
+	private final LongAdder dataSize = new LongAdder();
+	private final LongAdder elapsedMicros = new LongAdder();
+	private final LongAccumulator dataMaxSize = new LongAccumulator(Math::max, 0);
+	private final LatencyHistogram latency = new LatencyHistogram();
+
+	public OperationMetric(Map<String, Object> tags) {
+		this.tags = tags;
+	}
+
+	public Map<String, Object> getTags() {
+		return tags;
+	}
+
+	public void record(int count, long size, long maxSize, long elapsed) {
+		requestCount.increment();
+		dataCount.add(count);
+		dataSize.add(size);
+		elapsedMicros.add(elapsed);
+		dataMaxSize.accumulate(maxSize);
+		latency.record(elapsed);
+	}
+
+	/**
+	 * 汇总上次调用后的指标数据并清零，期间没有任何操作时返回null
+	 *
+	 * elapsed_time和elapsed_max_time保持原来逐条上报时的含义，单位为毫秒：
+	 * 分别为平均每个请求的耗时和平均每条数据的耗时；直方图的统计结果使用_us结尾的字段，单位为微秒
+	 */
+	public Map<String, Object> snapshotAndReset(long monitorTime) {
+		long requests = requestCount.sumThenReset();
+		if(requests == 0) {
+			return null;
+		}
+
+		long count = dataCount.sumThenReset();
+		long elapsed = elapsedMicros.sumThenReset();
+		LatencyHistogram.Snapshot snapshot = latency.snapshotAndReset();
+
+		Map<String, Object> map = new HashMap<String, Object>(tags);
+		map.put("monitor_time", monitorTime);
+		map.put("request_count", requests);
+		map.put("data_count", count);
+		map.put("data_size", dataSize.sumThenReset());
+		map.put("data_max_size", dataMaxSize.getThenReset());
+		map.put("elapsed_time", elapsed / requests / 1000);
+		map.put("elapsed_max_time", count > 0 ? elapsed / count / 1000 : 0);
+		map.put("elapsed_max_us", snapshot.getMaxValue());
+		map.put("elapsed_p50_us", snapshot.getValueAtPercentile(50));
+		map.put("elapsed_p99_us", snapshot.getValueAtPercentile(99));
+		map.put("elapsed_p999_us", snapshot.getValueAtPercentile(99.9));
+
+		return map;
+	}
+}
@@ -4,10 +4,14 @@ public class TimeWatcher {
 	private final long startTime;
 	
 	public TimeWatcher() {
-		this.startTime = System.currentTimeMillis();
+		this.startTime = System.nanoTime();
 	}
 	
 	public int getElapsedTime() {
-		return (int) (System.currentTimeMillis() - startTime);
+		return (int) ((System.nanoTime() - startTime) / 1000000);
+	}
+	
+	public long getElapsedMicros() {
+		return (System.nanoTime() - startTime) / 1000;
 	}
 }
@@ -4,6 +4,18 @@ import java.nio.ByteBuffer;
 import java.util.zip.CRC32;
 
 public final class ByteUtils {;
+	//CRC32的多项式(反转表示)
+	private static final long CRC32_POLY = 0xEDB88320L;
+	//x^(2^k) mod p(x), k = 0..31
+	private static final long[] X2N_TABLE = new long[32];
+	
+	static {
+		long p = 1L << 30;
+		X2N_TABLE[0] = p;
+		for(int n = 1; n < X2N_TABLE.length; n++) {
+			X2N_TABLE[n] = p = multModP(p, p);
+		}
+	}
 	
 	public static long crc(byte[] bytes) {
 		return crc(bytes, 0, bytes.length);
@@ -22,4 +34,52 @@ public final class ByteUtils {;
 		
 		return crc32.getValue();
 	}
+	
+	/**
+	 * 合并两段连续数据的CRC码，结果等于对两段数据整体计算的CRC码
+	 * 
+	 * @param crc1 前一段数据的CRC码
+	 * @param crc2 后一段数据的CRC码
+	 * @param length2 后一段数据的长度
+	 * @return
+	 */
+	public static long crcCombine(long crc1, long crc2, long length2) {
+		if(length2 <= 0) {
+			return crc1;
+		}
+		
+		return multModP(x2nModP(length2, 3), crc1) ^ (crc2 & 0xFFFFFFFFL);
+	}
+	
+	private static long multModP(long a, long b) {
+		long m = 1L << 31;
+		long p = 0;
+		for(;;) {
+			if((a & m) != 0) {
+				p ^= b;
+				if((a & (m - 1)) == 0) {
+					break;
+				}
+			}
+			
+			m >>= 1;
+			b = (b & 1) != 0 ? (b >>> 1) ^ CRC32_POLY : b >>> 1;
+		}
+		
+		return p;
+	}
+	
+	private static long x2nModP(long n, int k) {
+		long p = 1L << 31;
+		while(n != 0) {
+			if((n & 1) != 0) {
+				p = multModP(X2N_TABLE[k & 31], p);
+			}
+			
+			n >>>= 1;
+			k++;
+		}
+		
+		return p;
+	}
 }
@@ -34,6 +34,15 @@ public final class DataNodeConfigs {
 	public static final ConfigUnit<Integer> CONFIG_WRITER_RECORD_CACHE_SIZE =
 			ConfigUnit.ofInt("datanode.writer.record.cache", 64 * 1024);
 	
+	public static final ConfigUnit<Boolean> CONFIG_WRITER_GROUP_COMMIT =
+			ConfigUnit.ofBoolean("datanode.writer.group.commit", false);
+	
+	public static final ConfigUnit<Integer> CONFIG_WRITER_COMMIT_INTERVAL =
+			ConfigUnit.ofInt("datanode.writer.commit.interval", 2);
+	
+	public static final ConfigUnit<Integer> CONFIG_WRITER_COMMIT_MAX_DELAY =
+			ConfigUnit.ofInt("datanode.writer.commit.max.delay", 10);
+	
 	public static final ConfigUnit<String> CONFIG_FILE_IDLE_TIME =
 			ConfigUnit.ofString("datanode.file.idle.time", "PT3S");
 	
@@ -45,5 +54,37 @@ public final class DataNodeConfigs {
 
 	public static final ConfigUnit<Boolean> CONFIG_DATA_COMPRESS =
 			ConfigUnit.ofBoolean("datanode.data.compress", true);
+	
+	public static final ConfigUnit<String> CONFIG_DATA_COMPRESS_TYPE =
+			ConfigUnit.ofString("datanode.data.compress.type", "");
+	
+	public static final ConfigUnit<Boolean> CONFIG_CATALOG_ENABLE =
+			ConfigUnit.ofBoolean("datanode.catalog.enable", true);
+	
+	public static final ConfigUnit<String> CONFIG_CATALOG_DIR =
+			ConfigUnit.ofString("datanode.catalog.dir",
+					new File(System.getProperty(SystemProperties.PROP_BRFS_HOME, "."), "catalog").getAbsolutePath());
+	
+	public static final ConfigUnit<Integer> CONFIG_CATALOG_SNAPSHOT_THRESHOLD =
+			ConfigUnit.ofInt("datanode.catalog.snapshot.threshold", 100000);
+	
+	public static final ConfigUnit<Integer> CONFIG_RECOVER_CHUNK_SIZE =
+			ConfigUnit.ofInt("datanode.recover.chunk.size", 4 * 1024 * 1024);
+	
+	public static final ConfigUnit<String> CONFIG_DATA_DIRS =
+			ConfigUnit.ofString("datanode.data.dirs", "");
+	
+	public static final ConfigUnit<Integer> CONFIG_DISK_WRITER_WORKER_NUM =
+			ConfigUnit.ofInt("datanode.disk.writer.worker.num", 2);
+	
+	public static final ConfigUnit<String> CONFIG_DISK_CHECK_INTERVAL =
+			ConfigUnit.ofString("datanode.disk.check.interval", "PT10S");
+	
+	public static final ConfigUnit<String> CONFIG_DISK_CHECK_TIMEOUT =
+			ConfigUnit.ofString("datanode.disk.check.timeout", "PT30S");
+	
+	public static final ConfigUnit<Integer> CONFIG_DISK_CHECK_THRESHOLD =
+			ConfigUnit.ofInt("datanode.disk.check.threshold", 3);
+	
 	private DataNodeConfigs() {}
 }
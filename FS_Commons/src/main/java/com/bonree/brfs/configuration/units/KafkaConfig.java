@@ -39,5 +39,11 @@ public class KafkaConfig {
     public static final ConfigUnit<String> CONFIG_WRITER_TABLE =
             ConfigUnit.ofString("deliver.table.writer", "brfs_writer_metric");
 
+    /**
+     * 读写指标的汇总周期，单位为秒
+     */
+    public static final ConfigUnit<Integer> CONFIG_METRIC_FLUSH_INTERVAL =
+            ConfigUnit.ofInt("deliver.metric.flush.interval", 10);
+
 
 }
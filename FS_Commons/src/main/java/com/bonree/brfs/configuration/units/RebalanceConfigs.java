@@ -10,5 +10,23 @@ public final class RebalanceConfigs {
 	public static final ConfigUnit<Integer> CONFIG_NORMAL_DELAY =
 			ConfigUnit.ofInt("rebalance.serverdown.recover.time", 3600);
 	
+	public static final ConfigUnit<Integer> CONFIG_TRANSFER_BANDWIDTH =
+			ConfigUnit.ofInt("rebalance.transfer.bandwidth", 0);
+	
+	public static final ConfigUnit<Integer> CONFIG_TRANSFER_IDLE_TIME =
+			ConfigUnit.ofInt("rebalance.transfer.connection.idle.time", 60);
+	
+	public static final ConfigUnit<Integer> CONFIG_RECOVER_THREADS =
+			ConfigUnit.ofInt("rebalance.recover.threads", 8);
+	
+	public static final ConfigUnit<Integer> CONFIG_RECOVER_DISK_CONCURRENCY =
+			ConfigUnit.ofInt("rebalance.recover.disk.concurrency", 2);
+	
+	public static final ConfigUnit<Integer> CONFIG_RECOVER_NODE_CONCURRENCY =
+			ConfigUnit.ofInt("rebalance.recover.node.concurrency", 4);
+	
+	public static final ConfigUnit<Integer> CONFIG_RECOVER_PROGRESS_INTERVAL =
+			ConfigUnit.ofInt("rebalance.recover.progress.interval", 5);
+	
 	private RebalanceConfigs() {}
 }
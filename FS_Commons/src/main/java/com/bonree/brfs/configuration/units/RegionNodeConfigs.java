@@ -29,17 +29,35 @@ public final class RegionNodeConfigs {
 	public static final ConfigUnit<Double> CONFIG_FILE_CLEAN_USAGE_RATE =
 			ConfigUnit.ofDouble("regionnode.file.clean.usage.rate", 0.95);
 	
+	public static final ConfigUnit<Integer> CONFIG_WARM_FILE_COUNT =
+			ConfigUnit.ofInt("regionnode.file.warm.count", 2);
+	
+	public static final ConfigUnit<String> CONFIG_WARM_FILE_ADVANCE_TIME =
+			ConfigUnit.ofString("regionnode.file.warm.advance.time", "PT1M");
+	
+	public static final ConfigUnit<String> CONFIG_FILE_FETCH_TIMEOUT =
+			ConfigUnit.ofString("regionnode.file.fetch.timeout", "PT5S");
+	
 	public static final ConfigUnit<Integer> CONFIG_WRITER_WORKER_NUM =
 			ConfigUnit.ofInt("regionnode.writer.worker.num", Runtime.getRuntime().availableProcessors());
 	
+	public static final ConfigUnit<Integer> CONFIG_WRITER_INFLIGHT_NUM =
+			ConfigUnit.ofInt("regionnode.writer.inflight.num", 16);
+	
 	public static final ConfigUnit<Integer> CONFIG_DATA_POOL_CAPACITY =
 			ConfigUnit.ofInt("regionnode.data.pool.capacity", 512);
 	
+	public static final ConfigUnit<String> CONFIG_DATA_POOL_TYPE =
+			ConfigUnit.ofString("regionnode.data.pool.type", "queue");
+	
 	public static final ConfigUnit<String> CONFIG_DATA_ENGINE_IDLE_TIME =
 			ConfigUnit.ofString("regionnode.dataengine.idle.time", "PT1H");
 	
 	public static final ConfigUnit<Integer> CONFIG_CLOSER_THREAD_NUM =
 			ConfigUnit.ofInt("regionnode.file.closer.thead_num", 1);
 	
+	public static final ConfigUnit<Integer> CONFIG_FID_VERSION =
+			ConfigUnit.ofInt("regionnode.fid.version", 1);
+	
 	private RegionNodeConfigs() {}
 }
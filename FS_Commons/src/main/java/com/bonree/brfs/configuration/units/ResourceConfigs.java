@@ -1,6 +1,9 @@
 package com.bonree.brfs.configuration.units;
 
+import java.io.File;
+
 import com.bonree.brfs.configuration.ConfigUnit;
+import com.bonree.brfs.configuration.SystemProperties;
 
 public final class ResourceConfigs {
 	public static final ConfigUnit<Boolean> CONFIG_SYSTEM_DELETE =
@@ -97,6 +100,34 @@ public final class ResourceConfigs {
 	public static final ConfigUnit<Long> CONFIG_DATA_CHECK_TTL =
 			ConfigUnit.ofLong("system.check.data.ttl", 3600);
 	
+	public static final ConfigUnit<Integer> CONFIG_SYSTEM_CHECK_DISK_WORKERS =
+			ConfigUnit.ofInt("system.check.disk.workers", 2);
+	
+	public static final ConfigUnit<Integer> CONFIG_SYSTEM_CHECK_BANDWIDTH =
+			ConfigUnit.ofInt("system.check.disk.bandwidth", 50);
+	
+	public static final ConfigUnit<String> CONFIG_SYSTEM_CHECK_CHECKPOINT =
+			ConfigUnit.ofString("system.check.checkpoint.file",
+					new File(System.getProperty(SystemProperties.PROP_BRFS_HOME, "."), "check/verified.checkpoint").getAbsolutePath());
+	
+	public static final ConfigUnit<Long> CONFIG_SYSTEM_CHECK_REVERIFY_INTERVAL =
+			ConfigUnit.ofLong("system.check.reverify.interval", 604800);
+	
+	public static final ConfigUnit<Boolean> CONFIG_TASK_RUNTIME_ENABLE =
+			ConfigUnit.ofBoolean("system.task.runtime.enable", true);
+	
+	public static final ConfigUnit<Integer> CONFIG_TASK_RUNTIME_THREADS =
+			ConfigUnit.ofInt("system.task.runtime.threads", 4);
+	
+	public static final ConfigUnit<Integer> CONFIG_TASK_RUNTIME_IO_THREADS =
+			ConfigUnit.ofInt("system.task.runtime.io.threads", 2);
+	
+	public static final ConfigUnit<Long> CONFIG_TASK_FOREGROUND_QUIET =
+			ConfigUnit.ofLong("system.task.foreground.quiet", 50);
+	
+	public static final ConfigUnit<Long> CONFIG_TASK_FOREGROUND_MAX_WAIT =
+			ConfigUnit.ofLong("system.task.foreground.max.wait", 1000);
+	
 	public static final ConfigUnit<String> CONFIG_SCHED_COPY_CHECK_CLOCK =
 			ConfigUnit.ofString("cycle.check.copy.count.time", "2:30");
 	
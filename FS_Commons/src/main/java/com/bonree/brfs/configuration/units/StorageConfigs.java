@@ -14,6 +14,12 @@ public final class StorageConfigs {
 	public static final ConfigUnit<Integer> CONFIG_STORAGE_REGION_REPLICATE_COUNT =
 			ConfigUnit.ofInt("storage.replicate.count", 2);
 	
+	/**
+	 * 写入数据时需要确认的副本数，小于等于0时需要所有副本确认
+	 */
+	public static final ConfigUnit<Integer> CONFIG_STORAGE_REGION_WRITE_QUORUM =
+			ConfigUnit.ofInt("storage.write.quorum", 0);
+	
 	public static final ConfigUnit<Long> CONFIG_STORAGE_REGION_FILE_CAPACITY =
 			ConfigUnit.ofLong("storage.file.capacity", 64 * 1024 * 1024);
 	
@@ -0,0 +1,39 @@
+package com.bonree.brfs.common.supervisor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void bucketBoundary() {
+		for(long value = 0; value < (1L << 20); value++) {
+			int index = LatencyHistogram.bucketIndex(value);
+			assertTrue(LatencyHistogram.bucketUpperBound(index) >= value);
+			if(index > 0) {
+				assertTrue(LatencyHistogram.bucketUpperBound(index - 1) < value);
+			}
+		}
+	}
+
+	@Test
+	public void percentile() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for(int i = 1; i <= 1000; i++) {
+			histogram.record(i);
+		}
+
+		LatencyHistogram.Snapshot snapshot = histogram.snapshotAndReset();
+		assertEquals(1000, snapshot.getTotalCount());
+
+		long p50 = snapshot.getValueAtPercentile(50);
+		assertTrue(p50 >= 500 && p50 <= 500 * 33 / 32);
+		long p99 = snapshot.getValueAtPercentile(99);
+		assertTrue(p99 >= 990 && p99 <= 990 * 33 / 32);
+		assertTrue(snapshot.getMaxValue() >= 1000);
+
+		assertEquals(0, histogram.snapshotAndReset().getTotalCount());
+	}
+}
@@ -0,0 +1,84 @@
+package com.bonree.brfs.common.data.utils;
+
+/**
+ * 数据的压缩方式，code为写入数据头中的2位压缩标识
+ */
+public enum CompressType {
+    NONE(0) {
+        @Override
+        public byte[] compress(byte[] data) {
+            return data;
+        }
+
+        @Override
+        public byte[] decompress(byte[] data) {
+            return data;
+        }
+    },
+    GZIP(1) {
+        @Override
+        public byte[] compress(byte[] data) throws Exception {
+            return GZipUtils.compress(data);
+        }
+
+        @Override
+        public byte[] decompress(byte[] data) throws Exception {
+            return GZipUtils.decompress(data);
+        }
+    },
+    SNAPPY(2) {
+        @Override
+        public byte[] compress(byte[] data) throws Exception {
+            return SnappyUtils.compress(data);
+        }
+
+        @Override
+        public byte[] decompress(byte[] data) throws Exception {
+            return SnappyUtils.decompress(data);
+        }
+    },
+    LZ4(3) {
+        @Override
+        public byte[] compress(byte[] data) throws Exception {
+            return LZ4Utils.compress(data);
+        }
+
+        @Override
+        public byte[] decompress(byte[] data) throws Exception {
+            return LZ4Utils.decompress(data);
+        }
+    };
+
+    private final int code;
+
+    private CompressType(int code) {
+        this.code = code;
+    }
+
+    public int code() {
+        return code;
+    }
+
+    public abstract byte[] compress(byte[] data) throws Exception;
+
+    public abstract byte[] decompress(byte[] data) throws Exception;
+
+    public static CompressType valueOf(int code) {
+        for (CompressType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("unknown compress type : " + code);
+    }
+
+    /**
+     * 根据名称获取压缩方式，忽略大小写，名称为空时返回null
+     */
+    public static CompressType fromName(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return null;
+        }
+        return valueOf(name.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,63 @@
+package com.bonree.brfs.common.data.utils;
+
+import java.io.IOException;
+
+import net.jpountz.lz4.LZ4CompressorWithLength;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+public class LZ4Utils {
+    private static final LZ4Factory FACTORY = LZ4Factory.fastestInstance();
+    // 压缩结果的开头记录了原始数据的长度
+    private static final LZ4CompressorWithLength COMPRESSOR = new LZ4CompressorWithLength(FACTORY.fastCompressor());
+    // 数据来自磁盘和网络，使用会检查输入边界的解压器
+    private static final LZ4SafeDecompressor DECOMPRESSOR = FACTORY.safeDecompressor();
+
+    private static final int LENGTH_SIZE = 4;
+    // LZ4每个字节的压缩数据最多还原出255个字节
+    private static final int MAX_RATIO = 255;
+
+    /**
+     * 数据压缩
+     *
+     * @param data
+     * @return
+     * @throws Exception
+     */
+    public static byte[] compress(byte[] data) throws Exception {
+        if (data == null || data.length == 0) {
+            return data;
+        }
+        return COMPRESSOR.compress(data);
+    }
+
+    /**
+     * 数据解压缩
+     *
+     * @param data
+     * @return
+     * @throws Exception
+     */
+    public static byte[] decompress(byte[] data) throws Exception {
+        if (data == null || data.length == 0) {
+            return data;
+        }
+        if (data.length < LENGTH_SIZE) {
+            throw new IOException("lz4 data is too short : " + data.length);
+        }
+
+        // 与LZ4CompressorWithLength一致，原始长度为小端序
+        int length = (data[0] & 0xFF) | (data[1] & 0xFF) << 8 | (data[2] & 0xFF) << 16 | (data[3] & 0xFF) << 24;
+        long maxLength = (long) (data.length - LENGTH_SIZE) * MAX_RATIO;
+        if (length < 0 || length > maxLength) {
+            throw new IOException("illegal lz4 decompressed length : " + length);
+        }
+
+        byte[] result = new byte[length];
+        int decompressed = DECOMPRESSOR.decompress(data, LENGTH_SIZE, data.length - LENGTH_SIZE, result, 0, length);
+        if (decompressed != length) {
+            throw new IOException("lz4 decompressed length[" + decompressed + "] is not equal to [" + length + "]");
+        }
+        return result;
+    }
+}
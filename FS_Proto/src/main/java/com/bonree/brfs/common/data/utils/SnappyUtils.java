@@ -0,0 +1,34 @@
+package com.bonree.brfs.common.data.utils;
+
+import org.xerial.snappy.Snappy;
+
+public class SnappyUtils {
+
+    /**
+     * 数据压缩
+     *
+     * @param data
+     * @return
+     * @throws Exception
+     */
+    public static byte[] compress(byte[] data) throws Exception {
+        if (data == null || data.length == 0) {
+            return data;
+        }
+        return Snappy.compress(data);
+    }
+
+    /**
+     * 数据解压缩
+     *
+     * @param data
+     * @return
+     * @throws Exception
+     */
+    public static byte[] decompress(byte[] data) throws Exception {
+        if (data == null || data.length == 0) {
+            return data;
+        }
+        return Snappy.uncompress(data);
+    }
+}
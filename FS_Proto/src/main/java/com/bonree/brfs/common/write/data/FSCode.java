@@ -1,6 +1,7 @@
 package com.bonree.brfs.common.write.data;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 
 /**
  * *****************************************************************************
@@ -165,6 +166,47 @@ public class FSCode {
         return moreFlag;
     }
 
+    /**
+     * 概述：moreFlag编码，直接写入目标数组，编码结果与{@link #moreFlagEncoder(long, int)}一致
+     * @param value 要编码的数字
+     * @param length moreflag后面可以表示其长度的位数
+     * @param dest 目标数组
+     * @param pos 写入的开始位置
+     * @return 写入后的位置
+     */
+    public static int moreFlagEncoder(long value, int length, byte[] dest, int pos) {
+        int count = moreFlagLength(value, length);
+        if (count == 0) {
+            dest[pos++] = (byte) value;
+            return pos;
+        }
+        dest[pos++] = (byte) ((1 << length) | (value >> (count * 7)));
+        for (int i = 1; i <= count; i++) {
+            long part = value >> ((count - i) * 7);
+            dest[pos++] = (byte) (i == count ? (part & 0x7F) : (0x80 | part));
+        }
+        return pos;
+    }
+
+    /**
+     * 概述：moreFlag编码，直接写入目标buffer的当前位置
+     * @param value 要编码的数字
+     * @param length moreflag后面可以表示其长度的位数
+     * @param dest 目标buffer
+     */
+    public static void moreFlagEncoder(long value, int length, ByteBuffer dest) {
+        int count = moreFlagLength(value, length);
+        if (count == 0) {
+            dest.put((byte) value);
+            return;
+        }
+        dest.put((byte) ((1 << length) | (value >> (count * 7))));
+        for (int i = 1; i <= count; i++) {
+            long part = value >> ((count - i) * 7);
+            dest.put((byte) (i == count ? (part & 0x7F) : (0x80 | part)));
+        }
+    }
+
     /**
      * 概述：moreFlag解码
      * @param bytes 要解码的数字字节数组
@@ -4,6 +4,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import com.bonree.brfs.common.data.utils.Base64;
@@ -62,10 +63,141 @@ public class FidDecoder {
 //        return fid.build();
 //    }
     
+    /** v2格式fid头部字节的高4位标识，protobuf格式的首字节不会出现这个值 */
+    static final int V2_MAGIC = 0xF0;
+    static final int V2 = 2;
+    /** v2格式fid中时间的基准值 2018-01-01 00:00:00 UTC */
+    static final long V2_TIME_BASE = 1514764800000L;
+
+    private static final byte[] URL_SAFE_DECODE = new byte[128];
+    static {
+        Arrays.fill(URL_SAFE_DECODE, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            URL_SAFE_DECODE[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    /**
+     * 概述：fid信息解码，支持protobuf格式和v2格式
+     * @param fid base64格式的fid
+     * @return
+     * @throws Exception
+     */
     public static Fid build(String fid) throws Exception {
+        if (isV2(fid)) {
+            return decode(fid, new FidInfo()).toFid();
+        }
     	return Fid.parseFrom(Base64.decode(fid, Base64.DEFAULT));
     }
 
+    /**
+     * 概述：判断fid是否为v2格式
+     * @param fid
+     * @return
+     */
+    public static boolean isV2(String fid) {
+        if (fid == null || fid.length() < 2 || fid.charAt(0) >= 128) {
+            return false;
+        }
+        // 首字符包含了头部字节的高6位
+        int value = URL_SAFE_DECODE[fid.charAt(0)];
+        return value >= 0 && (value & 0x3C) == (V2_MAGIC >> 2);
+    }
+
+    /**
+     * 概述：解码fid到可以重复使用的{@link FidInfo}中，v2格式的fid直接从字符串中解析，
+     * 不会产生中间数组和对象；protobuf格式的fid会先解析为{@link Fid}再转换
+     * @param fid base64格式的fid
+     * @param info 保存解码结果
+     * @return 传入的info
+     * @throws Exception
+     */
+    public static FidInfo decode(String fid, FidInfo info) throws Exception {
+        info.serverIdCount = 0;
+        if (!isV2(fid)) {
+            Fid old = build(fid);
+            String uuid = old.getUuid();
+            info.version = old.getVersion();
+            info.compress = old.getCompress();
+            info.storageNameCode = old.getStorageNameCode();
+            info.uuidHigh = Long.parseUnsignedLong(uuid.substring(0, 16), 16);
+            info.uuidLow = Long.parseUnsignedLong(uuid.substring(16), 16);
+            info.time = old.getTime();
+            info.duration = old.getDuration();
+            for (String sid : old.getServerIdList()) {
+                info.addServerId(Integer.parseInt(sid));
+            }
+            info.offset = old.getOffset();
+            info.size = old.getSize();
+            return info;
+        }
+
+        int header = byteAt(fid, 0);
+        info.version = header & 0x0F;
+        if (info.version != V2) {
+            throw new IllegalArgumentException("unknown fid version[" + info.version + "]");
+        }
+        info.compress = 0;
+        info.cursor = 1;
+        info.storageNameCode = (int) varint(fid, info);
+        info.uuidHigh = fixed(fid, info);
+        info.uuidLow = fixed(fid, info);
+        long timeDelta = varint(fid, info);
+        info.time = V2_TIME_BASE + ((timeDelta >>> 1) ^ -(timeDelta & 1));
+        info.duration = varint(fid, info);
+        int count = (int) varint(fid, info);
+        for (int i = 0; i < count; i++) {
+            info.addServerId((int) varint(fid, info));
+        }
+        info.offset = varint(fid, info);
+        info.size = varint(fid, info);
+        return info;
+    }
+
+    private static long varint(String fid, FidInfo info) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = byteAt(fid, info.cursor++);
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("malformed varint in fid[" + fid + "]");
+    }
+
+    private static long fixed(String fid, FidInfo info) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | byteAt(fid, info.cursor++);
+        }
+        return value;
+    }
+
+    /**
+     * 直接从url安全的Base64字符串中取出第index个字节
+     */
+    private static int byteAt(String fid, int index) {
+        int bitOffset = index * 8;
+        int charIndex = bitOffset / 6;
+        if (charIndex + 1 >= fid.length()) {
+            throw new IllegalArgumentException("fid[" + fid + "] is too short");
+        }
+        int shift = bitOffset % 6;
+        int bits = (charValue(fid, charIndex) << 6) | charValue(fid, charIndex + 1);
+        return (bits >> (4 - shift)) & 0xFF;
+    }
+
+    private static int charValue(String fid, int index) {
+        char c = fid.charAt(index);
+        int value = c < 128 ? URL_SAFE_DECODE[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException("illegal character[" + c + "] in fid[" + fid + "]");
+        }
+        return value;
+    }
+
     /**
      * 概述：解码version
      * @param header
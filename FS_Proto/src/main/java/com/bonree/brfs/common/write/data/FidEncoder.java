@@ -51,6 +51,67 @@ public class FidEncoder {
     	return Base64.encodeToString(fid.toByteArray(), Base64.DEFAULT).replaceAll("\n", "");
     }
 
+    /**
+     * 概述：生成v2格式的二进制fid
+     * 格式为：头部(1) + 存储空间(varint) + uuid(16) + 时间差(zigzag varint) + 时间区间(varint)
+     *        + serverId个数(varint) + serverId(varint)... + offset(varint) + size(varint)，
+     * 使用url安全且不带换行和填充的Base64编码
+     * @param fid 封装fid的数据对象
+     * @return
+     * @throws IllegalArgumentException uuid不是32位16进制或者serverId不是数字时无法使用v2格式
+     */
+    public static String buildV2(Fid fid) {
+        String uuid = fid.getUuid();
+        if (uuid == null || uuid.length() != 32) {
+            throw new IllegalArgumentException("uuid[" + uuid + "] can not be encoded to fid v2");
+        }
+        long uuidHigh = Long.parseUnsignedLong(uuid.substring(0, 16), 16);
+        long uuidLow = Long.parseUnsignedLong(uuid.substring(16), 16);
+
+        int[] serverIds = new int[fid.getServerIdCount()];
+        for (int i = 0; i < serverIds.length; i++) {
+            serverIds[i] = Integer.parseInt(fid.getServerId(i));
+            if (serverIds[i] < 0) {
+                throw new IllegalArgumentException("server id[" + serverIds[i] + "] can not be encoded to fid v2");
+            }
+        }
+
+        byte[] bytes = new byte[1 + 5 + 16 + 10 + 10 + 5 + serverIds.length * 5 + 10 + 10];
+        int pos = 0;
+        bytes[pos++] = (byte) (FidDecoder.V2_MAGIC | FidDecoder.V2);
+        pos = varint(fid.getStorageNameCode(), bytes, pos);
+        pos = fixed(uuidHigh, bytes, pos);
+        pos = fixed(uuidLow, bytes, pos);
+        // 时间记录为与基准时间的差值，减少编码长度
+        long timeDelta = fid.getTime() - FidDecoder.V2_TIME_BASE;
+        pos = varint((timeDelta << 1) ^ (timeDelta >> 63), bytes, pos);
+        pos = varint(fid.getDuration(), bytes, pos);
+        pos = varint(serverIds.length, bytes, pos);
+        for (int sid : serverIds) {
+            pos = varint(sid, bytes, pos);
+        }
+        pos = varint(fid.getOffset(), bytes, pos);
+        pos = varint(fid.getSize(), bytes, pos);
+
+        return Base64.encodeToString(bytes, 0, pos, Base64.URL_SAFE | Base64.NO_WRAP | Base64.NO_PADDING);
+    }
+
+    private static int varint(long value, byte[] bytes, int pos) {
+        while ((value & ~0x7FL) != 0) {
+            bytes[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static int fixed(long value, byte[] bytes, int pos) {
+        for (int i = 7; i >= 0; i--) {
+            bytes[pos++] = (byte) (value >>> (i * 8));
+        }
+        return pos;
+    }
+
     /**
      * 概述：fid相关属性验证
      * @param fid
@@ -0,0 +1,134 @@
+package com.bonree.brfs.common.write.data;
+
+import java.util.Arrays;
+
+import com.bonree.brfs.common.proto.FileDataProtos.Fid;
+
+/**
+ * 解码后的fid信息，对象可以重复使用，解码v2格式的fid时不会产生新的对象
+ */
+public class FidInfo {
+    int version;
+    int compress;
+    int storageNameCode;
+    long uuidHigh;
+    long uuidLow;
+    long time;
+    long duration;
+    int[] serverIds = new int[4];
+    int serverIdCount;
+    long offset;
+    long size;
+
+    // 解码时在fid中的字节位置
+    int cursor;
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getCompress() {
+        return compress;
+    }
+
+    public int getStorageNameCode() {
+        return storageNameCode;
+    }
+
+    public long getUuidHigh() {
+        return uuidHigh;
+    }
+
+    public long getUuidLow() {
+        return uuidLow;
+    }
+
+    /**
+     * 32位16进制的uuid字符串，与文件名中的uuid一致
+     */
+    public String getUuid() {
+        char[] chars = new char[32];
+        hex(uuidHigh, chars, 0);
+        hex(uuidLow, chars, 16);
+        return new String(chars);
+    }
+
+    private static void hex(long value, char[] chars, int pos) {
+        for(int i = 15; i >= 0; i--) {
+            chars[pos + i] = Character.forDigit((int) (value & 0xF), 16);
+            value >>>= 4;
+        }
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public int getServerIdCount() {
+        return serverIdCount;
+    }
+
+    public int getServerId(int index) {
+        if(index >= serverIdCount) {
+            throw new IndexOutOfBoundsException("server id index[" + index + "] out of count[" + serverIdCount + "]");
+        }
+
+        return serverIds[index];
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    void addServerId(int serverId) {
+        if(serverIdCount == serverIds.length) {
+            serverIds = Arrays.copyOf(serverIds, serverIds.length * 2);
+        }
+
+        serverIds[serverIdCount++] = serverId;
+    }
+
+    /**
+     * 转换为protobuf格式的fid对象，兼容原来使用{@link Fid}的代码
+     */
+    public Fid toFid() {
+        Fid.Builder builder = Fid.newBuilder()
+                .setVersion(version)
+                .setCompress(compress)
+                .setStorageNameCode(storageNameCode)
+                .setUuid(getUuid())
+                .setTime(time)
+                .setDuration(duration)
+                .setOffset(offset)
+                .setSize(size);
+        for(int i = 0; i < serverIdCount; i++) {
+            builder.addServerId(String.valueOf(serverIds[i]));
+        }
+
+        return builder.build();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("[version=").append(version)
+        .append(", storage=").append(storageNameCode)
+        .append(", uuid=").append(getUuid())
+        .append(", time=").append(time)
+        .append(", duration=").append(duration)
+        .append(", servers=").append(Arrays.toString(Arrays.copyOf(serverIds, serverIdCount)))
+        .append(", offset=").append(offset)
+        .append(", size=").append(size)
+        .append("]");
+
+        return builder.toString();
+    }
+}
@@ -1,9 +1,10 @@
 package com.bonree.brfs.common.write.data;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.bonree.brfs.common.data.utils.GZipUtils;
+import com.bonree.brfs.common.data.utils.CompressType;
 import com.bonree.brfs.common.proto.FileDataProtos.FileContent;
 import com.google.protobuf.ByteString;
 
@@ -69,13 +70,10 @@ public class FileDecoder {
         contestStart += contentMoreFlagLength;      // 内容的开始位置
         byte[] data = FSCode.subBytes(dataBytes, contestStart, contentLength);
 
-        if (compressFlag == 1) {        // gzip解压
-            destResult = GZipUtils.decompress(destResult);
-            data = GZipUtils.decompress(data);
-        } else if (compressFlag == 2) { // snappy解压
-            // destResult =
-            // data =
-        }
+        // 0:不压缩 1:gzip 2:snappy 3:lz4
+        CompressType compressType = CompressType.valueOf(compressFlag);
+        destResult = compressType.decompress(destResult);
+        data = compressType.decompress(data);
         file.setCompress(compressFlag);
 
         // 2.封装描述信息
@@ -99,6 +97,89 @@ public class FileDecoder {
         return file.build();
     }
 
+    /**
+     * 概述：获取消息的数据内容，不压缩的数据直接返回源数组上的视图，不会拷贝数据
+     * @param bytes 源数据
+     * @param offset 消息在源数据中的开始位置
+     * @return 只读的数据视图
+     * @throws Exception
+     */
+    public static ByteBuffer dataView(byte[] bytes, int offset) throws Exception {
+        return dataView(bytes, offset, bytes.length);
+    }
+
+    private static ByteBuffer dataView(byte[] bytes, int offset, int end) throws Exception {
+        int dataLength = (int) FSCode.moreFlagDecoder(bytes, 7, offset); // 一条数据的长度
+        int dataStart = offset + FSCode.moreFlagLength(dataLength, 7) + 1;
+
+        int compressFlag = (bytes[dataStart] & 0xFF) >> 6;
+        int describeLength = (int) FSCode.moreFlagDecoder(bytes, 4, dataStart);
+        int contentStart = dataStart + FSCode.moreFlagLength(describeLength, 4) + 1 + describeLength;
+        int contentLength = (int) FSCode.moreFlagDecoder(bytes, 7, contentStart);
+        contentStart += FSCode.moreFlagLength(contentLength, 7) + 1;
+        if (contentLength < 0 || contentStart + contentLength > end) {
+            throw new IllegalArgumentException("content[" + contentStart + ", +" + contentLength + "] exceeds record end[" + end + "]");
+        }
+
+        CompressType compressType = CompressType.valueOf(compressFlag);
+        if (compressType == CompressType.NONE) {
+            return ByteBuffer.wrap(bytes, contentStart, contentLength).slice().asReadOnlyBuffer();
+        }
+
+        // 压缩过的数据只能解压到新的数组中
+        byte[] data = compressType.decompress(FSCode.subBytes(bytes, contentStart, contentLength));
+        return ByteBuffer.wrap(data == null ? new byte[0] : data).asReadOnlyBuffer();
+    }
+
+    /**
+     * 概述：获取消息的数据内容，数据只会拷贝一次
+     * @param bytes 源数据
+     * @return
+     * @throws Exception
+     */
+    public static byte[] data(byte[] bytes) throws Exception {
+        return data(bytes, 0);
+    }
+
+    /**
+     * 概述：获取消息的数据内容，数据只会拷贝一次
+     * @param bytes 源数据
+     * @param offset 消息在源数据中的开始位置
+     * @return
+     * @throws Exception
+     */
+    public static byte[] data(byte[] bytes, int offset) throws Exception {
+        return copy(dataView(bytes, offset));
+    }
+
+    /**
+     * 概述：获取一段已知长度的消息的数据内容，消息编码后的长度和length不一致时抛出异常
+     * @param bytes 源数据
+     * @param offset 消息在源数据中的开始位置
+     * @param length 消息编码后的总长度
+     * @return
+     * @throws Exception
+     */
+    public static byte[] data(byte[] bytes, int offset, int length) throws Exception {
+        if (offset < 0 || length <= 0 || offset + length > bytes.length) {
+            throw new IllegalArgumentException("record[" + offset + ", +" + length + "] out of bytes[" + bytes.length + "]");
+        }
+
+        int dataLength = (int) FSCode.moreFlagDecoder(bytes, 7, offset);
+        int recordLength = FSCode.moreFlagLength(dataLength, 7) + 1 + dataLength;
+        if (dataLength < 0 || recordLength != length) {
+            throw new IllegalArgumentException("encoded record size[" + recordLength + "] is not equal to length[" + length + "]");
+        }
+
+        return copy(dataView(bytes, offset, offset + length));
+    }
+
+    private static byte[] copy(ByteBuffer view) {
+        byte[] data = new byte[view.remaining()];
+        view.get(data);
+        return data;
+    }
+
     /**
      * 概述：获取大文件校验码
      * @param bytes 源数据字节数组
@@ -1,6 +1,8 @@
 package com.bonree.brfs.common.write.data;
 
-import com.bonree.brfs.common.data.utils.GZipUtils;
+import java.nio.ByteBuffer;
+
+import com.bonree.brfs.common.data.utils.CompressType;
 import com.bonree.brfs.common.proto.FileDataProtos.FileContent;
 
 /**
@@ -14,6 +16,7 @@ import com.bonree.brfs.common.proto.FileDataProtos.FileContent;
  *****************************************************************************
  */
 public class FileEncoder {
+    private static final byte[] EMPTY = new byte[0];
 
     /**
      * 概述：消息开头
@@ -69,50 +72,10 @@ public class FileEncoder {
         if (content == null || content.length == 0) {
             return new byte[0];
         }
-        int dataLength = 0;
-        byte[] describeByte = null;
-        int compressFlag = file.getCompress();
         String description = file.getDescription();
-        // 1.压缩
-        int compress = compressFlag << 6;
-
-        // 2.描述
-        if (description == null) {
-            describeByte = new byte[0];
-        } else {
-            describeByte = description.getBytes("utf-8");
-        }
+        byte[] describeByte = description == null ? new byte[0] : description.getBytes("utf-8");
 
-        // 3.内容
-        byte[] contentByte = content;
-        if (compressFlag == 1) {        // gzip压缩
-            describeByte = GZipUtils.compress(describeByte);
-            contentByte = GZipUtils.compress(content);
-        } else if (compressFlag == 2) { // snappy压缩
-            // describeByte =
-            // contentByte =
-        }
-        dataLength = describeByte.length + contentByte.length;
-
-        byte[] describeLengthByte = FSCode.moreFlagEncoder(describeByte.length, 4);
-        dataLength += describeLengthByte.length;
-        byte[] contentLengthByte = FSCode.moreFlagEncoder(contentByte.length, 7);
-        dataLength += contentLengthByte.length;
-
-        // 4.检验码
-        byte[] validateByte = null;
-        int crcFlag = 0; // 标识校验码开关
-        if (file.getCrcFlag()) {
-            validateByte = FSCode.moreFlagEncoder(file.getCrcCheckCode(), 7);
-            crcFlag = 1 << 5; // 标识校验码开关
-            dataLength += validateByte.length;
-        }
-        int describeLength = describeLengthByte[0] & 0xFF;
-        describeLengthByte[0] = (byte) (compress | crcFlag | describeLength);
-        
-        byte[] dataLengthByte = FSCode.moreFlagEncoder(dataLength, 7);
-
-        return FSCode.addBytes(dataLengthByte, describeLengthByte, describeByte, contentLengthByte, contentByte, validateByte);
+        return contents(file.getCompress(), describeByte, content, file.getCrcFlag(), file.getCrcCheckCode());
     }
     
     /**
@@ -123,53 +86,84 @@ public class FileEncoder {
      * @user <a href=mailto:zhangnl@bonree.com>张念礼</a>
      */
     public static byte[] contents1(FileContent file) throws Exception {
-        byte[] content = file.getData().toByteArray();
+        return contents(file);
+    }
+
+    /**
+     * 概述：编码一条没有描述信息和校验码的消息，数据只会被拷贝一次到结果数组中
+     * @param compressFlag 0:不压缩 1:gzip 2:snappy 3:lz4
+     * @param content 消息内容
+     * @return
+     * @throws Exception
+     */
+    public static byte[] contents(int compressFlag, byte[] content) throws Exception {
         if (content == null || content.length == 0) {
             return new byte[0];
         }
-        int dataLength = 0;
-        byte[] describeByte = null;
-        int compressFlag = file.getCompress();
-        String description = file.getDescription();
-        // 1.压缩
-        int compress = compressFlag << 6;
-
-        // 2.描述
-        if (description == null) {
-            describeByte = new byte[0];
-        } else {
-            describeByte = description.getBytes("utf-8");
-        }
+        return contents(compressFlag, EMPTY, content, false, 0);
+    }
 
-        // 3.内容
-        byte[] contentByte = content;
-        if (compressFlag == 1) {        // gzip压缩
-            describeByte = GZipUtils.compress(describeByte);
-            contentByte = GZipUtils.compress(content);
-        } else if (compressFlag == 2) { // snappy压缩
-            // describeByte =
-            // contentByte =
-        }
-        dataLength = describeByte.length + contentByte.length;
-
-        byte[] describeLengthByte = FSCode.moreFlagEncoder(describeByte.length, 4);
-        dataLength += describeLengthByte.length;
-        byte[] contentLengthByte = FSCode.moreFlagEncoder(contentByte.length, 7);
-        dataLength += contentLengthByte.length;
-
-        // 4.检验码
-        byte[] validateByte = null;
-        int crcFlag = 0; // 标识校验码开关
-        if (file.getCrcFlag()) {
-            validateByte = FSCode.moreFlagEncoder(file.getCrcCheckCode(), 7);
-            crcFlag = 1 << 5; // 标识校验码开关
-            dataLength += validateByte.length;
+    private static byte[] contents(int compressFlag, byte[] describeByte, byte[] content, boolean crcFlag, long crcCode) throws Exception {
+        // 0:不压缩 1:gzip 2:snappy 3:lz4
+        CompressType compressType = CompressType.valueOf(compressFlag);
+        describeByte = compressType.compress(describeByte);
+        byte[] contentByte = compressType.compress(content);
+
+        byte[] dest = new byte[contentsLength(describeByte.length, contentByte.length, crcFlag, crcCode)];
+        contents(ByteBuffer.wrap(dest), compressFlag, describeByte, contentByte, 0, contentByte.length, crcFlag, crcCode);
+        return dest;
+    }
+
+    /**
+     * 概述：计算一条消息编码后的总长度
+     * @param describeLength 描述信息(压缩后)的长度
+     * @param contentLength 内容(压缩后)的长度
+     * @param crcFlag 是否带校验码
+     * @param crcCode 校验码
+     * @return
+     */
+    public static int contentsLength(int describeLength, int contentLength, boolean crcFlag, long crcCode) {
+        int dataLength = dataLength(describeLength, contentLength, crcFlag, crcCode);
+        return FSCode.moreFlagLength(dataLength, 7) + 1 + dataLength;
+    }
+
+    private static int dataLength(int describeLength, int contentLength, boolean crcFlag, long crcCode) {
+        int dataLength = FSCode.moreFlagLength(describeLength, 4) + 1 + describeLength
+                + FSCode.moreFlagLength(contentLength, 7) + 1 + contentLength;
+        if (crcFlag) {
+            dataLength += FSCode.moreFlagLength(crcCode, 7) + 1;
         }
-        int describeLength = describeLengthByte[0] & 0xFF;
-        describeLengthByte[0] = (byte) (compress | crcFlag | describeLength);
-        
-        byte[] dataLengthByte = FSCode.moreFlagEncoder(dataLength, 7);
+        return dataLength;
+    }
 
-        return FSCode.addBytes(dataLengthByte, describeLengthByte, describeByte, contentLengthByte, contentByte, validateByte);
+    /**
+     * 概述：把一条已经压缩过的消息直接编码到目标buffer的当前位置，不产生中间数组，
+     * 目标buffer需要有{@link #contentsLength(int, int, boolean, long)}大小的剩余空间
+     * @param dest 目标buffer，可以是堆内或者direct buffer
+     * @param compressFlag 0:不压缩 1:gzip 2:snappy 3:lz4
+     * @param describeByte 描述信息(压缩后)
+     * @param content 内容(压缩后)
+     * @param offset 内容在数组中的开始位置
+     * @param length 内容的长度
+     * @param crcFlag 是否带校验码
+     * @param crcCode 校验码
+     */
+    public static void contents(ByteBuffer dest, int compressFlag, byte[] describeByte,
+            byte[] content, int offset, int length, boolean crcFlag, long crcCode) {
+        FSCode.moreFlagEncoder(dataLength(describeByte.length, length, crcFlag, crcCode), 7, dest);
+
+        // 描述长度所在的首字节的高3位为压缩和校验码标识
+        int describeStart = dest.position();
+        FSCode.moreFlagEncoder(describeByte.length, 4, dest);
+        int describeLength = dest.get(describeStart) & 0xFF;
+        dest.put(describeStart, (byte) ((compressFlag << 6) | (crcFlag ? 1 << 5 : 0) | describeLength));
+        dest.put(describeByte);
+
+        FSCode.moreFlagEncoder(length, 7, dest);
+        dest.put(content, offset, length);
+
+        if (crcFlag) {
+            FSCode.moreFlagEncoder(crcCode, 7, dest);
+        }
     }
 }
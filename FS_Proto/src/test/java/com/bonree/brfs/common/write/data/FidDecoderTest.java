@@ -1,5 +1,9 @@
 package com.bonree.brfs.common.write.data;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 import com.bonree.brfs.common.proto.FileDataProtos;
 import org.junit.Test;
 
@@ -22,4 +26,49 @@ public class FidDecoderTest{
         System.out.println("count : "+ count+ " ,time :"+(end -start) + "ms");
     }
 
+    @Test
+    public void testFidV2() throws Exception {
+        FileDataProtos.Fid fid = FileDataProtos.Fid.newBuilder()
+                .setVersion(0)
+                .setCompress(0)
+                .setStorageNameCode(3)
+                .setUuid("4df8180931a64f3ea5fc40213cccd7d2")
+                .setTime(1539750000000L)
+                .setDuration(3600000)
+                .addServerId("22")
+                .addServerId("20")
+                .addServerId("300")
+                .setOffset(1234567)
+                .setSize(51207)
+                .build();
+
+        String old = FidEncoder.build(fid);
+        String v2 = FidEncoder.buildV2(fid);
+        assertFalse(FidDecoder.isV2(old));
+        assertTrue(FidDecoder.isV2(v2));
+        assertTrue(v2.length() < old.length());
+
+        // 两种格式都可以解码
+        for (String s : new String[] { old, v2 }) {
+            FileDataProtos.Fid decoded = FidDecoder.build(s);
+            assertEquals(fid.getUuid(), decoded.getUuid());
+            assertEquals(fid.getStorageNameCode(), decoded.getStorageNameCode());
+            assertEquals(fid.getTime(), decoded.getTime());
+            assertEquals(fid.getDuration(), decoded.getDuration());
+            assertEquals(fid.getServerIdList(), decoded.getServerIdList());
+            assertEquals(fid.getOffset(), decoded.getOffset());
+            assertEquals(fid.getSize(), decoded.getSize());
+        }
+
+        FidInfo info = new FidInfo();
+        FidDecoder.decode(v2, info);
+        assertEquals(2, info.getVersion());
+        assertEquals(3, info.getServerIdCount());
+        assertEquals(300, info.getServerId(2));
+        assertEquals(fid.getUuid(), info.getUuid());
+
+        // 早于基准时间的fid也能正确编码
+        FileDataProtos.Fid early = fid.toBuilder().setTime(1000L).build();
+        assertEquals(1000L, FidDecoder.decode(FidEncoder.buildV2(early), info).getTime());
+    }
 }
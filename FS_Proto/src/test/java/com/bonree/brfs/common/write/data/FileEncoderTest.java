@@ -0,0 +1,84 @@
+package com.bonree.brfs.common.write.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.bonree.brfs.common.data.utils.CompressType;
+
+public class FileEncoderTest {
+
+	@Test
+	public void moreFlagEncodeInPlace() {
+		byte[] dest = new byte[16];
+		for(long value : new long[] {0, 1, 15, 16, 127, 128, 2047, 2048, 1L << 20, 123456789L, Integer.MAX_VALUE}) {
+			for(int length : new int[] {4, 7}) {
+				byte[] expected = FSCode.moreFlagEncoder(value, length);
+				int end = FSCode.moreFlagEncoder(value, length, dest, 3);
+				assertEquals(3 + expected.length, end);
+				assertArrayEquals(expected, FSCode.subBytes(dest, 3, expected.length));
+				assertEquals(value, FSCode.moreFlagDecoder(dest, length, 3));
+			}
+		}
+	}
+
+	@Test
+	public void encodeAndView() throws Exception {
+		Random random = new Random(7);
+		for(int size : new int[] {1, 15, 16, 300, 70000}) {
+			byte[] data = new byte[size];
+			random.nextBytes(data);
+
+			for(CompressType type : new CompressType[] {CompressType.NONE, CompressType.GZIP}) {
+				byte[] record = FileEncoder.contents(type.code(), data);
+				assertEquals(record.length, FileDecoder.getOffsets(0, record));
+				assertArrayEquals(data, FileDecoder.data(record));
+				assertArrayEquals(data, FileDecoder.data(record, 0, record.length));
+
+				// 数据在前面有其他内容的数组中也能正确解析
+				byte[] padded = new byte[record.length + 5];
+				System.arraycopy(record, 0, padded, 5, record.length);
+				ByteBuffer view = FileDecoder.dataView(padded, 5);
+				assertEquals(data.length, view.remaining());
+				assertEquals(ByteBuffer.wrap(data), view);
+			}
+		}
+	}
+
+	@Test
+	public void rejectMismatchedLength() throws Exception {
+		byte[] data = "hello brfs".getBytes("utf-8");
+		byte[] record = FileEncoder.contents(CompressType.NONE.code(), data);
+		byte[] padded = new byte[record.length + 1];
+		System.arraycopy(record, 0, padded, 0, record.length);
+		
+		for(int length : new int[] {record.length - 1, record.length + 1}) {
+			try {
+				FileDecoder.data(padded, 0, length);
+				fail("length " + length + " should be rejected");
+			} catch(IllegalArgumentException e) {
+				// 期望的异常
+			}
+		}
+	}
+
+	@Test
+	public void encodeIntoBuffer() throws Exception {
+		byte[] data = "hello brfs".getBytes("utf-8");
+		int length = FileEncoder.contentsLength(0, data.length, true, 99999);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+		FileEncoder.contents(buffer, CompressType.NONE.code(), new byte[0], data, 0, data.length, true, 99999);
+		assertEquals(length, buffer.position());
+
+		byte[] record = new byte[length];
+		buffer.flip();
+		buffer.get(record);
+		assertEquals(length, FileDecoder.getOffsets(0, record));
+		assertArrayEquals(data, FileDecoder.data(record));
+	}
+}
@@ -33,9 +33,21 @@ public class GatherResource {
 	 * @user <a href=mailto:zhucg@bonree.com>朱成岗</a>
 	 */
 	public static StateMetaServerModel gatherResource(String dataDir, String ip,Collection<String> mountPoints){
+		if(BrStringUtils.isEmpty(dataDir)){
+			return null;
+		}
+		return gatherResource(Collections.singletonList(dataDir), ip, mountPoints);
+	}
+
+	/**
+	 * 概述：采集状态信息，分区信息包含所有数据目录所在的分区
+	 * @param dataDirs
+	 * @return
+	 */
+	public static StateMetaServerModel gatherResource(Collection<String> dataDirs, String ip,Collection<String> mountPoints){
 		StateMetaServerModel obj = new StateMetaServerModel();
 		try {
-			if(BrStringUtils.isEmpty(dataDir) || BrStringUtils.isMathNumeric(ip)){
+			if(dataDirs == null || dataDirs.isEmpty() || BrStringUtils.isMathNumeric(ip)){
 				return null;
 			}
 			int cpuCore = SigarUtils.instance.gatherCpuCoreCount();
@@ -51,7 +63,7 @@ public class GatherResource {
 				obj.setNetRByte(netData.getFirst());
 				obj.setNetTByte(netData.getSecond());
 			}
-			Map<Integer,Map<String,Long>> partition = SigarUtils.instance.gatherPartitionInfo(dataDir,mountPoints);
+			Map<Integer,Map<String,Long>> partition = SigarUtils.instance.gatherPartitionInfo(dataDirs,mountPoints);
 			if(partition.containsKey(0)){
 				obj.setPartitionTotalSizeMap(partition.get(0));
 			}
@@ -77,6 +89,15 @@ public class GatherResource {
 	 * @user <a href=mailto:zhucg@bonree.com>朱成岗</a>
 	 */
 	public static BaseMetaServerModel gatherBase(String serverId, String dataDir,Collection<String> mountPoints){
+		return gatherBase(serverId, Collections.singletonList(dataDir), mountPoints);
+	}
+
+	/**
+	 * 概述：基本信息，磁盘大小包含所有数据目录所在的分区
+	 * @param dataDirs
+	 * @return
+	 */
+	public static BaseMetaServerModel gatherBase(String serverId, Collection<String> dataDirs,Collection<String> mountPoints){
 		BaseMetaServerModel obj = new BaseMetaServerModel();
 		try {
 			int cpuCore = SigarUtils.instance.gatherCpuCoreCount();
@@ -84,7 +105,7 @@ public class GatherResource {
 		
 			long memorySize = SigarUtils.instance.gatherMemSize();
 			obj.setMemoryTotalSize(memorySize);
-			Map<Integer,Map<String,Long>> partition = SigarUtils.instance.gatherPartitionInfo(dataDir,mountPoints);
+			Map<Integer,Map<String,Long>> partition = SigarUtils.instance.gatherPartitionInfo(dataDirs,mountPoints);
 			if(partition.containsKey(0)){
 				long totalDiskSize = CalcUtils.collectDataMap(partition.get(0));
 				obj.setDiskTotalSize(totalDiskSize);
@@ -235,6 +235,23 @@ public enum SigarUtils {
         }
         return objMap;
     }
+    /**
+     * 概述：采集多个数据目录所在分区的信息，同一个分区只统计一次
+     * @param rootPaths
+     * @return key：0-分区大小，1-分区可用大小，2-硬盘读取kb数, 3-硬盘写入kb数
+     * @throws SigarException
+     */
+    public Map<Integer,Map<String,Long>> gatherPartitionInfo(Collection<String> rootPaths,Collection<String> mountPoints) throws SigarException {
+        Map<Integer,Map<String,Long>> objMap = new ConcurrentHashMap<>();
+        for(String rootPath : rootPaths){
+            for(Map.Entry<Integer,Map<String,Long>> entry : gatherPartitionInfo(rootPath,mountPoints).entrySet()){
+                for(Map.Entry<String,Long> partition : entry.getValue().entrySet()){
+                    addDataToMap(objMap,entry.getKey(),partition.getKey(),partition.getValue());
+                }
+            }
+        }
+        return objMap;
+    }
     /**
      * 概述：汇总信息
      * @param objMap
@@ -1,8 +1,33 @@
 package com.bonree.brfs.disknode;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bonree.brfs.configuration.Configs;
+import com.bonree.brfs.configuration.units.DataNodeConfigs;
+import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * 磁盘节点的数据目录信息
+ *
+ * 可以包含多个数据目录，每个目录对应一块磁盘，同一个逻辑路径的文件只会保存在其中一个目录中；
+ * 新文件根据磁盘剩余空间和写入队列长度选择目录，已有文件通过查找各个目录确定位置；
+ * 第一个数据目录与数据根目录相同，定时任务、副本恢复等只知道数据根目录的模块通过
+ * {@link #dataDirsOf(String)}获取所有可用的数据目录
+ */
 public class DiskContext {
+	private static final Logger LOG = LoggerFactory.getLogger(DiskContext.class);
+
 	public static final String URI_PING_PONG_ROOT = "/ping";
 	public static final String URI_DISK_NODE_ROOT = "/disk";
 	public static final String URI_FLUSH_NODE_ROOT = "/flush";
@@ -11,38 +36,300 @@ public class DiskContext {
 	public static final String URI_LIST_NODE_ROOT = "/list";
 	public static final String URI_META_NODE_ROOT = "/metadata";
 	public static final String URI_RECOVER_NODE_ROOT = "/recover";
-	
-	private String workDirectory;
-	
+
+	private static volatile DiskContext current;
+
+	private final List<String> dataDirs;
+	private final Set<String> failedDirs = ConcurrentHashMap.newKeySet();
+
+	// 文件逻辑路径所在的数据目录
+	private final Cache<String, String> locations = CacheBuilder.newBuilder()
+			.maximumSize(100000)
+			.expireAfterAccess(1, TimeUnit.HOURS)
+			.build();
+
 	public DiskContext(String workDir) {
-		this.workDirectory = new File(workDir).getAbsolutePath();
+		this(Collections.singletonList(workDir));
+	}
+
+	public DiskContext(List<String> workDirs) {
+		if(workDirs.isEmpty()) {
+			throw new IllegalArgumentException("no data dir is specified");
+		}
+
+		List<String> dirs = new ArrayList<String>();
+		for(String workDir : workDirs) {
+			String dir = new File(workDir).getAbsolutePath();
+			if(!dirs.contains(dir)) {
+				dirs.add(dir);
+			}
+		}
+
+		this.dataDirs = Collections.unmodifiableList(dirs);
+	}
+
+	/**
+	 * 配置的所有数据目录，没有配置多个数据目录时只有数据根目录
+	 *
+	 * @throws IllegalStateException 配置了多个数据目录，但第一个不是数据根目录
+	 */
+	public static List<String> configuredDataDirs() {
+		String root = Configs.getConfiguration().GetConfig(DataNodeConfigs.CONFIG_DATA_ROOT);
+		List<String> dirs = Splitter.on(',').omitEmptyStrings().trimResults()
+				.splitToList(Configs.getConfiguration().GetConfig(DataNodeConfigs.CONFIG_DATA_DIRS));
+		if(dirs.isEmpty()) {
+			return Collections.singletonList(root);
+		}
+
+		// 其他模块仍然使用数据根目录定位数据，两者不一致时会漏掉第一个数据目录中的文件
+		if(!new File(dirs.get(0)).getAbsolutePath().equals(new File(root).getAbsolutePath())) {
+			throw new IllegalStateException("the first data dir[" + dirs.get(0) + "] must be the data root[" + root + "]");
+		}
+
+		return dirs;
+	}
+
+	/**
+	 * 注册为当前数据节点使用的数据目录
+	 */
+	public static void register(DiskContext context) {
+		current = context;
+	}
+
+	public static void unregister(DiskContext context) {
+		if(current == context) {
+			current = null;
+		}
 	}
-	
+
+	/**
+	 * 数据根目录对应的所有可用数据目录，没有注册或者不是当前数据节点的根目录时只返回根目录本身
+	 */
+	public static List<String> dataDirsOf(String rootDir) {
+		DiskContext context = current;
+		if(context == null || !context.getRootDir().equals(new File(rootDir).getAbsolutePath())) {
+			return Collections.singletonList(rootDir);
+		}
+
+		return context.getAvailableDataDirs();
+	}
+
+	/**
+	 * 在数据根目录对应的所有可用数据目录中查找文件
+	 *
+	 * @return 文件不存在时返回null
+	 */
+	public static File findFile(String rootDir, String logicPath) {
+		for(String dataDir : dataDirsOf(rootDir)) {
+			File file = new File(dataDir, logicPath);
+			if(file.exists()) {
+				return file;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * 为其他节点复制过来的文件选择位置，文件已经存在时返回已有的文件，
+	 * 否则选择剩余空间最大的可用数据目录
+	 *
+	 * @return 没有可用的数据目录时返回null
+	 */
+	public static File placeFile(String rootDir, String logicPath) {
+		DiskContext context = current;
+		if(context == null || !context.getRootDir().equals(new File(rootDir).getAbsolutePath())) {
+			return new File(rootDir, logicPath);
+		}
+
+		String path = context.placeFile(logicPath, 0, dataDir -> 0);
+		return path == null ? null : new File(path);
+	}
+
+	/**
+	 * 第一个数据目录，只有一个数据目录时与原来的含义相同
+	 */
 	public String getRootDir() {
-		return this.workDirectory;
+		return dataDirs.get(0);
+	}
+
+	public List<String> getDataDirs() {
+		return dataDirs;
+	}
+
+	/**
+	 * 没有被标记为故障的数据目录
+	 */
+	public List<String> getAvailableDataDirs() {
+		if(failedDirs.isEmpty()) {
+			return dataDirs;
+		}
+
+		List<String> dirs = new ArrayList<String>();
+		for(String dir : dataDirs) {
+			if(!failedDirs.contains(dir)) {
+				dirs.add(dir);
+			}
+		}
+
+		return dirs;
+	}
+
+	public boolean isFailed(String dataDir) {
+		return failedDirs.contains(dataDir);
+	}
+
+	/**
+	 * 把数据目录标记为故障，之后不会再在这个目录中查找和创建文件
+	 *
+	 * @return 目录已经被标记为故障时返回false
+	 */
+	public boolean markFailed(String dataDir) {
+		if(!failedDirs.add(dataDir)) {
+			return false;
+		}
+
+		LOG.error("data dir[{}] is marked as failed", dataDir);
+		locations.asMap().values().removeIf(dir -> dir.equals(dataDir));
+		return true;
+	}
+
+	/**
+	 * 故障目录重新可用后恢复使用，只影响之后新建和查找的文件
+	 */
+	public void markRecovered(String dataDir) {
+		if(failedDirs.remove(dataDir)) {
+			LOG.info("data dir[{}] is available again", dataDir);
+		}
 	}
-	
+
 	/**
 	 * 从用户使用的逻辑路径转换为实际磁盘中的真实路径
-	 * 
+	 *
+	 * 文件不存在于任何数据目录时，返回第一个可用数据目录中的路径
+	 *
 	 * @param logicPath
 	 * @return
 	 */
 	public String getConcreteFilePath(String logicPath) {
-		return new File(workDirectory, logicPath).getAbsolutePath();
+		if(dataDirs.size() == 1) {
+			return new File(dataDirs.get(0), logicPath).getAbsolutePath();
+		}
+
+		String dir = locations.getIfPresent(logicPath);
+		if(dir != null) {
+			return new File(dir, logicPath).getAbsolutePath();
+		}
+
+		List<String> availableDirs = getAvailableDataDirs();
+		for(String dataDir : availableDirs) {
+			File file = new File(dataDir, logicPath);
+			if(file.isFile()) {
+				locations.put(logicPath, dataDir);
+				return file.getAbsolutePath();
+			}
+		}
+
+		return new File(availableDirs.isEmpty() ? getRootDir() : availableDirs.get(0), logicPath).getAbsolutePath();
+	}
+
+	/**
+	 * 逻辑路径在所有可用数据目录中对应的真实路径，用于目录的遍历和删除
+	 */
+	public List<String> getConcreteFilePaths(String logicPath) {
+		List<String> paths = new ArrayList<String>();
+		for(String dataDir : getAvailableDataDirs()) {
+			paths.add(new File(dataDir, logicPath).getAbsolutePath());
+		}
+
+		return paths;
+	}
+
+	/**
+	 * 为新文件选择数据目录，文件已经存在时返回已有的路径
+	 *
+	 * 优先选择剩余空间大、写入队列短的磁盘，剩余空间不足requiredSpace的磁盘不参与选择
+	 *
+	 * @return 没有可用的数据目录时返回null
+	 */
+	public String placeFile(String logicPath, long requiredSpace, DiskLoad load) {
+		if(dataDirs.size() == 1) {
+			return failedDirs.isEmpty() ? getConcreteFilePath(logicPath) : null;
+		}
+
+		List<String> availableDirs = getAvailableDataDirs();
+		if(availableDirs.isEmpty()) {
+			LOG.error("all data dirs are failed, can not place file[{}]", logicPath);
+			return null;
+		}
+
+		for(String dataDir : availableDirs) {
+			File file = new File(dataDir, logicPath);
+			if(file.exists()) {
+				locations.put(logicPath, dataDir);
+				return file.getAbsolutePath();
+			}
+		}
+
+		String selected = null;
+		double selectedScore = -1;
+		for(String dataDir : availableDirs) {
+			long usable = new File(dataDir).getUsableSpace();
+			if(usable < requiredSpace) {
+				continue;
+			}
+
+			double score = (double) usable / (1 + load.pendingTasks(dataDir));
+			if(score > selectedScore) {
+				selected = dataDir;
+				selectedScore = score;
+			}
+		}
+
+		if(selected == null) {
+			LOG.error("no data dir has enough space[{}] for file[{}]", requiredSpace, logicPath);
+			return null;
+		}
+
+		locations.put(logicPath, selected);
+		return new File(selected, logicPath).getAbsolutePath();
+	}
+
+	/**
+	 * 真实路径所在的数据目录
+	 *
+	 * @return 不属于任何数据目录时返回null
+	 */
+	public String getDataDir(String path) {
+		for(String dataDir : dataDirs) {
+			if(path.startsWith(dataDir)
+					&& (path.length() == dataDir.length() || path.charAt(dataDir.length()) == File.separatorChar)) {
+				return dataDir;
+			}
+		}
+
+		return null;
 	}
-	
+
 	/**
 	 * 从磁盘上的真实路径转换为用户使用的逻辑路径
-	 * 
+	 *
 	 * @param path
 	 * @return
 	 */
 	public String getLogicFilePath(String path) {
-		if(!path.startsWith(workDirectory)) {
+		String dataDir = getDataDir(path);
+		if(dataDir == null) {
 			throw new IllegalArgumentException("path[" + path + "] isn't illegal real path");
 		}
-		
-		return path.substring(workDirectory.length());
+
+		return path.substring(dataDir.length());
+	}
+
+	/**
+	 * 数据目录当前的写入负载
+	 */
+	public static interface DiskLoad {
+		int pendingTasks(String dataDir);
 	}
 }
@@ -0,0 +1,226 @@
+package com.bonree.brfs.disknode;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bonree.brfs.common.process.LifeCycle;
+import com.bonree.brfs.common.utils.BRFSPath;
+import com.bonree.brfs.common.utils.PooledThreadFactory;
+import com.bonree.brfs.disknode.catalog.FileCatalog;
+import com.bonree.brfs.disknode.data.write.FileWriterManager;
+
+/**
+ * 定期检查每个数据目录是否可以正常读写
+ *
+ * 连续多次检查失败或者超时的目录会被标记为故障，目录中正在写入的文件会被移除，
+ * 之后对这些文件的写入和元数据请求都会返回错误，由副本节点的同步流程处理；
+ * 已经关闭的文件交给{@link DiskFailureListener}重新生成副本，其他磁盘上的文件不受影响。
+ * 故障目录会继续被检查，连续多次检查成功后重新用于新文件
+ */
+public class DiskHealthChecker implements LifeCycle {
+	private static final Logger LOG = LoggerFactory.getLogger(DiskHealthChecker.class);
+
+	private static final String PROBE_FILE = ".disk_probe";
+	private static final String RECORD_SUFFIX = ".rd";
+
+	private final DiskContext diskContext;
+	private final FileWriterManager writerManager;
+	private final long intervalMillis;
+	private final long timeoutMillis;
+	private final int threshold;
+	private final DiskFailureListener listener;
+
+	private ScheduledExecutorService checkThread;
+	// 每个目录一个检查线程，卡住的磁盘不会影响其他目录的检查
+	private ExecutorService probeThreads;
+
+	// 每个目录正在进行的检查，上一次检查结束前不会开始新的检查
+	private final Map<String, Probe> probes = new HashMap<String, Probe>();
+	// 每个目录连续失败或者连续成功的次数，失败为负数
+	private final Map<String, Integer> streaks = new HashMap<String, Integer>();
+
+	public DiskHealthChecker(DiskContext diskContext, FileWriterManager writerManager,
+			Duration interval, Duration timeout, int threshold, DiskFailureListener listener) {
+		this.diskContext = diskContext;
+		this.writerManager = writerManager;
+		this.intervalMillis = interval.toMillis();
+		this.timeoutMillis = timeout.toMillis();
+		this.threshold = Math.max(1, threshold);
+		this.listener = listener;
+	}
+
+	@Override
+	public void start() throws Exception {
+		probeThreads = Executors.newFixedThreadPool(diskContext.getDataDirs().size(), new PooledThreadFactory("disk_probe"));
+		checkThread = Executors.newSingleThreadScheduledExecutor(new PooledThreadFactory("disk_checker"));
+		checkThread.scheduleWithFixedDelay(this::checkAll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void stop() throws Exception {
+		if(checkThread != null) {
+			checkThread.shutdownNow();
+		}
+
+		if(probeThreads != null) {
+			probeThreads.shutdownNow();
+		}
+	}
+
+	private void checkAll() {
+		long now = System.currentTimeMillis();
+		for(String dataDir : diskContext.getDataDirs()) {
+			Probe last = probes.get(dataDir);
+			if(last != null && !last.future.isDone()) {
+				// 卡住的检查每个周期算作一次失败
+				if(now - last.startTime > timeoutMillis) {
+					probeFailed(dataDir, new TimeoutException("probe is not finished in " + (now - last.startTime) + "ms"));
+				}
+				continue;
+			}
+
+			probes.put(dataDir, new Probe(now, probeThreads.submit(() -> {
+				try {
+					probe(dataDir);
+				} catch (Exception e) {
+					probeFailed(dataDir, e);
+					return;
+				}
+
+				probeSucceeded(dataDir);
+			})));
+		}
+	}
+
+	private void probeFailed(String dataDir, Exception cause) {
+		int streak;
+		synchronized (streaks) {
+			streak = Math.min(streaks.getOrDefault(dataDir, 0), 0) - 1;
+			streaks.put(dataDir, streak);
+		}
+
+		if(diskContext.isFailed(dataDir)) {
+			return;
+		}
+
+		LOG.warn("check of data dir[{}] failed [{}] times", dataDir, -streak, cause);
+		if(-streak >= threshold) {
+			LOG.error("data dir[{}] is not available", dataDir);
+			diskFailed(dataDir);
+		}
+	}
+
+	private void probeSucceeded(String dataDir) {
+		int streak;
+		synchronized (streaks) {
+			streak = Math.max(streaks.getOrDefault(dataDir, 0), 0) + 1;
+			streaks.put(dataDir, streak);
+		}
+
+		if(diskContext.isFailed(dataDir) && streak >= threshold) {
+			diskContext.markRecovered(dataDir);
+		}
+	}
+
+	private static void probe(String dataDir) throws Exception {
+		File dir = new File(dataDir);
+		if(!dir.isDirectory() || !dir.canWrite()) {
+			throw new IllegalStateException("data dir[" + dataDir + "] can not be written");
+		}
+
+		File probeFile = new File(dir, PROBE_FILE);
+		try(FileOutputStream output = new FileOutputStream(probeFile)) {
+			output.write(new byte[] {1});
+			output.getFD().sync();
+		}
+
+		if(!probeFile.delete()) {
+			throw new IllegalStateException("can not delete probe file in data dir[" + dataDir + "]");
+		}
+	}
+
+	private void diskFailed(String dataDir) {
+		// 检查线程和超时判断可能同时认定目录故障，只处理一次
+		if(!diskContext.markFailed(dataDir)) {
+			return;
+		}
+
+		List<String> evicted = writerManager.evictDisk(dataDir);
+		LOG.error("data dir[{}] failed, [{}] writing files are evicted : {}", dataDir, evicted.size(), evicted);
+
+		if(listener == null) {
+			return;
+		}
+
+		List<BRFSPath> closedFiles;
+		try {
+			closedFiles = closedFiles(dataDir, evicted);
+		} catch (Exception e) {
+			LOG.error("can not list files of failed data dir[{}]", dataDir, e);
+			return;
+		}
+
+		LOG.warn("[{}] closed files of failed data dir[{}] need to be recovered", closedFiles.size(), dataDir);
+		try {
+			listener.diskFailed(dataDir, closedFiles);
+		} catch (Exception e) {
+			LOG.error("report files of failed data dir[{}] error", dataDir, e);
+		}
+	}
+
+	/**
+	 * 故障目录中已经关闭的数据文件，开启文件目录时不需要访问故障磁盘
+	 */
+	private static List<BRFSPath> closedFiles(String dataDir, List<String> writingFiles) {
+		Set<String> writing = new HashSet<String>(writingFiles);
+		List<BRFSPath> files = new ArrayList<BRFSPath>();
+		List<BRFSPath> paths = FileCatalog.scanAllFiles(dataDir);
+		if(paths == null) {
+			return files;
+		}
+
+		for(BRFSPath path : paths) {
+			if(path.getFileName().endsWith(RECORD_SUFFIX)
+					|| writing.contains(new File(dataDir, path.toString()).getAbsolutePath())) {
+				continue;
+			}
+
+			files.add(path);
+		}
+
+		return files;
+	}
+
+	private static class Probe {
+		private final long startTime;
+		private final Future<?> future;
+
+		Probe(long startTime, Future<?> future) {
+			this.startTime = startTime;
+			this.future = future;
+		}
+	}
+
+	/**
+	 * 数据目录故障后，处理其中已经丢失的文件
+	 */
+	public static interface DiskFailureListener {
+		void diskFailed(String dataDir, List<BRFSPath> lostFiles);
+	}
+}
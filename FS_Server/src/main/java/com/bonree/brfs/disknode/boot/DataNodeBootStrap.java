@@ -1,6 +1,9 @@
 package com.bonree.brfs.disknode.boot;
 
 import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -20,7 +23,10 @@ import com.bonree.brfs.configuration.Configs;
 import com.bonree.brfs.configuration.SystemProperties;
 import com.bonree.brfs.configuration.units.DataNodeConfigs;
 import com.bonree.brfs.disknode.DiskContext;
+import com.bonree.brfs.disknode.DiskHealthChecker;
+import com.bonree.brfs.disknode.catalog.FileCatalog;
 import com.bonree.brfs.disknode.data.write.FileWriterManager;
+import com.bonree.brfs.disknode.data.write.GroupCommitter;
 import com.bonree.brfs.disknode.data.write.record.RecordCollectionManager;
 import com.bonree.brfs.disknode.fileformat.FileFormater;
 import com.bonree.brfs.disknode.fileformat.impl.SimpleFileFormater;
@@ -49,7 +55,11 @@ public class DataNodeBootStrap implements LifeCycle {
 	
 	private DiskContext diskContext;
 	
+	private List<FileCatalog> fileCatalogs = new ArrayList<FileCatalog>();
 	private FileWriterManager writerManager;
+	private DiskHealthChecker diskChecker;
+	private DiskHealthChecker.DiskFailureListener diskFailureListener;
+	private GroupCommitter committer;
 	private ServiceManager serviceManager;
 	
 	private TcpServer server;
@@ -58,23 +68,73 @@ public class DataNodeBootStrap implements LifeCycle {
 	private AsyncFileReaderGroup readerGroup;
 	
 	public DataNodeBootStrap(ServiceManager serviceManager) {
-		this.diskContext = new DiskContext(Configs.getConfiguration().GetConfig(DataNodeConfigs.CONFIG_DATA_ROOT));
+		this.diskContext = new DiskContext(DiskContext.configuredDataDirs());
 		this.serviceManager = serviceManager;
 		this.readerGroup = new AsyncFileReaderGroup(Math.min(2, Runtime.getRuntime().availableProcessors() / 2));
 	}
 	
+	public DiskContext getDiskContext() {
+		return diskContext;
+	}
+	
+	/**
+	 * 数据目录故障时处理其中已经关闭的文件，需要在{@link #start()}之前设置
+	 */
+	public void setDiskFailureListener(DiskHealthChecker.DiskFailureListener listener) {
+		this.diskFailureListener = listener;
+	}
+	
 	@Override
 	public void start() throws Exception {
-		createRootDirIfNeeded(diskContext.getRootDir());
+		for(String dataDir : diskContext.getDataDirs()) {
+			createRootDirIfNeeded(dataDir);
+		}
+		
+		if(Configs.getConfiguration().GetConfig(DataNodeConfigs.CONFIG_CATALOG_ENABLE)) {
+			String catalogDir = Configs.getConfiguration().GetConfig(DataNodeConfigs.CONFIG_CATALOG_DIR);
+			for(String dataDir : diskContext.getDataDirs()) {
+				// 数据根目录沿用原来的位置，其他数据目录按路径放在子目录中
+				FileCatalog fileCatalog = new FileCatalog(dataDir,
+						dataDir.equals(diskContext.getRootDir()) ? catalogDir
+								: new File(catalogDir, dataDir.replace(File.separatorChar, '_')).getAbsolutePath(),
+						Configs.getConfiguration().GetConfig(DataNodeConfigs.CONFIG_CATALOG_SNAPSHOT_THRESHOLD));
+				fileCatalog.start();
+				fileCatalogs.add(fileCatalog);
+			}
+		}
+		
+		DiskContext.register(diskContext);
 		
 		RecordCollectionManager recorderManager = new RecordCollectionManager();
-		writerManager = new FileWriterManager(recorderManager);
+		if(diskContext.getDataDirs().size() > 1) {
+			writerManager = new FileWriterManager(diskContext.getDataDirs(),
+					Configs.getConfiguration().GetConfig(DataNodeConfigs.CONFIG_DISK_WRITER_WORKER_NUM), recorderManager);
+		} else {
+			writerManager = new FileWriterManager(recorderManager);
+		}
 		writerManager.start();
 		
-		writerManager.rebuildFileWriterbyDir(diskContext.getRootDir());
+		for(String dataDir : diskContext.getDataDirs()) {
+			writerManager.rebuildFileWriterbyDir(dataDir);
+		}
+		
+		if(diskContext.getDataDirs().size() > 1) {
+			diskChecker = new DiskHealthChecker(diskContext, writerManager,
+					Duration.parse(Configs.getConfiguration().GetConfig(DataNodeConfigs.CONFIG_DISK_CHECK_INTERVAL)),
+					Duration.parse(Configs.getConfiguration().GetConfig(DataNodeConfigs.CONFIG_DISK_CHECK_TIMEOUT)),
+					Configs.getConfiguration().GetConfig(DataNodeConfigs.CONFIG_DISK_CHECK_THRESHOLD),
+					diskFailureListener);
+			diskChecker.start();
+		}
 		
 		LOG.info("####################################come here###################################");
 		
+		if(Configs.getConfiguration().GetConfig(DataNodeConfigs.CONFIG_WRITER_GROUP_COMMIT)) {
+			committer = new GroupCommitter(Configs.getConfiguration().GetConfig(DataNodeConfigs.CONFIG_WRITER_COMMIT_INTERVAL),
+					Configs.getConfiguration().GetConfig(DataNodeConfigs.CONFIG_WRITER_COMMIT_MAX_DELAY));
+			committer.start();
+		}
+		
 		FileFormater fileFormater = new SimpleFileFormater(Configs.getConfiguration().GetConfig(DataNodeConfigs.CONFIG_FILE_MAX_CAPACITY));
 		
 		threadPool = Executors.newFixedThreadPool(
@@ -83,7 +143,7 @@ public class DataNodeBootStrap implements LifeCycle {
 		
 		MessageChannelInitializer initializer = new MessageChannelInitializer(threadPool);
 		initializer.addMessageHandler(TYPE_OPEN_FILE, new OpenFileMessageHandler(diskContext, writerManager));
-		initializer.addMessageHandler(TYPE_WRITE_FILE, new WriteFileMessageHandler(diskContext, writerManager, fileFormater));
+		initializer.addMessageHandler(TYPE_WRITE_FILE, new WriteFileMessageHandler(diskContext, writerManager, fileFormater, committer));
 		initializer.addMessageHandler(TYPE_CLOSE_FILE, new CloseFileMessageHandler(diskContext, writerManager, fileFormater));
 		initializer.addMessageHandler(TYPE_DELETE_FILE, new DeleteFileMessageHandler(diskContext, writerManager));
 		initializer.addMessageHandler(TYPE_PING_PONG, new PingPongMessageHandler());
@@ -127,7 +187,7 @@ public class DataNodeBootStrap implements LifeCycle {
 				return diskContext.getConcreteFilePath(path);
 			}
 			
-		});
+		}, writerManager);
 		
 		fileServer = new TcpServer(fileServerConfig, fileInitializer);
 		fileServer.start();
@@ -150,6 +210,14 @@ public class DataNodeBootStrap implements LifeCycle {
 			server.stop();
 		}
 		
+		if(committer != null) {
+			committer.stop();
+		}
+		
+		if(diskChecker != null) {
+			diskChecker.stop();
+		}
+		
 		writerManager.stop();
 		
 		if(threadPool != null) {
@@ -157,6 +225,12 @@ public class DataNodeBootStrap implements LifeCycle {
 		}
 		
 		readerGroup.close();
+		
+		DiskContext.unregister(diskContext);
+		
+		for(FileCatalog fileCatalog : fileCatalogs) {
+			fileCatalog.stop();
+		}
 	}
 
 }
@@ -0,0 +1,257 @@
+package com.bonree.brfs.disknode.catalog;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bonree.brfs.common.utils.CloseUtils;
+
+/**
+ * 文件目录的持久化，由一个快照文件和追加写入的操作日志组成。
+ *
+ * 快照每行为[操作 路径]，最后一行为[END 条目数 校验码]；
+ * 日志每行为[操作 路径 校验码]，日志最后一行不完整时视为写入中断，其余情况的校验失败视为数据损坏
+ */
+class CatalogStore implements Closeable {
+	private static final Logger LOG = LoggerFactory.getLogger(CatalogStore.class);
+
+	private static final String SNAPSHOT_FILE = "catalog.snapshot";
+	private static final String LOG_FILE = "catalog.log";
+	// 生成快照期间被替换下来的日志
+	private static final String ROTATED_LOG_FILE = "catalog.log.1";
+
+	private static final String HEADER = "BRFS-CATALOG 1";
+	private static final String END = "END";
+
+	private final File snapshotFile;
+	private final File logFile;
+	private final File rotatedLogFile;
+
+	private BufferedWriter logWriter;
+
+	static interface EntryHandler {
+		void handle(char op, String path);
+	}
+
+	CatalogStore(File dir) {
+		if(!dir.exists()) {
+			dir.mkdirs();
+		}
+
+		this.snapshotFile = new File(dir, SNAPSHOT_FILE);
+		this.logFile = new File(dir, LOG_FILE);
+		this.rotatedLogFile = new File(dir, ROTATED_LOG_FILE);
+	}
+
+	boolean hasSnapshot() {
+		return snapshotFile.exists();
+	}
+
+	boolean hasRotatedLog() {
+		return rotatedLogFile.exists();
+	}
+
+	/**
+	 * 依次加载快照、被替换的日志和当前日志
+	 *
+	 * @return 数据损坏时返回false
+	 */
+	boolean load(EntryHandler handler) {
+		try {
+			if(!loadSnapshot(handler)) {
+				return false;
+			}
+
+			return loadLog(rotatedLogFile, handler) && loadLog(logFile, handler);
+		} catch (IOException e) {
+			LOG.error("load catalog error", e);
+			return false;
+		}
+	}
+
+	private boolean loadSnapshot(EntryHandler handler) throws IOException {
+		try(BufferedReader reader = newReader(snapshotFile)) {
+			if(!HEADER.equals(reader.readLine())) {
+				LOG.warn("unknown catalog snapshot header");
+				return false;
+			}
+
+			CRC32 crc = new CRC32();
+			long count = 0;
+			String line;
+			while((line = reader.readLine()) != null) {
+				if(line.startsWith(END)) {
+					String[] parts = line.split(" ");
+					return parts.length == 3
+							&& Long.parseLong(parts[1]) == count
+							&& Long.parseLong(parts[2], 16) == crc.getValue();
+				}
+
+				if(line.length() < 3 || line.charAt(1) != ' ') {
+					return false;
+				}
+
+				update(crc, line);
+				handler.handle(line.charAt(0), line.substring(2));
+				count++;
+			}
+
+			LOG.warn("catalog snapshot is incomplete");
+			return false;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	private boolean loadLog(File file, EntryHandler handler) throws IOException {
+		if(!file.exists()) {
+			return true;
+		}
+
+		try(BufferedReader reader = newReader(file)) {
+			String line = reader.readLine();
+			while(line != null) {
+				String next = reader.readLine();
+				int crcIndex = line.lastIndexOf(' ');
+				boolean valid = crcIndex > 2 && line.charAt(1) == ' ';
+				if(valid) {
+					try {
+						valid = Long.parseLong(line.substring(crcIndex + 1), 16) == crc(line.substring(0, crcIndex));
+					} catch (NumberFormatException e) {
+						valid = false;
+					}
+				}
+
+				if(!valid) {
+					if(next == null) {
+						LOG.warn("ignore incomplete catalog log entry[{}]", line);
+						return true;
+					}
+
+					LOG.warn("invalid catalog log entry[{}] in file[{}]", line, file.getName());
+					return false;
+				}
+
+				handler.handle(line.charAt(0), line.substring(2, crcIndex));
+				line = next;
+			}
+		}
+
+		return true;
+	}
+
+	SnapshotWriter beginSnapshot() throws IOException {
+		return new SnapshotWriter();
+	}
+
+	/**
+	 * 快照已经包含了所有日志中的内容，删除全部日志
+	 */
+	void clearLogs() {
+		rotatedLogFile.delete();
+		logFile.delete();
+	}
+
+	void deleteRotatedLog() {
+		rotatedLogFile.delete();
+	}
+
+	/**
+	 * 删除快照，下次启动时会重新扫描磁盘生成文件目录
+	 */
+	void invalidate() {
+		snapshotFile.delete();
+	}
+
+	void openLog() throws IOException {
+		logWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(logFile, true), StandardCharsets.UTF_8));
+	}
+
+	void append(char op, String path) throws IOException {
+		String entry = op + " " + path;
+		logWriter.write(entry);
+		logWriter.write(' ');
+		logWriter.write(Long.toHexString(crc(entry)));
+		logWriter.newLine();
+		logWriter.flush();
+	}
+
+	/**
+	 * 把当前日志替换下来，之后的操作写入新的日志文件
+	 */
+	void rotateLog() throws IOException {
+		CloseUtils.closeQuietly(logWriter);
+		try {
+			Files.move(logFile.toPath(), rotatedLogFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			openLog();
+		}
+	}
+
+	@Override
+	public void close() {
+		CloseUtils.closeQuietly(logWriter);
+		logWriter = null;
+	}
+
+	private static BufferedReader newReader(File file) throws IOException {
+		return new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+	}
+
+	private static long crc(String entry) {
+		CRC32 crc = new CRC32();
+		update(crc, entry);
+		return crc.getValue();
+	}
+
+	private static void update(CRC32 crc, String entry) {
+		crc.update(entry.getBytes(StandardCharsets.UTF_8));
+	}
+
+	class SnapshotWriter implements Closeable {
+		private final File tempFile = new File(snapshotFile.getParentFile(), SNAPSHOT_FILE + ".tmp");
+		private final BufferedWriter writer;
+		private final CRC32 crc = new CRC32();
+		private long count;
+
+		private SnapshotWriter() throws IOException {
+			writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8));
+			writer.write(HEADER);
+			writer.newLine();
+		}
+
+		void append(char op, String path) throws IOException {
+			String entry = op + " " + path;
+			update(crc, entry);
+			writer.write(entry);
+			writer.newLine();
+			count++;
+		}
+
+		void commit() throws IOException {
+			writer.write(END + " " + count + " " + Long.toHexString(crc.getValue()));
+			writer.newLine();
+			writer.close();
+			Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+
+		@Override
+		public void close() {
+			CloseUtils.closeQuietly(writer);
+			tempFile.delete();
+		}
+	}
+}
@@ -0,0 +1,480 @@
+package com.bonree.brfs.disknode.catalog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bonree.brfs.common.files.FileFilterInterface;
+import com.bonree.brfs.common.process.LifeCycle;
+import com.bonree.brfs.common.utils.BRFSFileUtil;
+import com.bonree.brfs.common.utils.BRFSPath;
+import com.bonree.brfs.common.utils.PooledThreadFactory;
+import com.bonree.brfs.disknode.catalog.CatalogStore.SnapshotWriter;
+
+/**
+ * 数据节点上所有数据文件的目录，按[sn/index/yyyy/MM/dd/HH_mm_ss/file]的层次保存在内存中，
+ * 用于代替对数据目录的递归扫描。
+ *
+ * 文件的创建和删除由写入路径通知，并记录到追加写入的日志中，日志达到一定条数后生成快照；
+ * 只有第一次启动或者检测到快照、日志损坏时才会扫描整个数据目录重建；
+ * 数据节点有多个数据目录时每个目录各有一个文件目录
+ */
+public class FileCatalog implements LifeCycle {
+	private static final Logger LOG = LoggerFactory.getLogger(FileCatalog.class);
+
+	static final char OP_FILE = 'F';
+	static final char OP_DIR = 'D';
+	static final char OP_REMOVE = 'R';
+
+	private static final int MAX_DEPTH = BRFSPath.PATHLIST.size();
+	private static final long COMPACT_CHECK_MINUTES = 1;
+
+	// 所有文件节点共用的对象
+	private static final Node FILE = new Node(null);
+
+	// 数据目录 -> 文件目录
+	private static final Map<String, FileCatalog> catalogs = new ConcurrentHashMap<String, FileCatalog>();
+
+	private final String rootDir;
+	private final CatalogStore store;
+	private final int snapshotThreshold;
+
+	private final Node root = Node.newDir();
+
+	// 保证内存中的修改和日志的顺序一致
+	private final Object lock = new Object();
+	private int logEntries;
+
+	private ScheduledExecutorService compactThread;
+
+	public FileCatalog(String rootDir, String catalogDir, int snapshotThreshold) {
+		this.rootDir = new File(rootDir).getAbsolutePath();
+		this.store = new CatalogStore(new File(catalogDir));
+		this.snapshotThreshold = snapshotThreshold;
+	}
+
+	@Override
+	public void start() throws Exception {
+		boolean loaded = false;
+		if(store.hasSnapshot()) {
+			loaded = store.load((op, path) -> apply(op, path));
+			if(!loaded) {
+				LOG.warn("file catalog is corrupted, rebuild it from data dir[{}]", rootDir);
+				root.children.clear();
+			}
+		}
+
+		if(!loaded) {
+			rebuild();
+		}
+
+		// 启动时合并已有的日志，同时丢弃可能不完整的日志尾部
+		writeSnapshot();
+		store.clearLogs();
+		store.openLog();
+
+		catalogs.put(rootDir, this);
+
+		compactThread = Executors.newSingleThreadScheduledExecutor(new PooledThreadFactory("catalog_compactor"));
+		compactThread.scheduleWithFixedDelay(() -> compactIfNeeded(),
+				COMPACT_CHECK_MINUTES, COMPACT_CHECK_MINUTES, TimeUnit.MINUTES);
+	}
+
+	@Override
+	public void stop() throws Exception {
+		catalogs.remove(rootDir, this);
+
+		if(compactThread != null) {
+			compactThread.shutdown();
+		}
+
+		synchronized (lock) {
+			store.close();
+		}
+	}
+
+	/**
+	 * 通知数据节点上创建了新文件
+	 */
+	public static void fileCreated(String filePath) {
+		for(FileCatalog catalog : catalogs.values()) {
+			if(catalog.update(OP_FILE, filePath)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * 通知数据节点上删除了文件或目录，删除目录时目录下的所有内容都会被移除
+	 */
+	public static void fileDeleted(String filePath) {
+		for(FileCatalog catalog : catalogs.values()) {
+			if(catalog.update(OP_REMOVE, filePath)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * 与{@link BRFSFileUtil#scanBRFSFiles(String, Map, int, FileFilterInterface)}的结果相同，
+	 * 文件目录不可用时直接扫描磁盘
+	 */
+	public static List<BRFSPath> scanBRFSFiles(String root, Map<String, String> map, int index, FileFilterInterface filter) {
+		FileCatalog catalog = catalogOf(root);
+		if(catalog == null) {
+			return BRFSFileUtil.scanBRFSFiles(root, map, index, filter);
+		}
+
+		Node node = catalog.find(map);
+		if(node == null) {
+			return null;
+		}
+
+		return catalog.scan(root, node, map, index, filter);
+	}
+
+	/**
+	 * 获取存储区域下的所有文件，与{@link BRFSFileUtil#scanFile(String, String)}的结果相同
+	 */
+	public static List<BRFSPath> scanFile(String root, String storageRegion) {
+		FileCatalog catalog = catalogOf(root);
+		if(catalog == null) {
+			return BRFSFileUtil.scanFile(root, storageRegion);
+		}
+
+		Node node = catalog.root.children.get(storageRegion);
+		if(node == null || !node.isDirectory()) {
+			return null;
+		}
+
+		List<BRFSPath> files = new ArrayList<BRFSPath>();
+		String[] names = new String[MAX_DEPTH];
+		names[0] = storageRegion;
+		collectFiles(node, names, 1, files);
+		return files;
+	}
+
+	/**
+	 * 获取数据目录下所有存储区域的文件，与{@link BRFSFileUtil#scanFile(String)}的结果相同
+	 */
+	public static List<BRFSPath> scanAllFiles(String root) {
+		FileCatalog catalog = catalogOf(root);
+		if(catalog == null) {
+			return BRFSFileUtil.scanFile(root);
+		}
+
+		List<BRFSPath> files = new ArrayList<BRFSPath>();
+		String[] names = new String[MAX_DEPTH];
+		for(Entry<String, Node> entry : catalog.root.children.entrySet()) {
+			if(entry.getValue().isDirectory()) {
+				names[0] = entry.getKey();
+				collectFiles(entry.getValue(), names, 1, files);
+			}
+		}
+
+		return files;
+	}
+
+	private static FileCatalog catalogOf(String root) {
+		return catalogs.get(new File(root).getAbsolutePath());
+	}
+
+	/**
+	 * @return 文件不在这个文件目录的数据目录中时返回false
+	 */
+	private boolean update(char op, String filePath) {
+		String path = relativePath(filePath);
+		if(path == null) {
+			return false;
+		}
+
+		synchronized (lock) {
+			apply(op, path);
+
+			try {
+				store.append(op, path);
+				logEntries++;
+			} catch (Exception e) {
+				// 日志与内存中的内容已经不一致，下次启动时重新扫描
+				LOG.error("append file catalog log error, catalog will be rebuilt at next start", e);
+				store.invalidate();
+			}
+		}
+
+		return true;
+	}
+
+	private String relativePath(String filePath) {
+		String path = new File(filePath).getAbsolutePath();
+		if(!path.startsWith(rootDir) || path.length() <= rootDir.length() + 1
+				|| path.charAt(rootDir.length()) != File.separatorChar) {
+			return null;
+		}
+
+		path = path.substring(rootDir.length() + 1);
+		if(File.separatorChar != '/') {
+			path = path.replace(File.separatorChar, '/');
+		}
+
+		return path;
+	}
+
+	private void apply(char op, String path) {
+		String[] names = path.split("/");
+		if(names.length > MAX_DEPTH) {
+			return;
+		}
+
+		switch (op) {
+		case OP_FILE:
+			add(names, true);
+			break;
+		case OP_DIR:
+			add(names, false);
+			break;
+		case OP_REMOVE:
+			remove(names);
+			break;
+		default:
+			LOG.warn("unknown catalog operation[{}] for path[{}]", op, path);
+		}
+	}
+
+	private void add(String[] names, boolean isFile) {
+		Node node = root;
+		for(int i = 0; i < names.length - 1; i++) {
+			Node child = node.children.get(names[i]);
+			if(child == null || !child.isDirectory()) {
+				child = Node.newDir();
+				node.children.put(names[i], child);
+			}
+
+			node = child;
+		}
+
+		String name = names[names.length - 1];
+		if(isFile) {
+			node.children.put(name, FILE);
+		} else {
+			Node child = node.children.get(name);
+			if(child == null || !child.isDirectory()) {
+				node.children.put(name, Node.newDir());
+			}
+		}
+	}
+
+	private void remove(String[] names) {
+		Node node = root;
+		for(int i = 0; i < names.length - 1; i++) {
+			node = node.children.get(names[i]);
+			if(node == null || !node.isDirectory()) {
+				return;
+			}
+		}
+
+		node.children.remove(names[names.length - 1]);
+	}
+
+	private Node find(Map<String, String> map) {
+		Node node = root;
+		for(String key : BRFSPath.PATHLIST) {
+			String name = map.get(key);
+			if(name == null) {
+				break;
+			}
+
+			if(!node.isDirectory()) {
+				return null;
+			}
+
+			node = node.children.get(name);
+			if(node == null) {
+				return null;
+			}
+		}
+
+		return node;
+	}
+
+	private List<BRFSPath> scan(String root, Node node, Map<String, String> map, int index, FileFilterInterface filter) {
+		List<BRFSPath> files = new ArrayList<BRFSPath>();
+		if(node.isDirectory()) {
+			if(filter.isAdd(root, map, false)) {
+				files.add(BRFSPath.getInstance(map));
+			}
+
+			if(!filter.isDeep(index, map)) {
+				return files;
+			}
+
+			if(node.children.isEmpty()) {
+				return files;
+			}
+
+			String key = filter.getKey(index);
+			for(Entry<String, Node> entry : node.children.entrySet()) {
+				Map<String, String> tmp = new HashMap<String, String>(map);
+				tmp.put(key, entry.getKey());
+				files.addAll(scan(root, entry.getValue(), tmp, index + 1, filter));
+			}
+		}
+
+		if(filter.isAdd(root, map, !node.isDirectory())) {
+			files.add(BRFSPath.getInstance(map));
+		}
+
+		return files;
+	}
+
+	private static void collectFiles(Node node, String[] names, int depth, List<BRFSPath> files) {
+		for(Entry<String, Node> entry : node.children.entrySet()) {
+			names[depth] = entry.getKey();
+			if(depth == MAX_DEPTH - 1) {
+				if(!entry.getValue().isDirectory()) {
+					files.add(BRFSPath.getInstance(names[0], names[1], names[2], names[3], names[4], names[5], names[6]));
+				}
+
+				continue;
+			}
+
+			if(entry.getValue().isDirectory()) {
+				collectFiles(entry.getValue(), names, depth + 1, files);
+			}
+		}
+	}
+
+	/**
+	 * 扫描数据目录重建文件目录
+	 */
+	private void rebuild() throws IOException {
+		LOG.info("scanning data dir[{}] to build file catalog", rootDir);
+		long start = System.currentTimeMillis();
+		Path rootPath = new File(rootDir).toPath();
+		if(!Files.exists(rootPath)) {
+			return;
+		}
+
+		Files.walkFileTree(rootPath, Collections.emptySet(), MAX_DEPTH, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				if(!dir.equals(rootPath)) {
+					add(names(rootPath.relativize(dir)), false);
+				}
+
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				add(names(rootPath.relativize(file)), !attrs.isDirectory());
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+				LOG.warn("can not visit file[{}]", file, e);
+				return FileVisitResult.CONTINUE;
+			}
+
+		});
+
+		LOG.info("file catalog is built in {} ms", System.currentTimeMillis() - start);
+	}
+
+	private static String[] names(Path path) {
+		String[] names = new String[path.getNameCount()];
+		for(int i = 0; i < names.length; i++) {
+			names[i] = path.getName(i).toString();
+		}
+
+		return names;
+	}
+
+	private void compactIfNeeded() {
+		try {
+			synchronized (lock) {
+				if(store.hasRotatedLog()) {
+					// 上次生成快照失败，被替换的日志还没有删除，直接重新生成快照
+				} else if(logEntries < snapshotThreshold) {
+					return;
+				} else {
+					store.rotateLog();
+					logEntries = 0;
+				}
+			}
+
+			// 快照生成期间的修改都记录在新的日志中，加载时在快照之后重放，因此不需要阻塞写入
+			writeSnapshot();
+			store.deleteRotatedLog();
+		} catch (Exception e) {
+			LOG.error("compact file catalog error", e);
+		}
+	}
+
+	private void writeSnapshot() throws IOException {
+		long start = System.currentTimeMillis();
+		try(SnapshotWriter writer = store.beginSnapshot()) {
+			writeNode(writer, root, new StringBuilder());
+			writer.commit();
+		}
+
+		LOG.info("file catalog snapshot is written in {} ms", System.currentTimeMillis() - start);
+	}
+
+	private static void writeNode(SnapshotWriter writer, Node node, StringBuilder path) throws IOException {
+		int length = path.length();
+		for(Entry<String, Node> entry : node.children.entrySet()) {
+			if(length > 0) {
+				path.append('/');
+			}
+			path.append(entry.getKey());
+
+			Node child = entry.getValue();
+			if(!child.isDirectory()) {
+				writer.append(OP_FILE, path.toString());
+			} else if(child.children.isEmpty()) {
+				writer.append(OP_DIR, path.toString());
+			} else {
+				writeNode(writer, child, path);
+			}
+
+			path.setLength(length);
+		}
+	}
+
+	private static class Node {
+		// 文件节点为null
+		private final ConcurrentSkipListMap<String, Node> children;
+
+		private Node(ConcurrentSkipListMap<String, Node> children) {
+			this.children = children;
+		}
+
+		static Node newDir() {
+			return new Node(new ConcurrentSkipListMap<String, Node>());
+		}
+
+		boolean isDirectory() {
+			return children != null;
+		}
+	}
+}
@@ -3,6 +3,7 @@ package com.bonree.brfs.disknode.client;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import com.bonree.brfs.disknode.server.handler.data.FileInfo;
 
@@ -15,7 +16,15 @@ public interface DiskNodeClient extends Closeable {
 	WriteResult writeData(String path, byte[] bytes) throws IOException;
 	WriteResult writeData(String path, byte[] bytes, int offset, int size) throws IOException;
 	
-	WriteResult[] writeDatas(String path, List<byte[]> dataList) throws IOException;
+	/**
+	 * 写入数据，数据节点使用compress指定的压缩方式编码每条数据
+	 */
+	WriteResult[] writeDatas(String path, int compress, List<byte[]> dataList) throws IOException;
+	
+	/**
+	 * 异步写入数据，数据节点返回错误时结果为null
+	 */
+	CompletableFuture<WriteResult[]> writeDatasAsync(String path, int compress, List<byte[]> dataList);
 	
 	boolean flush(String file) throws IOException;
 	
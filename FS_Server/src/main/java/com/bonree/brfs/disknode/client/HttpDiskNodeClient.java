@@ -4,10 +4,12 @@ import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.bonree.brfs.common.data.utils.CompressType;
 import com.bonree.brfs.common.net.http.client.ClientConfig;
 import com.bonree.brfs.common.net.http.client.HttpClient;
 import com.bonree.brfs.common.net.http.client.HttpResponse;
@@ -90,7 +92,7 @@ public class HttpDiskNodeClient implements DiskNodeClient {
 		List<byte[]> datas = new ArrayList<byte[]>();
 		datas.add(bytes);
 		
-		WriteResult[] results = writeDatas(path, datas);
+		WriteResult[] results = writeDatas(path, CompressType.NONE.code(), datas);
 		
 		return results != null ? results[0] : null;
 	}
@@ -106,7 +108,7 @@ public class HttpDiskNodeClient implements DiskNodeClient {
 	}
 	
 	@Override
-	public WriteResult[] writeDatas(String path, List<byte[]> dataList) throws IOException {
+	public WriteResult[] writeDatas(String path, int compress, List<byte[]> dataList) throws IOException {
 		WriteDataList datas = new WriteDataList();
 		WriteData[] dataArray = new WriteData[dataList.size()];
 		for(int i = 0; i < dataArray.length; i++) {
@@ -122,6 +124,7 @@ public class HttpDiskNodeClient implements DiskNodeClient {
 		.setHost(host)
 		.setPort(port)
 		.setPath(DiskContext.URI_DISK_NODE_ROOT + path)
+		.addParameter("compress", String.valueOf(compress))
 		.build();
 		
 		try {
@@ -139,6 +142,18 @@ public class HttpDiskNodeClient implements DiskNodeClient {
 		return null;
 	}
 	
+	@Override
+	public CompletableFuture<WriteResult[]> writeDatasAsync(String path, int compress, List<byte[]> dataList) {
+		CompletableFuture<WriteResult[]> result = new CompletableFuture<WriteResult[]>();
+		try {
+			result.complete(writeDatas(path, compress, dataList));
+		} catch (IOException e) {
+			result.completeExceptionally(e);
+		}
+		
+		return result;
+	}
+	
 	@Override
 	public boolean flush(String path) {
 		URI uri = new URIBuilder()
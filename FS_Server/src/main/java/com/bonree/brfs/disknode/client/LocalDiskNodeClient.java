@@ -2,6 +2,7 @@ package com.bonree.brfs.disknode.client;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import com.bonree.brfs.disknode.server.handler.data.FileInfo;
 
@@ -44,10 +45,15 @@ public class LocalDiskNodeClient implements DiskNodeClient {
 	}
 
 	@Override
-	public WriteResult[] writeDatas(String path, List<byte[]> dataList)
+	public WriteResult[] writeDatas(String path, int compress, List<byte[]> dataList)
 			throws IOException {
 		return null;
 	}
+	
+	@Override
+	public CompletableFuture<WriteResult[]> writeDatasAsync(String path, int compress, List<byte[]> dataList) {
+		return CompletableFuture.completedFuture(null);
+	}
 
 	@Override
 	public boolean ping() {
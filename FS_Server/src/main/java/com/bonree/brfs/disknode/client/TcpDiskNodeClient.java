@@ -203,7 +203,19 @@ public class TcpDiskNodeClient implements DiskNodeClient {
 	}
 
 	@Override
-	public WriteResult[] writeDatas(String path, List<byte[]> dataList) throws IOException {
+	public WriteResult[] writeDatas(String path, int compress, List<byte[]> dataList) throws IOException {
+		try {
+			return writeDatasAsync(path, compress, dataList).get();
+		} catch (Exception e) {
+			LOG.error("write file error", e);
+		}
+		
+		return null;
+	}
+	
+	@Override
+	public CompletableFuture<WriteResult[]> writeDatasAsync(String path, int compress, List<byte[]> dataList) {
+		CompletableFuture<WriteResult[]> result = new CompletableFuture<WriteResult[]>();
 		try {
 			WriteFileData[] datas = new WriteFileData[dataList.size()];
 			for(int i = 0; i < datas.length; i++) {
@@ -215,38 +227,40 @@ public class TcpDiskNodeClient implements DiskNodeClient {
 			
 			WriteFileMessage writeFileMessage = new WriteFileMessage();
 			writeFileMessage.setFilePath(path);
+			writeFileMessage.setCompress(compress);
 			writeFileMessage.setDatas(datas);
 			
 			BaseMessage message = new BaseMessage(DataNodeBootStrap.TYPE_WRITE_FILE);
 			message.setBody(ProtoStuffUtils.serialize(writeFileMessage));
 			
-			CompletableFuture<BaseResponse> future = new CompletableFuture<BaseResponse>();
 			LOG.debug("write [{}] datas to data node in file[{}]", dataList.size(), path);
 			client.sendMessage(message, new ResponseHandler<BaseResponse>() {
 				
 				@Override
 				public void handle(BaseResponse response) {
-					future.complete(response);
+					if(response == null || response.getCode() != ResponseCode.OK) {
+						result.complete(null);
+						return;
+					}
+					
+					try {
+						WriteResultList resultList = ProtoStuffUtils.deserialize(response.getBody(), WriteResultList.class);
+						result.complete(resultList.getWriteResults());
+					} catch (Exception e) {
+						result.completeExceptionally(e);
+					}
 				}
 				
 				@Override
 				public void error(Throwable e) {
-					future.completeExceptionally(e);
+					result.completeExceptionally(e);
 				}
 			});
-			
-			BaseResponse response = future.get();
-			
-			if(response != null && response.getCode() == ResponseCode.OK) {
-				WriteResultList resultList = ProtoStuffUtils.deserialize(response.getBody(), WriteResultList.class);
-				
-				return resultList.getWriteResults();
-			}
 		} catch (Exception e) {
-			LOG.error("write file error", e);
+			result.completeExceptionally(e);
 		}
 		
-		return null;
+		return result;
 	}
 
 	@Override
@@ -0,0 +1,106 @@
+package com.bonree.brfs.disknode.data.read;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 从连续到达的字节片段中切分出完整的数据记录，
+ * 不完整的记录会保留下来，等待后续片段到达后再切分
+ *
+ * 记录的格式见{@link com.bonree.brfs.common.write.data.FileEncoder#contents}，
+ * 这里只解析开头的数据长度，不会拷贝记录内容
+ */
+public class RecordStreamDecoder {
+	private byte[] buffer;
+	private int length;
+
+	public RecordStreamDecoder(int initCapacity) {
+		this.buffer = new byte[Math.max(initCapacity, 16)];
+	}
+
+	/**
+	 * 追加一段字节数据
+	 *
+	 * @param bytes
+	 */
+	public void append(byte[] bytes) {
+		if(length + bytes.length > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + bytes.length));
+		}
+
+		System.arraycopy(bytes, 0, buffer, length, bytes.length);
+		length += bytes.length;
+	}
+
+	/**
+	 * 把缓存中所有完整的记录依次交给consumer处理，处理完的数据会被移除
+	 *
+	 * @param consumer
+	 * @return 处理的字节数
+	 * @throws IOException
+	 */
+	public int drain(RecordConsumer consumer) throws IOException {
+		int pos = 0;
+		int size;
+		while((size = recordSize(buffer, pos, length)) > 0) {
+			consumer.consume(buffer, pos, size);
+			pos += size;
+		}
+
+		if(pos > 0) {
+			System.arraycopy(buffer, pos, buffer, 0, length - pos);
+			length -= pos;
+		}
+
+		return pos;
+	}
+
+	/**
+	 * 还没有形成完整记录的字节数
+	 */
+	public int remaining() {
+		return length;
+	}
+
+	public void reset() {
+		length = 0;
+	}
+
+	/**
+	 * 计算从pos开始的记录的总长度
+	 *
+	 * @return 数据不足一条完整记录或者长度为0时返回0
+	 */
+	static int recordSize(byte[] bytes, int pos, int limit) {
+		if(pos >= limit) {
+			return 0;
+		}
+
+		int first = bytes[pos] & 0xFF;
+		long dataLength = first & 0x7F;
+		int index = pos + 1;
+		if((first >> 7) != 0) {
+			//数据长度的扩展字节，最高位为0的字节是最后一个
+			int b;
+			do {
+				if(index >= limit) {
+					return 0;
+				}
+
+				b = bytes[index++] & 0xFF;
+				dataLength = (dataLength << 7) | (b & 0x7F);
+			} while((b >> 7) != 0);
+		}
+
+		long size = index - pos + dataLength;
+		if(dataLength == 0 || size > limit - pos) {
+			return 0;
+		}
+
+		return (int) size;
+	}
+
+	public static interface RecordConsumer {
+		void consume(byte[] bytes, int offset, int size) throws IOException;
+	}
+}
@@ -8,12 +8,17 @@ import java.nio.ByteBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.bonree.brfs.common.net.tcp.file.FileTail;
 import com.bonree.brfs.common.utils.CloseUtils;
+import com.bonree.brfs.disknode.data.write.buf.EncodedData;
 import com.bonree.brfs.disknode.data.write.buf.FileBuffer;
 
 /**
  * 使用缓存的文件写入类，缓存满时会自动同步数据到磁盘。
  * 
+ * 缓存中的数据可以通过{@link #readTail(long, int)}在其他线程中读取，
+ * 所以修改缓存和文件长度的方法都需要同步
+ * 
  * @author yupeng
  *
  */
@@ -67,7 +72,7 @@ public class BufferedFileWriter implements FileWriter {
 	}
 	
 	@Override
-	public void write(byte[] bytes, int offset, int length) throws IOException {
+	public synchronized void write(byte[] bytes, int offset, int length) throws IOException {
 		if(length > buffer.writableSize() && buffer.readableSize() > 0) {
 			flush();
 		}
@@ -98,7 +103,27 @@ public class BufferedFileWriter implements FileWriter {
 	}
 	
 	@Override
-	public void flush() throws IOException {
+	public synchronized void write(EncodedData data) throws IOException {
+		int length = data.size();
+		if(length > buffer.writableSize() && buffer.readableSize() > 0) {
+			flush();
+		}
+		
+		if(length > buffer.capacity()) {
+			//超过缓存大小的数据只能先编码到临时数组中再直接写入文件
+			ByteBuffer bytes = ByteBuffer.allocate(length);
+			data.writeTo(bytes);
+			write(bytes.array(), 0, length);
+			return;
+		}
+		
+		buffer.write(data);
+		position += length;
+		LOG.debug("encode data size[{}] to buffer for file[{}], position become [{}]", length, filePath, position);
+	}
+	
+	@Override
+	public synchronized void flush() throws IOException {
 		try {
 			LOG.debug("flush data size[{}] to file[{}]", buffer.readableSize(), filePath);
 			buffer.flush(file.getChannel());
@@ -114,8 +139,29 @@ public class BufferedFileWriter implements FileWriter {
 		}
 	}
 
+	/**
+	 * 拷贝[offset, offset + length)范围内还在缓存中的数据
+	 */
+	public synchronized FileTail readTail(long offset, int length) {
+		long end = fileLength + buffer.readableSize();
+		long start = Math.max(offset, fileLength);
+		long stop = Math.min(offset + length, end);
+		
+		byte[] bytes = new byte[(int) Math.max(stop - start, 0)];
+		if(bytes.length > 0) {
+			buffer.copyTo((int) (start - fileLength), bytes, 0, bytes.length);
+		}
+		
+		return new FileTail(fileLength, end, start, bytes);
+	}
+
+	@Override
+	public void force() throws IOException {
+		file.getChannel().force(false);
+	}
+
 	@Override
-	public void close() throws IOException {
+	public synchronized void close() throws IOException {
 		flush();
 		CloseUtils.closeQuietly(file);
 	}
@@ -126,7 +172,7 @@ public class BufferedFileWriter implements FileWriter {
 	}
 
 	@Override
-	public void position(long pos) throws IOException {
+	public synchronized void position(long pos) throws IOException {
 		buffer.clear();
 		fileLength = pos < 0 ? 0 : pos;
 		position = fileLength;
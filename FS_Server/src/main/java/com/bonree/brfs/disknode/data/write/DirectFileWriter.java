@@ -3,8 +3,10 @@ package com.bonree.brfs.disknode.data.write;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 
 import com.bonree.brfs.common.utils.CloseUtils;
+import com.bonree.brfs.disknode.data.write.buf.EncodedData;
 
 /**
  * 直接对文件进行数据写入的类，不使用缓存
@@ -74,11 +76,23 @@ public class DirectFileWriter implements FileWriter {
 		}
 	}
 
+	@Override
+	public void write(EncodedData data) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(data.size());
+		data.writeTo(buf);
+		write(buf.array());
+	}
+
 	@Override
 	public void flush() throws IOException {
 		file.getFD().sync();
 	}
 
+	@Override
+	public void force() throws IOException {
+		file.getChannel().force(false);
+	}
+
 	@Override
 	public long position() {
 		return fileLength;
@@ -3,6 +3,8 @@ package com.bonree.brfs.disknode.data.write;
 import java.io.Closeable;
 import java.io.IOException;
 
+import com.bonree.brfs.disknode.data.write.buf.EncodedData;
+
 /**
  * 磁盘文件写入接口类
  * 
@@ -49,10 +51,25 @@ public interface FileWriter extends Closeable {
 	 */
 	void write(byte[] bytes, int offset, int size) throws IOException;
 	
+	/**
+	 * 把数据直接编码到文件中，有写入缓存时数据只会被拷贝一次
+	 * 
+	 * @param data
+	 */
+	void write(EncodedData data) throws IOException;
+	
 	/**
 	 * 将数据同步到磁盘
 	 * 
 	 * @throws IOException 
 	 */
 	void flush() throws IOException;
+	
+	/**
+	 * 将已经写入文件的数据强制同步到存储设备，
+	 * 缓存中还未写入文件的数据不会被同步
+	 * 
+	 * @throws IOException
+	 */
+	void force() throws IOException;
 }
@@ -6,6 +6,8 @@ import java.io.IOException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -14,10 +16,11 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.bonree.brfs.common.net.tcp.file.FileTail;
+import com.bonree.brfs.common.net.tcp.file.FileTailReader;
 import com.bonree.brfs.common.process.LifeCycle;
 import com.bonree.brfs.common.timer.WheelTimer;
 import com.bonree.brfs.common.timer.WheelTimer.Timeout;
-import com.bonree.brfs.common.utils.BRFSFileUtil;
 import com.bonree.brfs.common.utils.BRFSPath;
 import com.bonree.brfs.common.utils.ByteUtils;
 import com.bonree.brfs.common.utils.CloseUtils;
@@ -25,6 +28,8 @@ import com.bonree.brfs.common.utils.FileUtils;
 import com.bonree.brfs.common.write.data.FileDecoder;
 import com.bonree.brfs.configuration.Configs;
 import com.bonree.brfs.configuration.units.DataNodeConfigs;
+import com.bonree.brfs.disknode.DiskContext;
+import com.bonree.brfs.disknode.catalog.FileCatalog;
 import com.bonree.brfs.disknode.data.read.DataFileReader;
 import com.bonree.brfs.disknode.data.write.buf.ByteArrayFileBuffer;
 import com.bonree.brfs.disknode.data.write.record.RecordCollectionManager;
@@ -39,11 +44,17 @@ import com.bonree.brfs.disknode.utils.BRFSRdFileFilter;
 import com.bonree.brfs.disknode.utils.Pair;
 import com.google.common.base.Splitter;
 
-public class FileWriterManager implements LifeCycle {
+/**
+ * 管理正在写入的文件
+ * 
+ * 使用多个数据目录时每个目录有独占的写入线程，一块磁盘的写入变慢或者阻塞不会影响其他磁盘上的文件；
+ * 文件中还在写入缓存里的数据可以通过{@link #read(String, long, int)}读取
+ */
+public class FileWriterManager implements LifeCycle, DiskContext.DiskLoad, FileTailReader {
 	private static final Logger LOG = LoggerFactory.getLogger(FileWriterManager.class);
 
-	// 默认的写Worker线程数量
-	private WriteWorkerGroup workerGroup;
+	// 数据目录对应的写Worker线程组，key为空字符串的线程组负责所有目录
+	private Map<String, WriteWorkerGroup> workerGroups = new LinkedHashMap<String, WriteWorkerGroup>();
 	private WriteWorkerSelector workerSelector;
 	private RecordCollectionManager recorderManager;
 
@@ -65,14 +76,28 @@ public class FileWriterManager implements LifeCycle {
 
 	public FileWriterManager(int workerNum, WriteWorkerSelector selector,
 			RecordCollectionManager recorderManager) {
-		this.workerGroup = new WriteWorkerGroup(workerNum);
+		this.workerGroups.put("", new WriteWorkerGroup(workerNum));
 		this.workerSelector = selector;
 		this.recorderManager = recorderManager;
 	}
+	
+	/**
+	 * 每个数据目录使用workerNumPerDisk个独占的写入线程
+	 */
+	public FileWriterManager(List<String> dataDirs, int workerNumPerDisk, RecordCollectionManager recorderManager) {
+		for(int i = 0; i < dataDirs.size(); i++) {
+			this.workerGroups.put(new File(dataDirs.get(i)).getAbsolutePath(),
+					new WriteWorkerGroup(workerNumPerDisk, "write_worker_disk" + i));
+		}
+		this.workerSelector = new RandomWriteWorkerSelector();
+		this.recorderManager = recorderManager;
+	}
 
 	@Override
 	public void start() throws Exception {
-		workerGroup.start();
+		for(WriteWorkerGroup workerGroup : workerGroups.values()) {
+			workerGroup.start();
+		}
 
 		timeoutWheel.setTimeout(new Timeout<String>() {
 
@@ -136,7 +161,7 @@ public class FileWriterManager implements LifeCycle {
 
     public void rebuildFileWriterbyDir(String dataDirPath) {
 	    Map<String,String> baseMap = new HashMap<>();
-	    List<BRFSPath> rds = BRFSFileUtil.scanBRFSFiles(dataDirPath,baseMap,baseMap.size(),new BRFSRdFileFilter());
+	    List<BRFSPath> rds = FileCatalog.scanBRFSFiles(dataDirPath,baseMap,baseMap.size(),new BRFSRdFileFilter());
 	    File rdFile = null;
 	    File dataFile = null;
 	    for(BRFSPath path : rds){
@@ -144,7 +169,9 @@ public class FileWriterManager implements LifeCycle {
 	        dataFile = RecordFileBuilder.reverse(rdFile);
 	        if(!dataFile.exists()) {
 	        	LOG.error("no data file is attached to a existed rd file[{}]!", rdFile.getAbsolutePath());
-	        	rdFile.delete();
+	        	if(rdFile.delete()) {
+	        		FileCatalog.fileDeleted(rdFile.getAbsolutePath());
+	        	}
 	        	continue;
 	        }
 	        
@@ -166,7 +193,99 @@ public class FileWriterManager implements LifeCycle {
 				LOG.error("stop to flush file[{}] error", entry.getKey(), e);
 			}
 		}
-		workerGroup.stop();
+		
+		for(WriteWorkerGroup workerGroup : workerGroups.values()) {
+			workerGroup.stop();
+		}
+	}
+	
+	private static boolean isUnder(String path, String dataDir) {
+		return dataDir.isEmpty() || (path.startsWith(dataDir)
+				&& path.length() > dataDir.length() && path.charAt(dataDir.length()) == File.separatorChar);
+	}
+	
+	private WriteWorker selectWorker(String filePath) {
+		WriteWorkerGroup selected = null;
+		for(Entry<String, WriteWorkerGroup> entry : workerGroups.entrySet()) {
+			if(isUnder(filePath, entry.getKey())) {
+				selected = entry.getValue();
+				break;
+			}
+		}
+		
+		if(selected == null) {
+			LOG.warn("file[{}] is not in any data dir", filePath);
+			selected = workerGroups.values().iterator().next();
+		}
+		
+		return workerSelector.select(selected.getWorkerList());
+	}
+	
+	@Override
+	public FileTail read(String filePath, long offset, int length) {
+		Pair<RecordFileWriter, WriteWorker> binding = runningWriters.get(filePath);
+		if(binding == null) {
+			return null;
+		}
+		
+		return binding.first().readTail(offset, length);
+	}
+	
+	@Override
+	public int pendingTasks(String dataDir) {
+		WriteWorkerGroup workerGroup = workerGroups.get(dataDir);
+		return workerGroup == null ? 0 : workerGroup.pendingTasks();
+	}
+	
+	/**
+	 * 移除数据目录中所有正在写入的文件，用于磁盘故障时隔离这块磁盘
+	 * 
+	 * 关闭文件时会把缓存写入故障磁盘，所以交给文件所在的写入线程执行，不会阻塞调用者，
+	 * 也不会和正在执行的写入任务冲突；写入线程已经阻塞时直接丢弃文件
+	 * 
+	 * @return 被移除的文件路径
+	 */
+	public List<String> evictDisk(String dataDir) {
+		List<String> evicted = new ArrayList<String>();
+		Iterator<Entry<String, Pair<RecordFileWriter, WriteWorker>>> iter = runningWriters.entrySet().iterator();
+		while(iter.hasNext()) {
+			Entry<String, Pair<RecordFileWriter, WriteWorker>> entry = iter.next();
+			if(!isUnder(entry.getKey(), dataDir)) {
+				continue;
+			}
+			
+			iter.remove();
+			timeoutWheel.remove(entry.getKey());
+			closeInWorker(entry.getKey(), entry.getValue());
+			evicted.add(entry.getKey());
+		}
+		
+		return evicted;
+	}
+
+	private static void closeInWorker(String path, Pair<RecordFileWriter, WriteWorker> binding) {
+		boolean accepted = binding.second().offer(new WriteTask<Void>() {
+
+			@Override
+			protected Void execute() throws Exception {
+				CloseUtils.closeQuietly(binding.first());
+				return null;
+			}
+
+			@Override
+			protected void onPostExecute(Void result) {
+				LOG.info("evicted file[{}] is closed", path);
+			}
+
+			@Override
+			protected void onFailed(Throwable e) {
+				LOG.error("close evicted file[{}] error", path, e);
+			}
+		});
+		
+		if(!accepted) {
+			LOG.warn("write worker of evicted file[{}] is blocked, drop the writer without closing", path);
+		}
 	}
 
 	public Pair<RecordFileWriter, WriteWorker> getBinding(String path, boolean createIfNeeded) {
@@ -190,7 +309,7 @@ public class FileWriterManager implements LifeCycle {
 						new BufferedFileWriter(dataFile, true, new ByteArrayFileBuffer(dataCacheSize)));
 
 		Pair<RecordFileWriter, WriteWorker> binding = new Pair<RecordFileWriter, WriteWorker>(
-				writer, workerSelector.select(workerGroup.getWorkerList()));
+				writer, selectWorker(dataFile.getAbsolutePath()));
 		
 		runningWriters.put(dataFile.getAbsolutePath(), binding);
 	}
@@ -213,10 +332,12 @@ public class FileWriterManager implements LifeCycle {
 								new BufferedFileWriter(filePath, new ByteArrayFileBuffer(dataCacheSize)));
 
 						binding = new Pair<RecordFileWriter, WriteWorker>(
-								writer, workerSelector.select(workerGroup
-										.getWorkerList()));
+								writer, selectWorker(filePath));
 						
 						runningWriters.put(filePath, binding);
+						
+						FileCatalog.fileCreated(filePath);
+						FileCatalog.fileCreated(RecordFileBuilder.buildFrom(filePath).getAbsolutePath());
 					} catch (Exception e) {
 						LOG.error("build disk writer error", e);
 					}
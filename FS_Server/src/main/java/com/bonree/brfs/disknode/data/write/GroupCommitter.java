@@ -0,0 +1,162 @@
+package com.bonree.brfs.disknode.data.write;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bonree.brfs.common.process.LifeCycle;
+import com.bonree.brfs.common.utils.PooledThreadFactory;
+
+/**
+ * 批量提交文件写入，由一个共享的提交线程对上次提交后写入过的所有文件统一执行fsync，
+ * 提交完成后才通知写入方，使多个写请求共享一次磁盘同步的开销。
+ *
+ * 两次提交之间至少间隔commitInterval，一个写请求最多等待maxDelay后就会被提交
+ */
+public class GroupCommitter implements LifeCycle {
+	private static final Logger LOG = LoggerFactory.getLogger(GroupCommitter.class);
+
+	private final long commitIntervalMillis;
+	private final long maxDelayMillis;
+
+	private ExecutorService commitThread;
+
+	private final Object lock = new Object();
+	private Map<FileWriter, List<CompletableFuture<Void>>> pendingFiles = new LinkedHashMap<FileWriter, List<CompletableFuture<Void>>>();
+	private long firstPendingTime;
+	private long lastCommitTime;
+
+	private volatile boolean quit = false;
+
+	public GroupCommitter(long commitIntervalMillis, long maxDelayMillis) {
+		this.commitIntervalMillis = commitIntervalMillis;
+		this.maxDelayMillis = Math.max(maxDelayMillis, commitIntervalMillis);
+		this.commitThread = Executors.newSingleThreadExecutor(new PooledThreadFactory("file_committer"));
+	}
+
+	@Override
+	public void start() {
+		commitThread.submit(new Committer());
+	}
+
+	@Override
+	public void stop() {
+		quit = true;
+		synchronized (lock) {
+			lock.notifyAll();
+		}
+
+		commitThread.shutdown();
+	}
+
+	/**
+	 * 提交文件中已写入的数据，文件缓存中的数据需要在提交前刷入文件
+	 *
+	 * @param writer
+	 * @return 数据同步到磁盘后完成
+	 */
+	public CompletableFuture<Void> commit(FileWriter writer) {
+		CompletableFuture<Void> future = new CompletableFuture<Void>();
+		synchronized (lock) {
+			if(quit) {
+				future.completeExceptionally(new IllegalStateException("group committer is stopped"));
+				return future;
+			}
+
+			if(pendingFiles.isEmpty()) {
+				firstPendingTime = System.currentTimeMillis();
+				lock.notifyAll();
+			}
+
+			List<CompletableFuture<Void>> futures = pendingFiles.get(writer);
+			if(futures == null) {
+				futures = new ArrayList<CompletableFuture<Void>>();
+				pendingFiles.put(writer, futures);
+			}
+
+			futures.add(future);
+		}
+
+		return future;
+	}
+
+	private class Committer implements Runnable {
+
+		private Map<FileWriter, List<CompletableFuture<Void>>> takeBatch() throws InterruptedException {
+			synchronized (lock) {
+				while(true) {
+					if(pendingFiles.isEmpty()) {
+						if(quit) {
+							return null;
+						}
+
+						lock.wait();
+						continue;
+					}
+
+					long now = System.currentTimeMillis();
+					long commitTime = Math.min(Math.max(firstPendingTime, lastCommitTime + commitIntervalMillis),
+							firstPendingTime + maxDelayMillis);
+					if(quit || now >= commitTime) {
+						break;
+					}
+
+					lock.wait(commitTime - now);
+				}
+
+				Map<FileWriter, List<CompletableFuture<Void>>> batch = pendingFiles;
+				pendingFiles = new LinkedHashMap<FileWriter, List<CompletableFuture<Void>>>();
+				return batch;
+			}
+		}
+
+		@Override
+		public void run() {
+			LOG.info("group committer started.");
+			while(true) {
+				Map<FileWriter, List<CompletableFuture<Void>>> batch;
+				try {
+					batch = takeBatch();
+				} catch (InterruptedException e) {
+					LOG.error("group committer is interrupted", e);
+					break;
+				}
+
+				if(batch == null) {
+					break;
+				}
+
+				for(Entry<FileWriter, List<CompletableFuture<Void>>> entry : batch.entrySet()) {
+					Throwable error = null;
+					try {
+						entry.getKey().force();
+					} catch (IOException e) {
+						LOG.error("force file[{}] error", entry.getKey().getPath(), e);
+						error = e;
+					}
+
+					for(CompletableFuture<Void> future : entry.getValue()) {
+						if(error == null) {
+							future.complete(null);
+						} else {
+							future.completeExceptionally(error);
+						}
+					}
+				}
+
+				lastCommitTime = System.currentTimeMillis();
+				LOG.debug("commit [{}] files", batch.size());
+			}
+			LOG.info("group committer quit.");
+		}
+	}
+}
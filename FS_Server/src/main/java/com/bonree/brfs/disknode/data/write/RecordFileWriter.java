@@ -1,10 +1,21 @@
 package com.bonree.brfs.disknode.data.write;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bonree.brfs.common.net.tcp.file.FileTail;
 import com.bonree.brfs.common.utils.ByteUtils;
+import com.bonree.brfs.common.utils.CloseUtils;
+import com.bonree.brfs.disknode.data.write.buf.EncodedData;
 import com.bonree.brfs.disknode.data.write.record.RecordCollection;
 import com.bonree.brfs.disknode.data.write.record.RecordElement;
+import com.bonree.brfs.disknode.data.write.record.RecordElementReader;
 
 /**
  * 对数据写入进行日志记录的{@link FileWriter}包装类
@@ -13,12 +24,20 @@ import com.bonree.brfs.disknode.data.write.record.RecordElement;
  *
  */
 public class RecordFileWriter implements FileWriter {
+	private static final Logger LOG = LoggerFactory.getLogger(RecordFileWriter.class);
+	
 	private FileWriter delegate;
 	private RecordCollection recorder;
 	
+	//文件体(文件头之后的数据)的CRC码，每次写入时合并写入数据的CRC码
+	private boolean crcValid;
+	private long bodyCrc;
+	
 	public RecordFileWriter(RecordCollection recorder, FileWriter delegate) {
 		this.recorder = recorder;
 		this.delegate = delegate;
+		//已有数据的文件需要通过写入记录恢复CRC码
+		this.crcValid = delegate.position() == 0;
 	}
 	
 	@Override
@@ -37,10 +56,105 @@ public class RecordFileWriter implements FileWriter {
 
 	@Override
 	public void write(byte[] bytes, int offset, int size) throws IOException {
-		RecordElement element = new RecordElement(delegate.position(), size, ByteUtils.crc(bytes, offset, size));
-		recorder.put(element);
+		long position = delegate.position();
+		long recordCrc = ByteUtils.crc(bytes, offset, size);
+		recorder.put(position, size, recordCrc);
 		
 		delegate.write(bytes, offset, size);
+		
+		updateCrc(position, recordCrc, size);
+	}
+	
+	@Override
+	public void write(EncodedData data) throws IOException {
+		long position = delegate.position();
+		CrcData crcData = new CrcData(data);
+		delegate.write(crcData);
+		
+		//CRC码在编码时才能得到，所以写入记录放在数据之后
+		recorder.put(position, crcData.size(), crcData.crc);
+		updateCrc(position, crcData.crc, crcData.size());
+	}
+	
+	private void updateCrc(long position, long recordCrc, int size) {
+		if(position == 0) {
+			//文件开头的写入为文件头，不计入文件体的CRC
+			resetCrc(0);
+		} else if(crcValid) {
+			bodyCrc = ByteUtils.crcCombine(bodyCrc, recordCrc, size);
+		}
+	}
+	
+	private void resetCrc(long crc) {
+		crcValid = true;
+		bodyCrc = crc;
+	}
+	
+	/**
+	 * 获取文件头之后所有已写入数据的CRC码，不需要重新读取数据文件
+	 * 
+	 * @return 无法通过写入记录得到CRC码时返回-1
+	 * @throws IOException
+	 */
+	public long bodyCrc() throws IOException {
+		if(!crcValid) {
+			recorder.sync();
+			long crc = crcFromRecords();
+			if(crc < 0) {
+				return -1;
+			}
+			
+			resetCrc(crc);
+		}
+		
+		return bodyCrc;
+	}
+	
+	/**
+	 * 合并写入记录中每段数据的CRC码得到文件体的CRC码，
+	 * 重新设置过写入位置的记录会回退到对应位置的CRC码
+	 */
+	private long crcFromRecords() {
+		//每个元素为{结束位置, 到结束位置为止的CRC码}
+		Deque<long[]> prefixes = new ArrayDeque<long[]>();
+		RecordElementReader reader = recorder.getRecordElementReader();
+		try {
+			Iterator<RecordElement> iterator = reader.iterator();
+			while(iterator.hasNext()) {
+				RecordElement element = iterator.next();
+				if(element.getOffset() == 0) {
+					prefixes.clear();
+					prefixes.push(new long[] {element.getSize(), 0});
+					continue;
+				}
+				
+				if(!truncate(prefixes, element.getOffset())) {
+					LOG.warn("record element{} is not continuous in file[{}]", element, getPath());
+					return -1;
+				}
+				
+				long[] last = prefixes.peek();
+				prefixes.push(new long[] {last[0] + element.getSize(),
+						ByteUtils.crcCombine(last[1], element.getCrc(), element.getSize())});
+			}
+		} finally {
+			CloseUtils.closeQuietly(reader);
+		}
+		
+		if(!truncate(prefixes, delegate.position())) {
+			LOG.warn("records can not match position[{}] of file[{}]", delegate.position(), getPath());
+			return -1;
+		}
+		
+		return prefixes.peek()[1];
+	}
+	
+	private static boolean truncate(Deque<long[]> prefixes, long position) {
+		while(!prefixes.isEmpty() && prefixes.peek()[0] > position) {
+			prefixes.pop();
+		}
+		
+		return !prefixes.isEmpty() && prefixes.peek()[0] == position;
 	}
 
 	@Override
@@ -49,11 +163,29 @@ public class RecordFileWriter implements FileWriter {
 		delegate.flush();
 	}
 
+	@Override
+	public void force() throws IOException {
+		recorder.force();
+		delegate.force();
+	}
+
 	@Override
 	public long position() {
 		return delegate.position();
 	}
 	
+	/**
+	 * 读取还在写入缓存中的数据，没有缓存时所有数据都已经在文件中
+	 */
+	public FileTail readTail(long offset, int length) {
+		if(delegate instanceof BufferedFileWriter) {
+			return ((BufferedFileWriter) delegate).readTail(offset, length);
+		}
+		
+		long position = delegate.position();
+		return new FileTail(position, position, Math.max(offset, position), new byte[0]);
+	}
+	
 	@Override
 	public void close() throws IOException {
 		delegate.close();
@@ -62,7 +194,34 @@ public class RecordFileWriter implements FileWriter {
 
 	@Override
 	public void position(long pos) throws IOException {
+		//写入位置变化后需要通过写入记录重新计算CRC码
+		crcValid = false;
 		delegate.position(pos);
 	}
+	
+	/**
+	 * 编码的同时计算数据的CRC码，不需要再读一遍写入的数据
+	 */
+	private static class CrcData implements EncodedData {
+		private final EncodedData data;
+		private long crc;
+		
+		CrcData(EncodedData data) {
+			this.data = data;
+		}
+
+		@Override
+		public int size() {
+			return data.size();
+		}
+
+		@Override
+		public void writeTo(ByteBuffer dest) {
+			ByteBuffer written = dest.duplicate();
+			data.writeTo(dest);
+			written.limit(dest.position());
+			crc = ByteUtils.crc(written);
+		}
+	}
 
 }
@@ -50,6 +50,31 @@ public class ByteArrayFileBuffer implements FileBuffer {
 		position += size;
 	}
 
+	@Override
+	public void write(EncodedData data) {
+		int size = data.size();
+		if(size > writableSize()) {
+			throw new BufferOverflowException();
+		}
+		
+		ByteBuffer dest = ByteBuffer.wrap(byteArray, position, size);
+		data.writeTo(dest);
+		if(dest.hasRemaining()) {
+			throw new IllegalStateException("encoded [" + (dest.position() - position) + "] bytes, expected [" + size + "]");
+		}
+		
+		position += size;
+	}
+
+	@Override
+	public void copyTo(int position, byte[] dest, int offset, int size) {
+		if(position + size > this.position) {
+			throw new IndexOutOfBoundsException("copy [" + position + ", " + (position + size) + ") out of readable size[" + this.position + "]");
+		}
+		
+		System.arraycopy(byteArray, position, dest, offset, size);
+	}
+
 	@Override
 	public void clear() {
 		position = 0;
@@ -0,0 +1,24 @@
+package com.bonree.brfs.disknode.data.write.buf;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 可以直接编码到写入缓存中的数据，不需要先生成中间数组再拷贝
+ * 
+ */
+public interface EncodedData {
+	/**
+	 * 编码后数据的长度
+	 * 
+	 * @return
+	 */
+	int size();
+	
+	/**
+	 * 把数据编码到目标buffer的当前位置，完成后buffer的位置
+	 * 前移{@link #size()}个字节
+	 * 
+	 * @param dest
+	 */
+	void writeTo(ByteBuffer dest);
+}
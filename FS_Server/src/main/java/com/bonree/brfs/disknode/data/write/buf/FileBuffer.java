@@ -47,6 +47,23 @@ public interface FileBuffer {
 	 */
 	void write(byte[] datas, int offset, int size);
 	
+	/**
+	 * 把数据直接编码到缓存中
+	 * 
+	 * @param data
+	 */
+	void write(EncodedData data);
+	
+	/**
+	 * 拷贝缓存中从position开始的一段数据
+	 * 
+	 * @param position 数据在缓存中的开始位置
+	 * @param dest
+	 * @param offset 数据在目标数组中的开始位置
+	 * @param size 拷贝数据的长度
+	 */
+	void copyTo(int position, byte[] dest, int offset, int size);
+	
 	/**
 	 * 清空缓存数据
 	 */
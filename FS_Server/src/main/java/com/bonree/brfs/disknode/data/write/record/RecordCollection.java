@@ -4,6 +4,7 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -12,8 +13,8 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.bonree.brfs.common.serialize.ProtoStuffUtils;
 import com.bonree.brfs.common.utils.CloseUtils;
+import com.bonree.brfs.disknode.catalog.FileCatalog;
 import com.bonree.brfs.disknode.data.write.FileWriter;
 
 /**
@@ -31,6 +32,10 @@ public class RecordCollection implements Closeable {
 	
 	private boolean deleteOnClose;
 	
+	//记录只会在文件对应的写入线程中写入，可以重复使用
+	private final byte[] elementBytes = new byte[RecordFileFormat.ELEMENT_SIZE];
+	private final ByteBuffer elementBuffer = ByteBuffer.wrap(elementBytes);
+	
 	/**
 	 * 创建记录处理器
 	 * 
@@ -62,7 +67,27 @@ public class RecordCollection implements Closeable {
 	 * @throws IOException
 	 */
 	public void put(RecordElement element) throws IOException {
-		recordWriter.write(ProtoStuffUtils.serialize(element));
+		put(element.getOffset(), element.getSize(), element.getCrc());
+	}
+	
+	/**
+	 * 记录数据写入日志
+	 * 
+	 * @param offset 数据在文件中的偏移量
+	 * @param size 数据大小
+	 * @param crc 数据的CRC码
+	 * @throws IOException
+	 */
+	public void put(long offset, int size, long crc) throws IOException {
+		if(recordWriter.position() == 0) {
+			elementBuffer.clear();
+			RecordFileFormat.writeHeader(elementBuffer);
+			recordWriter.write(elementBytes, 0, elementBuffer.position());
+		}
+		
+		elementBuffer.clear();
+		RecordFileFormat.writeElement(elementBuffer, offset, size, crc);
+		recordWriter.write(elementBytes, 0, elementBuffer.position());
 	}
 	
 	public void clear() throws IOException {
@@ -79,6 +104,15 @@ public class RecordCollection implements Closeable {
 		recordWriter.flush();
 	}
 	
+	/**
+	 * 强制同步已写入记录文件的数据到存储设备
+	 * 
+	 * @throws IOException
+	 */
+	public void force() throws IOException {
+		recordWriter.force();
+	}
+	
 	public RecordElementReader getRecordElementReader() {
 		return new RecordElementReader(recordFile);
 	}
@@ -110,7 +144,9 @@ public class RecordCollection implements Closeable {
 		
 		if(deleteOnClose) {
 			LOG.info("It's time to delete record file[{}]", recordFile.getAbsolutePath());
-			recordFile.delete();
+			if(recordFile.delete()) {
+				FileCatalog.fileDeleted(recordFile.getAbsolutePath());
+			}
 		}
 	}
 }
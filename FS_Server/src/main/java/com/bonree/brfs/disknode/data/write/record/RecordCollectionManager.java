@@ -2,6 +2,7 @@ package com.bonree.brfs.disknode.data.write.record;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -63,6 +64,17 @@ public class RecordCollectionManager {
 	public RecordCollection getRecordCollection(String dataFilePath, boolean append, int bufferSize, boolean deleteOnClose) {
 		File recordFile = RecordFileBuilder.buildFrom(dataFilePath);
 		try {
+			if(append && RecordFileFormat.isLegacyFormat(recordFile)) {
+				return convertLegacyRecords(recordFile, bufferSize, deleteOnClose);
+			}
+			
+			if(append) {
+				long truncated = RecordFileFormat.truncateTornElement(recordFile);
+				if(truncated > 0) {
+					LOG.warn("drop [{}] bytes of torn record in record file[{}]", truncated, recordFile.getAbsolutePath());
+				}
+			}
+			
 			FileWriter writer = bufferSize > 0 ? new BufferedFileWriter(recordFile, append, new ByteArrayFileBuffer(bufferSize))
 			                                   : new DirectFileWriter(recordFile, append);
 			
@@ -73,4 +85,22 @@ public class RecordCollectionManager {
 		
 		return null;
 	}
+	
+	/**
+	 * 把旧格式的记录文件重写为二进制格式，以便继续追加记录
+	 */
+	private RecordCollection convertLegacyRecords(File recordFile, int bufferSize, boolean deleteOnClose) throws IOException {
+		List<RecordElement> elements = new RecordCollection(recordFile, null, false).getRecordElementList();
+		LOG.info("convert [{}] records of legacy record file[{}]", elements.size(), recordFile.getAbsolutePath());
+		
+		FileWriter writer = bufferSize > 0 ? new BufferedFileWriter(recordFile, false, new ByteArrayFileBuffer(bufferSize))
+                                           : new DirectFileWriter(recordFile, false);
+		RecordCollection collection = new RecordCollection(recordFile, writer, deleteOnClose);
+		for(RecordElement element : elements) {
+			collection.put(element);
+		}
+		collection.sync();
+		
+		return collection;
+	}
 }
@@ -7,19 +7,28 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
 import java.util.Iterator;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.bonree.brfs.common.serialize.ProtoStuffUtils;
+import com.bonree.brfs.common.utils.BufferUtils;
 import com.bonree.brfs.common.utils.CloseUtils;
 
+/**
+ * 读取写入记录文件，二进制格式的文件通过内存映射读取，
+ * 同时兼容旧版本ProtoStuff格式的记录文件
+ */
 public class RecordElementReader implements Iterable<RecordElement>, Closeable {
 	private static final Logger LOG = LoggerFactory.getLogger(RecordElementReader.class);
 	
 	private File recordFile;
 	private InputStream fileInput;
+	private ByteBuffer mappedBuffer;
 	
 	public RecordElementReader(File recordFile) {
 		this.recordFile = recordFile;
@@ -27,6 +36,11 @@ public class RecordElementReader implements Iterable<RecordElement>, Closeable {
 
 	@Override
 	public Iterator<RecordElement> iterator() {
+		if(!RecordFileFormat.isLegacyFormat(recordFile)) {
+			mappedBuffer = mapRecordFile();
+			return new MappedElementIterator(mappedBuffer);
+		}
+		
 		try {
 			fileInput = new BufferedInputStream(new FileInputStream(recordFile));
 		} catch (FileNotFoundException e) {
@@ -35,10 +49,51 @@ public class RecordElementReader implements Iterable<RecordElement>, Closeable {
 		
 		return new RecordElementIterator(fileInput);
 	}
+	
+	private ByteBuffer mapRecordFile() {
+		RandomAccessFile file = null;
+		try {
+			file = new RandomAccessFile(recordFile, "r");
+			long length = file.length();
+			if(length <= RecordFileFormat.HEADER_SIZE) {
+				return ByteBuffer.allocate(0);
+			}
+			
+			ByteBuffer buffer = file.getChannel().map(MapMode.READ_ONLY, 0, length);
+			buffer.position(RecordFileFormat.HEADER_SIZE);
+			return buffer;
+		} catch (IOException e) {
+			LOG.error("map record file[{}] error", recordFile.getAbsolutePath(), e);
+		} finally {
+			CloseUtils.closeQuietly(file);
+		}
+		
+		return ByteBuffer.allocate(0);
+	}
 
 	@Override
 	public void close() throws IOException {
 		CloseUtils.closeQuietly(fileInput);
+		BufferUtils.release(mappedBuffer);
+	}
+	
+	private class MappedElementIterator implements Iterator<RecordElement> {
+		private ByteBuffer buffer;
+		
+		public MappedElementIterator(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public boolean hasNext() {
+			//不完整的记录说明写入过程中发生了异常，忽略掉
+			return buffer.remaining() >= RecordFileFormat.ELEMENT_SIZE;
+		}
+
+		@Override
+		public RecordElement next() {
+			return RecordFileFormat.readElement(buffer);
+		}
 	}
 	
 	private class RecordElementIterator implements Iterator<RecordElement> {
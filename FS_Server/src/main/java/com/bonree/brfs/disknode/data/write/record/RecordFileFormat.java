@@ -0,0 +1,95 @@
+package com.bonree.brfs.disknode.data.write.record;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+import com.bonree.brfs.common.utils.CloseUtils;
+
+/**
+ * 写入记录文件的二进制格式
+ * 
+ * 文件头为4字节的魔数，之后每条记录固定20字节：
+ * 偏移量(8字节) + 数据大小(4字节) + CRC(8字节)
+ * 
+ * 旧版本的记录文件中是ProtoStuff序列化的{@link RecordElement}，没有文件头
+ */
+public final class RecordFileFormat {
+	public static final int MAGIC = 0x42524431;
+	
+	public static final int HEADER_SIZE = 4;
+	public static final int ELEMENT_SIZE = 20;
+	
+	/**
+	 * 判断记录文件是否是旧版本的格式，不存在或者为空的文件不属于旧格式
+	 * 
+	 * @param recordFile
+	 * @return
+	 */
+	public static boolean isLegacyFormat(File recordFile) {
+		if(!recordFile.exists() || recordFile.length() == 0) {
+			return false;
+		}
+		
+		if(recordFile.length() < HEADER_SIZE) {
+			return true;
+		}
+		
+		RandomAccessFile file = null;
+		try {
+			file = new RandomAccessFile(recordFile, "r");
+			return file.readInt() != MAGIC;
+		} catch (IOException e) {
+			return false;
+		} finally {
+			CloseUtils.closeQuietly(file);
+		}
+	}
+	
+	/**
+	 * 把记录文件截断到完整记录的末尾，去掉写入中断时残留的不完整记录，
+	 * 否则之后追加的记录都会错位
+	 * 
+	 * @param recordFile 新格式的记录文件
+	 * @return 被截掉的字节数
+	 * @throws IOException
+	 */
+	public static long truncateTornElement(File recordFile) throws IOException {
+		long length = recordFile.length();
+		if(length <= HEADER_SIZE) {
+			return 0;
+		}
+		
+		long validLength = HEADER_SIZE + (length - HEADER_SIZE) / ELEMENT_SIZE * ELEMENT_SIZE;
+		if(validLength == length) {
+			return 0;
+		}
+		
+		RandomAccessFile file = null;
+		try {
+			file = new RandomAccessFile(recordFile, "rw");
+			file.setLength(validLength);
+		} finally {
+			CloseUtils.closeQuietly(file);
+		}
+		
+		return length - validLength;
+	}
+	
+	public static void writeHeader(ByteBuffer buffer) {
+		buffer.putInt(MAGIC);
+	}
+	
+	public static void writeElement(ByteBuffer buffer, long offset, int size, long crc) {
+		buffer.putLong(offset);
+		buffer.putInt(size);
+		buffer.putLong(crc);
+	}
+	
+	public static RecordElement readElement(ByteBuffer buffer) {
+		return new RecordElement(buffer.getLong(), buffer.getInt(), buffer.getLong());
+	}
+	
+	private RecordFileFormat() {}
+}
@@ -34,6 +34,22 @@ public class WriteWorker implements Runnable {
 		}
 	}
 	
+	/**
+	 * 不阻塞地提交任务
+	 * 
+	 * @return 任务队列已满时返回false
+	 */
+	public <R> boolean offer(WriteTask<R> task) {
+		return taskQueue.offer(task);
+	}
+	
+	/**
+	 * 等待执行的任务数量
+	 */
+	public int pendingTasks() {
+		return taskQueue.size();
+	}
+	
 	public void quit() {
 		isQuit = true;
 	}
@@ -18,12 +18,16 @@ public class WriteWorkerGroup implements LifeCycle {
 	private List<WriteWorker> workerList = new ArrayList<WriteWorker>();
 	
 	public WriteWorkerGroup(int threadNum) {
+		this(threadNum, "write_worker");
+	}
+	
+	public WriteWorkerGroup(int threadNum, String name) {
 		this.workerThreads = new ThreadPoolExecutor(threadNum,
 				threadNum,
                 0L,
                 TimeUnit.MILLISECONDS,
                 new ArrayBlockingQueue<Runnable>(threadNum),
-                new PooledThreadFactory("write_worker"));
+                new PooledThreadFactory(name));
 		
 		for(int i = 0; i < threadNum; i++) {
 			workerList.add(new WriteWorker());
@@ -34,6 +38,15 @@ public class WriteWorkerGroup implements LifeCycle {
 		return workerList;
 	}
 	
+	public int pendingTasks() {
+		int count = 0;
+		for(WriteWorker worker : workerList) {
+			count += worker.pendingTasks();
+		}
+		
+		return count;
+	}
+	
 	@Override
 	public void start() {
 		workerList.forEach(new Consumer<WriteWorker>() {
@@ -1,5 +1,7 @@
 package com.bonree.brfs.disknode.fileformat;
 
+import com.bonree.brfs.disknode.data.write.buf.EncodedData;
+
 public interface FileFormater {
 	FileHeader fileHeader();
 	FileTailer fileTailer();
@@ -7,5 +9,10 @@ public interface FileFormater {
 	long relativeOffset(long offset);
 	long absoluteOffset(long offset);
 	
-	byte[] formatData(byte[] data) throws Exception;
+	/**
+	 * 按指定的压缩方式编码一条数据，编码在写入缓存时才进行
+	 * 
+	 * @param compress {@link com.bonree.brfs.common.data.utils.CompressType}的编码
+	 */
+	EncodedData formatData(int compress, byte[] data) throws Exception;
 }
@@ -1,16 +1,29 @@
 package com.bonree.brfs.disknode.fileformat.impl;
 
-import com.bonree.brfs.common.proto.FileDataProtos.FileContent;
+import java.nio.ByteBuffer;
+
+import com.bonree.brfs.common.data.utils.CompressType;
 import com.bonree.brfs.common.write.data.FileEncoder;
-import com.bonree.brfs.configuration.Configs;
-import com.bonree.brfs.configuration.units.DataNodeConfigs;
+import com.bonree.brfs.disknode.data.write.buf.EncodedData;
 import com.bonree.brfs.disknode.fileformat.FileFormater;
 import com.bonree.brfs.disknode.fileformat.FileHeader;
 import com.bonree.brfs.disknode.fileformat.FileTailer;
 import com.google.common.base.Preconditions;
-import com.google.protobuf.ByteString;
 
 public class SimpleFileFormater implements FileFormater {
+	private static final byte[] EMPTY = new byte[0];
+	private static final EncodedData EMPTY_DATA = new EncodedData() {
+
+		@Override
+		public int size() {
+			return 0;
+		}
+
+		@Override
+		public void writeTo(ByteBuffer dest) {
+		}
+	};
+	
 	private final long capacity;
 	private FileHeader header = new SimpleFileHeader();
 	private FileTailer tailer = new SimpleFileTailer();
@@ -46,16 +59,38 @@ public class SimpleFileFormater implements FileFormater {
 	}
 
 	@Override
-	public byte[] formatData(byte[] data) throws Exception {
-		FileContent content = FileContent.newBuilder()
-				.setCompress(Configs.getConfiguration().GetConfig(DataNodeConfigs.CONFIG_DATA_COMPRESS) ? 1 : 0)
-				.setDescription("")
-				.setData(ByteString.copyFrom(data))
-				.setCrcFlag(false)
-				.setCrcCheckCode(0)
-				.build();
+	public EncodedData formatData(int compress, byte[] data) throws Exception {
+		if(data == null || data.length == 0) {
+			return EMPTY_DATA;
+		}
 		
-		return FileEncoder.contents(content);
+		//这里只做压缩，编码在写入缓存时直接进行，不经过protobuf对象和中间数组
+		CompressType type = CompressType.valueOf(compress);
+		return new ContentData(type.code(), type.compress(EMPTY), type.compress(data));
+	}
+	
+	private static class ContentData implements EncodedData {
+		private final int compress;
+		private final byte[] describe;
+		private final byte[] content;
+		private final int size;
+		
+		ContentData(int compress, byte[] describe, byte[] content) {
+			this.compress = compress;
+			this.describe = describe;
+			this.content = content;
+			this.size = FileEncoder.contentsLength(describe.length, content.length, false, 0);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public void writeTo(ByteBuffer dest) {
+			FileEncoder.contents(dest, compress, describe, content, 0, content.length, false, 0);
+		}
 	}
 
 }
@@ -70,9 +70,14 @@ public class CloseMessageHandler implements MessageHandler {
 			
 			LOG.info("start writing file tailer for {}", filePath);
 			binding.first().flush();
-			byte[] fileBytes = DataFileReader.readFile(filePath, 2);
-			long crcCode = ByteUtils.crc(fileBytes);
-			LOG.info("final crc code[{}] by bytes[{}] of file[{}]", crcCode, fileBytes.length, filePath);
+			long crcCode = binding.first().bodyCrc();
+			if(crcCode < 0) {
+				byte[] fileBytes = DataFileReader.readFile(filePath, 2);
+				crcCode = ByteUtils.crc(fileBytes);
+				LOG.info("final crc code[{}] by bytes[{}] of file[{}]", crcCode, fileBytes.length, filePath);
+			} else {
+				LOG.info("final crc code[{}] by records of file[{}]", crcCode, filePath);
+			}
 			
 			byte[] tailer = Bytes.concat(FileEncoder.validate(crcCode), FileEncoder.tail());
 			
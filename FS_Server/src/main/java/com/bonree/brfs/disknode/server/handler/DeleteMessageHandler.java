@@ -13,6 +13,7 @@ import com.bonree.brfs.common.net.http.HandleResultCallback;
 import com.bonree.brfs.common.net.http.HttpMessage;
 import com.bonree.brfs.common.net.http.MessageHandler;
 import com.bonree.brfs.disknode.DiskContext;
+import com.bonree.brfs.disknode.catalog.FileCatalog;
 import com.bonree.brfs.disknode.data.write.FileWriterManager;
 import com.bonree.brfs.disknode.server.handler.data.DeleteData;
 
@@ -75,7 +76,9 @@ public class DeleteMessageHandler implements MessageHandler {
 		LOG.info("DISK Deleting file[{}]", file.getAbsolutePath());
 		
 		if(writerManager.getBinding(file.getAbsolutePath(), false) == null) {
-			file.delete();
+			if(file.delete()) {
+				FileCatalog.fileDeleted(file.getAbsolutePath());
+			}
 			return;
 		}
 		
@@ -84,7 +87,9 @@ public class DeleteMessageHandler implements MessageHandler {
 		}
 		
 		writerManager.close(file.getAbsolutePath());
-		file.delete();
+		if(file.delete()) {
+			FileCatalog.fileDeleted(file.getAbsolutePath());
+		}
 	}
 	
 	private void closeDir(File dir, boolean recursive, boolean forceClose) {
@@ -94,7 +99,9 @@ public class DeleteMessageHandler implements MessageHandler {
 		
 		
 		if(dir.list().length == 0) {
-			dir.delete();
+			if(dir.delete()) {
+				FileCatalog.fileDeleted(dir.getAbsolutePath());
+			}
 			return;
 		}
 		
@@ -119,7 +126,9 @@ public class DeleteMessageHandler implements MessageHandler {
 		//第二轮删除文件夹节点
 		for(File deleteDir : deletingDirs) {
 			LOG.info("DISK Deleting dir[{}]", deleteDir.getAbsolutePath());
-			deleteDir.delete();
+			if(deleteDir.delete()) {
+				FileCatalog.fileDeleted(deleteDir.getAbsolutePath());
+			}
 		}
 	}
 
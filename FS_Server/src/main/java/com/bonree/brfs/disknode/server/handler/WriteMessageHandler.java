@@ -5,6 +5,7 @@ import java.io.IOException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.bonree.brfs.common.data.utils.CompressType;
 import com.bonree.brfs.common.net.http.HandleResult;
 import com.bonree.brfs.common.net.http.HandleResultCallback;
 import com.bonree.brfs.common.net.http.HttpMessage;
@@ -15,6 +16,7 @@ import com.bonree.brfs.disknode.client.WriteResult;
 import com.bonree.brfs.disknode.client.WriteResultList;
 import com.bonree.brfs.disknode.data.write.FileWriterManager;
 import com.bonree.brfs.disknode.data.write.RecordFileWriter;
+import com.bonree.brfs.disknode.data.write.buf.EncodedData;
 import com.bonree.brfs.disknode.data.write.worker.WriteTask;
 import com.bonree.brfs.disknode.data.write.worker.WriteWorker;
 import com.bonree.brfs.disknode.fileformat.FileFormater;
@@ -75,16 +77,18 @@ public class WriteMessageHandler implements MessageHandler {
 		protected WriteResult[] execute() throws Exception {
 			WriteDataList dataList = ProtoStuffUtils.deserialize(message.getContent(), WriteDataList.class);
 			WriteData[] datas = dataList.getDatas();
+			String compressParam = message.getParams().get("compress");
+			int compress = compressParam == null ? CompressType.NONE.code() : Integer.parseInt(compressParam);
 			
 			results = new WriteResult[datas.length];
 			
 			RecordFileWriter writer = binding.first();
 			for(int i = 0; i < datas.length; i++) {
-				byte[] contentData = fileFormater.formatData(datas[i].getBytes());
+				EncodedData contentData = fileFormater.formatData(compress, datas[i].getBytes());
 				
-				LOG.debug("writing file[{}] with data size[{}]", writer.getPath(), contentData.length);
+				LOG.debug("writing file[{}] with data size[{}]", writer.getPath(), contentData.size());
 				
-				WriteResult result = new WriteResult(fileFormater.relativeOffset(writer.position()), contentData.length);
+				WriteResult result = new WriteResult(fileFormater.relativeOffset(writer.position()), contentData.size());
 				writer.write(contentData);
 				
 				writerManager.flushIfNeeded(writer.getPath());
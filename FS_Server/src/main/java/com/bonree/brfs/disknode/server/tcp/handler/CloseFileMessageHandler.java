@@ -84,9 +84,15 @@ public class CloseFileMessageHandler implements MessageHandler<BaseResponse> {
 				protected Long execute() throws Exception {
 					LOG.info("start writing file tailer for {}", filePath);
 					binding.first().flush();
-					byte[] fileBytes = DataFileReader.readFile(filePath, fileFormater.fileHeader().length());
-					long crcCode = ByteUtils.crc(fileBytes);
-					LOG.info("final crc code[{}] by bytes[{}] of file[{}]", crcCode, fileBytes.length, filePath);
+					long crcCode = binding.first().bodyCrc();
+					if(crcCode < 0) {
+						//写入记录不完整时只能重新读取文件计算
+						byte[] fileBytes = DataFileReader.readFile(filePath, fileFormater.fileHeader().length());
+						crcCode = ByteUtils.crc(fileBytes);
+						LOG.info("final crc code[{}] by bytes[{}] of file[{}]", crcCode, fileBytes.length, filePath);
+					} else {
+						LOG.info("final crc code[{}] by records of file[{}]", crcCode, filePath);
+					}
 					
 					byte[] tailer = Bytes.concat(FileEncoder.validate(crcCode), FileEncoder.tail());
 					
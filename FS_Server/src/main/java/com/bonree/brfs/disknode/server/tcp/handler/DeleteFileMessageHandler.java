@@ -14,6 +14,7 @@ import com.bonree.brfs.common.net.tcp.ResponseCode;
 import com.bonree.brfs.common.net.tcp.ResponseWriter;
 import com.bonree.brfs.common.serialize.ProtoStuffUtils;
 import com.bonree.brfs.disknode.DiskContext;
+import com.bonree.brfs.disknode.catalog.FileCatalog;
 import com.bonree.brfs.disknode.data.write.FileWriterManager;
 import com.bonree.brfs.disknode.server.tcp.handler.data.DeleteFileMessage;
 
@@ -52,7 +53,19 @@ public class DeleteFileMessageHandler implements MessageHandler<BaseResponse> {
 				}
 			} else {
 				try {
-					closeDir(targetFile, message.isRecursive(), message.isForce());
+					//目录在每个数据目录中都可能存在
+					boolean deleted = false;
+					for(String dirPath : diskContext.getConcreteFilePaths(message.getFilePath())) {
+						File dir = new File(dirPath);
+						if(dir.isDirectory()) {
+							closeDir(dir, message.isRecursive(), message.isForce());
+							deleted = true;
+						}
+					}
+					
+					if(!deleted) {
+						closeDir(targetFile, message.isRecursive(), message.isForce());
+					}
 					writer.write(new BaseResponse(ResponseCode.OK));
 				} catch (Exception e) {
 					writer.write(new BaseResponse(ResponseCode.ERROR));
@@ -69,7 +82,9 @@ public class DeleteFileMessageHandler implements MessageHandler<BaseResponse> {
 		LOG.info("DISK Deleting file[{}]", file.getAbsolutePath());
 		
 		if(writerManager.getBinding(file.getAbsolutePath(), false) == null) {
-			file.delete();
+			if(file.delete()) {
+				FileCatalog.fileDeleted(file.getAbsolutePath());
+			}
 			return;
 		}
 		
@@ -78,7 +93,9 @@ public class DeleteFileMessageHandler implements MessageHandler<BaseResponse> {
 		}
 		
 		writerManager.close(file.getAbsolutePath());
-		file.delete();
+		if(file.delete()) {
+			FileCatalog.fileDeleted(file.getAbsolutePath());
+		}
 	}
 	
 	private void closeDir(File dir, boolean recursive, boolean forceClose) {
@@ -88,7 +105,9 @@ public class DeleteFileMessageHandler implements MessageHandler<BaseResponse> {
 		
 		
 		if(dir.list().length == 0) {
-			dir.delete();
+			if(dir.delete()) {
+				FileCatalog.fileDeleted(dir.getAbsolutePath());
+			}
 			return;
 		}
 		
@@ -113,7 +132,9 @@ public class DeleteFileMessageHandler implements MessageHandler<BaseResponse> {
 		//第二轮删除文件夹节点
 		for(File deleteDir : deletingDirs) {
 			LOG.info("DISK Deleting dir[{}]", deleteDir.getAbsolutePath());
-			deleteDir.delete();
+			if(deleteDir.delete()) {
+				FileCatalog.fileDeleted(deleteDir.getAbsolutePath());
+			}
 		}
 	}
 
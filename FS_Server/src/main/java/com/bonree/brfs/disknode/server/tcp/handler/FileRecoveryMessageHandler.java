@@ -1,9 +1,11 @@
 package com.bonree.brfs.disknode.server.tcp.handler;
 
-import java.io.ByteArrayOutputStream;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
-import java.util.concurrent.CompletableFuture;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ForkJoinPool;
 
 import org.slf4j.Logger;
@@ -16,7 +18,9 @@ import com.bonree.brfs.common.net.tcp.BaseResponse;
 import com.bonree.brfs.common.net.tcp.MessageHandler;
 import com.bonree.brfs.common.net.tcp.ResponseCode;
 import com.bonree.brfs.common.net.tcp.ResponseWriter;
+import com.bonree.brfs.common.net.tcp.client.ResponseHandler;
 import com.bonree.brfs.common.net.tcp.client.TcpClient;
+import com.bonree.brfs.common.net.tcp.client.TcpClientCloseListener;
 import com.bonree.brfs.common.net.tcp.client.TcpClientGroup;
 import com.bonree.brfs.common.net.tcp.file.ReadObject;
 import com.bonree.brfs.common.net.tcp.file.client.AsyncFileReaderCreateConfig;
@@ -24,38 +28,59 @@ import com.bonree.brfs.common.net.tcp.file.client.FileContentPart;
 import com.bonree.brfs.common.serialize.ProtoStuffUtils;
 import com.bonree.brfs.common.service.Service;
 import com.bonree.brfs.common.service.ServiceManager;
-import com.bonree.brfs.common.utils.CloseUtils;
-import com.bonree.brfs.common.write.data.FileDecoder;
+import com.bonree.brfs.configuration.Configs;
+import com.bonree.brfs.configuration.units.DataNodeConfigs;
 import com.bonree.brfs.disknode.DiskContext;
-import com.bonree.brfs.disknode.client.DiskNodeClient;
-import com.bonree.brfs.disknode.client.DiskNodeClient.ByteConsumer;
-import com.bonree.brfs.disknode.client.TcpDiskNodeClient;
+import com.bonree.brfs.disknode.data.read.RecordStreamDecoder;
 import com.bonree.brfs.disknode.data.write.FileWriterManager;
 import com.bonree.brfs.disknode.data.write.RecordFileWriter;
+import com.bonree.brfs.disknode.data.write.worker.WriteTask;
 import com.bonree.brfs.disknode.data.write.worker.WriteWorker;
 import com.bonree.brfs.disknode.fileformat.FileFormater;
 import com.bonree.brfs.disknode.server.tcp.handler.data.FileRecoveryMessage;
 import com.bonree.brfs.disknode.utils.Pair;
 
+/**
+ * 从其它副本节点追补缺失的文件数据
+ *
+ * 缺失的数据按固定大小分段读取，每个到达的数据片段都在文件对应的{@link WriteWorker}中
+ * 切分成完整的记录后直接写入文件，上一段写完后才会读取下一段，内存占用不会超过一个分段。
+ * 某个副本读取失败时，从已经写入的位置开始换下一个副本继续追补
+ */
 public class FileRecoveryMessageHandler implements MessageHandler<BaseResponse> {
 	private static final Logger LOG = LoggerFactory.getLogger(FileRecoveryMessageHandler.class);
-	
+
 	private DiskContext context;
 	private ServiceManager serviceManager;
 	private FileWriterManager writerManager;
 	private FileFormater fileFormater;
 	private TcpClientGroup<ReadObject, FileContentPart, AsyncFileReaderCreateConfig> clientGroup;
-	
+	private final int chunkSize;
+
+	//每个副本节点保持一个读连接，多个文件的追补可以共用
+	private ConcurrentHashMap<String, TcpClient<ReadObject, FileContentPart>> readClients = new ConcurrentHashMap<>();
+
 	public FileRecoveryMessageHandler(DiskContext context,
 			ServiceManager serviceManager,
 			FileWriterManager writerManager,
 			FileFormater fileFormater,
 			TcpClientGroup<ReadObject, FileContentPart, AsyncFileReaderCreateConfig> clientGroup) {
+		this(context, serviceManager, writerManager, fileFormater, clientGroup,
+				Configs.getConfiguration().GetConfig(DataNodeConfigs.CONFIG_RECOVER_CHUNK_SIZE));
+	}
+
+	public FileRecoveryMessageHandler(DiskContext context,
+			ServiceManager serviceManager,
+			FileWriterManager writerManager,
+			FileFormater fileFormater,
+			TcpClientGroup<ReadObject, FileContentPart, AsyncFileReaderCreateConfig> clientGroup,
+			int chunkSize) {
 		this.context = context;
 		this.serviceManager = serviceManager;
 		this.writerManager = writerManager;
 		this.fileFormater = fileFormater;
 		this.clientGroup = clientGroup;
+		this.chunkSize = chunkSize;
 	}
 
 	@Override
@@ -66,110 +91,267 @@ public class FileRecoveryMessageHandler implements MessageHandler<BaseResponse>
 			writer.write(new BaseResponse(ResponseCode.ERROR_PROTOCOL));
 			return;
 		}
-		
+
 		String filePath = null;
 		try {
 			filePath = context.getConcreteFilePath(message.getFilePath());
 			LOG.info("starting recover file[{}]", filePath);
-			
+
 			Pair<RecordFileWriter, WriteWorker> binding = writerManager.getBinding(filePath, false);
 			if(binding == null) {
 				writer.write(new BaseResponse(ResponseCode.ERROR));
 				return;
 			}
-			
-			binding.first().position(fileFormater.absoluteOffset(message.getOffset()));
-			byte[] bytes = null;
+
+			List<FileObjectSyncState> sources = new ArrayList<FileObjectSyncState>();
 			for(String stateString : message.getSources()) {
-				FileObjectSyncState state = SyncStateCodec.fromString(stateString);
-				Service service = serviceManager.getServiceById(state.getServiceGroup(), state.getServiceId());
+				sources.add(SyncStateCodec.fromString(stateString));
+			}
+
+			new CatchUp(filePath, binding, message.getOffset(), sources, writer).start();
+		} catch (Exception e) {
+			LOG.error("recover file[{}] error", filePath, e);
+			writer.write(new BaseResponse(ResponseCode.ERROR));
+		}
+	}
+
+	private TcpClient<ReadObject, FileContentPart> getReadClient(Service service) throws Exception {
+		TcpClient<ReadObject, FileContentPart> client = readClients.get(service.getServiceId());
+		if(client != null) {
+			return client;
+		}
+
+		synchronized (readClients) {
+			client = readClients.get(service.getServiceId());
+			if(client != null) {
+				return client;
+			}
+
+			client = clientGroup.createClient(new AsyncFileReaderCreateConfig() {
+
+				@Override
+				public SocketAddress remoteAddress() {
+					return new InetSocketAddress(service.getHost(), service.getExtraPort());
+				}
+
+				@Override
+				public int connectTimeoutMillis() {
+					return 3000;
+				}
+
+				@Override
+				public int maxPendingRead() {
+					return 0;
+				}
+
+			}, ForkJoinPool.commonPool());
+
+			if(client == null) {
+				return null;
+			}
+
+			final TcpClient<ReadObject, FileContentPart> createdClient = client;
+			client.setClientCloseListener(new TcpClientCloseListener() {
+
+				@Override
+				public void clientClosed() {
+					readClients.remove(service.getServiceId(), createdClient);
+				}
+			});
+
+			readClients.put(service.getServiceId(), client);
+			return client;
+		}
+	}
+
+	/**
+	 * 一个文件的追补过程，除了网络回调外所有状态都只在文件的写入线程中访问
+	 */
+	private class CatchUp {
+		private final String filePath;
+		private final Pair<RecordFileWriter, WriteWorker> binding;
+		private final long startOffset;
+		private final Iterator<FileObjectSyncState> sources;
+		private final ResponseWriter<BaseResponse> responseWriter;
+
+		private final RecordStreamDecoder decoder;
+
+		private FileObjectSyncState source;
+		private TcpClient<ReadObject, FileContentPart> client;
+		//已经写入文件的完整记录的结束位置
+		private long writtenOffset;
+		//当前分段的读取位置和已收到的字节数
+		private long readOffset;
+		private int requestLength;
+		private int receivedLength;
+		private boolean finished;
+
+		CatchUp(String filePath, Pair<RecordFileWriter, WriteWorker> binding, long offset,
+				List<FileObjectSyncState> sources, ResponseWriter<BaseResponse> responseWriter) {
+			this.filePath = filePath;
+			this.binding = binding;
+			this.startOffset = offset;
+			this.writtenOffset = offset;
+			this.sources = sources.iterator();
+			this.responseWriter = responseWriter;
+			this.decoder = new RecordStreamDecoder(Math.min(chunkSize, 64 * 1024));
+		}
+
+		void start() {
+			binding.second().put(new CatchUpTask() {
+
+				@Override
+				protected void doWork() throws Exception {
+					binding.first().position(fileFormater.absoluteOffset(startOffset));
+					nextSource();
+				}
+			});
+		}
+
+		/**
+		 * 从已写入的位置开始使用下一个副本追补
+		 */
+		private void nextSource() {
+			decoder.reset();
+			while(sources.hasNext()) {
+				source = sources.next();
+				Service service = serviceManager.getServiceById(source.getServiceGroup(), source.getServiceId());
 				if(service == null) {
-					LOG.error("can not get service with[{}:{}]", state.getServiceGroup(), state.getServiceId());
+					LOG.error("can not get service with[{}:{}]", source.getServiceGroup(), source.getServiceId());
 					continue;
 				}
-				
-				DiskNodeClient client = null;
+
 				try {
-					LOG.info("get data from{} to recover...", service);
-					TcpClient<ReadObject, FileContentPart> readClient = clientGroup.createClient(new AsyncFileReaderCreateConfig() {
-						
-						@Override
-						public SocketAddress remoteAddress() {
-							return new InetSocketAddress(service.getHost(), service.getExtraPort());
-						}
-						
-						@Override
-						public int connectTimeoutMillis() {
-							return 3000;
-						}
-						
-						@Override
-						public int maxPendingRead() {
-							return 0;
-						}
-						
-					}, ForkJoinPool.commonPool());
-					
-					client = new TcpDiskNodeClient(null, readClient);
-					
-					long lackBytes = state.getFileLength() - message.getOffset();
-					CompletableFuture<byte[]> byteFuture = new CompletableFuture<byte[]>();
-					ByteArrayOutputStream output = new ByteArrayOutputStream();
-					client.readData(state.getFilePath(), message.getOffset(), (int) lackBytes, new ByteConsumer() {
-						
-						@Override
-						public void error(Throwable e) {
-							byteFuture.completeExceptionally(e);
-						}
-						
-						@Override
-						public void consume(byte[] bytes, boolean endOfConsume) {
-							try {
-								output.write(bytes);
-								if(endOfConsume) {
-									byteFuture.complete(output.toByteArray());
-									output.close();
-								}
-							} catch (Exception e) {
-								byteFuture.completeExceptionally(e);
-							}
-						}
-					});
-					
-					bytes = byteFuture.get();
-					if(bytes != null) {
-						LOG.info("read bytes length[{}], require[{}]", bytes.length, lackBytes);
-						break;
-					}
+					client = getReadClient(service);
 				} catch (Exception e) {
-					LOG.error("recover file[{}] error", filePath, e);
-				} finally {
-					CloseUtils.closeQuietly(client);
+					LOG.error("create read client to {} error", service, e);
+					continue;
 				}
+
+				if(client == null) {
+					continue;
+				}
+
+				LOG.info("recover file[{}] from{} at offset[{}], total[{}]", filePath, service, writtenOffset, source.getFileLength());
+				readOffset = writtenOffset;
+				readChunk();
+				return;
 			}
-			
-			if(bytes == null) {
-				writer.write(new BaseResponse(ResponseCode.ERROR));
+
+			LOG.error("no source is available to recover file[{}] from offset[{}]", filePath, writtenOffset);
+			finish(ResponseCode.ERROR);
+		}
+
+		private void readChunk() {
+			long lackBytes = source.getFileLength() - readOffset;
+			if(lackBytes <= 0) {
+				complete();
 				return;
 			}
-			
-			int offset = 0;
-			int size = 0;
-			while((size = FileDecoder.getOffsets(offset, bytes)) > 0) {
-				LOG.info("rewrite data[offset={}, size={}] to file[{}]", offset, size, filePath);
-				binding.first().write(bytes, offset, size);
-				offset += size;
-				size = 0;
+
+			requestLength = (int) Math.min(chunkSize, lackBytes);
+			receivedLength = 0;
+
+			ReadObject object = new ReadObject();
+			object.setFilePath(source.getFilePath());
+			object.setOffset(readOffset);
+			object.setLength(requestLength);
+
+			try {
+				client.sendMessage(object, new ResponseHandler<FileContentPart>() {
+
+					@Override
+					public void handle(FileContentPart response) {
+						binding.second().put(new CatchUpTask() {
+
+							@Override
+							protected void doWork() throws Exception {
+								onContent(response);
+							}
+						});
+					}
+
+					@Override
+					public void error(Throwable t) {
+						binding.second().put(new CatchUpTask() {
+
+							@Override
+							protected void doWork() throws Exception {
+								LOG.error("read data of file[{}] at offset[{}] failed", filePath, readOffset, t);
+								nextSource();
+							}
+						});
+					}
+				});
+			} catch (Exception e) {
+				LOG.error("send read request of file[{}] failed", filePath, e);
+				nextSource();
 			}
-			
-			if(offset != bytes.length) {
-				LOG.error("perhaps datas that being recoverd is not correct! get [{}], but recoverd[{}]", bytes.length, offset);
+		}
+
+		private void onContent(FileContentPart part) throws Exception {
+			byte[] bytes = part.content();
+			if(bytes != null && bytes.length > 0) {
+				receivedLength += bytes.length;
+				decoder.append(bytes);
+				writtenOffset += decoder.drain((data, offset, size) -> binding.first().write(data, offset, size));
+			}
+
+			if(!part.endOfContent()) {
+				return;
+			}
+
+			readOffset += receivedLength;
+			LOG.info("recover file[{}] progress[{}/{}]", filePath, writtenOffset, source.getFileLength());
+			if(receivedLength < requestLength) {
+				//副本文件没有更多的数据了
+				complete();
+				return;
+			}
+
+			readChunk();
+		}
+
+		private void complete() {
+			if(decoder.remaining() > 0) {
+				LOG.error("perhaps datas that being recoverd is not correct! get [{}], but recoverd[{}]",
+						readOffset - startOffset, writtenOffset - startOffset);
+			}
+
+			finish(ResponseCode.OK);
+		}
+
+		private void finish(int code) {
+			if(finished) {
+				return;
+			}
+
+			finished = true;
+			responseWriter.write(new BaseResponse(code));
+		}
+
+		private abstract class CatchUpTask extends WriteTask<Void> {
+
+			protected abstract void doWork() throws Exception;
+
+			@Override
+			protected Void execute() throws Exception {
+				if(!finished) {
+					doWork();
+				}
+
+				return null;
+			}
+
+			@Override
+			protected void onPostExecute(Void result) {
+			}
+
+			@Override
+			protected void onFailed(Throwable e) {
+				LOG.error("recover file[{}] error", filePath, e);
+				finish(ResponseCode.ERROR);
 			}
-			
-			writer.write(new BaseResponse(ResponseCode.OK));
-		} catch (Exception e) {
-			LOG.error("recover file[{}] error", filePath, e);
-			writer.write(new BaseResponse(ResponseCode.ERROR));
 		}
 	}
 
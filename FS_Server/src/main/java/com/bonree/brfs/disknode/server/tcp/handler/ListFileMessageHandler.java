@@ -2,7 +2,9 @@ package com.bonree.brfs.disknode.server.tcp.handler;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,28 +41,36 @@ public class ListFileMessageHandler implements MessageHandler<BaseResponse> {
 		
 		String dirPath = null;
 		try {
-			dirPath = context.getConcreteFilePath(message.getPath());
-			
-			File dir = new File(dirPath);
-			if(!dir.exists()) {
-				writer.write(new BaseResponse(ResponseCode.ERROR));
-				return;
+			//同一个目录可能分布在多个数据目录中，合并后返回
+			ArrayList<FileInfo> fileInfoList = new ArrayList<FileInfo>();
+			Set<String> dirSet = new HashSet<String>();
+			for(String path : context.getConcreteFilePaths(message.getPath())) {
+				dirPath = path;
+				File dir = new File(dirPath);
+				if(!dir.isDirectory()) {
+					continue;
+				}
+				
+				FileInfo dirInfo = new FileInfo();
+				dirInfo.setLevel(0);
+				dirInfo.setType(FileInfo.TYPE_DIR);
+				dirInfo.setPath(dirPath);
+				fileList.addLast(dirInfo);
+				
+				ArrayList<FileInfo> dirFileList = new ArrayList<FileInfo>();
+				traverse(message.getLevel(), dirFileList);
+				for(FileInfo info : dirFileList) {
+					if(info.getType() != FileInfo.TYPE_DIR || dirSet.add(info.getPath())) {
+						fileInfoList.add(info);
+					}
+				}
 			}
 			
-			if(!dir.isDirectory()) {
+			if(dirSet.isEmpty()) {
 				writer.write(new BaseResponse(ResponseCode.ERROR));
 				return;
 			}
 			
-			FileInfo dirInfo = new FileInfo();
-			dirInfo.setLevel(0);
-			dirInfo.setType(FileInfo.TYPE_DIR);
-			dirInfo.setPath(dirPath);
-			fileList.addLast(dirInfo);
-			
-			ArrayList<FileInfo> fileInfoList = new ArrayList<FileInfo>();
-			traverse(message.getLevel(), fileInfoList);
-			
 			BaseResponse response = new BaseResponse(ResponseCode.OK);
 			response.setBody(JsonUtils.toJsonBytes(fileInfoList));
 			writer.write(response);
@@ -44,7 +44,12 @@ public class OpenFileMessageHandler implements MessageHandler<BaseResponse> {
 		
 		FileFormater fileFormater = new SimpleFileFormater(Math.min(message.getCapacity(), MAX_CAPACITY));
 		
-		String realPath = diskContext.getConcreteFilePath(message.getFilePath());
+		String realPath = diskContext.placeFile(message.getFilePath(), fileFormater.maxBodyLength(), writerManager);
+		if(realPath == null) {
+			LOG.error("no data dir is available for file[{}]", message.getFilePath());
+			writer.write(new BaseResponse(ResponseCode.ERROR));
+			return;
+		}
 		LOG.info("open file [{}]", realPath);
 		
 		Pair<RecordFileWriter, WriteWorker> binding = writerManager.getBinding(realPath, true);
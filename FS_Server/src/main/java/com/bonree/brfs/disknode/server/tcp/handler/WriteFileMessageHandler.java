@@ -11,11 +11,14 @@ import com.bonree.brfs.common.net.tcp.MessageHandler;
 import com.bonree.brfs.common.net.tcp.ResponseCode;
 import com.bonree.brfs.common.net.tcp.ResponseWriter;
 import com.bonree.brfs.common.serialize.ProtoStuffUtils;
+import com.bonree.brfs.common.supervisor.ForegroundActivity;
 import com.bonree.brfs.disknode.DiskContext;
 import com.bonree.brfs.disknode.client.WriteResult;
 import com.bonree.brfs.disknode.client.WriteResultList;
 import com.bonree.brfs.disknode.data.write.FileWriterManager;
+import com.bonree.brfs.disknode.data.write.GroupCommitter;
 import com.bonree.brfs.disknode.data.write.RecordFileWriter;
+import com.bonree.brfs.disknode.data.write.buf.EncodedData;
 import com.bonree.brfs.disknode.data.write.worker.WriteTask;
 import com.bonree.brfs.disknode.data.write.worker.WriteWorker;
 import com.bonree.brfs.disknode.fileformat.FileFormater;
@@ -29,15 +32,23 @@ public class WriteFileMessageHandler implements MessageHandler<BaseResponse> {
 	private DiskContext diskContext;
 	private FileWriterManager writerManager;
 	private FileFormater fileFormater;
+	// 为null时写入结果不等待数据同步到磁盘
+	private GroupCommitter committer;
 	
 	public WriteFileMessageHandler(DiskContext diskContext, FileWriterManager nodeManager, FileFormater fileFormater) {
+		this(diskContext, nodeManager, fileFormater, null);
+	}
+	
+	public WriteFileMessageHandler(DiskContext diskContext, FileWriterManager nodeManager, FileFormater fileFormater, GroupCommitter committer) {
 		this.diskContext = diskContext;
 		this.writerManager = nodeManager;
 		this.fileFormater = fileFormater;
+		this.committer = committer;
 	}
 
 	@Override
 	public void handleMessage(BaseMessage baseMessage, ResponseWriter<BaseResponse> writer) {
+		ForegroundActivity.mark();
 		WriteFileMessage message = ProtoStuffUtils.deserialize(baseMessage.getBody(), WriteFileMessage.class);
 		if(message == null) {
 			writer.write(new BaseResponse(ResponseCode.ERROR_PROTOCOL));
@@ -84,11 +95,11 @@ public class WriteFileMessageHandler implements MessageHandler<BaseResponse> {
 			RecordFileWriter writer = binding.first();
 			LOG.debug("write [{}] datas to file[{}]", datas.length, writer.getPath());
 			for(int i = 0; i < datas.length; i++) {
-				byte[] contentData = fileFormater.formatData(datas[i].getData());
+				EncodedData contentData = fileFormater.formatData(message.getCompress(), datas[i].getData());
 				
-				LOG.debug("writing file[{}] with data size[{}]", writer.getPath(), contentData.length);
+				LOG.debug("writing file[{}] with data size[{}]", writer.getPath(), contentData.size());
 				
-				WriteResult result = new WriteResult(fileFormater.relativeOffset(writer.position()), contentData.length);
+				WriteResult result = new WriteResult(fileFormater.relativeOffset(writer.position()), contentData.size());
 				writer.write(contentData);
 				
 				writerManager.flushIfNeeded(writer.getPath());
@@ -100,6 +111,39 @@ public class WriteFileMessageHandler implements MessageHandler<BaseResponse> {
 
 		@Override
 		protected void onPostExecute(WriteResult[] result) {
+			commitAndRespond(result);
+		}
+		
+		/**
+		 * 使用组提交时，结果只在数据同步到磁盘之后返回
+		 */
+		private void commitAndRespond(WriteResult[] result) {
+			if(committer == null) {
+				writeResults(result);
+				return;
+			}
+			
+			try {
+				//提交前需要把缓存中的数据和写入记录刷入文件
+				binding.first().flush();
+			} catch (IOException e) {
+				LOG.error("flush file[{}] before commit error", message.getFilePath(), e);
+				writer.write(new BaseResponse(ResponseCode.ERROR));
+				return;
+			}
+			
+			committer.commit(binding.first()).whenComplete((v, error) -> {
+				if(error != null) {
+					LOG.error("commit file[{}] error", message.getFilePath(), error);
+					writer.write(new BaseResponse(ResponseCode.ERROR));
+					return;
+				}
+				
+				writeResults(result);
+			});
+		}
+		
+		private void writeResults(WriteResult[] result) {
 			try {
 				BaseResponse response = new BaseResponse(ResponseCode.OK);
 				WriteResultList resultList = new WriteResultList();
@@ -117,17 +161,8 @@ public class WriteFileMessageHandler implements MessageHandler<BaseResponse> {
 		protected void onFailed(Throwable cause) {
 			LOG.error("write datas to file[{}] error", message.getFilePath(), cause);
 			
-			try {
-				BaseResponse response = new BaseResponse(ResponseCode.OK);
-				WriteResultList resultList = new WriteResultList();
-				resultList.setWriteResults(results);
-				response.setBody(ProtoStuffUtils.serialize(resultList));
-				
-				writer.write(response);
-			} catch (IOException e) {
-				LOG.error("onFailed error", e);
-				writer.write(new BaseResponse(ResponseCode.ERROR));
-			}
+			//已经写入的部分数据同样需要提交后才能返回
+			commitAndRespond(results);
 		}
 		
 	}
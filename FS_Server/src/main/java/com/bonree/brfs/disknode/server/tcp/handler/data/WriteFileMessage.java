@@ -2,6 +2,8 @@ package com.bonree.brfs.disknode.server.tcp.handler.data;
 
 public class WriteFileMessage {
 	private String filePath;
+	//数据的压缩方式，由region节点为每个文件确定
+	private int compress;
 	private WriteFileData[] datas;
 	
 	public String getFilePath() {
@@ -12,6 +14,14 @@ public class WriteFileMessage {
 		this.filePath = filePath;
 	}
 
+	public int getCompress() {
+		return compress;
+	}
+
+	public void setCompress(int compress) {
+		this.compress = compress;
+	}
+
 	public WriteFileData[] getDatas() {
 		return datas;
 	}
@@ -32,6 +32,7 @@ import com.bonree.brfs.common.process.ProcessFinalizer;
 import com.bonree.brfs.common.service.Service;
 import com.bonree.brfs.common.service.ServiceManager;
 import com.bonree.brfs.common.service.impl.DefaultServiceManager;
+import com.bonree.brfs.common.supervisor.MetricsMessageHandler;
 import com.bonree.brfs.common.timer.TimeExchangeEventEmitter;
 import com.bonree.brfs.common.utils.PooledThreadFactory;
 import com.bonree.brfs.common.zookeeper.curator.cache.CuratorCacheFactory;
@@ -48,6 +49,7 @@ import com.bonree.brfs.duplication.datastream.dataengine.impl.BlockingQueueDataP
 import com.bonree.brfs.duplication.datastream.dataengine.impl.DataPoolFactory;
 import com.bonree.brfs.duplication.datastream.dataengine.impl.DefaultDataEngineFactory;
 import com.bonree.brfs.duplication.datastream.dataengine.impl.DefaultDataEngineManager;
+import com.bonree.brfs.duplication.datastream.dataengine.impl.RingBufferDataPoolFactory;
 import com.bonree.brfs.duplication.datastream.file.DefaultFileObjectCloser;
 import com.bonree.brfs.duplication.datastream.file.DefaultFileObjectFactory;
 import com.bonree.brfs.duplication.datastream.file.DefaultFileObjectSupplierFactory;
@@ -84,6 +86,8 @@ public class BootStrap {
     private static final String URI_DATA_ROOT = "/data";
 	
 	private static final String URI_STORAGE_REGION_ROOT = "/sr";
+	
+	private static final String URI_METRICS_ROOT = "/metrics";
 
     public static void main(String[] args) {
     	ProcessFinalizer finalizer = new ProcessFinalizer();
@@ -237,11 +241,14 @@ public class BootStrap {
             
             finalizer.add(sinkManager);
             
-            DataPoolFactory dataPoolFactory = new BlockingQueueDataPoolFactory(Configs.getConfiguration().GetConfig(RegionNodeConfigs.CONFIG_DATA_POOL_CAPACITY));
+            int dataPoolCapacity = Configs.getConfiguration().GetConfig(RegionNodeConfigs.CONFIG_DATA_POOL_CAPACITY);
+            DataPoolFactory dataPoolFactory = "ring".equalsIgnoreCase(Configs.getConfiguration().GetConfig(RegionNodeConfigs.CONFIG_DATA_POOL_TYPE)) ?
+            		new RingBufferDataPoolFactory(dataPoolCapacity) : new BlockingQueueDataPoolFactory(dataPoolCapacity);
             FileObjectSupplierFactory fileSupplierFactory = new DefaultFileObjectSupplierFactory(fileFactory,
             		fileCloser, fileSynchronizer, sinkManager, timeEventEmitter);
             
             DiskWriter diskWriter = new DiskWriter(Configs.getConfiguration().GetConfig(RegionNodeConfigs.CONFIG_WRITER_WORKER_NUM),
+            		Configs.getConfiguration().GetConfig(RegionNodeConfigs.CONFIG_WRITER_INFLIGHT_NUM),
             		connectionPool, pathMaker);
             finalizer.add(diskWriter);
             
@@ -265,6 +272,10 @@ public class BootStrap {
             snRequestHandler.addMessageHandler("DELETE", new DeleteStorageRegionMessageHandler(zookeeperPaths, storageNameManager, serviceManager));
             httpServer.addContextHandler(URI_STORAGE_REGION_ROOT, snRequestHandler);
 
+            NettyHttpRequestHandler metricsRequestHandler = new NettyHttpRequestHandler(requestHandlerExecutor);
+            metricsRequestHandler.addMessageHandler("GET", new MetricsMessageHandler());
+            httpServer.addContextHandler(URI_METRICS_ROOT, metricsRequestHandler);
+
             httpServer.start();
             
             finalizer.add(httpServer);
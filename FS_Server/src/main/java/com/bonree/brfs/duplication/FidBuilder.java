@@ -7,12 +7,16 @@ import org.slf4j.LoggerFactory;
 
 import com.bonree.brfs.common.proto.FileDataProtos.Fid;
 import com.bonree.brfs.common.write.data.FidEncoder;
+import com.bonree.brfs.configuration.Configs;
+import com.bonree.brfs.configuration.units.RegionNodeConfigs;
 import com.bonree.brfs.duplication.filenode.FileNode;
 import com.google.common.base.Splitter;
 
 public class FidBuilder {
 	private static final Logger LOG = LoggerFactory.getLogger(FidBuilder.class);
 	
+	private static final int FID_VERSION = Configs.getConfiguration().GetConfig(RegionNodeConfigs.CONFIG_FID_VERSION);
+	
 	public static String getFid(FileNode node, long offset, int size) {
 		Fid.Builder builder = Fid.newBuilder()
 				.setVersion(0)
@@ -32,6 +36,14 @@ public class FidBuilder {
 		Fid fid = builder.build();
 		
 		try {
+			if(FID_VERSION == 2) {
+				try {
+					return FidEncoder.buildV2(fid);
+				} catch (IllegalArgumentException e) {
+					LOG.warn("can not build fid v2 for file[{}], use default format", node.getName(), e);
+				}
+			}
+			
 			return FidEncoder.build(fid);
 		} catch (Exception e) {
 			LOG.error("error create FID: file[{}], offset[{}], size[{}]", node.getName(), offset, size, e);
@@ -1,6 +1,8 @@
 package com.bonree.brfs.duplication.datastream.dataengine.impl;
 
+import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Predicate;
 
 public class BlockingQueueDataPool implements DataPool {
 	private LinkedBlockingQueue<DataObject> datas;
@@ -39,6 +41,23 @@ public class BlockingQueueDataPool implements DataPool {
 		datas.remove();
 	}
 
+	@Override
+	public int drainTo(List<DataObject> dataList, Predicate<DataObject> acceptor) {
+		int count = 0;
+		while(true) {
+			DataObject data = datas.peek();
+			if(data == null || !acceptor.test(data)) {
+				break;
+			}
+			
+			dataList.add(data);
+			datas.remove();
+			count++;
+		}
+		
+		return count;
+	}
+
 	@Override
 	public void clear() {
 		datas.clear();
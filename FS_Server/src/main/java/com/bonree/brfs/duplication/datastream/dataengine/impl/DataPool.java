@@ -1,5 +1,8 @@
 package com.bonree.brfs.duplication.datastream.dataengine.impl;
 
+import java.util.List;
+import java.util.function.Predicate;
+
 public interface DataPool {
 	int size();
 	boolean isEmpty();
@@ -7,5 +10,12 @@ public interface DataPool {
 	DataObject take() throws InterruptedException;
 	DataObject peek();
 	void remove();
+	/**
+	 * 按顺序取出数据，直到没有数据或者acceptor不接受当前数据为止，
+	 * 不被接受的数据保留在数据池中
+	 * 
+	 * @return 取出的数据个数
+	 */
+	int drainTo(List<DataObject> dataList, Predicate<DataObject> acceptor);
 	void clear();
 }
@@ -7,6 +7,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
@@ -96,7 +97,7 @@ public class DefaultDataEngine implements DataEngine {
 			DataObject unhandledData = null;
 			
 			while(true) {
-				if(quit && dataPool.isEmpty()) {
+				if(quit && unhandledData == null && dataPool.isEmpty()) {
 					break;
 				}
 				
@@ -115,22 +116,10 @@ public class DefaultDataEngine implements DataEngine {
 					List<DataObject> dataList = new ArrayList<DataObject>();
 					dataList.add(data);
 					
-					while(true) {
-						data = dataPool.peek();
-						if(data == null) {
-							break;
-						}
-						
-						if(!file.apply(data.length())) {
-							break;
-						}
-						
-						dataList.add(data);
-						dataPool.remove();
-					}
+					dataPool.drainTo(dataList, d -> file.apply(d.length()));
 					
 					LOG.debug("out => {}", file.node().getName());
-					diskWriter.write(file, dataList, new WriteProgressListener() {
+					diskWriter.write(file, dataList, storageRegion.getWriteQuorum(), new WriteProgressListener() {
 						
 						@Override
 						public void writeCompleted(FileObject file, boolean errorOccurred) {
@@ -138,13 +127,28 @@ public class DefaultDataEngine implements DataEngine {
 							fileSupplier.recycle(file, errorOccurred);
 						}
 					});
+				} catch (TimeoutException e) {
+					LOG.warn("wait file of region[{}] timeout, pending data[{}]", storageRegion.getName(), dataPool.size());
+					if(quit) {
+						// 已经关闭时不再等待可用的文件
+						unhandledData = fail(unhandledData);
+					}
+					// 否则保留未处理的数据，数据池满后由写入方阻塞等待
 				} catch (InterruptedException e) {
 					LOG.error("data consumer interrupted.");
 				} catch (Exception e) {
 					LOG.error("process data error", e);
+					// 不是等待超时的错误，重试同一个数据通常还会失败
+					unhandledData = fail(unhandledData);
 				}
 			}
 			
+			List<DataObject> remaining = new ArrayList<DataObject>();
+			dataPool.drainTo(remaining, d -> true);
+			for(DataObject data : remaining) {
+				fail(data);
+			}
+			
 			LOG.info("data engine[region={}] is shut down!", storageRegion.getName());
 			try {
 				fileSupplier.close();
@@ -153,6 +157,19 @@ public class DefaultDataEngine implements DataEngine {
 			}
 		}
 		
+		/**
+		 * 通知写入方数据写入失败
+		 * 
+		 * @return 总是返回null，用于清除保存的数据
+		 */
+		private DataObject fail(DataObject data) {
+			if(data != null) {
+				data.processComplete(null);
+			}
+			
+			return null;
+		}
+		
 	}
 	
 	
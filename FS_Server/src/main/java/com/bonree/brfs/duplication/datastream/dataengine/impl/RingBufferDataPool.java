@@ -0,0 +1,180 @@
+package com.bonree.brfs.duplication.datastream.dataengine.impl;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+/**
+ * 基于预分配环形数组的多生产者单消费者数据池
+ *
+ * 多个生产者通过CAS竞争写入位置，只有DataEngine的处理线程进行消费，
+ * 因此消费端不需要任何锁；数据池满时生产者会被阻塞直到有空闲位置
+ */
+public class RingBufferDataPool implements DataPool {
+	private static final int SPIN_TRIES = 100;
+	private static final long PARK_NANOS = 100 * 1000;
+
+	private final int capacity;
+	private final int mask;
+	private final AtomicReferenceArray<DataObject> slots;
+
+	// 下一个可以被生产者占用的位置
+	private final AtomicLong tail = new AtomicLong(0);
+	// 下一个要被消费的位置，只由消费线程修改
+	private volatile long head = 0;
+
+	// 正在等待数据的消费线程
+	private volatile Thread waitingConsumer;
+
+	public RingBufferDataPool(int capacity) {
+		int size = 1;
+		while(size < capacity) {
+			size <<= 1;
+		}
+
+		this.capacity = size;
+		this.mask = size - 1;
+		this.slots = new AtomicReferenceArray<DataObject>(size);
+	}
+
+	@Override
+	public int size() {
+		return (int) (tail.get() - head);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public void put(DataObject data) throws InterruptedException {
+		long position;
+		int idle = 0;
+		while(true) {
+			position = tail.get();
+			if(position - head >= capacity) {
+				if(Thread.interrupted()) {
+					throw new InterruptedException();
+				}
+
+				if(++idle < SPIN_TRIES) {
+					Thread.yield();
+				} else {
+					LockSupport.parkNanos(this, PARK_NANOS);
+				}
+
+				continue;
+			}
+
+			if(tail.compareAndSet(position, position + 1)) {
+				break;
+			}
+		}
+
+		slots.set((int) (position & mask), data);
+
+		Thread consumer = waitingConsumer;
+		if(consumer != null) {
+			LockSupport.unpark(consumer);
+		}
+	}
+
+	/**
+	 * 获取下一个已经发布的数据，位置已被占用但数据还未写入时也返回null
+	 */
+	private DataObject poll() {
+		if(head == tail.get()) {
+			return null;
+		}
+
+		int index = (int) (head & mask);
+		DataObject data = slots.get(index);
+		if(data == null) {
+			return null;
+		}
+
+		slots.lazySet(index, null);
+		head = head + 1;
+		return data;
+	}
+
+	@Override
+	public DataObject take() throws InterruptedException {
+		int idle = 0;
+		while(true) {
+			DataObject data = poll();
+			if(data != null) {
+				return data;
+			}
+
+			if(Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+
+			if(++idle < SPIN_TRIES) {
+				Thread.yield();
+				continue;
+			}
+
+			waitingConsumer = Thread.currentThread();
+			try {
+				data = poll();
+				if(data != null) {
+					return data;
+				}
+
+				LockSupport.parkNanos(this, PARK_NANOS);
+			} finally {
+				waitingConsumer = null;
+			}
+		}
+	}
+
+	@Override
+	public DataObject peek() {
+		if(head == tail.get()) {
+			return null;
+		}
+
+		return slots.get((int) (head & mask));
+	}
+
+	@Override
+	public void remove() {
+		if(poll() == null) {
+			throw new IllegalStateException("no data to remove");
+		}
+	}
+
+	@Override
+	public int drainTo(List<DataObject> dataList, Predicate<DataObject> acceptor) {
+		int count = 0;
+		long position = head;
+		long limit = tail.get();
+		while(position < limit) {
+			int index = (int) (position & mask);
+			DataObject data = slots.get(index);
+			if(data == null || !acceptor.test(data)) {
+				break;
+			}
+
+			dataList.add(data);
+			slots.lazySet(index, null);
+			position++;
+			count++;
+		}
+
+		// 一次性发布消费进度，减少对生产者的可见性开销
+		head = position;
+		return count;
+	}
+
+	@Override
+	public void clear() {
+		while(poll() != null) {
+		}
+	}
+}
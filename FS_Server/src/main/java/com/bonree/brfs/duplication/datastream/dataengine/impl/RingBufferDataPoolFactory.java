@@ -0,0 +1,16 @@
+package com.bonree.brfs.duplication.datastream.dataengine.impl;
+
+
+public class RingBufferDataPoolFactory implements DataPoolFactory {
+	private final int poolCapacity;
+	
+	public RingBufferDataPoolFactory(int capacity) {
+		this.poolCapacity = capacity;
+	}
+
+	@Override
+	public DataPool createDataPool() {
+		return new RingBufferDataPool(poolCapacity);
+	}
+
+}
@@ -5,7 +5,10 @@ import java.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.bonree.brfs.common.data.utils.CompressType;
 import com.bonree.brfs.common.service.Service;
+import com.bonree.brfs.configuration.Configs;
+import com.bonree.brfs.configuration.units.DataNodeConfigs;
 import com.bonree.brfs.duplication.datastream.connection.DiskNodeConnection;
 import com.bonree.brfs.duplication.datastream.connection.DiskNodeConnectionPool;
 import com.bonree.brfs.duplication.filenode.FileNameBuilder;
@@ -20,6 +23,9 @@ import com.bonree.brfs.server.identification.ServerIDManager;
 public class DefaultFileObjectFactory implements FileObjectFactory {
 	private static final Logger LOG = LoggerFactory.getLogger(DefaultFileObjectFactory.class);
 	
+	// Storage Region没有设置data_compress时使用的压缩方式
+	private static final CompressType DEFAULT_COMPRESS = defaultCompressType();
+	
 	private Service service;
 	private FileNodeStorer fileNodeStorer;
 	private DuplicateNodeSelector duplicationNodeSelector;
@@ -40,6 +46,11 @@ public class DefaultFileObjectFactory implements FileObjectFactory {
 
 	@Override
 	public FileObject createFile(StorageRegion storageRegion) {
+		return createFile(storageRegion, System.currentTimeMillis());
+	}
+
+	@Override
+	public FileObject createFile(StorageRegion storageRegion, long createTime) {
 		DuplicateNode[] nodes = duplicationNodeSelector.getDuplicationNodes(storageRegion.getId(), storageRegion.getReplicateNum());
 		if(nodes.length == 0) {
 			LOG.error("No available duplication node to build FileNode");
@@ -53,8 +64,10 @@ public class DefaultFileObjectFactory implements FileObjectFactory {
 				.setServiceId(service.getServiceId())
 				.setServiceGroup(service.getServiceGroup())
 				.setName(FileNameBuilder.createFile(idManager, storageRegion, nodes))
+				.setCreateTime(createTime)
 				.setDuplicateNodes(nodes)
-				.setTimeDuration(Duration.parse(storageRegion.getFilePartitionDuration()).toMillis());
+				.setTimeDuration(Duration.parse(storageRegion.getFilePartitionDuration()).toMillis())
+				.setCompress(compressOf(storageRegion).code());
 		
 		long capacity = -1;
 		for(DuplicateNode node : nodes) {
@@ -104,5 +117,28 @@ public class DefaultFileObjectFactory implements FileObjectFactory {
 		
 		return null;
 	}
+	
+	/**
+	 * 文件的压缩方式只在创建时确定一次，随写入请求发送给每个副本，
+	 * 之后修改Storage Region的设置只对新文件生效
+	 */
+	private static CompressType compressOf(StorageRegion storageRegion) {
+		try {
+			CompressType type = CompressType.fromName(storageRegion.getDataCompress());
+			return type == null ? DEFAULT_COMPRESS : type;
+		} catch (IllegalArgumentException e) {
+			LOG.warn("unknown compress type[{}] of storage region[{}]", storageRegion.getDataCompress(), storageRegion.getName());
+			return DEFAULT_COMPRESS;
+		}
+	}
+	
+	private static CompressType defaultCompressType() {
+		CompressType type = CompressType.fromName(Configs.getConfiguration().GetConfig(DataNodeConfigs.CONFIG_DATA_COMPRESS_TYPE));
+		if(type != null) {
+			return type;
+		}
+		
+		return Configs.getConfiguration().GetConfig(DataNodeConfigs.CONFIG_DATA_COMPRESS) ? CompressType.GZIP : CompressType.NONE;
+	}
 
 }
@@ -4,18 +4,25 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.bonree.brfs.common.collection.SortedList;
 import com.bonree.brfs.common.timer.TimeExchangeEventEmitter;
 import com.bonree.brfs.common.timer.TimeExchangeListener;
 import com.bonree.brfs.common.utils.PooledThreadFactory;
@@ -29,21 +36,53 @@ import com.bonree.brfs.duplication.filenode.FileNodeSinkManager;
 import com.bonree.brfs.duplication.filenode.FileNodeSinkManager.StateListener;
 import com.bonree.brfs.duplication.storageregion.StorageRegion;
 
+/**
+ * 文件的获取直接在DataEngine的处理线程中完成，不再切换到其他线程执行；
+ * 分区切换、节点状态变化等清理工作由后台线程完成，两者通过锁保护文件列表
+ * 
+ * 后台线程会预先打开若干个空闲文件，并在时间分区切换前提前创建下一个分区的文件，
+ * 需要新文件时优先使用这些文件，避免在写入路径上同步创建文件
+ * 
+ * 空闲文件按剩余空间建立索引，获取文件时选择能容纳数据的剩余空间最小的文件；
+ * 没有可用文件时等待文件回收的通知，超过等待时间后抛出{@link TimeoutException}交给DataEngine处理
+ */
 public class DefaultFileObjectSupplier implements FileObjectSupplier, TimeExchangeListener, FileNodeSink {
 	private static Logger LOG = LoggerFactory.getLogger(DefaultFileObjectSupplier.class);
 	
 	private FileObjectFactory fileFactory;
 	
-	private ExecutorService mainThread;
+	private ScheduledExecutorService backgroundThread;
+	
+	// 保护idle、busy、exception三个文件列表
+	private final ReentrantLock lock = new ReentrantLock();
+	// 正在等待文件回收的线程
+	private volatile Thread waitingFetcher;
 	
 	private final int cleanLimit;
 	private final int forceCleanLimit;
 	private final double cleanFileLengthRatio;
 	
+	private final int warmFileCount;
+	private final long warmAdvanceMillis;
+	// 没有可用文件时等待文件回收的最长时间
+	private final long fetchTimeoutNanos;
+	
+	// 预先打开的当前时间分区的文件，不计入文件数量限制
+	private Queue<FileObject> warmFiles = new ConcurrentLinkedQueue<FileObject>();
+	// 提前创建的下一个时间分区的文件，只在后台线程中访问
+	private List<FileObject> nextPartitionFiles = new ArrayList<FileObject>();
+	private AtomicBoolean warming = new AtomicBoolean(false);
+	private volatile ScheduledFuture<?> nextPartitionTask;
+	
+	private AtomicLong warmHitCount = new AtomicLong();
+	private AtomicLong warmMissCount = new AtomicLong();
+	
 	//每个文件只会处于下列状态中的一个
-	private SortedList<FileObject> idleFileList = new SortedList<FileObject>(FileObject.LENGTH_COMPARATOR);
-	private SortedList<FileObject> busyFileList = new SortedList<FileObject>(FileObject.LENGTH_COMPARATOR);
-	private SortedList<FileObject> exceptionFileList = new SortedList<FileObject>(FileObject.LENGTH_COMPARATOR);
+	private FileFreeSpaceIndex idleFiles = new FileFreeSpaceIndex();
+	private FileFreeSpaceIndex busyFiles = new FileFreeSpaceIndex();
+	private Set<FileObject> exceptionFiles = new LinkedHashSet<FileObject>();
+	// 最近一次获取的文件，获取后DataEngine还会继续在文件中申请空间，需要在下次获取时更新索引
+	private FileObject lastFetchedFile;
 	
 	private List<FileObject> recycledFiles = Collections.synchronizedList(new ArrayList<FileObject>());
 	private List<FileObject> exceptedFiles = Collections.synchronizedList(new ArrayList<FileObject>());
@@ -66,7 +105,10 @@ public class DefaultFileObjectSupplier implements FileObjectSupplier, TimeExchan
 		this(storageRegion, factory, closer, fileSynchronizer, fileNodeSinkManager, timeEventEmitter,
 				Configs.getConfiguration().GetConfig(RegionNodeConfigs.CONFIG_FILE_CLEAN_COUNT),
 				Configs.getConfiguration().GetConfig(RegionNodeConfigs.CONFIG_MAX_FILE_COUNT),
-				Configs.getConfiguration().GetConfig(RegionNodeConfigs.CONFIG_FILE_CLEAN_USAGE_RATE));
+				Configs.getConfiguration().GetConfig(RegionNodeConfigs.CONFIG_FILE_CLEAN_USAGE_RATE),
+				Configs.getConfiguration().GetConfig(RegionNodeConfigs.CONFIG_WARM_FILE_COUNT),
+				Duration.parse(Configs.getConfiguration().GetConfig(RegionNodeConfigs.CONFIG_WARM_FILE_ADVANCE_TIME)),
+				Duration.parse(Configs.getConfiguration().GetConfig(RegionNodeConfigs.CONFIG_FILE_FETCH_TIMEOUT)));
 	}
 	
 	public DefaultFileObjectSupplier(StorageRegion storageRegion,
@@ -77,7 +119,10 @@ public class DefaultFileObjectSupplier implements FileObjectSupplier, TimeExchan
 			TimeExchangeEventEmitter timeEventEmitter,
 			int cleanLimit,
 			int forceCleanLimit,
-			double cleanFileLengthRatio) {
+			double cleanFileLengthRatio,
+			int warmFileCount,
+			Duration warmAdvanceTime,
+			Duration fetchTimeout) {
 		this.storageRegion = storageRegion;
 		this.fileFactory = factory;
 		this.fileCloser = closer;
@@ -87,28 +132,168 @@ public class DefaultFileObjectSupplier implements FileObjectSupplier, TimeExchan
 		this.cleanLimit = Math.min(cleanLimit, forceCleanLimit);
 		this.forceCleanLimit = forceCleanLimit;
 		this.cleanFileLengthRatio = cleanFileLengthRatio;
-		this.mainThread = Executors.newSingleThreadExecutor(new PooledThreadFactory(storageRegion.getName() + "_file_supplier"));
+		this.warmFileCount = warmFileCount;
+		this.warmAdvanceMillis = warmAdvanceTime.toMillis();
+		this.fetchTimeoutNanos = fetchTimeout.toNanos();
+		this.backgroundThread = Executors.newSingleThreadScheduledExecutor(new PooledThreadFactory(storageRegion.getName() + "_file_supplier"));
 		
 		this.expiredTime = timeEventEmitter.getStartTime(Duration.parse(storageRegion.getFilePartitionDuration()));
 		this.timeEventEmitter.addListener(Duration.parse(storageRegion.getFilePartitionDuration()), this);
 		this.fileNodeSinkManager.registerFileNodeSink(this);
 		this.fileNodeSinkManager.addStateListener(stateListener);
+		
+		scheduleWarmUp();
+		scheduleNextPartition();
 	}
 	
 	private int totalSize() {
-		return idleFileList.size() + busyFileList.size();
+		return idleFiles.size() + busyFiles.size();
 	}
 	
 	@Override
-	public FileObject fetch(int size) throws InterruptedException {
-		Future<FileObject> future = mainThread.submit(new FileFetcher(size));
-		
+	public FileObject fetch(int size) throws InterruptedException, TimeoutException {
+		long deadline = System.nanoTime() + fetchTimeoutNanos;
+		while(true) {
+			lock.lockInterruptibly();
+			try {
+				FileObject file = fetchFile(size);
+				if(file != null) {
+					return file;
+				}
+			} catch (Exception e) {
+				LOG.error("fetch file failed", e);
+				return null;
+			} finally {
+				lock.unlock();
+			}
+			
+			long waitNanos = deadline - System.nanoTime();
+			if(waitNanos <= 0) {
+				throw new TimeoutException("no file of region[" + storageRegion.getName() + "] is available for data size[" + size + "]");
+			}
+			
+			waitForRecycle(waitNanos);
+		}
+	}
+	
+	/**
+	 * 等待文件回收或者文件列表被清理，{@link #notifyFetcher()}会唤醒等待的线程
+	 */
+	private void waitForRecycle(long nanos) throws InterruptedException {
+		waitingFetcher = Thread.currentThread();
 		try {
-			return future.get();
-		} catch (ExecutionException e) {
-			LOG.error("fetch file failed", e);
-			return null;
+			if(recycledFiles.isEmpty() && exceptedFiles.isEmpty()) {
+				LockSupport.parkNanos(this, nanos);
+			}
+			
+			if(Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		} finally {
+			waitingFetcher = null;
+		}
+	}
+	
+	private void notifyFetcher() {
+		Thread fetcher = waitingFetcher;
+		if(fetcher != null) {
+			LockSupport.unpark(fetcher);
+		}
+	}
+	
+	public long getWarmHitCount() {
+		return warmHitCount.get();
+	}
+	
+	public long getWarmMissCount() {
+		return warmMissCount.get();
+	}
+	
+	private FileObject pollWarmFile() {
+		FileObject file;
+		while((file = warmFiles.poll()) != null) {
+			if(file.node().getCreateTime() >= expiredTime) {
+				return file;
+			}
+			
+			fileCloser.close(file, true);
+		}
+		
+		return null;
+	}
+	
+	private void scheduleWarmUp() {
+		if(warmFileCount <= 0 || !warming.compareAndSet(false, true)) {
+			return;
+		}
+		
+		backgroundThread.submit(() -> {
+			boolean filled = false;
+			try {
+				filled = warmUp();
+			} finally {
+				warming.set(false);
+			}
+			
+			// 填充过程中可能又有文件被取走
+			if(filled && warmFiles.size() < warmFileCount) {
+				scheduleWarmUp();
+			}
+		});
+	}
+	
+	private boolean warmUp() {
+		while(warmFiles.size() < warmFileCount) {
+			FileObject file = fileFactory.createFile(storageRegion);
+			if(file == null) {
+				LOG.warn("can not create warm file for region[{}]", storageRegion.getName());
+				return false;
+			}
+			
+			LOG.info("create warm file object[{}] with capactiy[{}]", file.node().getName(), file.capacity());
+			warmFiles.add(file);
+		}
+		
+		return true;
+	}
+	
+	private void scheduleNextPartition() {
+		if(warmFileCount <= 0) {
+			return;
+		}
+		
+		long nextStartTime = expiredTime + Duration.parse(storageRegion.getFilePartitionDuration()).toMillis();
+		long delay = nextStartTime - warmAdvanceMillis - System.currentTimeMillis();
+		nextPartitionTask = backgroundThread.schedule(() -> prepareNextPartition(nextStartTime), Math.max(delay, 0), TimeUnit.MILLISECONDS);
+	}
+	
+	private void prepareNextPartition(long startTime) {
+		if(startTime <= expiredTime) {
+			return;
+		}
+		
+		while(nextPartitionFiles.size() < warmFileCount) {
+			FileObject file = fileFactory.createFile(storageRegion, startTime);
+			if(file == null) {
+				LOG.warn("can not create file of next partition[{}] for region[{}]", new DateTime(startTime), storageRegion.getName());
+				return;
+			}
+			
+			LOG.info("create file object[{}] for next partition[{}]", file.node().getName(), new DateTime(startTime));
+			nextPartitionFiles.add(file);
+		}
+	}
+	
+	private void activateNextPartition(long startTime) {
+		for(FileObject file : nextPartitionFiles) {
+			if(file.node().getCreateTime() == startTime) {
+				warmFiles.add(file);
+				continue;
+			}
+			
+			fileCloser.close(file, true);
 		}
+		nextPartitionFiles.clear();
 	}
 	
 	@Override
@@ -153,6 +338,7 @@ public class DefaultFileObjectSupplier implements FileObjectSupplier, TimeExchan
 		}
 		
 		recycledFiles.add(file);
+		notifyFetcher();
 	}
 	
 	private void recycleFileObjects() {
@@ -160,8 +346,8 @@ public class DefaultFileObjectSupplier implements FileObjectSupplier, TimeExchan
 			Iterator<FileObject> iter = exceptedFiles.iterator();
 			while(iter.hasNext()) {
 				FileObject file = iter.next();
-				busyFileList.remove(file);
-				exceptionFileList.add(file);
+				busyFiles.remove(file);
+				exceptionFiles.add(file);
 				
 				iter.remove();
 			}
@@ -171,6 +357,11 @@ public class DefaultFileObjectSupplier implements FileObjectSupplier, TimeExchan
 			Iterator<FileObject> iter = recycledFiles.iterator();
 			while(iter.hasNext()) {
 				FileObject file = iter.next();
+				// 处理过的文件都要移除，否则等待线程会一直被唤醒，关闭操作也会重复执行
+				iter.remove();
+				busyFiles.remove(file);
+				exceptionFiles.remove(file);
+				
 				if(file.getState() == FileObject.STATE_ABANDON) {
 					continue;
 				}
@@ -181,30 +372,32 @@ public class DefaultFileObjectSupplier implements FileObjectSupplier, TimeExchan
 					continue;
 				}
 				
-				idleFileList.add(file);
-				busyFileList.remove(file);
-				exceptionFileList.remove(file);
-				
-				iter.remove();
+				idleFiles.add(file);
 			}
 		}
 	}
 	
 	private void clearList() {
-		for(FileObject file : exceptionFileList) {
+		for(FileObject file : exceptionFiles) {
 			file.setState(FileObject.STATE_CLOSING);
 		}
-		exceptionFileList.clear();
+		exceptionFiles.clear();
 		
-		for(FileObject file : busyFileList) {
+		for(FileObject file : busyFiles.files()) {
 			file.setState(FileObject.STATE_CLOSING);
 		}
-		busyFileList.clear();
+		busyFiles.clear();
 		
-		for(FileObject file : idleFileList) {
+		for(FileObject file : idleFiles.files()) {
 			fileCloser.close(file, true);
 		}
-		idleFileList.clear();
+		idleFiles.clear();
+		lastFetchedFile = null;
+		
+		FileObject warmFile;
+		while((warmFile = warmFiles.poll()) != null) {
+			fileCloser.close(warmFile, true);
+		}
 		
 		exceptedFiles.clear();
 		
@@ -224,94 +417,137 @@ public class DefaultFileObjectSupplier implements FileObjectSupplier, TimeExchan
 		fileNodeSinkManager.removeStateListener(stateListener);
 		fileNodeSinkManager.unregisterFileNodeSink(this);
 		timeEventEmitter.removeListener(Duration.parse(storageRegion.getFilePartitionDuration()), this);
-		mainThread.submit(() -> clearList());
-		mainThread.shutdown();
+		
+		ScheduledFuture<?> task = nextPartitionTask;
+		if(task != null) {
+			task.cancel(false);
+		}
+		
+		backgroundThread.submit(() -> {
+			lock.lock();
+			try {
+				clearList();
+			} finally {
+				lock.unlock();
+			}
+			
+			for(FileObject file : nextPartitionFiles) {
+				fileCloser.close(file, true);
+			}
+			nextPartitionFiles.clear();
+		});
+		backgroundThread.shutdown();
 	}
 	
-	private class FileFetcher implements Callable<FileObject> {
-		private int dataSize;
+	private void checkSize(int size, FileObject file) {
+		if(size > file.capacity()) {
+			throw new IllegalStateException("data size is too large to save to file, get " + size + ", but max " + file.capacity());
+		}
+	}
+	
+	/**
+	 * 获取一个能容纳数据的文件，没有可用文件时返回null，需要等待文件被回收
+	 * 
+	 * 调用时必须持有lock
+	 */
+	private FileObject fetchFile(int dataSize) {
+		recycleFileObjects();
+		
+		if(lastFetchedFile != null) {
+			busyFiles.update(lastFetchedFile);
+			lastFetchedFile = null;
+		}
+		
+		FileObject file = idleFiles.bestFit(dataSize);
+		if(file != null) {
+			file.apply(dataSize);
+			idleFiles.remove(file);
+			return useFile(file);
+		}
+		
+		if(!idleFiles.isEmpty()) {
+			checkSize(dataSize, idleFiles.first());
+			cleanIdleFiles();
+		}
 		
-		public FileFetcher(int dataSize) {
-			this.dataSize = dataSize;
+		long busyMaxFree = busyFiles.maxFree();
+		if(busyMaxFree >= 0 && busyMaxFree < dataSize) {
+			checkSize(dataSize, busyFiles.first());
 		}
+		boolean hasUsableBusyFile = busyMaxFree >= dataSize;
 		
-		private void checkSize(int size, FileObject file) {
-			if(size > file.capacity()) {
+		LOG.debug("idle => {}, busy => {}, exception => {}", idleFiles.size(), busyFiles.size(), exceptionFiles.size());
+		if(totalSize() < cleanLimit || (totalSize() < forceCleanLimit && !hasUsableBusyFile)) {
+			file = pollWarmFile();
+			if(file != null) {
+				warmHitCount.incrementAndGet();
+			} else {
+				warmMissCount.incrementAndGet();
+				file = fileFactory.createFile(storageRegion);
+			}
+			scheduleWarmUp();
+			
+			if(file == null) {
+				throw new RuntimeException("can not create file node!");
+			}
+			
+			LOG.info("use file object[{}] with capactiy[{}]", file.node().getName(), file.capacity());
+			if(dataSize > file.capacity()) {
+				idleFiles.add(file);
 				throw new IllegalStateException("data size is too large to save to file, get " + dataSize + ", but max " + file.capacity());
 			}
+			
+			file.apply(dataSize);
+			return useFile(file);
 		}
-
-		@Override
-		public FileObject call() throws Exception {
-			while(true) {
-				recycleFileObjects();
-				
-				Iterator<FileObject> iter = idleFileList.iterator();
-				while(iter.hasNext()) {
-					FileObject file = iter.next();
-					if(file.apply(dataSize)) {
-						iter.remove();
-						busyFileList.add(file);
-						return file;
-					}
-					
-					checkSize(dataSize, file);
-					
-					if((totalSize() >= cleanLimit && Double.compare(file.length(), file.capacity() * cleanFileLengthRatio) >= 0)
-							|| (totalSize() >= forceCleanLimit)) {
-						LOG.info("force clean to file[{}]", file.node().getName());
-						iter.remove();
-						fileCloser.close(file, true);
-					}
-				}
-				
-				List<FileObject> usableBusyFileList = new ArrayList<FileObject>();
-				for(FileObject file : busyFileList) {
-					if(file.free() >= dataSize) {
-						usableBusyFileList.add(file);
-						continue;
-					}
-					
-					checkSize(dataSize, file);
-				}
-				
-				LOG.debug("idle => {}, busy => {}, exception => {}", idleFileList.size(), busyFileList.size(), exceptionFileList.size());
-				if(totalSize() < cleanLimit || (totalSize() < forceCleanLimit && usableBusyFileList.isEmpty())) {
-					FileObject file = fileFactory.createFile(storageRegion);
-					if(file == null) {
-						throw new RuntimeException("can not create file node!");
-					}
-					
-					LOG.info("create file object[{}] with capactiy[{}]", file.node().getName(), file.capacity());
-					if(dataSize > file.capacity()) {
-						idleFileList.add(file);
-						throw new IllegalStateException("data size is too large to save to file, get " + dataSize + ", but max " + file.capacity());
-					}
-					
-					file.apply(dataSize);
-					busyFileList.add(file);
-					
-					return file;
-				}
-				
-				LOG.debug("available busy file count => {}", usableBusyFileList.size());
-				while(recycledFiles.isEmpty() && exceptedFiles.isEmpty()) {
-					Thread.yield();
-				}
+		
+		return null;
+	}
+	
+	private FileObject useFile(FileObject file) {
+		busyFiles.add(file);
+		lastFetchedFile = file;
+		return file;
+	}
+	
+	/**
+	 * 空闲文件都不能容纳数据时，从剩余空间最小的文件开始清理
+	 */
+	private void cleanIdleFiles() {
+		FileObject file;
+		while((file = idleFiles.first()) != null) {
+			if((totalSize() >= cleanLimit && Double.compare(file.length(), file.capacity() * cleanFileLengthRatio) >= 0)
+					|| (totalSize() >= forceCleanLimit)) {
+				LOG.info("force clean to file[{}]", file.node().getName());
+				idleFiles.remove(file);
+				fileCloser.close(file, true);
+				continue;
 			}
+			
+			break;
 		}
-		
 	}
 
 	@Override
 	public void timeExchanged(long startTime, Duration duration) {
-		mainThread.submit(new Runnable() {
+		backgroundThread.submit(new Runnable() {
 			
 			@Override
 			public void run() {
 				expiredTime = startTime;
 				LOG.info("Time[{}] to clear file list", new DateTime());
-				clearList();
+				lock.lock();
+				try {
+					clearList();
+				} finally {
+					lock.unlock();
+				}
+				notifyFetcher();
+				
+				LOG.info("warm file of region[{}]: hit[{}], miss[{}]", storageRegion.getName(), warmHitCount.get(), warmMissCount.get());
+				activateNextPartition(startTime);
+				scheduleNextPartition();
+				scheduleWarmUp();
 			}
 		});
 	}
@@ -331,22 +567,36 @@ public class DefaultFileObjectSupplier implements FileObjectSupplier, TimeExchan
 		@Override
 		public void stateChanged(boolean enable) {
 			if(!enable) {
-				mainThread.submit(new Runnable() {
+				backgroundThread.submit(new Runnable() {
 					
 					@Override
 					public void run() {
-						idleFileList.clear();
+						lock.lock();
+						try {
+							clearAll();
+						} finally {
+							lock.unlock();
+						}
+						notifyFetcher();
+					}
+					
+					private void clearAll() {
+						idleFiles.clear();
 						
-						for(FileObject file : busyFileList) {
+						for(FileObject file : busyFiles.files()) {
 							file.setState(FileObject.STATE_ABANDON);
 						}
 						
-						for(FileObject file : exceptionFileList) {
+						for(FileObject file : exceptionFiles) {
 							file.setState(FileObject.STATE_ABANDON);
 						}
 						
-						busyFileList.clear();
-						exceptionFileList.clear();
+						busyFiles.clear();
+						exceptionFiles.clear();
+						lastFetchedFile = null;
+						
+						warmFiles.clear();
+						nextPartitionFiles.clear();
 						
 						recycledFiles.clear();
 						exceptedFiles.clear();
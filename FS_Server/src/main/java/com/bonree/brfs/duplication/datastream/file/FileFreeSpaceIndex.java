@@ -0,0 +1,124 @@
+package com.bonree.brfs.duplication.datastream.file;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 按剩余空间排序的文件索引，用于快速找到能容纳数据的剩余空间最小的文件
+ *
+ * 文件加入索引时记录当时的剩余空间，之后文件的剩余空间发生变化需要调用{@link #update(FileObject)}
+ * 重新排序；非线程安全，由调用者加锁保护
+ */
+class FileFreeSpaceIndex {
+	private final TreeSet<Entry> entries = new TreeSet<Entry>();
+	private final Map<FileObject, Entry> entryMap = new HashMap<FileObject, Entry>();
+
+	private long sequence;
+
+	public int size() {
+		return entryMap.size();
+	}
+
+	public boolean isEmpty() {
+		return entryMap.isEmpty();
+	}
+
+	public boolean contains(FileObject file) {
+		return entryMap.containsKey(file);
+	}
+
+	public void add(FileObject file) {
+		remove(file);
+
+		Entry entry = new Entry(file, file.free(), sequence++);
+		entries.add(entry);
+		entryMap.put(file, entry);
+	}
+
+	public boolean remove(FileObject file) {
+		Entry entry = entryMap.remove(file);
+		if(entry == null) {
+			return false;
+		}
+
+		entries.remove(entry);
+		return true;
+	}
+
+	/**
+	 * 文件已经在索引中时，按当前的剩余空间重新排序
+	 */
+	public void update(FileObject file) {
+		Entry entry = entryMap.get(file);
+		if(entry == null || entry.free == file.free()) {
+			return;
+		}
+
+		add(file);
+	}
+
+	/**
+	 * 剩余空间不小于size的文件中剩余空间最小的一个
+	 *
+	 * @return 没有满足条件的文件时返回null
+	 */
+	public FileObject bestFit(int size) {
+		Entry entry = entries.ceiling(new Entry(null, size, Long.MIN_VALUE));
+		return entry == null ? null : entry.file;
+	}
+
+	/**
+	 * 剩余空间最小的文件
+	 */
+	public FileObject first() {
+		return entries.isEmpty() ? null : entries.first().file;
+	}
+
+	/**
+	 * 索引中最大的剩余空间，索引为空时返回-1
+	 */
+	public long maxFree() {
+		return entries.isEmpty() ? -1 : entries.last().free;
+	}
+
+	public List<FileObject> files() {
+		List<FileObject> files = new ArrayList<FileObject>(entries.size());
+		Iterator<Entry> iter = entries.iterator();
+		while(iter.hasNext()) {
+			files.add(iter.next().file);
+		}
+
+		return files;
+	}
+
+	public void clear() {
+		entries.clear();
+		entryMap.clear();
+	}
+
+	private static class Entry implements Comparable<Entry> {
+		private final FileObject file;
+		private final long free;
+		private final long sequence;
+
+		Entry(FileObject file, long free, long sequence) {
+			this.file = file;
+			this.free = free;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public int compareTo(Entry o) {
+			int result = Long.compare(free, o.free);
+			if(result != 0) {
+				return result;
+			}
+
+			return Long.compare(sequence, o.sequence);
+		}
+	}
+}
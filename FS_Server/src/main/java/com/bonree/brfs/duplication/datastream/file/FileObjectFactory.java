@@ -4,4 +4,9 @@ import com.bonree.brfs.duplication.storageregion.StorageRegion;
 
 public interface FileObjectFactory {
 	FileObject createFile(StorageRegion storageRegion);
+	
+	/**
+	 * 创建指定创建时间的文件，用于提前创建下一个时间分区的文件
+	 */
+	FileObject createFile(StorageRegion storageRegion, long createTime);
 }
@@ -1,8 +1,15 @@
 package com.bonree.brfs.duplication.datastream.file;
 
 import java.io.Closeable;
+import java.util.concurrent.TimeoutException;
 
 public interface FileObjectSupplier extends Closeable {
-	FileObject fetch(int size) throws InterruptedException;
+	/**
+	 * 获取能容纳size字节数据的文件
+	 * 
+	 * @return 获取失败时返回null
+	 * @throws TimeoutException 在限定时间内没有可用的文件
+	 */
+	FileObject fetch(int size) throws InterruptedException, TimeoutException;
 	void recycle(FileObject file, boolean needSync);
 }
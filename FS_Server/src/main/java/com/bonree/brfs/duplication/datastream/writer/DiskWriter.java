@@ -1,18 +1,18 @@
 package com.bonree.brfs.duplication.datastream.writer;
 
 import java.io.Closeable;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.bonree.brfs.common.delivery.ProducerClient;
+import com.bonree.brfs.common.supervisor.MetricsRegistry;
 import com.bonree.brfs.common.supervisor.TimeWatcher;
-import com.bonree.brfs.common.supervisor.WriteMetric;
 import com.bonree.brfs.common.utils.PooledThreadFactory;
 import com.bonree.brfs.disknode.client.WriteResult;
 import com.bonree.brfs.duplication.datastream.FilePathMaker;
@@ -22,6 +22,11 @@ import com.bonree.brfs.duplication.datastream.dataengine.impl.DataObject;
 import com.bonree.brfs.duplication.datastream.file.FileObject;
 import com.bonree.brfs.duplication.filenode.duplicates.DuplicateNode;
 
+/**
+ * 通过异步TCP连接把数据同时写入所有副本节点，每个磁盘节点连接上
+ * 同时进行中的写请求数量有上限，达到上限时写入线程会被阻塞；
+ * 写入结果在工作线程中处理，工作线程不会等待数据节点的响应
+ */
 public class DiskWriter implements Closeable {
 	private static final Logger LOG = LoggerFactory.getLogger(DiskWriter.class);
 	
@@ -30,111 +35,126 @@ public class DiskWriter implements Closeable {
 	
 	private FilePathMaker pathMaker;
 	
-	public DiskWriter(int workerNum, DiskNodeConnectionPool connectionPool, FilePathMaker pathMaker) {
+	private final int maxInFlightPerNode;
+	private ConcurrentHashMap<String, Semaphore> inFlightWindows = new ConcurrentHashMap<String, Semaphore>();
+	
+	public DiskWriter(int workerNum, int maxInFlightPerNode, DiskNodeConnectionPool connectionPool, FilePathMaker pathMaker) {
 		this.writeWorkers = Executors.newFixedThreadPool(workerNum, new PooledThreadFactory("disk_write_worker"));
+		this.maxInFlightPerNode = maxInFlightPerNode;
 		this.connectionPool = connectionPool;
 		this.pathMaker = pathMaker;
 	}
 	
 	public void write(FileObject file, List<DataObject> datas, WriteProgressListener listener) {
+		write(file, datas, 0, listener);
+	}
+	
+	/**
+	 * 写入数据到文件的所有副本
+	 * 
+	 * @param writeQuorum 返回FID前需要写入成功的副本数，小于等于0时为所有副本
+	 */
+	public void write(FileObject file, List<DataObject> datas, int writeQuorum, WriteProgressListener listener) {
 		DuplicateNode[] nodes = file.node().getDuplicateNodes();
 		
-		DiskWriterCallback writerCallback = new DiskWriterCallback(nodes.length, datas, listener);
+		List<byte[]> dataList = new ArrayList<byte[]>(datas.size());
+		for(DataObject data : datas) {
+			dataList.add(data.getBytes());
+		}
+		
+		DiskWriterCallback writerCallback = new DiskWriterCallback(nodes.length, writeQuorum, datas, listener);
 		for(int i = 0; i < nodes.length; i++) {
-			writeWorkers.submit(new DiskWriteTask(file, datas, nodes[i], i, writerCallback));
+			writeToNode(file, dataList, nodes[i], i, writerCallback);
 		}
 	}
 	
-	@Override
-	public void close() {
-		writeWorkers.shutdown();
-	}
-	
-	public static interface WriteProgressListener {
-		void writeCompleted(FileObject file, boolean errorOccurred);
+	private Semaphore inFlightWindow(DuplicateNode node) {
+		String key = node.getGroup() + "_" + node.getId();
+		Semaphore window = inFlightWindows.get(key);
+		if(window == null) {
+			inFlightWindows.putIfAbsent(key, new Semaphore(maxInFlightPerNode));
+			window = inFlightWindows.get(key);
+		}
+		
+		return window;
 	}
 	
-	private class DiskWriteTask implements Runnable {
-		private FileObject file;
-		private List<DataObject> datas;
-		private DiskWriterCallback callback;
-		private DuplicateNode node;
-		private final int index;
+	private void writeToNode(FileObject file, List<byte[]> dataList, DuplicateNode node, int index, DiskWriterCallback callback) {
+		DataOut[] dataOuts = new DataOut[dataList.size()];
 		
-		public DiskWriteTask(FileObject file, List<DataObject> datas, DuplicateNode node, int index, DiskWriterCallback callback) {
-			this.file = file;
-			this.datas = datas;
-			this.node = node;
-			this.index = index;
-			this.callback = callback;
+		DiskNodeConnection conn = connectionPool.getConnection(node.getGroup(), node.getId());
+		if(conn == null || conn.getClient() == null) {
+			callback.complete(file, index, dataOuts);
+			return;
 		}
-
-		@Override
-		public void run() {
-			DataOut[] dataOuts = new DataOut[datas.size()];
+		
+		Semaphore window = inFlightWindow(node);
+		try {
+			window.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			callback.complete(file, index, dataOuts);
+			return;
+		}
+		
+		TimeWatcher timeWatcher = new TimeWatcher();
+		conn.getClient().writeDatasAsync(pathMaker.buildPath(file.node(), node), file.node().getCompress(), dataList)
+		.whenCompleteAsync((results, error) -> {
+			window.release();
 			
 			try {
-				DiskNodeConnection conn = connectionPool.getConnection(node.getGroup(), node.getId());
-				if(conn == null || conn.getClient() == null) {
-					return;
-				}
-				
-				List<byte[]> dataList = new ArrayList<byte[]>();
-				for(DataObject data : datas) {
-					dataList.add(data.getBytes());
+				if(error != null) {
+					LOG.error("write file[{}] to disk error!", file.node().getName(), error);
 				}
 				
-				
-				WriteMetric writeMetric = new WriteMetric();
-				writeMetric.setMonitorTime(System.currentTimeMillis());
-				writeMetric.setStorageName(file.node().getStorageName());
-				writeMetric.setRegionNodeID(file.node().getServiceId());
-				writeMetric.setDataNodeID(node.getId());
-				writeMetric.setDataCount(0);
-				writeMetric.setDataSize(0);
-				writeMetric.setDataMaxSize(0);
-				
-				WriteResult[] results = null;
-				TimeWatcher timeWatcher = new TimeWatcher();
-				try {
-					results = conn.getClient().writeDatas(pathMaker.buildPath(file.node(), node), dataList);
-				} catch (IOException e) {
-					LOG.error("write file[{}] to disk error!", file.node().getName());
+				handleResults(file, node, results, dataOuts, timeWatcher.getElapsedMicros());
+			} finally {
+				callback.complete(file, index, dataOuts);
+			}
+		}, writeWorkers);
+	}
+	
+	private void handleResults(FileObject file, DuplicateNode node, WriteResult[] results, DataOut[] dataOuts, long elapsedMicros) {
+		int dataCount = 0;
+		long dataSize = 0;
+		int dataMaxSize = 0;
+		if(results != null) {
+			for(int i = 0; i < dataOuts.length; i++) {
+				if(results[i] == null) {
+					break;
 				}
 				
-				writeMetric.setElapsedTime(timeWatcher.getElapsedTime());
-				
-				if(results != null) {
-					for(int i = 0; i < dataOuts.length; i++) {
-						if(results[i] == null) {
-							break;
-						}
-						
-						final WriteResult result = results[i];
-						writeMetric.incrementDataCount(1);
-						writeMetric.incrementDataSize(result.getSize());
-						writeMetric.updateDataMaxSize(result.getSize());
-						dataOuts[i] = new DataOut() {
-							
-							@Override
-							public long offset() {
-								return result.getOffset();
-							}
-							
-							@Override
-							public int length() {
-								return result.getSize();
-							}
-						};
+				final WriteResult result = results[i];
+				dataCount++;
+				dataSize += result.getSize();
+				dataMaxSize = Math.max(dataMaxSize, result.getSize());
+				dataOuts[i] = new DataOut() {
+					
+					@Override
+					public long offset() {
+						return result.getOffset();
 					}
-				}
-				
-				writeMetric.setAvgElapsedTime(writeMetric.getElapsedTime() / writeMetric.getDataCount());
-				ProducerClient.getInstance().sendWriterMetric(writeMetric.toMap());
-			} finally {
-				callback.complete(file, index, dataOuts);
+					
+					@Override
+					public int length() {
+						return result.getSize();
+					}
+				};
 			}
 		}
 		
+		if(dataCount > 0) {
+			MetricsRegistry.getInstance().recordWrite(file.node().getStorageName(), file.node().getServiceId(), node.getId(),
+					dataCount, dataSize, dataMaxSize, elapsedMicros);
+		}
+	}
+	
+	@Override
+	public void close() {
+		writeWorkers.shutdown();
+	}
+	
+	public static interface WriteProgressListener {
+		void writeCompleted(FileObject file, boolean errorOccurred);
 	}
 }
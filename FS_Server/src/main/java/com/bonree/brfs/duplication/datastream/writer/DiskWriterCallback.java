@@ -1,6 +1,7 @@
 package com.bonree.brfs.duplication.datastream.writer;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 
@@ -12,19 +13,34 @@ import com.bonree.brfs.duplication.datastream.dataengine.impl.DataObject;
 import com.bonree.brfs.duplication.datastream.file.FileObject;
 import com.bonree.brfs.duplication.datastream.writer.DiskWriter.WriteProgressListener;
 
+/**
+ * 汇总所有副本的写入结果
+ * 
+ * 写入确认数小于副本数时，确认数量的副本全部写入成功后就返回FID，
+ * 其余副本在后台继续写入，所有副本完成后才回收文件，写入失败的文件会进行同步
+ */
 public class DiskWriterCallback {
 	private static final Logger LOG = LoggerFactory.getLogger(DiskWriterCallback.class);
 	
 	private AtomicInteger count;
 	private AtomicReferenceArray<DataOut[]> results;
 	
+	private final int writeQuorum;
+	private AtomicInteger successCount = new AtomicInteger(0);
+	private AtomicBoolean fidReturned = new AtomicBoolean(false);
+	
 	private List<DataObject> dataCallbacks;
 	
 	private WriteProgressListener callback;
 	
 	public DiskWriterCallback(int dupCount, List<DataObject> dataCallbacks, WriteProgressListener callback) {
+		this(dupCount, dupCount, dataCallbacks, callback);
+	}
+	
+	public DiskWriterCallback(int dupCount, int writeQuorum, List<DataObject> dataCallbacks, WriteProgressListener callback) {
 		this.count = new AtomicInteger(dupCount);
 		this.results = new AtomicReferenceArray<DataOut[]>(dupCount);
+		this.writeQuorum = (writeQuorum <= 0 || writeQuorum > dupCount) ? dupCount : writeQuorum;
 		this.dataCallbacks = dataCallbacks;
 		this.callback = callback;
 	}
@@ -32,11 +48,21 @@ public class DiskWriterCallback {
 	public void complete(FileObject file, int index, DataOut[] result) {
 		results.set(index, result);
 		
+		if(writeQuorum < results.length() && isAllWritten(result)
+				&& successCount.incrementAndGet() == writeQuorum) {
+			LOG.debug("write quorum[{}] reached in file[{}]", writeQuorum, file.node().getName());
+			returnFids(file, result, result.length - 1);
+		}
+		
 		if(count.decrementAndGet() == 0) {
 			handleResults(file);
 		}
 	}
 	
+	private static boolean isAllWritten(DataOut[] result) {
+		return result.length > 0 && result[result.length - 1] != null;
+	}
+	
 	private void handleResults(FileObject file) {
 		int maxValidIndex = -1;
 		DataOut[] maxResult = null;
@@ -67,10 +93,18 @@ public class DiskWriterCallback {
 		file.setLength(maxValidIndex < 0 ? file.length() : (maxResult[maxValidIndex].offset() + maxResult[maxValidIndex].length()));
 		callback.writeCompleted(file, writeError);
 		
+		returnFids(file, maxResult, maxValidIndex);
+	}
+	
+	private void returnFids(FileObject file, DataOut[] result, int maxValidIndex) {
+		if(!fidReturned.compareAndSet(false, true)) {
+			return;
+		}
+		
 		String[] fids = new String[dataCallbacks.size()];
 		for(int i = 0; i <= maxValidIndex; i++) {
-			long offset = maxResult[i].offset();
-			int size = maxResult[i].length();
+			long offset = result[i].offset();
+			int size = result[i].length();
 			
 			fids[i] = FidBuilder.getFid(file.node(), offset, size);
 		}
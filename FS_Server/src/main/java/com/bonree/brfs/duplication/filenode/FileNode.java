@@ -34,6 +34,9 @@ public class FileNode {
 	//文件的容量大小
 	@JsonProperty("capacity")
 	private long capacity;
+	//数据的压缩方式，创建文件时确定，所有副本使用相同的压缩方式
+	@JsonProperty("compress")
+	private int compress;
 	
 	private FileNode() {
 		this.createTime = System.currentTimeMillis();
@@ -79,6 +82,10 @@ public class FileNode {
 		return capacity;
 	}
 	
+	public int getCompress() {
+		return compress;
+	}
+	
 	public static Builder newBuilder() {
 		return new Builder();
 	}
@@ -106,6 +113,7 @@ public class FileNode {
 			node.serviceId = other.serviceId;
 			node.duplicateNodes = other.duplicateNodes;
 			node.capacity = other.capacity;
+			node.compress = other.compress;
 		}
 		
 		public Builder setName(String name) {
@@ -158,6 +166,11 @@ public class FileNode {
 			return this;
 		}
 		
+		public Builder setCompress(int compress) {
+			node.compress = compress;
+			return this;
+		}
+		
 		public FileNode build() {
 			return node;
 		}
@@ -8,6 +8,7 @@ import com.google.common.base.Preconditions;
 
 public class StorageRegion {
 	public static final int DEFAULT_REPLIS = Configs.getConfiguration().GetConfig(StorageConfigs.CONFIG_STORAGE_REGION_REPLICATE_COUNT);
+	public static final int DEFAULT_WRITE_QUORUM = Configs.getConfiguration().GetConfig(StorageConfigs.CONFIG_STORAGE_REGION_WRITE_QUORUM);
 	public static final String DEFAULT_TTL = Configs.getConfiguration().GetConfig(StorageConfigs.CONFIG_STORAGE_REGION_DATA_TTL);
 	public static final long DEFAULT_FILE_CAPACITY = Configs.getConfiguration().GetConfig(StorageConfigs.CONFIG_STORAGE_REGION_FILE_CAPACITY);
 	public static final String DEFAULT_FILE_PATITION_DURATION = Configs.getConfiguration().GetConfig(StorageConfigs.CONFIG_FILE_PATITION_DURATION);
@@ -25,17 +26,23 @@ public class StorageRegion {
 	//Storage Region存储的数据相关属性
 	@JsonProperty("replicate_num")
 	private int replicateNum;
+	@JsonProperty("write_quorum")
+	private int writeQuorum;
 	@JsonProperty("data_ttl")
 	private String dataTtl;
 	@JsonProperty("file_capacity")
 	private long fileCapacity;
 	@JsonProperty("patition_duration")
 	private String filePartitionDuration;
+	// 数据的压缩方式，为空时使用数据节点的默认配置
+	@JsonProperty("data_compress")
+	private String dataCompress;
 	
 	private StorageRegion() {
 		this.createTime = System.currentTimeMillis();
 		this.enable = true;
 		this.replicateNum = DEFAULT_REPLIS;
+		this.writeQuorum = DEFAULT_WRITE_QUORUM;
 		this.dataTtl = DEFAULT_TTL;
 		this.fileCapacity = DEFAULT_FILE_CAPACITY;
 		this.filePartitionDuration = DEFAULT_FILE_PATITION_DURATION;
@@ -61,6 +68,13 @@ public class StorageRegion {
 		return replicateNum;
 	}
 
+	/**
+	 * 写入数据时需要确认的副本数，没有设置或者超过副本数时为所有副本
+	 */
+	public int getWriteQuorum() {
+		return writeQuorum;
+	}
+
 	public String getDataTtl() {
 		return dataTtl;
 	}
@@ -73,6 +87,10 @@ public class StorageRegion {
 		return filePartitionDuration;
 	}
 	
+	public String getDataCompress() {
+		return dataCompress;
+	}
+	
 	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder();
@@ -82,9 +100,11 @@ public class StorageRegion {
 		.append("createTime=").append(createTime).append(',')
 		.append("enable=").append(enable).append(',')
 		.append("replicates=").append(replicateNum).append(',')
+		.append("quorum=").append(writeQuorum).append(',')
 		.append("ttl=").append(dataTtl).append(',')
 		.append("capacity=").append(fileCapacity).append(',')
-		.append("duration=").append(filePartitionDuration)
+		.append("duration=").append(filePartitionDuration).append(',')
+		.append("compress=").append(dataCompress)
 		.append('}');
 		
 		return builder.toString();
@@ -112,9 +132,11 @@ public class StorageRegion {
 			this.region.createTime = region.createTime;
 			this.region.enable = region.enable;
 			this.region.replicateNum = region.replicateNum;
+			this.region.writeQuorum = region.writeQuorum;
 			this.region.dataTtl = region.dataTtl;
 			this.region.fileCapacity = region.fileCapacity;
 			this.region.filePartitionDuration = region.filePartitionDuration;
+			this.region.dataCompress = region.dataCompress;
 		}
 		
 		public Builder setName(String name) {
@@ -142,6 +164,11 @@ public class StorageRegion {
 			return this;
 		}
 		
+		public Builder setWriteQuorum(int quorum) {
+			this.region.writeQuorum = quorum;
+			return this;
+		}
+		
 		public Builder setDataTtl(String ttl) {
 			this.region.dataTtl = ttl;
 			return this;
@@ -157,6 +184,11 @@ public class StorageRegion {
 			return this;
 		}
 		
+		public Builder setDataCompress(String compress) {
+			this.region.dataCompress = compress;
+			return this;
+		}
+		
 		public StorageRegion build() {
 			Preconditions.checkNotNull(this.region.name);
 			Preconditions.checkArgument(this.region.id >= 0);
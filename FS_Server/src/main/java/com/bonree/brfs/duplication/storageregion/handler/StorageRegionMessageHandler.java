@@ -6,6 +6,7 @@ import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.bonree.brfs.common.data.utils.CompressType;
 import com.bonree.brfs.common.net.http.HandleResultCallback;
 import com.bonree.brfs.common.net.http.HttpMessage;
 import com.bonree.brfs.common.net.http.MessageHandler;
@@ -49,6 +50,13 @@ public abstract class StorageRegionMessageHandler implements MessageHandler {
 			
 		}
 		
+		String quorumParam = params.get(StorageRegionConfig.CONFIG_WRITE_QUORUM);
+		if(quorumParam != null) {
+			try {
+				message.addAttribute(StorageRegionConfig.CONFIG_WRITE_QUORUM, Integer.parseInt(quorumParam));
+			} catch (Exception e) {}
+		}
+		
 		String ttlParam = params.get(StorageRegionConfig.CONFIG_DATA_TTL);
 		if(ttlParam != null) {
 			try {
@@ -71,6 +79,14 @@ public abstract class StorageRegionMessageHandler implements MessageHandler {
 				message.addAttribute(StorageRegionConfig.CONFIG_FILE_PARTITION_DURATION, partitionDurationParam);
 			} catch (Exception e) {}
 		}
+		
+		String compressParam = params.get(StorageRegionConfig.CONFIG_DATA_COMPRESS);
+		if(compressParam != null) {
+			try {
+				CompressType.fromName(compressParam);
+				message.addAttribute(StorageRegionConfig.CONFIG_DATA_COMPRESS, compressParam.trim().toLowerCase());
+			} catch (Exception e) {}
+		}
 	}
 
 	@Override
@@ -129,9 +129,11 @@ public class DefaultStorageRegionManager implements StorageRegionManager {
             		.setCreateTime(System.currentTimeMillis())
             		.setEnable(true)
             		.setReplicateNum(config.getReplicateNum())
+            		.setWriteQuorum(config.getWriteQuorum())
             		.setDataTtl(config.getDataTtl())
             		.setFileCapacity(config.getFileCapacity())
             		.setFilePartitionDuration(config.getFilePartitionDuration())
+            		.setDataCompress(config.getDataCompress())
             		.build();
         	
             zkClient.create().forPath(regionPath, JsonUtils.toJsonBytes(region));
@@ -156,9 +158,11 @@ public class DefaultStorageRegionManager implements StorageRegionManager {
             zkClient.setData().forPath(buildRegionPath(regionName), JsonUtils.toJsonBytes(StorageRegion.newBuilder(region)
             		.setEnable(config.isEnable())
             		.setReplicateNum(config.getReplicateNum())
+            		.setWriteQuorum(config.getWriteQuorum())
             		.setDataTtl(config.getDataTtl())
             		.setFileCapacity(config.getFileCapacity())
             		.setFilePartitionDuration(config.getFilePartitionDuration())
+            		.setDataCompress(config.getDataCompress())
             		.build()));
         } catch (Exception e) {
         	LOG.warn("set storage name node[{}] data error", regionName, e);
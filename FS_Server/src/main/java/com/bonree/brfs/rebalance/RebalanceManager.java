@@ -39,6 +39,7 @@ public class RebalanceManager implements Closeable {
         		Configs.getConfiguration().GetConfig(RebalanceConfigs.CONFIG_VIRTUAL_DELAY),
         		Configs.getConfiguration().GetConfig(RebalanceConfigs.CONFIG_NORMAL_DELAY));
         
+        // 数据根目录即第一个数据目录，恢复任务和文件传输通过DiskContext访问所有数据目录
         String dataPath = Configs.getConfiguration().GetConfig(DataNodeConfigs.CONFIG_DATA_ROOT);
         opt = new TaskOperation(curatorClient, zkPaths.getBaseRebalancePath(), zkPaths.getBaseRoutePath(), idManager,
         		dataPath, snManager, serviceManager);
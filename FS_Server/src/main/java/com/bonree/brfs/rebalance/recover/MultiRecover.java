@@ -1,13 +1,16 @@
 package com.bonree.brfs.rebalance.recover;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -20,11 +23,11 @@ import com.bonree.brfs.common.rebalance.route.NormalRoute;
 import com.bonree.brfs.common.rebalance.route.VirtualRoute;
 import com.bonree.brfs.common.service.Service;
 import com.bonree.brfs.common.service.ServiceManager;
-import com.bonree.brfs.common.utils.BRFSFileUtil;
 import com.bonree.brfs.common.utils.BRFSPath;
 import com.bonree.brfs.common.utils.CompareFromName;
 import com.bonree.brfs.common.utils.FileUtils;
 import com.bonree.brfs.common.utils.JsonUtils;
+import com.bonree.brfs.common.utils.PooledThreadFactory;
 import com.bonree.brfs.common.utils.RebalanceUtils;
 import com.bonree.brfs.common.zookeeper.curator.CuratorClient;
 import com.bonree.brfs.common.zookeeper.curator.cache.AbstractNodeCacheListener;
@@ -32,11 +35,14 @@ import com.bonree.brfs.common.zookeeper.curator.cache.CuratorCacheFactory;
 import com.bonree.brfs.common.zookeeper.curator.cache.CuratorNodeCache;
 import com.bonree.brfs.configuration.Configs;
 import com.bonree.brfs.configuration.units.CommonConfigs;
+import com.bonree.brfs.configuration.units.RebalanceConfigs;
+import com.bonree.brfs.disknode.DiskContext;
+import com.bonree.brfs.disknode.catalog.FileCatalog;
 import com.bonree.brfs.rebalance.DataRecover;
 import com.bonree.brfs.rebalance.task.BalanceTaskSummary;
 import com.bonree.brfs.rebalance.task.TaskDetail;
 import com.bonree.brfs.rebalance.task.TaskStatus;
-import com.bonree.brfs.rebalance.transfer.SimpleFileClient;
+import com.bonree.brfs.rebalance.transfer.FileTransferClient;
 import com.bonree.brfs.server.identification.ServerIDManager;
 
 /*******************************************************************************
@@ -60,7 +66,7 @@ public class MultiRecover implements DataRecover {
 
     private Map<String, VirtualRoute> virtualRoutes = null;
 
-    private SimpleFileClient fileClient;
+    private FileTransferClient fileClient;
 
     private final String storageName;
 
@@ -82,13 +88,12 @@ public class MultiRecover implements DataRecover {
 
     private final long delayTime;
 
-    private boolean overFlag = false;
-
     private TaskDetail detail;
 
-    private int currentCount = 0;
+    private RecoverExecutor recoverExecutor;
 
-    private BlockingQueue<FileRecoverMeta> fileRecoverQueue = new ArrayBlockingQueue<>(2000);
+    // 文件所在目录对应的磁盘
+    private final Map<String, String> diskOfDirs = new HashMap<>();
 
     private AtomicReference<TaskStatus> status = null;
 
@@ -133,7 +138,7 @@ public class MultiRecover implements DataRecover {
         this.client = client;
         this.dataDir = dataDir;
         this.storageName = storageName;
-        this.fileClient = new SimpleFileClient();
+        this.fileClient = FileTransferClient.getInstance();
         // 开启监控
         nodeCache = CuratorCacheFactory.getNodeCache();
         nodeCache.addListener(taskNode, new RecoverListener("recover"));
@@ -241,48 +246,80 @@ public class MultiRecover implements DataRecover {
         LOG.info("update:" + selfNode + "-------------" + detail);
         updateDetail(selfNode, detail);
 
-        String snDataDir = dataDir + FileUtils.FILE_SEPARATOR + storageName;
-        if (!FileUtils.isExist(snDataDir)) {
+        // 数据节点有多个数据目录时，存储区域的文件分布在各个目录中
+        Map<String, List<BRFSPath>> allPaths = new LinkedHashMap<>();
+        int fileCounts = 0;
+        for (String disk : DiskContext.dataDirsOf(dataDir)) {
+            if (!FileUtils.isExist(disk + FileUtils.FILE_SEPARATOR + storageName)) {
+                continue;
+            }
+            List<BRFSPath> paths = FileCatalog.scanFile(disk, storageName);
+            if (paths != null) {
+                allPaths.put(disk, paths);
+                fileCounts += paths.size();
+            }
+        }
+        if (allPaths.isEmpty()) {
             finishTask();
             return;
         }
 
-        List<BRFSPath> allPaths = BRFSFileUtil.scanFile(dataDir, storageName);
-
-        int fileCounts = allPaths.size();
-
-        // 启动消费队列
-        Thread cosumerThread = new Thread(consumerQueue());
-        cosumerThread.start();
+        // 启动恢复线程
+        recoverExecutor = new RecoverExecutor("multi_recover",
+                Configs.getConfiguration().GetConfig(RebalanceConfigs.CONFIG_RECOVER_THREADS),
+                Configs.getConfiguration().GetConfig(RebalanceConfigs.CONFIG_RECOVER_DISK_CONCURRENCY),
+                Configs.getConfiguration().GetConfig(RebalanceConfigs.CONFIG_RECOVER_NODE_CONCURRENCY),
+                2000);
 
         detail.setTotalDirectories(fileCounts);
         updateDetail(selfNode, detail);
 
+        // 定期更新恢复进度，避免每个文件都写一次zookeeper
+        int progressInterval = Configs.getConfiguration().GetConfig(RebalanceConfigs.CONFIG_RECOVER_PROGRESS_INTERVAL);
+        ScheduledExecutorService progressReporter = Executors.newSingleThreadScheduledExecutor(new PooledThreadFactory("multi_recover_progress"));
+        progressReporter.scheduleWithFixedDelay(new Runnable() {
+            private long lastCount = 0;
+
+            @Override
+            public void run() {
+                long count = recoverExecutor.getCompletedCount();
+                if (count != lastCount) {
+                    lastCount = count;
+                    updateProgress(count);
+                }
+            }
+        }, progressInterval, progressInterval, TimeUnit.SECONDS);
+
         LOG.info("deal the local server:" + idManager.getSecondServerID(balanceSummary.getStorageIndex()));
 
         // 遍历副本文件
         // dealReplicas(replicasNames, snDataDir);
-        for (BRFSPath brfsPath : allPaths) {
-            if (status.get().equals(TaskStatus.CANCEL)) {
-                return;
-            }
-            String perFile = dataDir + FileUtils.FILE_SEPARATOR + brfsPath.toString();
-            String timeFile = brfsPath.getYear() + FileUtils.FILE_SEPARATOR + brfsPath
-                    .getMonth() + FileUtils.FILE_SEPARATOR + brfsPath.getDay() + FileUtils.FILE_SEPARATOR + brfsPath
-                            .getHourMinSecond();
-            if (!perFile.endsWith(".rd")) {
-                dealFile(perFile, brfsPath.getFileName(), timeFile, Integer.parseInt(brfsPath.getIndex()));
+        for (Map.Entry<String, List<BRFSPath>> entry : allPaths.entrySet()) {
+            for (BRFSPath brfsPath : entry.getValue()) {
+                if (status.get().equals(TaskStatus.CANCEL)) {
+                    recoverExecutor.cancel();
+                    progressReporter.shutdown();
+                    return;
+                }
+                String perFile = entry.getKey() + FileUtils.FILE_SEPARATOR + brfsPath.toString();
+                String timeFile = brfsPath.getYear() + FileUtils.FILE_SEPARATOR + brfsPath
+                        .getMonth() + FileUtils.FILE_SEPARATOR + brfsPath.getDay() + FileUtils.FILE_SEPARATOR + brfsPath
+                                .getHourMinSecond();
+                if (!perFile.endsWith(".rd")) {
+                    dealFile(perFile, brfsPath.getFileName(), timeFile, Integer.parseInt(brfsPath.getIndex()));
+                }
             }
         }
 
-        overFlag = true;
-        LOG.info("wait cosumer !!");
+        LOG.info("wait recover tasks !!");
         try {
-            cosumerThread.join();
+            recoverExecutor.finish();
         } catch (InterruptedException e1) {
-            LOG.error("cosumerThread error!", e1);
+            LOG.error("recover executor error!", e1);
         }
 
+        progressReporter.shutdown();
+        updateProgress(recoverExecutor.getCompletedCount());
         finishTask();
 
     }
@@ -360,7 +397,7 @@ public class MultiRecover implements DataRecover {
                             String firstID = idManager.getOtherFirstID(selectMultiId, balanceSummary.getStorageIndex());
                             FileRecoverMeta fileMeta = new FileRecoverMeta(perFile, fileName, selectMultiId, timeFileName, replica, pot + 1, firstID);
                             try {
-                                fileRecoverQueue.put(fileMeta);
+                                recoverExecutor.submit(diskOf(perFile), firstID, () -> recoverFile(fileMeta));
                             } catch (InterruptedException e) {
                                 LOG.error("put file: " + fileMeta, e);
                             }
@@ -371,74 +408,58 @@ public class MultiRecover implements DataRecover {
         }
     }
 
-    private Runnable consumerQueue() {
-        return new Runnable() {
+    private void recoverFile(FileRecoverMeta fileRecover) throws InterruptedException {
+        String remoteDir = storageName + FileUtils.FILE_SEPARATOR + fileRecover
+                .getPot() + FileUtils.FILE_SEPARATOR + fileRecover.getTime();
+        String localFilePath = fileRecover.getFilePath();
+        while (true) {
+            if (status.get().equals(TaskStatus.CANCEL)) {
+                return;
+            }
+            if (!status.get().equals(TaskStatus.RUNNING)) {
+                LOG.info("task pause!!!");
+                Thread.sleep(1000);
+                continue;
+            }
+            Service service = serviceManager.getServiceById(Configs.getConfiguration()
+                    .GetConfig(CommonConfigs.CONFIG_DATA_SERVICE_GROUP_NAME), fileRecover
+                            .getFirstServerID());
+            if (service == null) {
+                LOG.warn("first id is {},maybe down!", fileRecover.getFirstServerID());
+                Thread.sleep(1000);
+                continue;
+            }
+            if (secureCopyTo(service, localFilePath, remoteDir, fileRecover.getFileName())) {
+                return;
+            }
+            Thread.sleep(1000);
+        }
+    }
 
-            @Override
-            public void run() {
-                try {
-                    FileRecoverMeta fileRecover = null;
-                    while (fileRecover != null || !overFlag) {
-                        if (status.get().equals(TaskStatus.CANCEL)) {
-                            break;
-                        } else if (status.get().equals(TaskStatus.PAUSE)) {
-                            LOG.info("task pause!!!");
-                            Thread.sleep(1000);
-                        } else if (status.get().equals(TaskStatus.RUNNING)) {
-                            fileRecover = fileRecoverQueue.poll(1, TimeUnit.SECONDS);
-                            if (fileRecover != null) {
-                                String localDir = storageName + FileUtils.FILE_SEPARATOR + fileRecover
-                                        .getReplica() + FileUtils.FILE_SEPARATOR + fileRecover.getTime();
-                                String remoteDir = storageName + FileUtils.FILE_SEPARATOR + fileRecover
-                                        .getPot() + FileUtils.FILE_SEPARATOR + fileRecover.getTime();
-                                String localFilePath = dataDir + FileUtils.FILE_SEPARATOR + localDir + FileUtils.FILE_SEPARATOR + fileRecover
-                                        .getFileName();
-                                boolean success = false;
-                                while (true) {
-                                    if (status.get().equals(TaskStatus.PAUSE)) {
-                                        LOG.info("task pause!!!");
-                                        Thread.sleep(1000);
-                                        continue;
-                                    }
-                                    if (status.get().equals(TaskStatus.CANCEL)) {
-                                        break;
-                                    }
-                                    Service service = serviceManager.getServiceById(Configs.getConfiguration()
-                                            .GetConfig(CommonConfigs.CONFIG_DATA_SERVICE_GROUP_NAME), fileRecover
-                                                    .getFirstServerID());
-                                    if (service == null) {
-                                        LOG.warn("first id is {},maybe down!", fileRecover.getFirstServerID());
-                                        Thread.sleep(1000);
-                                        continue;
-                                    }
-                                    // if (!diskClient.isExistFile(service.getHost(), service.getPort(), logicPath)) {
-                                    success = secureCopyTo(service, localFilePath, remoteDir, fileRecover
-                                            .getFileName());
-                                    // }
-                                    if (success) {
-                                        break;
-                                    }
-                                }
-
-                                currentCount += 1;
-                                detail.setCurentCount(currentCount);
-                                detail.setProcess(detail.getCurentCount() / (double) detail.getTotalDirectories());
-                                updateDetail(selfNode, detail);
-                                if (success) {
-                                    // BalanceRecord record = new BalanceRecord(fileRecover.getFileName(), idManager.getSecondServerID(balanceSummary.getStorageIndex()),
-                                    // fileRecover.getFirstServerID());
-                                    // fileRecover.getSimpleWriter().writeRecord(record.toString());
-                                }
-                                LOG.info("update:" + selfNode + "-------------" + detail);
-                            }
-                        }
-                    }
+    private synchronized void updateProgress(long completedCount) {
+        detail.setCurentCount((int) completedCount);
+        detail.setProcess(detail.getCurentCount() / (double) detail.getTotalDirectories());
+        updateDetail(selfNode, detail);
+        LOG.info("update:" + selfNode + "-------------" + detail);
+    }
 
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
+    /**
+     * 以文件所在的文件系统区分不同的磁盘
+     */
+    private String diskOf(String filePath) {
+        File file = new File(filePath);
+        String dir = file.getParent();
+        String disk = diskOfDirs.get(dir);
+        if (disk == null) {
+            try {
+                disk = Files.getFileStore(file.toPath()).name();
+            } catch (IOException e) {
+                LOG.warn("can not get file store of [{}]", filePath, e);
+                disk = dataDir;
             }
-        };
+            diskOfDirs.put(dir, disk);
+        }
+        return disk;
     }
 
     private List<String> getRecoverRoleList(String deadSecondID) {
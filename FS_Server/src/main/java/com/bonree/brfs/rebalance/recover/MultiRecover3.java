@@ -35,7 +35,7 @@ import com.bonree.brfs.rebalance.DataRecover;
 import com.bonree.brfs.rebalance.task.BalanceTaskSummary;
 import com.bonree.brfs.rebalance.task.TaskDetail;
 import com.bonree.brfs.rebalance.task.TaskStatus;
-import com.bonree.brfs.rebalance.transfer.SimpleFileClient;
+import com.bonree.brfs.rebalance.transfer.FileTransferClient;
 import com.bonree.brfs.server.identification.ServerIDManager;
 
 /*******************************************************************************
@@ -59,7 +59,7 @@ public class MultiRecover3 implements DataRecover {
 
     private Map<String, VirtualRoute> virtualRoutes = null;
 
-    private SimpleFileClient fileClient;
+    private FileTransferClient fileClient;
 
     private final String storageName;
 
@@ -132,7 +132,7 @@ public class MultiRecover3 implements DataRecover {
         this.client = client;
         this.dataDir = dataDir;
         this.storageName = storageName;
-        this.fileClient = new SimpleFileClient();
+        this.fileClient = FileTransferClient.getInstance();
         // 开启监控
         nodeCache = CuratorCacheFactory.getNodeCache();
         nodeCache.addListener(taskNode, new RecoverListener("recover"));
@@ -0,0 +1,217 @@
+package com.bonree.brfs.rebalance.recover;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bonree.brfs.common.utils.PooledThreadFactory;
+
+/**
+ * 并行执行文件恢复任务。
+ *
+ * 任务按[源磁盘, 目标节点]分区，每个工作线程优先处理自己对应的分区，
+ * 没有可执行的任务时从其他分区获取任务；同一块磁盘和同一个目标节点上
+ * 同时执行的任务数分别受限，避免某块磁盘或某个节点成为瓶颈时占满所有线程
+ */
+class RecoverExecutor {
+    private static final Logger LOG = LoggerFactory.getLogger(RecoverExecutor.class);
+
+    static interface RecoverTask {
+        void run() throws InterruptedException;
+    }
+
+    private final int diskConcurrency;
+    private final int nodeConcurrency;
+
+    private final ExecutorService workers;
+
+    private final List<Partition> partitions = new CopyOnWriteArrayList<Partition>();
+    private final ConcurrentHashMap<String, Partition> partitionIndex = new ConcurrentHashMap<String, Partition>();
+    private final ConcurrentHashMap<String, Semaphore> diskPermits = new ConcurrentHashMap<String, Semaphore>();
+    private final ConcurrentHashMap<String, Semaphore> nodePermits = new ConcurrentHashMap<String, Semaphore>();
+
+    // 限制等待执行的任务数，提交任务的速度超过执行速度时阻塞提交者
+    private final Semaphore pendingPermits;
+    private final AtomicLong completedCount = new AtomicLong();
+
+    private final Object signal = new Object();
+    private volatile boolean finished = false;
+    private volatile boolean canceled = false;
+
+    RecoverExecutor(String name, int threadNum, int diskConcurrency, int nodeConcurrency, int maxPending) {
+        this.diskConcurrency = Math.max(1, diskConcurrency);
+        this.nodeConcurrency = Math.max(1, nodeConcurrency);
+        this.pendingPermits = new Semaphore(Math.max(1, maxPending));
+        threadNum = Math.max(1, threadNum);
+        this.workers = Executors.newFixedThreadPool(threadNum, new PooledThreadFactory(name));
+        for (int i = 0; i < threadNum; i++) {
+            final int workerIndex = i;
+            workers.execute(() -> work(workerIndex));
+        }
+    }
+
+    void submit(String disk, String destination, RecoverTask task) throws InterruptedException {
+        pendingPermits.acquire();
+        String key = disk + "|" + destination;
+        Partition partition = partitionIndex.get(key);
+        if (partition == null) {
+            Partition created = new Partition(disk, destination);
+            partition = partitionIndex.putIfAbsent(key, created);
+            if (partition == null) {
+                partition = created;
+                partitions.add(created);
+            }
+        }
+
+        partition.tasks.offer(task);
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+    }
+
+    /**
+     * 不再提交新的任务，等待已提交的任务执行完成
+     */
+    void finish() throws InterruptedException {
+        finished = true;
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+
+        workers.shutdown();
+        while (!workers.awaitTermination(1, TimeUnit.SECONDS)) {
+            LOG.debug("wait recover tasks, completed [{}]", completedCount.get());
+        }
+    }
+
+    /**
+     * 丢弃未执行的任务
+     */
+    void cancel() {
+        canceled = true;
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+
+        workers.shutdown();
+    }
+
+    long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    private void work(int workerIndex) {
+        try {
+            while (!canceled) {
+                Partition partition = null;
+                RecoverTask task = null;
+                List<Partition> snapshot = partitions;
+                int size = snapshot.size();
+                for (int i = 0; i < size && task == null; i++) {
+                    // 从自己对应的分区开始依次查找
+                    partition = snapshot.get((workerIndex + i) % size);
+                    task = acquire(partition);
+                }
+
+                if (task == null) {
+                    synchronized (signal) {
+                        if (finished && isEmpty()) {
+                            return;
+                        }
+
+                        signal.wait(100);
+                    }
+                    continue;
+                }
+
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LOG.error("recover task error", e);
+                } finally {
+                    release(partition);
+                    pendingPermits.release();
+                    completedCount.incrementAndGet();
+                    synchronized (signal) {
+                        signal.notifyAll();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            LOG.warn("recover worker is interrupted");
+        }
+    }
+
+    private boolean isEmpty() {
+        for (Partition partition : partitions) {
+            if (!partition.tasks.isEmpty()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private RecoverTask acquire(Partition partition) {
+        if (partition.tasks.isEmpty()) {
+            return null;
+        }
+
+        Semaphore disk = permits(diskPermits, partition.disk, diskConcurrency);
+        if (!disk.tryAcquire()) {
+            return null;
+        }
+
+        Semaphore node = permits(nodePermits, partition.destination, nodeConcurrency);
+        if (!node.tryAcquire()) {
+            disk.release();
+            return null;
+        }
+
+        RecoverTask task = partition.tasks.poll();
+        if (task == null) {
+            node.release();
+            disk.release();
+        }
+
+        return task;
+    }
+
+    private void release(Partition partition) {
+        nodePermits.get(partition.destination).release();
+        diskPermits.get(partition.disk).release();
+    }
+
+    private static Semaphore permits(ConcurrentHashMap<String, Semaphore> permits, String key, int concurrency) {
+        Semaphore semaphore = permits.get(key);
+        if (semaphore == null) {
+            Semaphore created = new Semaphore(concurrency);
+            semaphore = permits.putIfAbsent(key, created);
+            if (semaphore == null) {
+                semaphore = created;
+            }
+        }
+
+        return semaphore;
+    }
+
+    private static class Partition {
+        private final String disk;
+        private final String destination;
+        private final ConcurrentLinkedQueue<RecoverTask> tasks = new ConcurrentLinkedQueue<RecoverTask>();
+
+        Partition(String disk, String destination) {
+            this.disk = disk;
+            this.destination = destination;
+        }
+    }
+}
@@ -14,7 +14,6 @@ import org.slf4j.LoggerFactory;
 import com.bonree.brfs.common.rebalance.Constants;
 import com.bonree.brfs.common.service.Service;
 import com.bonree.brfs.common.service.ServiceManager;
-import com.bonree.brfs.common.utils.BRFSFileUtil;
 import com.bonree.brfs.common.utils.BRFSPath;
 import com.bonree.brfs.common.utils.FileUtils;
 import com.bonree.brfs.common.utils.JsonUtils;
@@ -24,11 +23,13 @@ import com.bonree.brfs.common.zookeeper.curator.cache.CuratorCacheFactory;
 import com.bonree.brfs.common.zookeeper.curator.cache.CuratorNodeCache;
 import com.bonree.brfs.configuration.Configs;
 import com.bonree.brfs.configuration.units.CommonConfigs;
+import com.bonree.brfs.disknode.DiskContext;
+import com.bonree.brfs.disknode.catalog.FileCatalog;
 import com.bonree.brfs.rebalance.DataRecover;
 import com.bonree.brfs.rebalance.task.BalanceTaskSummary;
 import com.bonree.brfs.rebalance.task.TaskDetail;
 import com.bonree.brfs.rebalance.task.TaskStatus;
-import com.bonree.brfs.rebalance.transfer.SimpleFileClient;
+import com.bonree.brfs.rebalance.transfer.FileTransferClient;
 import com.bonree.brfs.server.identification.ServerIDManager;
 
 /*******************************************************************************
@@ -59,7 +60,7 @@ public class VirtualRecover implements DataRecover {
 
     private CuratorNodeCache nodeCache;
 
-    private SimpleFileClient fileClient;
+    private FileTransferClient fileClient;
 
     private final CuratorClient client;
 
@@ -117,7 +118,7 @@ public class VirtualRecover implements DataRecover {
         this.serviceManager = serviceManager;
         this.dataDir = dataDir;
         this.storageName = storageName;
-        this.fileClient = new SimpleFileClient();
+        this.fileClient = FileTransferClient.getInstance();
         // 恢复需要对节点进行监听
         nodeCache = CuratorCacheFactory.getNodeCache();
         nodeCache.addListener(taskNode, new RecoverListener("recover"));
@@ -178,17 +179,25 @@ public class VirtualRecover implements DataRecover {
         updateDetail(selfNode, detail);
 
         int timeFileCounts = 0;
-        String snDataDir = dataDir + FileUtils.FILE_SEPARATOR + storageName;
+        // 数据节点有多个数据目录时，存储区域的文件分布在各个目录中
+        List<String> snDisks = new ArrayList<>();
+        for (String disk : DiskContext.dataDirsOf(dataDir)) {
+            String snDataDir = disk + FileUtils.FILE_SEPARATOR + storageName;
+            if (!FileUtils.isExist(snDataDir)) {
+                continue;
+            }
+            snDisks.add(disk);
 
-        if (!FileUtils.isExist(snDataDir)) {
-            finishTask();
-            return;
+            List<String> replicasNames = FileUtils.listFileNames(snDataDir);
+            for (String replicasName : replicasNames) {
+                String replicasPath = snDataDir + FileUtils.FILE_SEPARATOR + replicasName;
+                timeFileCounts += FileUtils.listFileNames(replicasPath).size();
+            }
         }
 
-        List<String> replicasNames = FileUtils.listFileNames(snDataDir);
-        for (String replicasName : replicasNames) {
-            String replicasPath = snDataDir + FileUtils.FILE_SEPARATOR + replicasName;
-            timeFileCounts += FileUtils.listFileNames(replicasPath).size();
+        if (snDisks.isEmpty()) {
+            finishTask();
+            return;
         }
 
         Thread cosumerThread = new Thread(consumerQueue());
@@ -202,32 +211,40 @@ public class VirtualRecover implements DataRecover {
         String virtualID = balanceSummary.getServerId();
 
         LOG.info("balance virtual serverId:" + virtualID);
-        List<BRFSPath> allPaths = BRFSFileUtil.scanFile(dataDir, storageName);
-        for (BRFSPath brfsPath : allPaths) {
+        for (String disk : snDisks) {
             if (status.get().equals(TaskStatus.CANCEL)) {
                 break;
             }
-            String perFile = dataDir + FileUtils.FILE_SEPARATOR + brfsPath.toString();
-            if (!perFile.endsWith(".rd")) {
-                String timeFileName = brfsPath.getYear() + FileUtils.FILE_SEPARATOR + brfsPath
-                        .getMonth() + FileUtils.FILE_SEPARATOR + brfsPath.getDay() + FileUtils.FILE_SEPARATOR + brfsPath
-                                .getHourMinSecond();
-                String fileName = brfsPath.getFileName();
-                int replicaPot = 0;
-                String[] metaArr = fileName.split(NAME_SEPARATOR);
-                List<String> fileServerIds = new ArrayList<>();
-                for (int j = 1; j < metaArr.length; j++) {
-                    fileServerIds.add(metaArr[j]);
+            List<BRFSPath> allPaths = FileCatalog.scanFile(disk, storageName);
+            if (allPaths == null) {
+                continue;
+            }
+            for (BRFSPath brfsPath : allPaths) {
+                if (status.get().equals(TaskStatus.CANCEL)) {
+                    break;
                 }
-                if (fileServerIds.contains(virtualID)) {
-                    // 此处位置需要加1，副本数从1开始
-                    replicaPot = fileServerIds.indexOf(virtualID) + 1;
-                    FileRecoverMeta fileMeta = new FileRecoverMeta(perFile, fileName, storageName, timeFileName, Integer
-                            .parseInt(brfsPath.getIndex()), replicaPot, remoteFirstID);
-                    try {
-                        fileRecoverQueue.put(fileMeta);
-                    } catch (InterruptedException e) {
-                        LOG.error("put file: " + fileMeta, e);
+                String perFile = disk + FileUtils.FILE_SEPARATOR + brfsPath.toString();
+                if (!perFile.endsWith(".rd")) {
+                    String timeFileName = brfsPath.getYear() + FileUtils.FILE_SEPARATOR + brfsPath
+                            .getMonth() + FileUtils.FILE_SEPARATOR + brfsPath.getDay() + FileUtils.FILE_SEPARATOR + brfsPath
+                                    .getHourMinSecond();
+                    String fileName = brfsPath.getFileName();
+                    int replicaPot = 0;
+                    String[] metaArr = fileName.split(NAME_SEPARATOR);
+                    List<String> fileServerIds = new ArrayList<>();
+                    for (int j = 1; j < metaArr.length; j++) {
+                        fileServerIds.add(metaArr[j]);
+                    }
+                    if (fileServerIds.contains(virtualID)) {
+                        // 此处位置需要加1，副本数从1开始
+                        replicaPot = fileServerIds.indexOf(virtualID) + 1;
+                        FileRecoverMeta fileMeta = new FileRecoverMeta(perFile, fileName, storageName, timeFileName, Integer
+                                .parseInt(brfsPath.getIndex()), replicaPot, remoteFirstID);
+                        try {
+                            fileRecoverQueue.put(fileMeta);
+                        } catch (InterruptedException e) {
+                            LOG.error("put file: " + fileMeta, e);
+                        }
                     }
                 }
             }
@@ -278,12 +295,9 @@ public class VirtualRecover implements DataRecover {
                         }
                         fileRecover = fileRecoverQueue.poll(100, TimeUnit.MILLISECONDS);
                         if (fileRecover != null) {
-                            String logicPath = storageName + FileUtils.FILE_SEPARATOR + fileRecover
-                                    .getReplica() + FileUtils.FILE_SEPARATOR + fileRecover.getTime();
                             String remoteDir = storageName + FileUtils.FILE_SEPARATOR + fileRecover
                                     .getPot() + FileUtils.FILE_SEPARATOR + fileRecover.getTime();
-                            String localFilePath = dataDir + FileUtils.FILE_SEPARATOR + logicPath + FileUtils.FILE_SEPARATOR + fileRecover
-                                    .getFileName();
+                            String localFilePath = fileRecover.getFilePath();
                             boolean success = false;
                             LOG.info("transfer :" + fileRecover);
                             String firstID = fileRecover.getFirstServerID();
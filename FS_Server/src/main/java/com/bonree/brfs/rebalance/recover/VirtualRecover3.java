@@ -26,7 +26,7 @@ import com.bonree.brfs.rebalance.DataRecover;
 import com.bonree.brfs.rebalance.task.BalanceTaskSummary;
 import com.bonree.brfs.rebalance.task.TaskDetail;
 import com.bonree.brfs.rebalance.task.TaskStatus;
-import com.bonree.brfs.rebalance.transfer.SimpleFileClient;
+import com.bonree.brfs.rebalance.transfer.FileTransferClient;
 import com.bonree.brfs.server.identification.ServerIDManager;
 
 /*******************************************************************************
@@ -57,7 +57,7 @@ public class VirtualRecover3 implements DataRecover {
 
     private CuratorNodeCache nodeCache;
 
-    private SimpleFileClient fileClient;
+    private FileTransferClient fileClient;
 
     private final CuratorClient client;
 
@@ -115,7 +115,7 @@ public class VirtualRecover3 implements DataRecover {
         this.serviceManager = serviceManager;
         this.dataDir = dataDir;
         this.storageName = storageName;
-        this.fileClient = new SimpleFileClient();
+        this.fileClient = FileTransferClient.getInstance();
         // 恢复需要对节点进行监听
         nodeCache = CuratorCacheFactory.getNodeCache();
         nodeCache.addListener(taskNode, new RecoverListener("recover"));
@@ -1,92 +1,173 @@
 package com.bonree.brfs.rebalance.transfer;
 
+import static com.bonree.brfs.rebalance.transfer.FileTransferProtocol.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.Socket;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
 
 import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import com.bonree.brfs.common.utils.FileUtils;
+import com.bonree.brfs.common.utils.CloseUtils;
+import com.bonree.brfs.disknode.DiskContext;
+import com.bonree.brfs.disknode.catalog.FileCatalog;
 
+/**
+ * 处理一个客户端连接上的所有传输请求，直到客户端关闭连接
+ */
 class FileServThread implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(FileServThread.class);
+
+    private final SocketChannel channel;
+    private final String dataDir;
 
-    private Socket sock;
-    private String dataDir;
-    private Logger LOG;
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final byte[] receiveBuffer = new byte[BUFFER_SIZE];
 
-    FileServThread(Socket sock, String dataDir, Logger LOG) {
-        this.sock = sock;
+    FileServThread(SocketChannel channel, String dataDir) {
+        this.channel = channel;
         this.dataDir = dataDir;
-        this.LOG = LOG;
     }
 
+    /**
+     * 接收的文件在数据根目录对应的各个数据目录中的位置；不存在时优先使用未完成的临时文件所在的目录，
+     * 否则选择剩余空间最大的目录
+     */
+    private File locate(String path) throws IOException {
+        resolve(dataDir, path);
+        File file = DiskContext.findFile(dataDir, path);
+        if(file != null) {
+            return file;
+        }
+
+        File temp = DiskContext.findFile(dataDir, path + TEMP_SUFFIX);
+        if(temp != null) {
+            return new File(temp.getParentFile(), new File(path).getName());
+        }
+
+        file = DiskContext.placeFile(dataDir, path);
+        if(file == null) {
+            throw new IOException("no available data dir for file[" + path + "]");
+        }
+
+        return file;
+    }
+
+    @Override
     public void run() {
-        String ip = sock.getInetAddress().getHostAddress();   // 获取客户端ip
+        String ip = channel.socket().getInetAddress().getHostAddress();
+        LOG.info("accept file transfer connection from [{}]", ip);
         try {
-            LOG.info("开启新线程接收来自客户端IP: " + ip + " 的文件");
-            InputStream sockIn = sock.getInputStream();// 定义socket输入流,接收客户端的信息
-            File file = getClientFileName(sockIn);     // 创建同名文件
-            if (file == null) {
-                writeOutInfo(sock, "存在同名文件或获取文件失败,服务端断开连接!");
-                sock.close();
-                return;
-            }
+            DataInputStream in = new DataInputStream(new BufferedInputStream(channel.socket().getInputStream(), BUFFER_SIZE));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(channel.socket().getOutputStream()));
+            while(true) {
+                byte op;
+                try {
+                    op = in.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
 
-            FileOutputStream fos = new FileOutputStream(file); // 用来写入硬盘
-            byte[] bufFile = new byte[1024 * 1024];   // 接收数据的缓存
-            int len = 0;
-            while (true) {
-                len = sockIn.read(bufFile); // 接收数据
-                if (len != -1) {
-                    fos.write(bufFile, 0, len); // 写入硬盘文件
-                } else {
+                String path = in.readUTF();
+                switch (op) {
+                case OP_PUT:
+                    handlePut(path, in, out);
                     break;
+                case OP_GET:
+                    handleGet(path, in, out);
+                    break;
+                default:
+                    LOG.warn("unknown transfer operation[{}] from [{}]", op, ip);
+                    return;
                 }
             }
-            writeOutInfo(sock, "send file "+file+" finish");   // 文件接收成功后给客户端反馈一个信息
-            LOG.info("文件传送成功!" + System.getProperty("line.separator"));  // 服务端打印一下
-            fos.close();
-            sock.close();
-        } catch (Exception ex) {
-            throw new RuntimeException(ip + "异常!!!");
+        } catch (IOException e) {
+            LOG.warn("file transfer connection from [{}] error", ip, e);
+        } finally {
+            CloseUtils.closeQuietly(channel);
         }
     }
 
-    public void writeOutInfo(Socket sock, String infoStr) throws Exception// 将信息反馈给服务端
-    {
-        OutputStream sockOut = sock.getOutputStream();
-        sockOut.write(infoStr.getBytes(StandardCharsets.UTF_8));
-    }
+    private void handlePut(String path, DataInputStream in, DataOutputStream out) throws IOException {
+        long length = in.readLong();
+        File file = locate(path);
+        if(file.exists()) {
+            LOG.info("file[{}] is already exists", file);
+            out.writeByte(STATUS_EXISTS);
+            out.writeLong(0);
+            out.flush();
+            return;
+        }
 
-    public File getClientFileName(InputStream sockIn) throws Exception // 获取文件名并创建
-    {
-        // 获取客户端请求发送的文件名,创建路径
-        byte[] bufName = new byte[1024];
-        int lenInfo = 0;
-        lenInfo = sockIn.read(bufName);  // 获取文件名
-        String fileName = new String(bufName, 0, lenInfo ,StandardCharsets.UTF_8);
-
-        String filePath = dataDir + FileUtils.FILE_SEPARATOR + fileName;
-
-        File file = new File(filePath);  //保存到相应的位置
-        if (file.isDirectory()) {
-            LOG.info(file.getName() + "不能传输目录,断开该ip连接." + System.getProperty("line.separator"));
-            writeOutInfo(sock, "服务端不能传输目录!"); // 反馈给客户端的信息
-            return null;
+        File parent = file.getParentFile();
+        if(!parent.exists()) {
+            parent.mkdirs();
         }
-        if (file.exists()) {
-            LOG.info(file.getName() + "文件已存在,断开该ip连接." + System.getProperty("line.separator"));
-            writeOutInfo(sock, "服务端已存在同名文件!"); // 反馈给客户端的信息
-            return null;
+
+        File temp = new File(file.getPath() + TEMP_SUFFIX);
+        try(FileChannel fileChannel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long offset = Math.min(fileChannel.size(), length);
+            out.writeByte(STATUS_OK);
+            out.writeLong(offset);
+            out.flush();
+
+            CRC32 crc = checksum(fileChannel, offset, readBuffer);
+            receive(in, fileChannel, offset, length, receiveBuffer, crc);
+            long expected = in.readLong();
+            if(crc.getValue() != expected) {
+                LOG.warn("file[{}] crc error, expected[{}], actual[{}]", file, expected, crc.getValue());
+                fileChannel.close();
+                temp.delete();
+                out.writeByte(STATUS_CRC_ERROR);
+                out.flush();
+                return;
+            }
+
+            fileChannel.truncate(length);
+            fileChannel.force(false);
         }
-        LOG.info("将客户端发来的文件( " + fileName + " )存到" + file.getAbsolutePath());
-        FileUtils.createFile(filePath, true);
-        LOG.info("成功创建文件(" + fileName + " )准备写入数据");
-        writeOutInfo(sock, "FileSendNow");    // 告诉客户端,开始传送数据吧
-        return file;
 
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        FileCatalog.fileCreated(file.getAbsolutePath());
+        LOG.info("receive file[{}] length[{}] finished", file, length);
+        out.writeByte(STATUS_OK);
+        out.flush();
+    }
+
+    private void handleGet(String path, DataInputStream in, DataOutputStream out) throws IOException {
+        long offset = in.readLong();
+        resolve(dataDir, path);
+        File file = DiskContext.findFile(dataDir, path);
+        // 正在写入的文件不能传输
+        if(file == null || !file.isFile() || new File(file.getPath() + ".rd").exists()) {
+            out.writeByte(STATUS_NOT_FOUND);
+            out.flush();
+            return;
+        }
+
+        try(FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long length = fileChannel.size();
+            long start = offset <= length ? offset : 0;
+            out.writeByte(STATUS_OK);
+            out.writeLong(length);
+            out.writeLong(checksum(fileChannel, length, readBuffer).getValue());
+            out.writeLong(start);
+            out.flush();
+
+            send(fileChannel, start, length, channel);
+            LOG.info("send file[{}] from [{}] length[{}] finished", file, start, length);
+        }
     }
-}
\ No newline at end of file
+}
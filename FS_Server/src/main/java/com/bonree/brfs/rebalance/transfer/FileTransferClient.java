@@ -0,0 +1,263 @@
+package com.bonree.brfs.rebalance.transfer;
+
+import static com.bonree.brfs.rebalance.transfer.FileTransferProtocol.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bonree.brfs.common.utils.CloseUtils;
+import com.bonree.brfs.common.utils.FileUtils;
+import com.bonree.brfs.configuration.Configs;
+import com.bonree.brfs.configuration.units.RebalanceConfigs;
+
+/**
+ * 向其他数据节点推送文件或者从其他节点下载文件。
+ *
+ * 到每个节点的连接在使用后保留下来供后续的传输使用，空闲超过一定时间后关闭；
+ * 复用的连接可能已经被服务端关闭，此时使用新的连接重试一次
+ */
+public class FileTransferClient implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(FileTransferClient.class);
+
+    private static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+    // 推送文件时等待对端确认的时间，包括对端同步文件到磁盘的时间
+    private static final int DEFAULT_READ_TIMEOUT = 60000;
+
+    private final long idleTime;
+    private final ConcurrentHashMap<String, ConcurrentLinkedDeque<Connection>> idleConnections =
+            new ConcurrentHashMap<String, ConcurrentLinkedDeque<Connection>>();
+    private final ScheduledExecutorService idleChecker;
+
+    private FileTransferClient() {
+        this(TimeUnit.SECONDS.toMillis(Configs.getConfiguration().GetConfig(RebalanceConfigs.CONFIG_TRANSFER_IDLE_TIME)));
+    }
+
+    FileTransferClient(long idleTime) {
+        this.idleTime = idleTime;
+        this.idleChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "file_transfer_idle_checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.idleChecker.scheduleWithFixedDelay(this::closeIdleConnections, idleTime, idleTime, TimeUnit.MILLISECONDS);
+    }
+
+    public static FileTransferClient getInstance() {
+        return Holder.client;
+    }
+
+    private static class Holder {
+        private final static FileTransferClient client = new FileTransferClient();
+    }
+
+    /**
+     * 把本地文件推送到远程节点，远程节点已存在同名文件时不做处理
+     */
+    public void sendFile(String ip, int port, String localFilePath, String remoteDir, String fileName) throws IOException {
+        String remotePath = remoteDir + FileUtils.FILE_SEPARATOR + fileName;
+        File file = new File(localFilePath);
+        if(!file.isFile()) {
+            throw new FileNotFoundException(localFilePath);
+        }
+
+        LOG.info("send file [{}] to [{}:{}]", remotePath, ip, port);
+        byte status = execute(ip, port, DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT, conn -> conn.put(file, remotePath));
+        if(status == STATUS_CRC_ERROR) {
+            // 服务端已经删除了临时文件，重新传输整个文件
+            status = execute(ip, port, DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT, conn -> conn.put(file, remotePath));
+        }
+
+        if(status != STATUS_OK && status != STATUS_EXISTS) {
+            throw new IOException("send file [" + remotePath + "] to [" + ip + ":" + port + "] failed, status " + status);
+        }
+    }
+
+    /**
+     * 从远程节点下载文件到本地
+     *
+     * @return 远程文件不存在或者校验失败时返回false
+     */
+    public boolean fetchFile(String ip, int port, int timeout, String remotePath, String localPath) throws IOException {
+        LOG.debug("fetch file [{}] from [{}:{}] to [{}]", remotePath, ip, port, localPath);
+        byte status = execute(ip, port, timeout, timeout, conn -> conn.get(remotePath, new File(localPath)));
+        return status == STATUS_OK;
+    }
+
+    private byte execute(String ip, int port, int connectTimeout, int readTimeout, Operation operation) throws IOException {
+        String key = ip + ":" + port;
+        Connection conn = idleConnections.computeIfAbsent(key, k -> new ConcurrentLinkedDeque<Connection>()).pollFirst();
+        if(conn != null) {
+            try {
+                conn.setReadTimeout(readTimeout);
+                return release(key, conn, operation.execute(conn));
+            } catch (SocketTimeoutException e) {
+                // 对端没有响应，换新连接重试只会再等待一次
+                conn.close();
+                throw e;
+            } catch (IOException e) {
+                LOG.debug("reused connection to [{}] is broken, retry with a new one", key, e);
+                conn.close();
+            }
+        }
+
+        conn = new Connection(ip, port, connectTimeout, readTimeout);
+        try {
+            return release(key, conn, operation.execute(conn));
+        } catch (IOException e) {
+            conn.close();
+            throw e;
+        }
+    }
+
+    private byte release(String key, Connection conn, byte status) {
+        conn.lastUsedTime = System.currentTimeMillis();
+        idleConnections.get(key).offerFirst(conn);
+        return status;
+    }
+
+    private void closeIdleConnections() {
+        long deadline = System.currentTimeMillis() - idleTime;
+        for(Map.Entry<String, ConcurrentLinkedDeque<Connection>> entry : idleConnections.entrySet()) {
+            Iterator<Connection> iter = entry.getValue().descendingIterator();
+            while(iter.hasNext()) {
+                Connection conn = iter.next();
+                if(conn.lastUsedTime < deadline && entry.getValue().removeFirstOccurrence(conn)) {
+                    conn.close();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        idleChecker.shutdownNow();
+        for(ConcurrentLinkedDeque<Connection> connections : idleConnections.values()) {
+            Connection conn;
+            while((conn = connections.pollFirst()) != null) {
+                conn.close();
+            }
+        }
+    }
+
+    private static interface Operation {
+        byte execute(Connection conn) throws IOException;
+    }
+
+    private static class Connection {
+        private final SocketChannel channel;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private byte[] receiveBuffer;
+        private volatile long lastUsedTime;
+
+        Connection(String ip, int port, int connectTimeout, int readTimeout) throws IOException {
+            channel = SocketChannel.open();
+            try {
+                channel.socket().setTcpNoDelay(true);
+                channel.socket().connect(new InetSocketAddress(ip, port), connectTimeout);
+                // 通过socket的输入流读取，读超时后连接会被关闭
+                channel.socket().setSoTimeout(readTimeout);
+                in = new DataInputStream(new BufferedInputStream(channel.socket().getInputStream(), BUFFER_SIZE));
+                out = new DataOutputStream(new BufferedOutputStream(channel.socket().getOutputStream()));
+            } catch (IOException e) {
+                CloseUtils.closeQuietly(channel);
+                throw e;
+            }
+        }
+
+        byte put(File file, String remotePath) throws IOException {
+            try(FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                long length = fileChannel.size();
+                out.writeByte(OP_PUT);
+                out.writeUTF(remotePath);
+                out.writeLong(length);
+                out.flush();
+
+                byte status = in.readByte();
+                long offset = in.readLong();
+                if(status != STATUS_OK) {
+                    return status;
+                }
+
+                // 先计算整个文件的CRC，同时把文件加载到页缓存中
+                long crc = checksum(fileChannel, length, readBuffer).getValue();
+                send(fileChannel, offset, length, channel);
+                out.writeLong(crc);
+                out.flush();
+
+                return in.readByte();
+            }
+        }
+
+        byte get(String remotePath, File localFile) throws IOException {
+            File temp = new File(localFile.getPath() + TEMP_SUFFIX);
+            out.writeByte(OP_GET);
+            out.writeUTF(remotePath);
+            out.writeLong(temp.length());
+            out.flush();
+
+            byte status = in.readByte();
+            if(status != STATUS_OK) {
+                return status;
+            }
+
+            long length = in.readLong();
+            long expected = in.readLong();
+            long start = in.readLong();
+            if(receiveBuffer == null) {
+                receiveBuffer = new byte[BUFFER_SIZE];
+            }
+
+            try(FileChannel fileChannel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                fileChannel.truncate(start);
+                CRC32 crc = checksum(fileChannel, start, readBuffer);
+                receive(in, fileChannel, start, length, receiveBuffer, crc);
+                if(crc.getValue() != expected) {
+                    LOG.warn("fetch file [{}] crc error, expected[{}], actual[{}]", remotePath, expected, crc.getValue());
+                    fileChannel.close();
+                    temp.delete();
+                    return STATUS_CRC_ERROR;
+                }
+
+                fileChannel.force(false);
+            }
+
+            Files.move(temp.toPath(), localFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return STATUS_OK;
+        }
+
+        void setReadTimeout(int readTimeout) throws IOException {
+            channel.socket().setSoTimeout(readTimeout);
+        }
+
+        void close() {
+            CloseUtils.closeQuietly(channel);
+        }
+    }
+}
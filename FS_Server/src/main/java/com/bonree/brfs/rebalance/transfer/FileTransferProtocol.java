@@ -0,0 +1,127 @@
+package com.bonree.brfs.rebalance.transfer;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.CRC32;
+
+import com.bonree.brfs.configuration.Configs;
+import com.bonree.brfs.configuration.units.RebalanceConfigs;
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * 数据节点之间传输文件的协议。
+ *
+ * 一个连接上可以依次传输多个文件，每个请求的格式为[操作类型][文件路径][参数]：
+ * <pre>
+ * PUT: 请求[路径][文件长度] -> 响应[状态][起始位置] -> 发送[起始位置之后的数据][整个文件的CRC32] -> 响应[状态]
+ * GET: 请求[路径][起始位置] -> 响应[状态][文件长度][整个文件的CRC32][起始位置] -> 接收[起始位置之后的数据]
+ * </pre>
+ * 接收方先把数据写入临时文件，传输中断后可以从临时文件的长度处继续传输，
+ * 校验整个文件的CRC32通过后才替换为正式文件
+ */
+final class FileTransferProtocol {
+	static final byte OP_PUT = 1;
+	static final byte OP_GET = 2;
+
+	static final byte STATUS_OK = 0;
+	static final byte STATUS_EXISTS = 1;
+	static final byte STATUS_NOT_FOUND = 2;
+	static final byte STATUS_CRC_ERROR = 3;
+	static final byte STATUS_ERROR = 4;
+
+	static final String TEMP_SUFFIX = ".transfer";
+
+	static final int BUFFER_SIZE = 1024 * 1024;
+
+	/**
+	 * 获取文件存储路径，不允许访问根目录之外的文件
+	 */
+	static File resolve(String root, String path) throws IOException {
+		for(String part : path.split("[/\\\\]")) {
+			if("..".equals(part)) {
+				throw new IOException("invalid path[" + path + "]");
+			}
+		}
+
+		return new File(root, path);
+	}
+
+	/**
+	 * 计算文件[0, end)范围内数据的CRC32，返回的对象可以继续累加后续的数据
+	 */
+	static CRC32 checksum(FileChannel channel, long end, ByteBuffer buffer) throws IOException {
+		CRC32 crc = new CRC32();
+		long position = 0;
+		while(position < end) {
+			buffer.clear();
+			buffer.limit((int) Math.min(buffer.capacity(), end - position));
+			int read = channel.read(buffer, position);
+			if(read < 0) {
+				throw new EOFException("file is shorter than " + end);
+			}
+
+			buffer.flip();
+			crc.update(buffer);
+			position += read;
+		}
+
+		return crc;
+	}
+
+	/**
+	 * 通过{@link FileChannel#transferTo}发送文件[position, end)范围内的数据，数据不经过用户空间
+	 */
+	static void send(FileChannel file, long position, long end, WritableByteChannel target) throws IOException {
+		RateLimiter limiter = Holder.limiter;
+		while(position < end) {
+			long count = Math.min(BUFFER_SIZE, end - position);
+			if(limiter != null) {
+				limiter.acquire((int) count);
+			}
+
+			long sent = file.transferTo(position, count, target);
+			if(sent <= 0 && position >= file.size()) {
+				throw new EOFException("file is shorter than " + end);
+			}
+
+			position += sent;
+		}
+	}
+
+	/**
+	 * 接收数据写入文件[position, end)的位置，同时累加CRC32
+	 */
+	static void receive(InputStream input, FileChannel file, long position, long end, byte[] buffer, CRC32 crc) throws IOException {
+		while(position < end) {
+			int read = input.read(buffer, 0, (int) Math.min(buffer.length, end - position));
+			if(read < 0) {
+				throw new EOFException("connection closed before receiving " + end + " bytes");
+			}
+
+			crc.update(buffer, 0, read);
+			ByteBuffer data = ByteBuffer.wrap(buffer, 0, read);
+			while(data.hasRemaining()) {
+				position += file.write(data, position);
+			}
+		}
+	}
+
+	/**
+	 * 本节点发送数据的速度上限，所有传输共享
+	 */
+	private static class Holder {
+		private static final RateLimiter limiter = createLimiter();
+
+		private static RateLimiter createLimiter() {
+			int bandwidth = Configs.getConfiguration().GetConfig(RebalanceConfigs.CONFIG_TRANSFER_BANDWIDTH);
+			return bandwidth > 0 ? RateLimiter.create(bandwidth * 1024.0 * 1024.0) : null;
+		}
+	}
+
+	private FileTransferProtocol() {}
+}
@@ -2,56 +2,75 @@ package com.bonree.brfs.rebalance.transfer;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.ThreadFactory;
-
-import javax.security.auth.callback.Callback;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.bonree.brfs.common.utils.CloseUtils;
+import com.bonree.brfs.common.utils.PooledThreadFactory;
+import com.bonree.brfs.configuration.Configs;
+import com.bonree.brfs.configuration.units.RebalanceConfigs;
+
+/**
+ * 接收其他数据节点推送的文件，以及为其他节点提供文件下载，
+ * 每个连接由一个线程处理，连接数超过上限时直接关闭新的连接
+ */
 public class SimpleFileServer implements Closeable {
 
     private static final Logger LOG = LoggerFactory.getLogger(SimpleFileServer.class);
 
-    private ServerSocket serverSocket;
+    private ServerSocketChannel serverChannel;
     private String dataDir;
-    private ExecutorService es = null;
+    private ThreadPoolExecutor es = null;
+    private final int idleTimeout;
 
     public SimpleFileServer(int port, String dataDir, int threadCount) throws IOException {
-        serverSocket = new ServerSocket(port);
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().setReuseAddress(true);
+        serverChannel.bind(new InetSocketAddress(port));
         this.dataDir = dataDir;
-        es = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
-            @Override
-            public Thread newThread(Runnable r) {
-                return new Thread(r, "file_transfer");
-            }
-        });
+        this.es = new ThreadPoolExecutor(0, threadCount, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), new PooledThreadFactory("file_transfer"));
+        // 客户端会关闭空闲的连接，服务端等待更长的时间后再关闭
+        this.idleTimeout = (int) TimeUnit.SECONDS.toMillis(
+                Configs.getConfiguration().GetConfig(RebalanceConfigs.CONFIG_TRANSFER_IDLE_TIME) * 2);
     }
 
     public void start() {
         LOG.info("start server!!!!");
-        while (true) {
-            Socket sock = null;
+        while (serverChannel.isOpen()) {
+            SocketChannel channel = null;
             try {
-                sock = serverSocket.accept();
-                es.execute(new FileServThread(sock, dataDir, LOG));// 当成功连接客户端后开启新线程接收文件
+                channel = serverChannel.accept();
+                channel.socket().setSoTimeout(idleTimeout);
+                channel.socket().setTcpNoDelay(true);
+                es.execute(new FileServThread(channel, dataDir));
+            } catch (RejectedExecutionException e) {
+                LOG.warn("too many file transfer connections, reject [{}]", channel.socket().getRemoteSocketAddress());
+                CloseUtils.closeQuietly(channel);
+            } catch (ClosedChannelException e) {
+                break;
             } catch (IOException e) {
-                e.printStackTrace();
+                LOG.error("accept file transfer connection error", e);
+                CloseUtils.closeQuietly(channel);
             }
         }
     }
 
     @Override
     public void close() throws IOException {
-        if (serverSocket != null) {
-            serverSocket.close();
+        if (serverChannel != null) {
+            serverChannel.close();
         }
+
+        es.shutdown();
     }
 }
@@ -46,6 +46,7 @@ import com.bonree.brfs.schedulers.task.meta.impl.QuartzCronInfo;
 import com.bonree.brfs.schedulers.task.meta.impl.QuartzSimpleInfo;
 import com.bonree.brfs.schedulers.task.model.TaskExecutablePattern;
 import com.bonree.brfs.schedulers.task.model.TaskServerNodeModel;
+import com.bonree.brfs.schedulers.task.runtime.TaskRuntimeScheduler;
 import com.bonree.brfs.schedulers.utils.JobDataMapConstract;
 import com.bonree.brfs.server.identification.ServerIDManager;
 
@@ -371,6 +372,7 @@ public class InitTaskManager {
 		String poolName;
 		int count = 0;
 		int size;
+		boolean runtimeEnable = Configs.getConfiguration().GetConfig(ResourceConfigs.CONFIG_TASK_RUNTIME_ENABLE);
 		for (TaskType taskType : TaskType.values()) {
 			poolName = taskType.name();
 			if (!switchMap.containsKey(poolName)) {
@@ -385,7 +387,9 @@ public class InitTaskManager {
 				size = 1;
 			}
 			prop = DefaultBaseSchedulers.createSimplePrope(size, 1000l);
-			boolean createState = manager.createTaskPool(poolName, prop);
+			// 批量任务使用进程内的执行器，其他任务仍然由quartz调度
+			boolean createState = runtimeEnable ? manager.createTaskPool(poolName, new TaskRuntimeScheduler(), prop)
+					: manager.createTaskPool(poolName, prop);
 			if (createState) {
 				manager.startTaskPool(poolName);
 			}
@@ -1,15 +1,16 @@
 package com.bonree.brfs.schedulers.jobs.biz;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import com.bonree.brfs.common.utils.*;
+import com.bonree.brfs.disknode.DiskContext;
+import com.bonree.brfs.disknode.catalog.FileCatalog;
 import com.bonree.brfs.schedulers.utils.*;
-import org.quartz.JobDataMap;
 import org.quartz.JobExecutionContext;
-import org.quartz.UnableToInterruptJobException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,7 +18,10 @@ import com.bonree.brfs.schedulers.task.model.AtomTaskModel;
 import com.bonree.brfs.schedulers.task.model.AtomTaskResultModel;
 import com.bonree.brfs.schedulers.task.model.BatchAtomModel;
 import com.bonree.brfs.schedulers.task.model.TaskResultModel;
-import com.bonree.brfs.schedulers.task.operation.impl.QuartzOperationStateWithZKTask;
+import com.bonree.brfs.schedulers.task.operation.impl.QuartzBatchTaskAdapter;
+import com.bonree.brfs.schedulers.task.runtime.IoClass;
+import com.bonree.brfs.schedulers.task.runtime.TaskContext;
+import com.bonree.brfs.schedulers.task.runtime.TaskPriority;
 
 /******************************************************************************
  * 版权信息：北京博睿宏远数据科技股份有限公司
@@ -27,7 +31,7 @@ import com.bonree.brfs.schedulers.task.operation.impl.QuartzOperationStateWithZK
  * @Description:系统删除任务 
  *****************************************************************************
  */
-public class SystemCheckJob extends QuartzOperationStateWithZKTask {
+public class SystemCheckJob extends QuartzBatchTaskAdapter {
 	private static final Logger LOG = LoggerFactory.getLogger(SystemCheckJob.class);
 	@Override
 	public void caughtException(JobExecutionContext context) {
@@ -35,37 +39,29 @@ public class SystemCheckJob extends QuartzOperationStateWithZKTask {
 	}
 
 	@Override
-	public void interrupt(){
-
+	public TaskPriority getPriority() {
+		return TaskPriority.LOW;
+	}
 
+	@Override
+	public IoClass getIoClass() {
+		return IoClass.DISK;
 	}
 
 	@Override
-	public void operation(JobExecutionContext context) throws Exception {
+	public TaskResultModel execute(BatchAtomModel batch, int batchIndex, TaskContext context) throws Exception {
 		LOG.debug("check task work");
-		JobDataMap data = context.getJobDetail().getJobDataMap();
-		String currentIndex = data.getString(JobDataMapConstract.CURRENT_INDEX);
-		String dataPath = data.getString(JobDataMapConstract.DATA_PATH);
-		String content = data.getString(currentIndex);
-		
-		if(BrStringUtils.isEmpty(content)){
-			LOG.debug("batch data is empty !!!");
-			return;
-		}
-		BatchAtomModel batch = JsonUtils.toObject(content, BatchAtomModel.class);
-		if(batch == null){
-			LOG.debug("batch data is empty !!!");
-			return;
-		}
+		String dataPath = context.getDataPath();
 		List<AtomTaskModel> atoms = batch.getAtoms();
 		if(atoms == null || atoms.isEmpty()){
 			LOG.debug("atom task is empty !!!");
-			return;
+			return null;
 		}
 		String snName = null;
 		TaskResultModel result = new TaskResultModel();
 		TaskResultModel batchResult = null;
 		for(AtomTaskModel atom : atoms){
+			context.checkpoint();
 			snName = atom.getStorageName();
 			if(BrStringUtils.isEmpty(snName)){
 				LOG.warn("sn is empty !!!");
@@ -80,8 +76,7 @@ public class SystemCheckJob extends QuartzOperationStateWithZKTask {
 			}
 			result.addAll(batchResult.getAtoms());
 		}
-		//更新任务状态
-		TaskStateLifeContral.updateMapTaskMessage(context, result);
+		return result;
 	}
     /**
      * @param atom
@@ -96,11 +91,20 @@ public class SystemCheckJob extends QuartzOperationStateWithZKTask {
 
         Map<String,String> snMap = new HashMap<>();
         snMap.put(BRFSPath.STORAGEREGION,snName);
-        List<BRFSPath> eFiles = BRFSFileUtil.scanBRFSFiles(dataPath,snMap,snMap.size(),new BRFSCheckFilter(startTime,endTime));
+        List<File> files = new ArrayList<>();
+        for(String dataDir : DiskContext.dataDirsOf(dataPath)){
+            List<BRFSPath> cFiles = FileCatalog.scanBRFSFiles(dataDir,snMap,snMap.size(),new BRFSCheckFilter(startTime,endTime,false));
+            if(cFiles == null){
+                continue;
+            }
+            for(BRFSPath brfsPath: cFiles){
+                files.add(new File(dataDir,brfsPath.toString()));
+            }
+        }
         List<String> errors = new ArrayList<>();
-        if(eFiles != null ){
-            for(BRFSPath brfsPath: eFiles){
-                errors.add(brfsPath.getFileName());
+        if(!files.isEmpty()){
+            for(File file : FileVerificationEngine.getInstance().verify(files)){
+                errors.add(file.getName());
             }
         }
         TaskResultModel result = new TaskResultModel();
@@ -8,19 +8,19 @@ import java.util.Map;
 import ch.qos.logback.core.util.FileUtil;
 import com.bonree.brfs.common.files.impl.BRFSTimeFilter;
 import com.bonree.brfs.common.utils.*;
-import org.quartz.JobDataMap;
-import org.quartz.JobExecutionContext;
-import org.quartz.UnableToInterruptJobException;
+import com.bonree.brfs.disknode.DiskContext;
+import com.bonree.brfs.disknode.catalog.FileCatalog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.bonree.brfs.schedulers.utils.JobDataMapConstract;
 import com.bonree.brfs.schedulers.task.model.AtomTaskModel;
 import com.bonree.brfs.schedulers.task.model.AtomTaskResultModel;
 import com.bonree.brfs.schedulers.task.model.BatchAtomModel;
 import com.bonree.brfs.schedulers.task.model.TaskResultModel;
-import com.bonree.brfs.schedulers.task.operation.impl.QuartzOperationStateWithZKTask;
-import com.bonree.brfs.schedulers.utils.TaskStateLifeContral;
+import com.bonree.brfs.schedulers.task.operation.impl.QuartzBatchTaskAdapter;
+import com.bonree.brfs.schedulers.task.runtime.IoClass;
+import com.bonree.brfs.schedulers.task.runtime.TaskContext;
+import com.bonree.brfs.schedulers.task.runtime.TaskPriority;
 
 /******************************************************************************
  * 版权信息：北京博睿宏远数据科技股份有限公司
@@ -31,43 +31,34 @@ import com.bonree.brfs.schedulers.utils.TaskStateLifeContral;
  * @Description:系统删除任务 
  *****************************************************************************
  */
-public class SystemDeleteJob extends QuartzOperationStateWithZKTask {
+public class SystemDeleteJob extends QuartzBatchTaskAdapter {
 	private static final Logger LOG = LoggerFactory.getLogger(SystemDeleteJob.class);
 
 	@Override
-	public void caughtException(JobExecutionContext context) {
-
+	public TaskPriority getPriority() {
+		return TaskPriority.NORMAL;
 	}
 
 	@Override
-	public void interrupt(){
+	public IoClass getIoClass() {
+		return IoClass.DISK;
 	}
 
 	@Override
-	public void operation(JobExecutionContext context) throws Exception {
+	public TaskResultModel execute(BatchAtomModel batch, int batchIndex, TaskContext context) throws Exception {
 		LOG.debug("----------> system delete work");
-		JobDataMap data = context.getJobDetail().getJobDataMap();
-		String currentIndex = data.getString(JobDataMapConstract.CURRENT_INDEX);
-		String dataPath = data.getString(JobDataMapConstract.DATA_PATH);
-		String content = data.getString(currentIndex);
-		LOG.debug("batch {}", content);
-		// 获取当前执行的任务类型
-		BatchAtomModel batch = JsonUtils.toObject(content, BatchAtomModel.class);
-		if (batch == null) {
-			LOG.debug("batch data is empty !!!");
-			return;
-		}
-
+		String dataPath = context.getDataPath();
 		List<AtomTaskModel> atoms = batch.getAtoms();
 		if (atoms == null || atoms.isEmpty()) {
 			LOG.debug("atom task is empty !!!");
-			return;
+			return null;
 		}
 		String snName;
 		TaskResultModel result = new TaskResultModel();
 		
 		AtomTaskResultModel usrResult;
 		for (AtomTaskModel atom : atoms) {
+			context.checkpoint();
 			snName = atom.getStorageName();
 			if (BrStringUtils.isEmpty(snName)) {
 				LOG.debug("sn is empty !!!");
@@ -82,8 +73,7 @@ public class SystemDeleteJob extends QuartzOperationStateWithZKTask {
 			}
 			result.add(usrResult);
 		}
-		//更新任务状态
-		TaskStateLifeContral.updateMapTaskMessage(context, result);
+		return result;
 	}
 	/**
 	 * 概述：封装结果
@@ -101,18 +91,30 @@ public class SystemDeleteJob extends QuartzOperationStateWithZKTask {
 		AtomTaskResultModel atomR = AtomTaskResultModel.getInstance(null, snName, startTime, endTime, "", patitionNum);
         Map<String,String> snMap = new HashMap<>();
         snMap.put(BRFSPath.STORAGEREGION, snName);
-        List<BRFSPath> deleteDirs = BRFSFileUtil.scanBRFSFiles(dataPath,snMap,snMap.size(),new BRFSTimeFilter(0,endTime));
-		if(deleteDirs == null || deleteDirs.isEmpty()) {
-		    LOG.debug("delete dir {} - {} is empty ",TimeUtils.timeInterval(startTime,granule), TimeUtils.timeInterval(endTime,granule));
-			return atomR;
-		}
-		atomR.setOperationFileCount(deleteDirs.size());
+		int count = 0;
 		boolean isSuccess = true;
-		for(BRFSPath deleteDir : deleteDirs) {
+		for(String dataDir : DiskContext.dataDirsOf(dataPath)) {
+			List<BRFSPath> deleteDirs = FileCatalog.scanBRFSFiles(dataDir,snMap,snMap.size(),new BRFSTimeFilter(0,endTime));
+			if(deleteDirs == null || deleteDirs.isEmpty()) {
+				continue;
+			}
+			count += deleteDirs.size();
+			for(BRFSPath deleteDir : deleteDirs) {
 
-			isSuccess = isSuccess && FileUtils.deleteDir(dataPath+ FileUtils.FILE_SEPARATOR+deleteDir.toString(), true);
-			LOG.debug("delete :{} status :{} ",deleteDir, isSuccess);
+				// 每个目录都要尝试删除，只有删除成功的目录才从文件目录中移除，失败的目录下次还能被扫描到
+				boolean deleted = FileUtils.deleteDir(dataDir+ FileUtils.FILE_SEPARATOR+deleteDir.toString(), true);
+				if(deleted) {
+					FileCatalog.fileDeleted(dataDir+ FileUtils.FILE_SEPARATOR+deleteDir.toString());
+				}
+				isSuccess = isSuccess && deleted;
+				LOG.debug("delete :{} status :{} ",deleteDir, deleted);
+			}
+		}
+		if(count == 0) {
+		    LOG.debug("delete dir {} - {} is empty ",TimeUtils.timeInterval(startTime,granule), TimeUtils.timeInterval(endTime,granule));
+			return atomR;
 		}
+		atomR.setOperationFileCount(count);
 		atomR.setSuccess(isSuccess);
 		return atomR;
 	}
@@ -7,19 +7,19 @@ import java.util.Map;
 
 import com.bonree.brfs.common.files.impl.BRFSTimeFilter;
 import com.bonree.brfs.common.utils.*;
-import org.quartz.JobDataMap;
-import org.quartz.JobExecutionContext;
-import org.quartz.UnableToInterruptJobException;
+import com.bonree.brfs.disknode.DiskContext;
+import com.bonree.brfs.disknode.catalog.FileCatalog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.bonree.brfs.schedulers.utils.JobDataMapConstract;
 import com.bonree.brfs.schedulers.task.model.AtomTaskModel;
 import com.bonree.brfs.schedulers.task.model.AtomTaskResultModel;
 import com.bonree.brfs.schedulers.task.model.BatchAtomModel;
 import com.bonree.brfs.schedulers.task.model.TaskResultModel;
-import com.bonree.brfs.schedulers.task.operation.impl.QuartzOperationStateWithZKTask;
-import com.bonree.brfs.schedulers.utils.TaskStateLifeContral;
+import com.bonree.brfs.schedulers.task.operation.impl.QuartzBatchTaskAdapter;
+import com.bonree.brfs.schedulers.task.runtime.IoClass;
+import com.bonree.brfs.schedulers.task.runtime.TaskContext;
+import com.bonree.brfs.schedulers.task.runtime.TaskPriority;
 /******************************************************************************
  * 版权信息：北京博睿宏远数据科技股份有限公司
  * Copyright: Copyright (c) 2007北京博睿宏远数据科技股份有限公司,Inc.All Rights Reserved.
@@ -28,48 +28,40 @@ import com.bonree.brfs.schedulers.utils.TaskStateLifeContral;
  * @Description:系统删除任务 
  *****************************************************************************
  */
-public class UserDeleteJob extends QuartzOperationStateWithZKTask {
+public class UserDeleteJob extends QuartzBatchTaskAdapter {
 	public static final String DELETE_SN_ALL = "0";
 	public static final String DELETE_PART = "1";
 	private static final Logger LOG = LoggerFactory.getLogger(UserDeleteJob.class);
+
 	@Override
-	public void caughtException(JobExecutionContext context) {
+	public TaskPriority getPriority() {
+		return TaskPriority.NORMAL;
 	}
 
 	@Override
-	public void interrupt() throws UnableToInterruptJobException {
+	public IoClass getIoClass() {
+		return IoClass.DISK;
 	}
 
 	@Override
-	public void operation(JobExecutionContext context) throws Exception {
-		JobDataMap data = context.getJobDetail().getJobDataMap();
-		String currentIndex = data.getString(JobDataMapConstract.CURRENT_INDEX);
-		String dataPath = data.getString(JobDataMapConstract.DATA_PATH);
-		String content = data.getString(currentIndex);
-		// 获取当前执行的任务类型
-		if(BrStringUtils.isEmpty(content)) {
-			LOG.debug("batch data is empty !!!");
-			return ;
-		}
-		BatchAtomModel batch = JsonUtils.toObject(content, BatchAtomModel.class);
-		if(batch == null){
-			LOG.debug("batch data is empty !!!");
-			return;
-		}
-		
+	public TaskResultModel execute(BatchAtomModel batch, int batchIndex, TaskContext context) throws Exception {
+		String dataPath = context.getDataPath();
 		List<AtomTaskModel> atoms = batch.getAtoms();
 		if(atoms == null || atoms.isEmpty()){
 			LOG.debug("atom task is empty !!!");
-			return;
+			return null;
 		}
+		// 最后一个批次时删除整个storage region
+		boolean lastBatch = batchIndex == 1;
 		String snName;
 		TaskResultModel result = new TaskResultModel();
 		AtomTaskResultModel usrResult;
 		List<String> dSns = new ArrayList<String>();
 		String operation;
 		for(AtomTaskModel atom : atoms){
+			context.checkpoint();
 			snName = atom.getStorageName();
-			if("1".equals(currentIndex)) {
+			if(lastBatch) {
 				operation = atom.getTaskOperation();
 				LOG.debug("task operation {} ", DELETE_SN_ALL.equals(operation) ? "Delete_Storage_Region" : "Delete_Part_Of_Storage_Region_Data");
 				if(DELETE_SN_ALL.equals(operation)) {
@@ -86,17 +78,24 @@ public class UserDeleteJob extends QuartzOperationStateWithZKTask {
 			result.add(usrResult);
 			
 		}
-		if("1".equals(currentIndex)) {
+		if(lastBatch) {
 			for(String sn : dSns) {
-				if(FileUtils.deleteDir(dataPath+"/"+sn, true)) {
+				boolean deleted = true;
+				for(String dataDir : DiskContext.dataDirsOf(dataPath)) {
+					if(FileUtils.deleteDir(dataDir+"/"+sn, true)) {
+						FileCatalog.fileDeleted(dataDir+"/"+sn);
+					} else {
+						deleted = false;
+					}
+				}
+				if(deleted) {
 					LOG.debug("deltete {} successfull", sn);
 				}else {
 					result.setSuccess(false);
 				}
 			}
 		}
-		//更新任务状态
-		TaskStateLifeContral.updateMapTaskMessage(context, result);
+		return result;
 	}
 	/**
 	 * 概述：封装执行结果
@@ -119,18 +118,29 @@ public class UserDeleteJob extends QuartzOperationStateWithZKTask {
 		atomR.setSn(snName);
 		Map<String,String> snMap = new HashMap<>();
 		snMap.put(BRFSPath.STORAGEREGION, snName);
-		List<BRFSPath> deleteDirs = BRFSFileUtil.scanBRFSFiles(dataPath,snMap,snMap.size(),new BRFSTimeFilter(startTime,endTime));
-		LOG.debug("collection {}_{} dirs {}",atom.getDataStartTime(),atom.getDataStopTime(),deleteDirs);
-		if(deleteDirs == null || deleteDirs.isEmpty()) {
-			atomR.setOperationFileCount(0);
-			return atomR;
-		}
+		int count = 0;
 		boolean isSuccess = true;
-		for(BRFSPath deletePath : deleteDirs) {
-			isSuccess = isSuccess && FileUtils.deleteDir(dataPath+FileUtils.FILE_SEPARATOR+deletePath.toString(), true);
-			LOG.debug("delete [{}], status [{}]",deletePath, isSuccess);
+		for(String dataDir : DiskContext.dataDirsOf(dataPath)) {
+			List<BRFSPath> deleteDirs = FileCatalog.scanBRFSFiles(dataDir,snMap,snMap.size(),new BRFSTimeFilter(startTime,endTime));
+			LOG.debug("collection {}_{} dirs {}",atom.getDataStartTime(),atom.getDataStopTime(),deleteDirs);
+			if(deleteDirs == null || deleteDirs.isEmpty()) {
+				continue;
+			}
+			for(BRFSPath deletePath : deleteDirs) {
+				// 每个目录都要尝试删除，只有删除成功的目录才从文件目录中移除，失败的目录下次还能被扫描到
+				boolean deleted = FileUtils.deleteDir(dataDir+FileUtils.FILE_SEPARATOR+deletePath.toString(), true);
+				if(deleted) {
+					FileCatalog.fileDeleted(dataDir+FileUtils.FILE_SEPARATOR+deletePath.toString());
+				}
+				isSuccess = isSuccess && deleted;
+				LOG.debug("delete [{}], status [{}]",deletePath, deleted);
+			}
+			count += deleteDirs.size();
+		}
+		atomR.setOperationFileCount(count);
+		if(count == 0) {
+			return atomR;
 		}
-		atomR.setOperationFileCount(deleteDirs.size());
 		atomR.setSuccess(isSuccess);
 		return atomR;
 	}
@@ -21,6 +21,7 @@ import com.bonree.brfs.common.utils.JsonUtils;
 import com.bonree.brfs.common.utils.JsonUtils.JsonException;
 import com.bonree.brfs.common.zookeeper.ZookeeperClient;
 import com.bonree.brfs.common.zookeeper.curator.CuratorClient;
+import com.bonree.brfs.disknode.DiskContext;
 import com.bonree.brfs.duplication.storageregion.StorageRegion;
 import com.bonree.brfs.duplication.storageregion.StorageRegionManager;
 import com.bonree.brfs.resourceschedule.commons.GatherResource;
@@ -85,7 +86,7 @@ public class GatherResourceJob extends QuartzOperationStateTask {
 		}
 		long gatherInveral = data.getLongValueFromString(JobDataMapConstract.GATHER_INVERAL_TIME);
 		int count = data.getIntFromString(JobDataMapConstract.CALC_RESOURCE_COUNT);
-		StateMetaServerModel metaSource = GatherResource.gatherResource(dataDir, ip,mountPoints);
+		StateMetaServerModel metaSource = GatherResource.gatherResource(DiskContext.dataDirsOf(dataDir), ip,mountPoints);
 		if (metaSource != null) {
 			queue.add(metaSource);
 			LOG.info("gather stat info !!! {}", queue.size());
@@ -125,7 +126,7 @@ public class GatherResourceJob extends QuartzOperationStateTask {
 			LOG.info("resource: succefull !!!");
 		}
 		
-		BaseMetaServerModel local = GatherResource.gatherBase(serverId, dataDir,mountPoints);
+		BaseMetaServerModel local = GatherResource.gatherBase(serverId, DiskContext.dataDirsOf(dataDir),mountPoints);
 		if(local == null) {
 			LOG.error("gather base data is empty !!!");
 			return;
@@ -164,7 +165,7 @@ public class GatherResourceJob extends QuartzOperationStateTask {
 
 	}
 	public void saveLocal(CuratorClient client,String serverId, String dataDir,String bPath) {
-		BaseMetaServerModel local = GatherResource.gatherBase(serverId, dataDir,mountPoints);
+		BaseMetaServerModel local = GatherResource.gatherBase(serverId, DiskContext.dataDirsOf(dataDir),mountPoints);
 		if(local == null) {
 			LOG.error("gather base data is empty !!!");
 			return;
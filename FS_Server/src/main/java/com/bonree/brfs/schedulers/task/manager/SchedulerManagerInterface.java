@@ -68,6 +68,14 @@ public interface SchedulerManagerInterface <T1,T2,T3>{
 	 * @user <a href=mailto:zhucg@bonree.com>朱成岗</a>
 	 */
 	boolean createTaskPool(T1 taskpoolKey, Properties prop) throws ParamsErrorException;
+	/**
+	 * 概述：使用指定的调度实现创建任务线程池
+	 * @param taskpoolKey 对应的任务
+	 * @param pool 调度实现
+	 * @param prop 线程池配置
+	 * @return
+	 */
+	boolean createTaskPool(T1 taskpoolKey, T2 pool, Properties prop) throws ParamsErrorException;
 	/**
 	 * 概述：启动任务线程池
 	 * @param taskpoolKey
@@ -114,13 +114,17 @@ public class DefaultSchedulersManager implements SchedulerManagerInterface<Strin
 
 	@Override
 	public boolean createTaskPool(String taskpoolKey, Properties prop) throws ParamsErrorException {
+		return createTaskPool(taskpoolKey, new DefaultBaseSchedulers(), prop);
+	}
+
+	@Override
+	public boolean createTaskPool(String taskpoolKey, BaseSchedulerInterface pool, Properties prop) throws ParamsErrorException {
 		if(BrStringUtils.isEmpty(taskpoolKey)){
 			throw new ParamsErrorException("task pool key is empty !!!");
 		}
 		if (taskPoolMap.containsKey(taskpoolKey)) {
 			throw new ParamsErrorException(taskpoolKey + " task pool key is exists !!!");
 		}
-		BaseSchedulerInterface pool = new DefaultBaseSchedulers();
 		String name = prop.getProperty("org.quartz.scheduler.instanceName");
 		if(BrStringUtils.isEmpty(name)){
 			prop.setProperty("org.quartz.scheduler.instanceName", taskpoolKey);
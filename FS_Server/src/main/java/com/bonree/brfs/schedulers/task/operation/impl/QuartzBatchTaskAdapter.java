@@ -0,0 +1,53 @@
+package com.bonree.brfs.schedulers.task.operation.impl;
+
+import org.quartz.JobDataMap;
+import org.quartz.JobExecutionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bonree.brfs.common.task.TaskType;
+import com.bonree.brfs.common.utils.BrStringUtils;
+import com.bonree.brfs.common.utils.JsonUtils;
+import com.bonree.brfs.schedulers.task.model.BatchAtomModel;
+import com.bonree.brfs.schedulers.task.runtime.BatchTask;
+import com.bonree.brfs.schedulers.task.runtime.TaskContext;
+import com.bonree.brfs.schedulers.utils.JobDataMapConstract;
+import com.bonree.brfs.schedulers.utils.TaskStateLifeContral;
+
+/**
+ * 使批量任务在quartz中也能执行，从JobDataMap中取出当前批次的数据交给{@link BatchTask}处理
+ */
+public abstract class QuartzBatchTaskAdapter extends QuartzOperationStateWithZKTask implements BatchTask {
+	private static final Logger LOG = LoggerFactory.getLogger(QuartzBatchTaskAdapter.class);
+
+	@Override
+	public void caughtException(JobExecutionContext context) {
+	}
+
+	@Override
+	public void interrupt() {
+	}
+
+	@Override
+	public final void operation(JobExecutionContext context) throws Exception {
+		JobDataMap data = context.getJobDetail().getJobDataMap();
+		String currentIndex = data.getString(JobDataMapConstract.CURRENT_INDEX);
+		String content = data.getString(currentIndex);
+		if(BrStringUtils.isEmpty(content)) {
+			LOG.debug("batch data is empty !!!");
+			return;
+		}
+		BatchAtomModel batch = JsonUtils.toObject(content, BatchAtomModel.class);
+		if(batch == null || batch.getAtoms() == null || batch.getAtoms().isEmpty()) {
+			LOG.debug("batch data is empty !!!");
+			return;
+		}
+
+		TaskContext taskContext = TaskContext.simple(data.getString(JobDataMapConstract.TASK_NAME),
+				data.getString(JobDataMapConstract.SERVER_ID),
+				TaskType.valueOf(data.getInt(JobDataMapConstract.TASK_TYPE)).name(),
+				data.getString(JobDataMapConstract.DATA_PATH));
+		//更新任务状态
+		TaskStateLifeContral.updateMapTaskMessage(context, execute(batch, Integer.parseInt(currentIndex), taskContext));
+	}
+}
@@ -0,0 +1,231 @@
+package com.bonree.brfs.schedulers.task.runtime;
+
+import java.util.Iterator;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bonree.brfs.common.utils.PooledThreadFactory;
+import com.bonree.brfs.configuration.Configs;
+import com.bonree.brfs.configuration.units.ResourceConfigs;
+
+/**
+ * 所有后台任务共用的执行器。
+ *
+ * 等待执行的任务按优先级排序，优先级相同时按提交顺序执行；
+ * 同时执行的磁盘类任务数受限，剩余的线程留给计算类任务
+ */
+public class BackgroundExecutor {
+	private static final Logger LOG = LoggerFactory.getLogger(BackgroundExecutor.class);
+
+	private final int ioThreads;
+	private final ExecutorService workers;
+	private final ScheduledExecutorService timer;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+	private final TreeSet<Entry> queue = new TreeSet<Entry>();
+	private final AtomicLong sequence = new AtomicLong();
+	private int runningIo = 0;
+
+	private volatile boolean closed = false;
+
+	private static class Holder {
+		private static final BackgroundExecutor instance = new BackgroundExecutor("background_task",
+				Configs.getConfiguration().GetConfig(ResourceConfigs.CONFIG_TASK_RUNTIME_THREADS),
+				Configs.getConfiguration().GetConfig(ResourceConfigs.CONFIG_TASK_RUNTIME_IO_THREADS));
+	}
+
+	public static BackgroundExecutor getInstance() {
+		return Holder.instance;
+	}
+
+	BackgroundExecutor(String name, int threads, int ioThreads) {
+		threads = Math.max(1, threads);
+		this.ioThreads = Math.max(1, ioThreads);
+		this.workers = Executors.newFixedThreadPool(threads, new PooledThreadFactory(name));
+		this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, name + "_timer");
+			t.setDaemon(true);
+			return t;
+		});
+
+		for(int i = 0; i < threads; i++) {
+			workers.execute(this::work);
+		}
+	}
+
+	/**
+	 * 创建一个待执行的任务，提交之前可以设置为暂停状态
+	 */
+	Entry newEntry(TaskPriority priority, IoClass ioClass, Runnable action) {
+		return new Entry(priority, ioClass, action, sequence.incrementAndGet());
+	}
+
+	void submit(Entry entry) {
+		lock.lock();
+		try {
+			if(closed) {
+				LOG.warn("background executor is closed, discard task");
+				return;
+			}
+
+			queue.add(entry);
+			available.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 延迟一段时间后提交任务
+	 */
+	ScheduledFuture<?> submit(Entry entry, long delayMillis) {
+		if(delayMillis <= 0) {
+			submit(entry);
+			return null;
+		}
+
+		return timer.schedule(() -> submit(entry), delayMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * 移除还未执行的任务
+	 *
+	 * @return 任务还在队列中时返回true
+	 */
+	boolean remove(Entry entry) {
+		lock.lock();
+		try {
+			return queue.remove(entry);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 任务的暂停状态改变后调用，唤醒等待的线程
+	 */
+	void signal() {
+		lock.lock();
+		try {
+			available.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	int getQueueSize() {
+		lock.lock();
+		try {
+			return queue.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void close() {
+		lock.lock();
+		try {
+			closed = true;
+			queue.clear();
+			available.signalAll();
+		} finally {
+			lock.unlock();
+		}
+
+		timer.shutdownNow();
+		workers.shutdown();
+	}
+
+	private Entry take() throws InterruptedException {
+		lock.lock();
+		try {
+			while(!closed) {
+				Iterator<Entry> iter = queue.iterator();
+				while(iter.hasNext()) {
+					Entry entry = iter.next();
+					if(entry.paused) {
+						continue;
+					}
+
+					if(entry.ioClass == IoClass.DISK) {
+						if(runningIo >= ioThreads) {
+							continue;
+						}
+						runningIo++;
+					}
+
+					iter.remove();
+					return entry;
+				}
+
+				available.await();
+			}
+
+			return null;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void done(Entry entry) {
+		lock.lock();
+		try {
+			if(entry.ioClass == IoClass.DISK) {
+				runningIo--;
+			}
+			available.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void work() {
+		try {
+			Entry entry;
+			while((entry = take()) != null) {
+				try {
+					entry.action.run();
+				} catch(Exception e) {
+					LOG.error("background task error", e);
+				} finally {
+					done(entry);
+				}
+			}
+		} catch(InterruptedException e) {
+			LOG.warn("background worker is interrupted");
+		}
+	}
+
+	static final class Entry implements Comparable<Entry> {
+		private final TaskPriority priority;
+		private final IoClass ioClass;
+		private final Runnable action;
+		private final long seq;
+
+		volatile boolean paused = false;
+
+		private Entry(TaskPriority priority, IoClass ioClass, Runnable action, long seq) {
+			this.priority = priority;
+			this.ioClass = ioClass;
+			this.action = action;
+			this.seq = seq;
+		}
+
+		@Override
+		public int compareTo(Entry o) {
+			int c = priority.compareTo(o.priority);
+			return c != 0 ? c : Long.compare(seq, o.seq);
+		}
+	}
+}
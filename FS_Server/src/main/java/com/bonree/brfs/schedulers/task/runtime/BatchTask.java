@@ -0,0 +1,18 @@
+package com.bonree.brfs.schedulers.task.runtime;
+
+import com.bonree.brfs.schedulers.task.model.BatchAtomModel;
+import com.bonree.brfs.schedulers.task.model.TaskResultModel;
+
+/**
+ * 分批执行的后台任务，批次的序号从总批次数递减到1
+ */
+public interface BatchTask {
+	/**
+	 * @return 本批次的执行结果，为null时不更新任务结果
+	 */
+	TaskResultModel execute(BatchAtomModel batch, int batchIndex, TaskContext context) throws Exception;
+
+	TaskPriority getPriority();
+
+	IoClass getIoClass();
+}
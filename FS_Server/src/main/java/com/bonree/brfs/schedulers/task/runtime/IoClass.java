@@ -0,0 +1,9 @@
+package com.bonree.brfs.schedulers.task.runtime;
+
+/**
+ * 后台任务的资源类型，磁盘类型的任务同时执行的数量受限，并且会为前台读写让出磁盘
+ */
+public enum IoClass {
+	CPU,
+	DISK
+}
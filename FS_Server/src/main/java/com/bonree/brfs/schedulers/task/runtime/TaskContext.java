@@ -0,0 +1,81 @@
+package com.bonree.brfs.schedulers.task.runtime;
+
+import java.util.concurrent.CancellationException;
+
+import com.bonree.brfs.common.supervisor.ForegroundActivity;
+
+/**
+ * 一次后台任务执行的上下文，任务在处理每个单元之间调用{@link #checkpoint()}，
+ * 以响应取消操作并为前台读写让出磁盘
+ */
+public class TaskContext {
+	private final String taskName;
+	private final String serverId;
+	private final String taskType;
+	private final String dataPath;
+	private final IoClass ioClass;
+
+	private final long quietMillis;
+	private final long maxWaitMillis;
+
+	private volatile boolean cancelled = false;
+
+	/**
+	 * @param quietMillis 磁盘任务需要等待前台请求空闲的时间，小于等于0时不等待
+	 * @param maxWaitMillis 每次最多等待的时间
+	 */
+	public TaskContext(String taskName, String serverId, String taskType, String dataPath,
+			IoClass ioClass, long quietMillis, long maxWaitMillis) {
+		this.taskName = taskName;
+		this.serverId = serverId;
+		this.taskType = taskType;
+		this.dataPath = dataPath;
+		this.ioClass = ioClass;
+		this.quietMillis = quietMillis;
+		this.maxWaitMillis = maxWaitMillis;
+	}
+
+	/**
+	 * 不支持取消和让出磁盘的上下文，用于Quartz调度的任务
+	 */
+	public static TaskContext simple(String taskName, String serverId, String taskType, String dataPath) {
+		return new TaskContext(taskName, serverId, taskType, dataPath, IoClass.CPU, 0, 0);
+	}
+
+	public String getTaskName() {
+		return taskName;
+	}
+
+	public String getServerId() {
+		return serverId;
+	}
+
+	public String getTaskType() {
+		return taskType;
+	}
+
+	public String getDataPath() {
+		return dataPath;
+	}
+
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * 任务被取消时抛出{@link CancellationException}，磁盘类型的任务在前台繁忙时等待
+	 */
+	public void checkpoint() throws InterruptedException {
+		if(cancelled) {
+			throw new CancellationException("task " + taskType + "-" + taskName + " is cancelled");
+		}
+
+		if(ioClass == IoClass.DISK && quietMillis > 0) {
+			ForegroundActivity.awaitQuiet(quietMillis, maxWaitMillis);
+		}
+	}
+}
@@ -0,0 +1,10 @@
+package com.bonree.brfs.schedulers.task.runtime;
+
+/**
+ * 后台任务的优先级，优先级高的任务先执行
+ */
+public enum TaskPriority {
+	HIGH,
+	NORMAL,
+	LOW
+}
@@ -0,0 +1,514 @@
+package com.bonree.brfs.schedulers.task.runtime;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bonree.brfs.common.task.TaskType;
+import com.bonree.brfs.common.utils.BrStringUtils;
+import com.bonree.brfs.common.utils.JsonUtils;
+import com.bonree.brfs.configuration.Configs;
+import com.bonree.brfs.configuration.units.ResourceConfigs;
+import com.bonree.brfs.email.EmailPool;
+import com.bonree.brfs.schedulers.ManagerContralFactory;
+import com.bonree.brfs.schedulers.exception.ParamsErrorException;
+import com.bonree.brfs.schedulers.task.manager.BaseSchedulerInterface;
+import com.bonree.brfs.schedulers.task.manager.impl.DefaultBaseSchedulers;
+import com.bonree.brfs.schedulers.task.meta.SumbitTaskInterface;
+import com.bonree.brfs.schedulers.task.model.BatchAtomModel;
+import com.bonree.brfs.schedulers.task.model.TaskResultModel;
+import com.bonree.brfs.schedulers.utils.JobDataMapConstract;
+import com.bonree.mail.worker.MailWorker;
+
+/**
+ * 不依赖quartz的任务线程池。
+ *
+ * 实现了{@link BatchTask}的任务在{@link BackgroundExecutor}中逐批执行，
+ * 批次数据只在提交时解析一次，执行结果保存在内存中，任务状态由{@link TaskStateReporter}
+ * 异步更新到zookeeper；其他的任务仍然交给quartz调度
+ */
+public class TaskRuntimeScheduler implements BaseSchedulerInterface {
+	private static final Logger LOG = LoggerFactory.getLogger(TaskRuntimeScheduler.class);
+
+	private final BackgroundExecutor executor;
+	private final TaskStateReporter reporter;
+	private final long quietMillis;
+	private final long maxWaitMillis;
+
+	private final Map<String, RuntimeTask> tasks = new ConcurrentHashMap<String, RuntimeTask>();
+
+	private String instanceName = "server";
+	private int poolSize = 0;
+	private Properties prop = null;
+	private volatile boolean pausePoolFlag = false;
+	private volatile boolean started = false;
+	private volatile boolean destroyed = false;
+
+	// 非批量任务使用的quartz调度，需要时才创建
+	private DefaultBaseSchedulers quartz;
+
+	public TaskRuntimeScheduler() {
+		this(BackgroundExecutor.getInstance(), TaskStateReporter.getInstance(),
+				Configs.getConfiguration().GetConfig(ResourceConfigs.CONFIG_TASK_FOREGROUND_QUIET),
+				Configs.getConfiguration().GetConfig(ResourceConfigs.CONFIG_TASK_FOREGROUND_MAX_WAIT));
+	}
+
+	TaskRuntimeScheduler(BackgroundExecutor executor, TaskStateReporter reporter, long quietMillis, long maxWaitMillis) {
+		this.executor = executor;
+		this.reporter = reporter;
+		this.quietMillis = quietMillis;
+		this.maxWaitMillis = maxWaitMillis;
+	}
+
+	@Override
+	public void initProperties(Properties props) {
+		if(prop == null) {
+			prop = props == null ? DefaultBaseSchedulers.createSimplePrope(3, 1000) : props;
+		} else if(props != null) {
+			prop.putAll(props);
+		}
+
+		String name = prop.getProperty("org.quartz.scheduler.instanceName");
+		if(!BrStringUtils.isEmpty(name)) {
+			this.instanceName = name;
+		}
+		try {
+			this.poolSize = Integer.parseInt(prop.getProperty("org.quartz.threadPool.threadCount"));
+		} catch(NumberFormatException e) {
+			LOG.error("pool size of {} is invalid", instanceName, e);
+		}
+	}
+
+	@Override
+	public boolean addTask(SumbitTaskInterface task) throws ParamsErrorException {
+		checkTask(task);
+		if(pausePoolFlag) {
+			LOG.warn("Thread pool is paused !!!");
+			return false;
+		}
+		if(!isStart()) {
+			LOG.warn("Thread pool is not normal");
+			return false;
+		}
+		if(poolSize <= getSumbitTaskCount()) {
+			LOG.warn("thread pool is full !!!");
+			return false;
+		}
+
+		Class<?> clazz;
+		try {
+			clazz = Class.forName(task.getClassInstanceName());
+		} catch(ClassNotFoundException e) {
+			LOG.error("add task {}", task.getClassInstanceName(), e);
+			return false;
+		}
+
+		String[] cycles = BrStringUtils.getSplit(task.getCycleContent(), ",");
+		boolean onceTask = task.getTaskKind() == 1 && cycles != null && cycles.length == 5 && !Boolean.valueOf(cycles[4]);
+		if(!BatchTask.class.isAssignableFrom(clazz) || !onceTask) {
+			return getQuartz().addTask(task);
+		}
+
+		String key = keyOf(task);
+		if(tasks.containsKey(key)) {
+			LOG.warn("task {} is exists", key);
+			return false;
+		}
+
+		RuntimeTask runtime;
+		try {
+			runtime = new RuntimeTask(key, (BatchTask) clazz.newInstance(), task.getTaskContent());
+		} catch(Exception e) {
+			LOG.error("create task {} error", key, e);
+			return false;
+		}
+
+		if(runtime.repeatCount <= 0) {
+			LOG.warn("repeated count is zero !!!!");
+			return false;
+		}
+
+		long delayTime = Long.parseLong(cycles[2]);
+		boolean rightNow = Boolean.valueOf(cycles[3]);
+		tasks.put(key, runtime);
+		runtime.schedule(rightNow ? 0 : delayTime);
+		return true;
+	}
+
+	@Override
+	public void start() throws RuntimeException, NullPointerException {
+		if(prop == null) {
+			throw new NullPointerException("configuration is  null ");
+		}
+
+		synchronized(this) {
+			if(quartz != null) {
+				quartz.start();
+			}
+		}
+		destroyed = false;
+		started = true;
+	}
+
+	@Override
+	public void reStart() throws RuntimeException, NullPointerException {
+		if(prop == null) {
+			throw new NullPointerException("configuration is  null ");
+		}
+		if(!isDestory()) {
+			close(true);
+		}
+		start();
+	}
+
+	@Override
+	public void close(boolean isWaitTaskComplete) throws Exception {
+		started = false;
+		destroyed = true;
+		pausePoolFlag = false;
+		for(RuntimeTask runtime : tasks.values()) {
+			runtime.cancel();
+		}
+
+		if(isWaitTaskComplete) {
+			for(RuntimeTask runtime : tasks.values()) {
+				runtime.awaitIdle();
+			}
+		}
+		tasks.clear();
+
+		synchronized(this) {
+			if(quartz != null) {
+				quartz.close(isWaitTaskComplete);
+				quartz = null;
+			}
+		}
+	}
+
+	@Override
+	public boolean isStart() {
+		return started && !destroyed;
+	}
+
+	@Override
+	public boolean isDestory() {
+		return destroyed;
+	}
+
+	@Override
+	public boolean deleteTask(SumbitTaskInterface task) throws ParamsErrorException {
+		checkTask(task);
+		if(!isStart()) {
+			return false;
+		}
+
+		RuntimeTask runtime = tasks.remove(keyOf(task));
+		if(runtime != null) {
+			runtime.cancel();
+			return true;
+		}
+
+		DefaultBaseSchedulers q = quartz;
+		return q != null && q.deleteTask(task);
+	}
+
+	@Override
+	public boolean pauseTask(SumbitTaskInterface task) throws ParamsErrorException {
+		checkTask(task);
+		if(!isStart()) {
+			return false;
+		}
+
+		RuntimeTask runtime = tasks.get(keyOf(task));
+		if(runtime != null) {
+			if(runtime.paused) {
+				return false;
+			}
+			runtime.setPaused(true);
+			return true;
+		}
+
+		DefaultBaseSchedulers q = quartz;
+		return q != null && q.pauseTask(task);
+	}
+
+	@Override
+	public boolean pauseAllTask() {
+		if(!isStart()) {
+			return false;
+		}
+
+		for(RuntimeTask runtime : tasks.values()) {
+			runtime.setPaused(true);
+		}
+
+		DefaultBaseSchedulers q = quartz;
+		return q == null || q.pauseAllTask();
+	}
+
+	@Override
+	public boolean resumeTask(SumbitTaskInterface task) throws ParamsErrorException {
+		checkTask(task);
+		if(!isStart()) {
+			return false;
+		}
+
+		RuntimeTask runtime = tasks.get(keyOf(task));
+		if(runtime != null) {
+			if(!runtime.paused) {
+				return false;
+			}
+			runtime.setPaused(false);
+			return true;
+		}
+
+		DefaultBaseSchedulers q = quartz;
+		return q != null && q.resumeTask(task);
+	}
+
+	@Override
+	public boolean resumeAllTask() {
+		if(!isStart()) {
+			return false;
+		}
+
+		for(RuntimeTask runtime : tasks.values()) {
+			runtime.setPaused(false);
+		}
+
+		DefaultBaseSchedulers q = quartz;
+		return q == null || q.resumeAllTask();
+	}
+
+	@Override
+	public String getInstanceName() {
+		return instanceName;
+	}
+
+	@Override
+	public void checkTask(SumbitTaskInterface task) throws ParamsErrorException {
+		if(task == null) {
+			throw new ParamsErrorException("task is empty");
+		}
+		if(BrStringUtils.isEmpty(task.getClassInstanceName())) {
+			throw new ParamsErrorException("task class instanceName is empty");
+		}
+		if(BrStringUtils.isEmpty(task.getTaskName())) {
+			throw new ParamsErrorException("task name is empty");
+		}
+		if(BrStringUtils.isEmpty(task.getTaskGroupName())) {
+			throw new ParamsErrorException("task group name is empty");
+		}
+		if(BrStringUtils.isEmpty(task.getCycleContent())) {
+			throw new ParamsErrorException("task cycle is empty");
+		}
+	}
+
+	/**
+	 * 概述：获取任务的状态 -1：不存在，0：正常，1：暂停，4：正在执行
+	 */
+	@Override
+	public int getTaskStat(SumbitTaskInterface task) throws ParamsErrorException {
+		checkTask(task);
+		RuntimeTask runtime = tasks.get(keyOf(task));
+		if(runtime != null) {
+			return runtime.paused ? 1 : runtime.executing ? 4 : 0;
+		}
+
+		DefaultBaseSchedulers q = quartz;
+		return q == null ? -1 : q.getTaskStat(task);
+	}
+
+	@Override
+	public boolean isExecuting(SumbitTaskInterface task) throws ParamsErrorException {
+		return getTaskStat(task) == 4;
+	}
+
+	@Override
+	public boolean isPaused() {
+		return pausePoolFlag;
+	}
+
+	@Override
+	public void pausePool() {
+		this.pausePoolFlag = true;
+	}
+
+	@Override
+	public void resumePool() {
+		this.pausePoolFlag = false;
+	}
+
+	@Override
+	public int getPoolSize() {
+		return poolSize;
+	}
+
+	@Override
+	public int getSumbitTaskCount() {
+		DefaultBaseSchedulers q = quartz;
+		return tasks.size() + (q == null ? 0 : Math.max(0, q.getSumbitTaskCount()));
+	}
+
+	private synchronized DefaultBaseSchedulers getQuartz() {
+		if(quartz == null) {
+			DefaultBaseSchedulers created = new DefaultBaseSchedulers();
+			created.initProperties(prop);
+			if(started) {
+				created.start();
+			}
+			quartz = created;
+		}
+
+		return quartz;
+	}
+
+	private static String keyOf(SumbitTaskInterface task) {
+		return task.getTaskGroupName() + "." + task.getTaskName();
+	}
+
+	/**
+	 * 一个正在执行的批量任务，同一时刻最多只有一个批次在执行
+	 */
+	private class RuntimeTask {
+		private final String key;
+		private final BatchTask task;
+		private final Map<String, String> content;
+		private final TaskContext context;
+		private final String taskName;
+		private final String serverId;
+		private final String taskTypeName;
+		private final int repeatCount;
+		private final long interval;
+
+		private final Map<Integer, BatchAtomModel> batches = new ConcurrentHashMap<Integer, BatchAtomModel>();
+		private final TaskResultModel sumResult = new TaskResultModel();
+		private int currentIndex;
+
+		private volatile boolean paused = false;
+		private volatile boolean executing = false;
+		private volatile BackgroundExecutor.Entry entry;
+		private volatile ScheduledFuture<?> future;
+
+		RuntimeTask(String key, BatchTask task, Map<String, String> content) {
+			this.key = key;
+			this.task = task;
+			this.content = content;
+			this.taskName = content.get(JobDataMapConstract.TASK_NAME);
+			this.serverId = content.get(JobDataMapConstract.SERVER_ID);
+			this.taskTypeName = TaskType.valueOf(Integer.parseInt(content.get(JobDataMapConstract.TASK_TYPE))).name();
+			this.repeatCount = Integer.parseInt(content.get(JobDataMapConstract.TASK_REPEAT_RUN_COUNT));
+			String sleep = content.get(JobDataMapConstract.TASK_RUN_INVERAL_TIME);
+			this.interval = BrStringUtils.isEmpty(sleep) ? 0 : Long.parseLong(sleep);
+			this.currentIndex = repeatCount;
+			this.context = new TaskContext(taskName, serverId, taskTypeName,
+					content.get(JobDataMapConstract.DATA_PATH), task.getIoClass(), quietMillis, maxWaitMillis);
+
+			for(int i = 1; i <= repeatCount; i++) {
+				String batch = content.get(String.valueOf(i));
+				if(!BrStringUtils.isEmpty(batch)) {
+					BatchAtomModel model = JsonUtils.toObjectQuietly(batch, BatchAtomModel.class);
+					if(model != null) {
+						batches.put(i, model);
+					}
+				}
+			}
+		}
+
+		void schedule(long delayMillis) {
+			BackgroundExecutor.Entry next = executor.newEntry(task.getPriority(), task.getIoClass(), this::runBatch);
+			next.paused = paused;
+			entry = next;
+			future = executor.submit(next, delayMillis);
+		}
+
+		void setPaused(boolean paused) {
+			this.paused = paused;
+			BackgroundExecutor.Entry current = entry;
+			if(current != null) {
+				current.paused = paused;
+			}
+			executor.signal();
+		}
+
+		void cancel() {
+			context.cancel();
+			ScheduledFuture<?> f = future;
+			if(f != null) {
+				f.cancel(false);
+			}
+			BackgroundExecutor.Entry current = entry;
+			if(current != null) {
+				executor.remove(current);
+			}
+		}
+
+		void awaitIdle() throws InterruptedException {
+			while(executing) {
+				Thread.sleep(100);
+			}
+		}
+
+		private void runBatch() {
+			if(context.isCancelled()) {
+				return;
+			}
+
+			executing = true;
+			boolean isSuccess = true;
+			try {
+				if(currentIndex == repeatCount) {
+					reporter.started(serverId, taskName, taskTypeName);
+				}
+
+				BatchAtomModel batch = batches.remove(currentIndex);
+				LOG.debug("taskType [{}],taskname [{}],batch id[{}]", taskTypeName, taskName, currentIndex);
+				if(batch != null && batch.getAtoms() != null && !batch.getAtoms().isEmpty()) {
+					TaskResultModel result = task.execute(batch, currentIndex, context);
+					if(result != null) {
+						sumResult.addAll(result.getAtoms());
+						sumResult.setSuccess(result.isSuccess() && sumResult.isSuccess());
+					}
+				}
+			} catch(CancellationException e) {
+				LOG.info("task {}-{} is cancelled", taskTypeName, taskName);
+				return;
+			} catch(InterruptedException e) {
+				LOG.warn("task {}-{} is interrupted", taskTypeName, taskName);
+				Thread.currentThread().interrupt();
+				return;
+			} catch(Exception e) {
+				isSuccess = false;
+				LOG.error("task {}-{} happen exception:{}", taskTypeName, taskName, e);
+				EmailPool emailPool = EmailPool.getInstance();
+				MailWorker.Builder builder = MailWorker.newBuilder(emailPool.getProgramInfo());
+				builder.setModel(task.getClass().getSimpleName() + " execute 模块服务发生问题");
+				builder.setException(e);
+				ManagerContralFactory mcf = ManagerContralFactory.getInstance();
+				builder.setMessage(mcf.getGroupName() + "(" + mcf.getServerId() + ")服务 执行任务时发生问题");
+				builder.setVariable(content);
+				emailPool.sendEmail(builder);
+			} finally {
+				executing = false;
+			}
+
+			sumResult.setSuccess(isSuccess && sumResult.isSuccess());
+			if(currentIndex > 1) {
+				currentIndex--;
+				if(!context.isCancelled()) {
+					schedule(interval);
+				}
+				return;
+			}
+
+			// 最后一个批次执行完成
+			tasks.remove(key, this);
+			reporter.completed(serverId, taskName, taskTypeName, sumResult);
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package com.bonree.brfs.schedulers.task.runtime;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bonree.brfs.schedulers.task.model.TaskResultModel;
+import com.bonree.brfs.schedulers.utils.TaskStateLifeContral;
+
+/**
+ * 在单独的线程中把任务的状态更新到zookeeper，
+ * 执行任务的线程不用等待zookeeper操作完成
+ */
+public class TaskStateReporter {
+	private static final Logger LOG = LoggerFactory.getLogger(TaskStateReporter.class);
+
+	private static final int MAX_BATCH = 256;
+
+	private final LinkedBlockingQueue<StateEvent> events = new LinkedBlockingQueue<StateEvent>();
+
+	private static class Holder {
+		private static final TaskStateReporter instance = new TaskStateReporter();
+	}
+
+	public static TaskStateReporter getInstance() {
+		return Holder.instance;
+	}
+
+	private TaskStateReporter() {
+		Thread thread = new Thread(this::report, "task_state_reporter");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public void started(String serverId, String taskName, String taskType) {
+		events.offer(new StateEvent(serverId, taskName, taskType, null));
+	}
+
+	public void completed(String serverId, String taskName, String taskType, TaskResultModel result) {
+		events.offer(new StateEvent(serverId, taskName, taskType, result == null ? new TaskResultModel() : result));
+	}
+
+	private void report() {
+		List<StateEvent> batch = new ArrayList<StateEvent>();
+		while(true) {
+			try {
+				batch.add(events.take());
+				events.drainTo(batch, MAX_BATCH - 1);
+
+				// 同一批中已经完成的任务不需要再更新为运行状态
+				Set<String> completed = new HashSet<String>();
+				for(StateEvent event : batch) {
+					if(event.result != null) {
+						completed.add(event.key());
+					}
+				}
+
+				for(StateEvent event : batch) {
+					try {
+						if(event.result != null) {
+							TaskStateLifeContral.updateTaskStatusByCompelete(event.serverId, event.taskName, event.taskType, event.result);
+							LOG.info("task {}-{}:{} end!!", event.taskType, event.taskName, event.result.isSuccess());
+						} else if(!completed.contains(event.key())) {
+							TaskStateLifeContral.updateTaskRunState(event.serverId, event.taskName, event.taskType);
+							LOG.info("task {}-{} run", event.taskType, event.taskName);
+						}
+					} catch(Exception e) {
+						LOG.error("update task {}-{} state error", event.taskType, event.taskName, e);
+					}
+				}
+			} catch(InterruptedException e) {
+				LOG.warn("task state reporter is interrupted");
+				return;
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	private static class StateEvent {
+		private final String serverId;
+		private final String taskName;
+		private final String taskType;
+		// 为null时表示任务开始执行
+		private final TaskResultModel result;
+
+		StateEvent(String serverId, String taskName, String taskType, TaskResultModel result) {
+			this.serverId = serverId;
+			this.taskName = taskName;
+			this.taskType = taskType;
+			this.result = result;
+		}
+
+		String key() {
+			return taskType + "/" + taskName;
+		}
+	}
+}
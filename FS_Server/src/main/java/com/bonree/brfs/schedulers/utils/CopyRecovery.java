@@ -7,7 +7,6 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
 
 import com.bonree.brfs.email.EmailPool;
 import com.bonree.mail.worker.MailWorker;
@@ -24,10 +23,12 @@ import com.bonree.brfs.common.utils.TimeUtils;
 import com.bonree.brfs.common.zookeeper.curator.CuratorClient;
 import com.bonree.brfs.configuration.Configs;
 import com.bonree.brfs.configuration.units.CommonConfigs;
-import com.bonree.brfs.disknode.client.TcpDiskNodeClient;
+import com.bonree.brfs.disknode.DiskContext;
+import com.bonree.brfs.disknode.catalog.FileCatalog;
 import com.bonree.brfs.duplication.storageregion.StorageRegion;
 import com.bonree.brfs.duplication.storageregion.StorageRegionManager;
 import com.bonree.brfs.rebalance.route.SecondIDParser;
+import com.bonree.brfs.rebalance.transfer.FileTransferClient;
 import com.bonree.brfs.schedulers.ManagerContralFactory;
 import com.bonree.brfs.schedulers.jobs.system.CopyCheckJob;
 import com.bonree.brfs.schedulers.task.model.AtomTaskModel;
@@ -200,27 +201,34 @@ public class CopyRecovery {
 		}
 		
 		localPath = "/"+snName + "/" + localIndex + "/" + dirName + "/" + fileName;
-		String localDir = "/"+snName + "/" + localIndex + "/" + dirName+"/";
-		File dir = new File(dataPath + localDir);
-		if(!dir.exists()) {
-			boolean createFlag = dir.mkdirs();
-			LOG.debug("create dir :{}, stat:{}",localDir,createFlag);
-		}
+		// 文件可能在任意一个数据目录中，故障目录中的文件不再查找
+		File localFile = DiskContext.findFile(dataPath, localPath);
 		if(CopyCheckJob.RECOVERY_CRC.equals(operation)) {
-			boolean flag = FileCollection.check(dataPath + localPath);
-			LOG.debug("locaPath : {}, CRCSTATUS: {}", dataPath+localPath, flag);
-			if(flag) {
-				return true;
-			}else {
-				boolean status = FileUtils.deleteFile(dataPath+localPath);
+			if(localFile != null) {
+				boolean flag = FileCollection.check(localFile.getAbsolutePath());
+				LOG.debug("locaPath : {}, CRCSTATUS: {}", localFile, flag);
+				if(flag) {
+					return true;
+				}
+				boolean status = FileUtils.deleteFile(localFile.getAbsolutePath());
+				if(status) {
+					FileCatalog.fileDeleted(localFile.getAbsolutePath());
+				}
 				LOG.warn("{} crc is error!! delete {}", localPath,status);
 			}
-		}else {
-			File file = new File(dataPath + localPath);
-			if(file.exists()){
-				LOG.debug("{} {} is exists, skip",snName, fileName);
-				return true;
-			}
+		}else if(localFile != null){
+			LOG.debug("{} {} is exists, skip",snName, fileName);
+			return true;
+		}
+		localFile = DiskContext.placeFile(dataPath, localPath);
+		if(localFile == null) {
+			LOG.error("no available data dir to recover {}", localPath);
+			return false;
+		}
+		File dir = localFile.getParentFile();
+		if(!dir.exists()) {
+			boolean createFlag = dir.mkdirs();
+			LOG.debug("create dir :{}, stat:{}",dir,createFlag);
 		}
 		remoteIndex = 0;
 		for (String snsid : sss) {
@@ -242,11 +250,12 @@ public class CopyRecovery {
 				continue;
 			}
 			remotePath = "/"+snName + "/" + remoteIndex + "/" + dirName + "/" + fileName;
-			isSuccess = copyFrom(remoteService.getHost(), remoteService.getPort(),remoteService.getExtraPort(),5000, remotePath, dataPath + localPath);
-			LOG.info("remote address [{}: {} ：{}], remote [{}], local [{}], stat [{}]",
-				remoteService.getHost(), remoteService.getPort(), remoteService.getExtraPort(), 
+			isSuccess = copyFrom(remoteService.getHost(), remoteService.getPort(),5000, remotePath, localFile.getAbsolutePath());
+			LOG.info("remote address [{}: {}], remote [{}], local [{}], stat [{}]",
+				remoteService.getHost(), remoteService.getPort(), 
 				remotePath, localPath, isSuccess ? "success" :"fail");
 			if(isSuccess){
+				FileCatalog.fileCreated(localFile.getAbsolutePath());
 				return true;
 			}
 		}
@@ -282,22 +291,18 @@ public class CopyRecovery {
 	 * 概述：恢复数据文件
 	 * @param host 远程主机
 	 * @param port 端口
-	 * @param export
 	 * @param timeout
 	 * @param remotePath
 	 * @param localPath
 	 * @return
 	 * @user <a href=mailto:zhucg@bonree.com>朱成岗</a>
 	 */
-	public static boolean copyFrom(String host, int port,int export,int timeout, String remotePath, String localPath) {
-		TcpDiskNodeClient client = null;
+	public static boolean copyFrom(String host, int port,int timeout, String remotePath, String localPath) {
 		try {
-			client = TcpClientUtils.getClient(host, port, export, timeout);
-			LOG.debug("{}:{},{}:{}, read {} to local {}",host,port,host,export,remotePath,localPath);
-			LocalByteStreamConsumer consumer = new LocalByteStreamConsumer(localPath);
-			client.readFile(remotePath, consumer);
-			return consumer.getResult().get();
-		}catch (InterruptedException | IOException | ExecutionException e) {
+			// 文件传输服务的端口为数据节点端口+20，见RebalanceManager
+			LOG.debug("{}:{}, read {} to local {}",host,port + 20,remotePath,localPath);
+			return FileTransferClient.getInstance().fetchFile(host, port + 20, timeout, remotePath, localPath);
+		}catch (IOException e) {
 			EmailPool emailPool = EmailPool.getInstance();
 			MailWorker.Builder builder = MailWorker.newBuilder(emailPool.getProgramInfo());
 			builder.setModel("collect file execute 模块服务发生问题");
@@ -313,17 +318,6 @@ public class CopyRecovery {
 			emailPool.sendEmail(builder);
 			LOG.error("copy from error {}",e);
 			return false;
-		} finally {
-			if (client != null) {
-				try {
-					client.closeFile(remotePath);
-					client.close();
-				}
-				catch (IOException e) {
-					LOG.error("close error ", e);
-				}
-			}
-			
 		}
 	}
 }
@@ -0,0 +1,132 @@
+package com.bonree.brfs.schedulers.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bonree.brfs.common.write.data.FSCode;
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * 校验数据文件的CRC
+ *
+ * 文件格式为[2字节文件头][内容][8字节CRC][1字节文件尾]，CRC由写入端按CRC32计算，
+ * 校验时通过缓冲区分段读取文件内容，不需要映射整个文件
+ */
+public final class CrcVerifier {
+	private static final Logger LOG = LoggerFactory.getLogger(CrcVerifier.class);
+
+	private static final int HEADER_BYTE = 172;
+	private static final int HEADER_VERSION = 0;
+	private static final int TAILER_BYTE = 218;
+
+	private static final int HEADER_SIZE = 2;
+	private static final int TAILER_SIZE = 9;
+
+	private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	public static boolean verify(File file) {
+		return verify(file, ByteBuffer.allocate(DEFAULT_BUFFER_SIZE), null);
+	}
+
+	/**
+	 * @param buffer 读取文件内容使用的缓冲区
+	 * @param limiter 读取速度的限制，单位为字节，可以为null
+	 */
+	public static boolean verify(File file, ByteBuffer buffer, RateLimiter limiter) {
+		String fileName = file.getName();
+		if(!file.exists()) {
+			LOG.warn("{}: not found!!", fileName);
+			return false;
+		}
+
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long length = channel.size();
+			if(length <= 0) {
+				LOG.warn("{} : is empty", fileName);
+				return false;
+			}
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			readFully(channel, header, 0);
+			if((header.get(0) & 0xFF) != HEADER_BYTE) {
+				LOG.warn("{}: Header byte is error!", fileName);
+				return false;
+			}
+
+			if((header.get(1) & 0xFF) != HEADER_VERSION) {
+				LOG.warn("{}: Header version is error!", fileName);
+				return false;
+			}
+
+			long size = length - TAILER_SIZE - HEADER_SIZE;
+			if(size <= 0) {
+				LOG.warn("{}: No Content", fileName);
+				return false;
+			}
+
+			CRC32 crc = new CRC32();
+			long position = HEADER_SIZE;
+			long end = HEADER_SIZE + size;
+			while(position < end) {
+				buffer.clear();
+				buffer.limit((int) Math.min(buffer.capacity(), end - position));
+				int read = channel.read(buffer, position);
+				if(read < 0) {
+					LOG.warn("{}: unexpected end of file", fileName);
+					return false;
+				}
+
+				if(limiter != null && read > 0) {
+					limiter.acquire(read);
+				}
+
+				buffer.flip();
+				crc.update(buffer);
+				position += read;
+			}
+
+			ByteBuffer tailer = ByteBuffer.allocate(TAILER_SIZE);
+			readFully(channel, tailer, end);
+			byte[] crcBytes = new byte[TAILER_SIZE - 1];
+			tailer.get(crcBytes);
+			LOG.debug("calc crc32 code :{}, save crc32 code :{}", crc.getValue(), FSCode.byteToLong(crcBytes));
+			if(FSCode.byteToLong(crcBytes) != crc.getValue()) {
+				LOG.warn("{}: Tailer CRC is error!", fileName);
+				return false;
+			}
+
+			if((tailer.get() & 0xFF) != TAILER_BYTE) {
+				LOG.warn("{}: Tailer byte is error!", fileName);
+				return false;
+			}
+
+			return true;
+		} catch (IOException e) {
+			LOG.error("check error {}", fileName, e);
+		}
+
+		return false;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while(buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if(read < 0) {
+				throw new IOException("unexpected end of file");
+			}
+
+			position += read;
+		}
+
+		buffer.flip();
+	}
+
+	private CrcVerifier() {}
+}
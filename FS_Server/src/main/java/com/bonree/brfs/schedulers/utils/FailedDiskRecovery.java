@@ -0,0 +1,89 @@
+package com.bonree.brfs.schedulers.utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bonree.brfs.common.task.TaskType;
+import com.bonree.brfs.common.utils.BRFSPath;
+import com.bonree.brfs.common.utils.BrStringUtils;
+import com.bonree.brfs.disknode.DiskHealthChecker.DiskFailureListener;
+import com.bonree.brfs.duplication.storageregion.StorageRegion;
+import com.bonree.brfs.duplication.storageregion.StorageRegionManager;
+import com.bonree.brfs.schedulers.ManagerContralFactory;
+import com.bonree.brfs.schedulers.jobs.system.CopyCheckJob;
+import com.bonree.brfs.schedulers.task.manager.MetaTaskManagerInterface;
+import com.bonree.brfs.schedulers.task.model.AtomTaskModel;
+import com.bonree.brfs.schedulers.task.model.TaskModel;
+
+/**
+ * 数据目录故障后，为其中已经关闭的文件创建只发给本节点的副本数校验任务，
+ * 由{@link CopyRecovery}从其他副本所在的节点把文件复制到可用的数据目录中
+ */
+public class FailedDiskRecovery implements DiskFailureListener {
+	private static final Logger LOG = LoggerFactory.getLogger(FailedDiskRecovery.class);
+
+	@Override
+	public void diskFailed(String dataDir, List<BRFSPath> lostFiles) {
+		if(lostFiles.isEmpty()) {
+			return;
+		}
+
+		ManagerContralFactory mcf = ManagerContralFactory.getInstance();
+		MetaTaskManagerInterface release = mcf.getTm();
+		StorageRegionManager snm = mcf.getSnm();
+		String serverId = mcf.getServerId();
+		if(release == null || snm == null || BrStringUtils.isEmpty(serverId)) {
+			LOG.error("task manager is not ready, [{}] files of data dir[{}] can not be recovered", lostFiles.size(), dataDir);
+			return;
+		}
+
+		// sn -> 时间段的开始时间 -> 文件名
+		Map<String, Map<Long, Set<String>>> snFiles = new HashMap<>();
+		for(BRFSPath path : lostFiles) {
+			snFiles.computeIfAbsent(path.getStorageRegion(), sn -> new TreeMap<>())
+					.computeIfAbsent(path.toTimeMile(), time -> new LinkedHashSet<>())
+					.add(path.getFileName());
+		}
+
+		List<AtomTaskModel> atoms = new ArrayList<>();
+		long granule = 0;
+		for(Entry<String, Map<Long, Set<String>>> entry : snFiles.entrySet()) {
+			StorageRegion sn = snm.findStorageRegionByName(entry.getKey());
+			if(sn == null) {
+				LOG.warn("storage region[{}] is not found, skip its files of data dir[{}]", entry.getKey(), dataDir);
+				continue;
+			}
+
+			granule = Duration.parse(sn.getFilePartitionDuration()).toMillis();
+			for(Entry<Long, Set<String>> files : entry.getValue().entrySet()) {
+				atoms.add(AtomTaskModel.getInstance(files.getValue(), sn.getName(), CopyCheckJob.RECOVERY_NUM,
+						sn.getReplicateNum(), files.getKey(), files.getKey() + granule, granule));
+			}
+		}
+
+		if(atoms.isEmpty()) {
+			return;
+		}
+
+		TaskModel task = TaskModel.getInitInstance(TaskType.SYSTEM_COPY_CHECK, "1", granule);
+		task.putAtom(atoms);
+		String taskName = CreateSystemTask.updateTask(release, task, Collections.singletonList(serverId), TaskType.SYSTEM_COPY_CHECK);
+		if(BrStringUtils.isEmpty(taskName)) {
+			LOG.error("create recovery task for data dir[{}] failed", dataDir);
+			return;
+		}
+
+		LOG.info("create recovery task[{}] for [{}] files of data dir[{}]", taskName, lostFiles.size(), dataDir);
+	}
+}
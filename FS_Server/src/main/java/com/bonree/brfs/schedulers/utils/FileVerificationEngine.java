@@ -0,0 +1,171 @@
+package com.bonree.brfs.schedulers.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bonree.brfs.configuration.Configs;
+import com.bonree.brfs.configuration.units.ResourceConfigs;
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * 数据文件的CRC校验引擎。
+ *
+ * 每块磁盘使用独立的线程池和读取限速，不同磁盘上的文件可以并行校验，
+ * 同时避免校验任务占满单块磁盘的带宽；校验通过的文件记录在{@link VerifyCheckpoint}中，
+ * 在重新校验间隔内不会重复校验
+ */
+public class FileVerificationEngine {
+	private static final Logger LOG = LoggerFactory.getLogger(FileVerificationEngine.class);
+
+	private static final String UNKNOWN_DISK = "unknown";
+	private static final int BUFFER_SIZE = 1024 * 1024;
+
+	private final int workersPerDisk;
+	private final double bytesPerSecond;
+	private final VerifyCheckpoint checkpoint;
+
+	private final ConcurrentHashMap<String, DiskVerifier> disks = new ConcurrentHashMap<String, DiskVerifier>();
+
+	private final ThreadLocal<ByteBuffer> buffers = new ThreadLocal<ByteBuffer>() {
+		@Override
+		protected ByteBuffer initialValue() {
+			return ByteBuffer.allocateDirect(BUFFER_SIZE);
+		}
+	};
+
+	private FileVerificationEngine() {
+		this(Configs.getConfiguration().GetConfig(ResourceConfigs.CONFIG_SYSTEM_CHECK_DISK_WORKERS),
+				Configs.getConfiguration().GetConfig(ResourceConfigs.CONFIG_SYSTEM_CHECK_BANDWIDTH) * 1024L * 1024L,
+				new VerifyCheckpoint(new File(Configs.getConfiguration().GetConfig(ResourceConfigs.CONFIG_SYSTEM_CHECK_CHECKPOINT)),
+						TimeUnit.SECONDS.toMillis(Configs.getConfiguration().GetConfig(ResourceConfigs.CONFIG_SYSTEM_CHECK_REVERIFY_INTERVAL))));
+	}
+
+	/**
+	 * @param bytesPerSecond 每块磁盘的读取速度上限，小于等于0时不限制
+	 */
+	FileVerificationEngine(int workersPerDisk, long bytesPerSecond, VerifyCheckpoint checkpoint) {
+		this.workersPerDisk = Math.max(1, workersPerDisk);
+		this.bytesPerSecond = bytesPerSecond;
+		this.checkpoint = checkpoint;
+	}
+
+	public static FileVerificationEngine getInstance() {
+		return Holder.engine;
+	}
+
+	private static class Holder {
+		private final static FileVerificationEngine engine = new FileVerificationEngine();
+	}
+
+	/**
+	 * 校验文件，返回校验失败的文件
+	 */
+	public List<File> verify(List<File> files) {
+		long now = System.currentTimeMillis();
+		Map<String, String> diskOfDirs = new HashMap<String, String>();
+		List<Future<File>> futures = new ArrayList<Future<File>>();
+		int skipped = 0;
+		for(File file : files) {
+			if(checkpoint.isVerified(file, now)) {
+				skipped++;
+				continue;
+			}
+
+			String dir = file.getParent();
+			String disk = diskOfDirs.get(dir);
+			if(disk == null) {
+				disk = diskOf(file);
+				diskOfDirs.put(dir, disk);
+			}
+
+			DiskVerifier verifier = getDiskVerifier(disk);
+			futures.add(verifier.executor.submit(() -> {
+				if(CrcVerifier.verify(file, buffers.get(), verifier.limiter)) {
+					checkpoint.markVerified(file, now);
+					return null;
+				}
+
+				checkpoint.remove(file);
+				return file;
+			}));
+		}
+
+		List<File> failed = new ArrayList<File>();
+		for(Future<File> future : futures) {
+			try {
+				File file = future.get();
+				if(file != null) {
+					failed.add(file);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				LOG.warn("file verification is interrupted");
+				futures.forEach(f -> f.cancel(true));
+				break;
+			} catch (ExecutionException e) {
+				LOG.error("verify file error", e.getCause());
+			}
+		}
+
+		checkpoint.save(now);
+		LOG.info("verify files total[{}], skipped[{}], failed[{}]", files.size(), skipped, failed.size());
+
+		return failed;
+	}
+
+	private DiskVerifier getDiskVerifier(String disk) {
+		DiskVerifier verifier = disks.get(disk);
+		if(verifier == null) {
+			DiskVerifier created = new DiskVerifier(disk);
+			verifier = disks.putIfAbsent(disk, created);
+			if(verifier == null) {
+				verifier = created;
+			} else {
+				created.executor.shutdown();
+			}
+		}
+
+		return verifier;
+	}
+
+	/**
+	 * 以文件所在的文件系统区分不同的磁盘
+	 */
+	private static String diskOf(File file) {
+		try {
+			return Files.getFileStore(file.toPath()).name();
+		} catch (IOException e) {
+			LOG.warn("can not get file store of [{}]", file, e);
+			return UNKNOWN_DISK;
+		}
+	}
+
+	private class DiskVerifier {
+		private final ExecutorService executor;
+		private final RateLimiter limiter;
+
+		DiskVerifier(String disk) {
+			this.executor = Executors.newFixedThreadPool(workersPerDisk, r -> {
+				Thread thread = new Thread(r, "file_verifier_" + disk);
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.limiter = bytesPerSecond > 0 ? RateLimiter.create(bytesPerSecond) : null;
+		}
+	}
+}
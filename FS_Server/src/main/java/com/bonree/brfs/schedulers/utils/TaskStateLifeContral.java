@@ -4,6 +4,8 @@ import java.util.*;
 
 import com.bonree.brfs.common.files.impl.BRFSTimeFilter;
 import com.bonree.brfs.common.utils.*;
+import com.bonree.brfs.disknode.DiskContext;
+import com.bonree.brfs.disknode.catalog.FileCatalog;
 import org.quartz.JobDataMap;
 import org.quartz.JobExecutionContext;
 import org.slf4j.Logger;
@@ -235,8 +237,14 @@ public class TaskStateLifeContral {
 
             map = new HashMap<>();
             map.put(BRFSPath.STORAGEREGION,snName);
-            List<BRFSPath> dirPaths = BRFSFileUtil.scanBRFSFiles(dataPath,map,map.size(), new BRFSTimeFilter(startTime, endTime));
-            if(dirPaths == null || dirPaths.isEmpty()){
+            List<BRFSPath> dirPaths = new ArrayList<>();
+            for(String dataDir : DiskContext.dataDirsOf(dataPath)){
+                List<BRFSPath> paths = FileCatalog.scanBRFSFiles(dataDir,map,map.size(), new BRFSTimeFilter(startTime, endTime));
+                if(paths != null){
+                    dirPaths.addAll(paths);
+                }
+            }
+            if(dirPaths.isEmpty()){
                 LOG.debug("It's no dir to take task [{}]:[{}]-[{}]",snName,TimeUtils.timeInterval(startTime,granule),TimeUtils.timeInterval(endTime,granule));
                 continue;
             }
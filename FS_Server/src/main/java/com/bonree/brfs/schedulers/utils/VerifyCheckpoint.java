@@ -0,0 +1,153 @@
+package com.bonree.brfs.schedulers.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 记录文件最近一次校验通过的时间。
+ *
+ * 每行格式为[文件长度 修改时间 校验时间 文件路径]，文件长度或修改时间变化、
+ * 或者距上次校验超过指定间隔的文件需要重新校验
+ */
+public class VerifyCheckpoint {
+	private static final Logger LOG = LoggerFactory.getLogger(VerifyCheckpoint.class);
+
+	private final File checkpointFile;
+	private final long reverifyInterval;
+
+	private final Map<String, Entry> entries = new HashMap<String, Entry>();
+	private boolean dirty;
+
+	/**
+	 * @param reverifyInterval 重新校验的时间间隔，单位毫秒
+	 */
+	public VerifyCheckpoint(File checkpointFile, long reverifyInterval) {
+		this.checkpointFile = checkpointFile;
+		this.reverifyInterval = reverifyInterval;
+		load();
+	}
+
+	private void load() {
+		if(!checkpointFile.exists()) {
+			return;
+		}
+
+		try(BufferedReader reader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(checkpointFile), StandardCharsets.UTF_8))) {
+			String line;
+			while((line = reader.readLine()) != null) {
+				String[] parts = line.split(" ", 4);
+				if(parts.length != 4) {
+					continue;
+				}
+
+				try {
+					entries.put(parts[3], new Entry(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2])));
+				} catch (NumberFormatException e) {
+					LOG.warn("ignore invalid checkpoint entry[{}]", line);
+				}
+			}
+		} catch (IOException e) {
+			LOG.error("load verify checkpoint[{}] error", checkpointFile, e);
+		}
+	}
+
+	/**
+	 * 文件在校验间隔内已经校验通过，并且之后没有被修改
+	 */
+	public synchronized boolean isVerified(File file, long now) {
+		Entry entry = entries.get(file.getAbsolutePath());
+		if(entry == null) {
+			return false;
+		}
+
+		return now - entry.verifiedAt < reverifyInterval
+				&& entry.length == file.length()
+				&& entry.lastModified == file.lastModified();
+	}
+
+	public synchronized void markVerified(File file, long now) {
+		entries.put(file.getAbsolutePath(), new Entry(file.length(), file.lastModified(), now));
+		dirty = true;
+	}
+
+	public synchronized void remove(File file) {
+		if(entries.remove(file.getAbsolutePath()) != null) {
+			dirty = true;
+		}
+	}
+
+	/**
+	 * 清除过期的记录后写入文件，先写临时文件再替换，避免写入中断导致记录丢失
+	 */
+	public synchronized void save(long now) {
+		Iterator<Entry> iter = entries.values().iterator();
+		while(iter.hasNext()) {
+			if(now - iter.next().verifiedAt >= reverifyInterval) {
+				iter.remove();
+				dirty = true;
+			}
+		}
+
+		if(!dirty) {
+			return;
+		}
+
+		File dir = checkpointFile.getAbsoluteFile().getParentFile();
+		if(!dir.exists()) {
+			dir.mkdirs();
+		}
+
+		File tempFile = new File(dir, checkpointFile.getName() + ".tmp");
+		try(BufferedWriter writer = new BufferedWriter(
+				new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8))) {
+			for(Map.Entry<String, Entry> item : entries.entrySet()) {
+				Entry entry = item.getValue();
+				writer.write(entry.length + " " + entry.lastModified + " " + entry.verifiedAt + " " + item.getKey());
+				writer.newLine();
+			}
+		} catch (IOException e) {
+			LOG.error("write verify checkpoint[{}] error", tempFile, e);
+			tempFile.delete();
+			return;
+		}
+
+		try {
+			Files.move(tempFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			dirty = false;
+		} catch (IOException e) {
+			LOG.error("replace verify checkpoint[{}] error", checkpointFile, e);
+		}
+	}
+
+	synchronized int size() {
+		return entries.size();
+	}
+
+	private static class Entry {
+		private final long length;
+		private final long lastModified;
+		private final long verifiedAt;
+
+		Entry(long length, long lastModified, long verifiedAt) {
+			this.length = length;
+			this.lastModified = lastModified;
+			this.verifiedAt = verifiedAt;
+		}
+	}
+}
@@ -8,7 +8,6 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
-import com.bonree.brfs.common.utils.BRFSFileUtil;
 import com.bonree.brfs.common.utils.BRFSPath;
 import com.bonree.brfs.schedulers.ManagerContralFactory;
 import org.slf4j.Logger;
@@ -17,6 +16,8 @@ import org.slf4j.LoggerFactory;
 import com.bonree.brfs.common.utils.BrStringUtils;
 import com.bonree.brfs.common.utils.FileUtils;
 import com.bonree.brfs.common.zookeeper.curator.CuratorClient;
+import com.bonree.brfs.disknode.DiskContext;
+import com.bonree.brfs.disknode.catalog.FileCatalog;
 import com.bonree.brfs.duplication.storageregion.StorageRegion;
 import com.bonree.brfs.rebalance.route.SecondIDParser;
 import com.bonree.brfs.schedulers.jobs.biz.WatchSomeThingJob;
@@ -85,12 +86,14 @@ public class WatchDog{
             parser.updateRoute();
             snMap = new HashMap<>();
 			snMap.put(BRFSPath.STORAGEREGION,sn.getName());
-            List<BRFSPath> sfiles = BRFSFileUtil.scanBRFSFiles(dataPath,snMap,snMap.size(), new BRFSDogFoodsFilter(sim,parser,sn,snLimitTime));
-            if(sfiles == null || sfiles.isEmpty()){
-                continue;
-            }
-            for(BRFSPath brfsPath : sfiles){
-                preys.add(dataPath+FileUtils.FILE_SEPARATOR+brfsPath.toString());
+            for(String dataDir : DiskContext.dataDirsOf(dataPath)){
+                List<BRFSPath> sfiles = FileCatalog.scanBRFSFiles(dataDir,snMap,snMap.size(), new BRFSDogFoodsFilter(sim,parser,sn,snLimitTime));
+                if(sfiles == null || sfiles.isEmpty()){
+                    continue;
+                }
+                for(BRFSPath brfsPath : sfiles){
+                    preys.add(dataDir+FileUtils.FILE_SEPARATOR+brfsPath.toString());
+                }
             }
 
 		}
@@ -112,6 +115,9 @@ public class WatchDog{
 						try {
 							path = preys.poll();
 							boolean deleteFlag = FileUtils.deleteFile(path);
+							if(deleteFlag) {
+								FileCatalog.fileDeleted(path);
+							}
 							LOG.debug("file : {} deleting!",path);
 							if(!deleteFlag) {
 								LOG.info("file : {} cann't delete !!!",path);
@@ -28,6 +28,7 @@ import com.bonree.brfs.duplication.storageregion.impl.DefaultStorageRegionManage
 import com.bonree.brfs.rebalance.RebalanceManager;
 import com.bonree.brfs.rebalance.task.ServerChangeTaskGenetor;
 import com.bonree.brfs.schedulers.InitTaskManager;
+import com.bonree.brfs.schedulers.utils.FailedDiskRecovery;
 import com.bonree.brfs.server.identification.ServerIDManager;
 
 public class ServerMain {
@@ -92,6 +93,7 @@ public class ServerMain {
 //            finalizer.add(diskMain);
             
             DataNodeBootStrap dataNodeBootStrap = new DataNodeBootStrap(sm);
+            dataNodeBootStrap.setDiskFailureListener(new FailedDiskRecovery());
             dataNodeBootStrap.start();
             
             finalizer.add(dataNodeBootStrap);
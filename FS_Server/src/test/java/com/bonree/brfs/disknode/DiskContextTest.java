@@ -0,0 +1,100 @@
+package com.bonree.brfs.disknode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class DiskContextTest {
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if(children != null) {
+			for(File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	@Test
+	public void placeAndLocate() throws Exception {
+		File root = Files.createTempDirectory("disk_context").toFile();
+		File disk1 = new File(root, "disk1");
+		File disk2 = new File(root, "disk2");
+		disk1.mkdirs();
+		disk2.mkdirs();
+
+		DiskContext context = new DiskContext(Arrays.asList(disk1.getPath(), disk2.getPath()));
+
+		// 写入队列短的磁盘优先
+		String path = context.placeFile("/region/1/file_1", 0, dir -> dir.equals(disk1.getAbsolutePath()) ? 100 : 0);
+		assertEquals(new File(disk2, "/region/1/file_1").getAbsolutePath(), path);
+		assertEquals(path, context.getConcreteFilePath("/region/1/file_1"));
+		assertEquals("/region/1/file_1", context.getLogicFilePath(path));
+
+		// 已经存在的文件不会重新选择磁盘
+		File existed = new File(disk1, "/region/1/file_2");
+		existed.getParentFile().mkdirs();
+		existed.createNewFile();
+		assertEquals(existed.getAbsolutePath(), context.placeFile("/region/1/file_2", 0, dir -> 0));
+		assertEquals(existed.getAbsolutePath(), new DiskContext(Arrays.asList(disk1.getPath(), disk2.getPath()))
+				.getConcreteFilePath("/region/1/file_2"));
+
+		// 故障磁盘上的文件不再可见，新文件放到其他磁盘
+		context.markFailed(disk2.getAbsolutePath());
+		assertEquals(1, context.getAvailableDataDirs().size());
+		assertEquals(new File(disk1, "/region/1/file_1").getAbsolutePath(), context.getConcreteFilePath("/region/1/file_1"));
+		assertEquals(new File(disk1, "/region/1/file_3").getAbsolutePath(), context.placeFile("/region/1/file_3", 0, dir -> 0));
+
+		context.markFailed(disk1.getAbsolutePath());
+		assertNull(context.placeFile("/region/1/file_4", 0, dir -> 0));
+
+		// 恢复的磁盘重新参与选择
+		context.markRecovered(disk2.getAbsolutePath());
+		assertEquals(Arrays.asList(disk2.getAbsolutePath()), context.getAvailableDataDirs());
+		assertEquals(new File(disk2, "/region/1/file_4").getAbsolutePath(), context.placeFile("/region/1/file_4", 0, dir -> 0));
+
+		delete(root);
+	}
+
+	@Test
+	public void expandDataRoot() throws Exception {
+		File root = Files.createTempDirectory("disk_context").toFile();
+		File disk1 = new File(root, "disk1");
+		File disk2 = new File(root, "disk2");
+		disk1.mkdirs();
+		disk2.mkdirs();
+
+		File existed = new File(disk2, "/region/1/file_1");
+		existed.getParentFile().mkdirs();
+		existed.createNewFile();
+
+		// 没有注册时只有数据根目录本身
+		assertEquals(Arrays.asList(disk1.getPath()), DiskContext.dataDirsOf(disk1.getPath()));
+		assertNull(DiskContext.findFile(disk1.getPath(), "/region/1/file_1"));
+
+		DiskContext context = new DiskContext(Arrays.asList(disk1.getPath(), disk2.getPath()));
+		DiskContext.register(context);
+		try {
+			assertEquals(context.getDataDirs(), DiskContext.dataDirsOf(disk1.getPath()));
+			assertEquals(existed.getAbsolutePath(), DiskContext.findFile(disk1.getPath(), "/region/1/file_1").getAbsolutePath());
+			assertEquals(existed.getAbsolutePath(), DiskContext.placeFile(disk1.getPath(), "/region/1/file_1").getAbsolutePath());
+
+			// 故障目录中的文件不再可见，复制过来的文件放到可用的目录
+			context.markFailed(disk2.getAbsolutePath());
+			assertEquals(Arrays.asList(disk1.getAbsolutePath()), DiskContext.dataDirsOf(disk1.getPath()));
+			assertNull(DiskContext.findFile(disk1.getPath(), "/region/1/file_1"));
+			assertTrue(DiskContext.placeFile(disk1.getPath(), "/region/1/file_1").getPath().startsWith(disk1.getAbsolutePath()));
+		} finally {
+			DiskContext.unregister(context);
+		}
+
+		delete(root);
+	}
+}
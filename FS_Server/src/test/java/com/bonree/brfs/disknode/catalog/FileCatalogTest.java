@@ -0,0 +1,96 @@
+package com.bonree.brfs.disknode.catalog;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.bonree.brfs.common.utils.BRFSFileUtil;
+import com.bonree.brfs.common.utils.BRFSPath;
+import com.bonree.brfs.common.utils.FileUtils;
+
+public class FileCatalogTest {
+	private File baseDir;
+	private File dataDir;
+	private File catalogDir;
+
+	@Before
+	public void setUp() throws IOException {
+		baseDir = Files.createTempDirectory("catalog").toFile();
+		dataDir = new File(baseDir, "data");
+		catalogDir = new File(baseDir, "catalog");
+
+		createFile("sn/1/2019/03/01/00_00_00/file_a");
+		createFile("sn/1/2019/03/01/00_00_00/file_a.rd");
+		new File(dataDir, "sn/1/2019/03/01/01_00_00").mkdirs();
+	}
+
+	@After
+	public void tearDown() {
+		FileUtils.deleteDir(baseDir.getAbsolutePath(), true);
+	}
+
+	private File createFile(String path) throws IOException {
+		File file = new File(dataDir, path);
+		file.getParentFile().mkdirs();
+		file.createNewFile();
+		return file;
+	}
+
+	private static List<String> paths(List<BRFSPath> files) {
+		List<String> paths = new ArrayList<String>();
+		for(BRFSPath file : files) {
+			paths.add(file.toString());
+		}
+
+		Collections.sort(paths);
+		return paths;
+	}
+
+	@Test
+	public void testUpdateAndReload() throws Exception {
+		FileCatalog catalog = new FileCatalog(dataDir.getAbsolutePath(), catalogDir.getAbsolutePath(), 100);
+		catalog.start();
+		assertEquals(paths(BRFSFileUtil.scanFile(dataDir.getAbsolutePath(), "sn")),
+				paths(FileCatalog.scanFile(dataDir.getAbsolutePath(), "sn")));
+
+		File added = createFile("sn/1/2019/03/01/02_00_00/file_b");
+		FileCatalog.fileCreated(added.getAbsolutePath());
+		File removed = new File(dataDir, "sn/1/2019/03/01/00_00_00/file_a");
+		removed.delete();
+		FileCatalog.fileDeleted(removed.getAbsolutePath());
+
+		List<String> expected = paths(BRFSFileUtil.scanFile(dataDir.getAbsolutePath(), "sn"));
+		assertEquals(expected, paths(FileCatalog.scanFile(dataDir.getAbsolutePath(), "sn")));
+		catalog.stop();
+
+		catalog = new FileCatalog(dataDir.getAbsolutePath(), catalogDir.getAbsolutePath(), 100);
+		catalog.start();
+		assertEquals(expected, paths(FileCatalog.scanFile(dataDir.getAbsolutePath(), "sn")));
+		catalog.stop();
+	}
+
+	@Test
+	public void testRebuildCorruptedSnapshot() throws Exception {
+		FileCatalog catalog = new FileCatalog(dataDir.getAbsolutePath(), catalogDir.getAbsolutePath(), 100);
+		catalog.start();
+		catalog.stop();
+
+		Files.write(new File(catalogDir, "catalog.snapshot").toPath(), "broken".getBytes());
+		createFile("sn/1/2019/03/01/03_00_00/file_c");
+
+		catalog = new FileCatalog(dataDir.getAbsolutePath(), catalogDir.getAbsolutePath(), 100);
+		catalog.start();
+		assertEquals(paths(BRFSFileUtil.scanFile(dataDir.getAbsolutePath(), "sn")),
+				paths(FileCatalog.scanFile(dataDir.getAbsolutePath(), "sn")));
+		catalog.stop();
+	}
+}
@@ -0,0 +1,67 @@
+package com.bonree.brfs.disknode.data.read;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.bonree.brfs.common.write.data.FileDecoder;
+import com.bonree.brfs.common.write.data.FileEncoder;
+
+public class RecordStreamDecoderTest {
+
+	@Test
+	public void splitRecords() throws Exception {
+		Random random = new Random(5);
+		List<byte[]> datas = new ArrayList<byte[]>();
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		for(int i = 0; i < 200; i++) {
+			byte[] data = new byte[1 + random.nextInt(i % 10 == 0 ? 40000 : 300)];
+			random.nextBytes(data);
+			datas.add(data);
+			stream.write(FileEncoder.contents(0, data));
+		}
+		byte[] bytes = stream.toByteArray();
+
+		// 按随机大小的片段到达
+		RecordStreamDecoder decoder = new RecordStreamDecoder(16);
+		List<byte[]> records = new ArrayList<byte[]>();
+		int consumed = 0;
+		for(int pos = 0; pos < bytes.length;) {
+			int length = Math.min(bytes.length - pos, 1 + random.nextInt(5000));
+			decoder.append(Arrays.copyOfRange(bytes, pos, pos + length));
+			pos += length;
+
+			consumed += decoder.drain((data, offset, size) -> records.add(Arrays.copyOfRange(data, offset, offset + size)));
+		}
+
+		assertEquals(bytes.length, consumed);
+		assertEquals(0, decoder.remaining());
+		assertEquals(datas.size(), records.size());
+		for(int i = 0; i < datas.size(); i++) {
+			assertArrayEquals(datas.get(i), FileDecoder.data(records.get(i)));
+		}
+	}
+
+	@Test
+	public void keepIncompleteRecord() throws Exception {
+		byte[] record = FileEncoder.contents(0, new byte[1000]);
+		RecordStreamDecoder decoder = new RecordStreamDecoder(16);
+
+		decoder.append(Arrays.copyOf(record, 1));
+		assertEquals(0, decoder.drain((data, offset, size) -> {}));
+		decoder.append(Arrays.copyOfRange(record, 1, record.length - 1));
+		assertEquals(0, decoder.drain((data, offset, size) -> {}));
+		assertEquals(record.length - 1, decoder.remaining());
+
+		decoder.append(Arrays.copyOfRange(record, record.length - 1, record.length));
+		assertEquals(record.length, decoder.drain((data, offset, size) -> {}));
+		assertEquals(0, decoder.remaining());
+	}
+}
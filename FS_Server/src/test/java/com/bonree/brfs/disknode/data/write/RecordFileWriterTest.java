@@ -0,0 +1,163 @@
+package com.bonree.brfs.disknode.data.write;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.bonree.brfs.common.data.utils.CompressType;
+import com.bonree.brfs.common.net.tcp.file.FileTail;
+import com.bonree.brfs.common.utils.ByteUtils;
+import com.bonree.brfs.common.write.data.FileEncoder;
+import com.bonree.brfs.disknode.data.write.buf.ByteArrayFileBuffer;
+import com.bonree.brfs.disknode.data.write.record.RecordCollectionManager;
+import com.bonree.brfs.disknode.fileformat.impl.SimpleFileFormater;
+
+public class RecordFileWriterTest {
+	private static final byte[] HEADER = new byte[] {(byte) 0xAC, 0};
+
+	private RecordCollectionManager recordManager = new RecordCollectionManager();
+	private Random random = new Random(11);
+
+	private RecordFileWriter open(File dataFile, boolean append) throws IOException {
+		return new RecordFileWriter(recordManager.getRecordCollection(dataFile, append, 1024, false),
+				new BufferedFileWriter(dataFile, append, new ByteArrayFileBuffer(4096)));
+	}
+
+	private byte[] write(RecordFileWriter writer, int count) throws IOException {
+		byte[] all = new byte[0];
+		for(int i = 0; i < count; i++) {
+			byte[] bytes = new byte[1 + random.nextInt(3000)];
+			random.nextBytes(bytes);
+			writer.write(bytes);
+
+			int length = all.length;
+			all = Arrays.copyOf(all, length + bytes.length);
+			System.arraycopy(bytes, 0, all, length, bytes.length);
+		}
+
+		return all;
+	}
+
+	private static long bodyCrc(File dataFile) throws IOException {
+		byte[] bytes = Files.readAllBytes(dataFile.toPath());
+		return ByteUtils.crc(bytes, HEADER.length, bytes.length - HEADER.length);
+	}
+
+	@Test
+	public void encodedWrite() throws Exception {
+		File dir = Files.createTempDirectory("record_writer").toFile();
+		File dataFile = new File(dir, "data_1");
+		SimpleFileFormater formater = new SimpleFileFormater(1024 * 1024);
+
+		RecordFileWriter writer = open(dataFile, false);
+		writer.write(HEADER);
+
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		expected.write(HEADER);
+		// 最后一条数据超过缓存大小，会直接写入文件
+		for(int size : new int[] {1, 300, 3000, 100, 5000}) {
+			byte[] bytes = new byte[size];
+			random.nextBytes(bytes);
+			for(CompressType type : new CompressType[] {CompressType.NONE, CompressType.GZIP}) {
+				writer.write(formater.formatData(type.code(), bytes));
+				expected.write(FileEncoder.contents(type.code(), bytes));
+			}
+		}
+		writer.flush();
+
+		assertArrayEquals(expected.toByteArray(), Files.readAllBytes(dataFile.toPath()));
+		assertEquals(bodyCrc(dataFile), writer.bodyCrc());
+		writer.close();
+
+		// 通过写入记录恢复的CRC码也要一致
+		writer = open(dataFile, true);
+		assertEquals(bodyCrc(dataFile), writer.bodyCrc());
+		writer.close();
+	}
+
+	@Test
+	public void runningCrc() throws IOException {
+		File dir = Files.createTempDirectory("record_writer").toFile();
+		File dataFile = new File(dir, "data_1");
+
+		RecordFileWriter writer = open(dataFile, false);
+		writer.write(HEADER);
+		assertEquals(0, writer.bodyCrc());
+
+		byte[] body = write(writer, 50);
+		writer.flush();
+		assertEquals(ByteUtils.crc(body), writer.bodyCrc());
+		assertEquals(bodyCrc(dataFile), writer.bodyCrc());
+		writer.close();
+
+		// 重启后通过写入记录恢复CRC码
+		writer = open(dataFile, true);
+		write(writer, 10);
+		writer.flush();
+		assertEquals(bodyCrc(dataFile), writer.bodyCrc());
+
+		// 回退写入位置后重新写入
+		long position = writer.position();
+		write(writer, 3);
+		writer.flush();
+		writer.position(position);
+		write(writer, 2);
+		writer.flush();
+		assertEquals(bodyCrc(dataFile), writer.bodyCrc());
+
+		// 回退到不在记录边界上的位置时无法计算
+		writer.position(writer.position() - 1);
+		assertEquals(-1, writer.bodyCrc());
+		writer.close();
+
+		for(File file : dir.listFiles()) {
+			file.delete();
+		}
+		dir.delete();
+	}
+
+	@Test
+	public void readUnflushedTail() throws IOException {
+		File dir = Files.createTempDirectory("record_writer").toFile();
+		File dataFile = new File(dir, "data_2");
+
+		RecordFileWriter writer = open(dataFile, false);
+		writer.write(HEADER);
+		writer.flush();
+
+		byte[] bytes = new byte[1000];
+		random.nextBytes(bytes);
+		writer.write(bytes);
+		assertEquals(HEADER.length, dataFile.length());
+
+		// 数据还在缓存中
+		FileTail tail = writer.readTail(0, 100 + HEADER.length);
+		assertEquals(HEADER.length, tail.flushedLength());
+		assertEquals(HEADER.length + bytes.length, tail.length());
+		assertEquals(HEADER.length, tail.offset());
+		assertArrayEquals(Arrays.copyOf(bytes, 100), tail.bytes());
+
+		tail = writer.readTail(HEADER.length + 900, 500);
+		assertArrayEquals(Arrays.copyOfRange(bytes, 900, 1000), tail.bytes());
+
+		// 刷盘后缓存中没有数据
+		writer.flush();
+		tail = writer.readTail(0, 2000);
+		assertEquals(HEADER.length + bytes.length, tail.flushedLength());
+		assertEquals(0, tail.bytes().length);
+		writer.close();
+
+		for(File file : dir.listFiles()) {
+			file.delete();
+		}
+		dir.delete();
+	}
+}
@@ -0,0 +1,95 @@
+package com.bonree.brfs.duplication.datastream.dataengine.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class RingBufferDataPoolTest {
+	
+	private static DataObject data(int length) {
+		return new DataObject() {
+			
+			@Override
+			public int length() {
+				return length;
+			}
+			
+			@Override
+			public byte[] getBytes() {
+				return new byte[length];
+			}
+			
+			@Override
+			public void processComplete(String result) {
+			}
+		};
+	}
+	
+	@Test
+	public void testDrainStopsAtRejectedData() throws Exception {
+		RingBufferDataPool pool = new RingBufferDataPool(8);
+		for(int i = 1; i <= 5; i++) {
+			pool.put(data(i));
+		}
+		
+		List<DataObject> dataList = new ArrayList<DataObject>();
+		int[] capacity = {6};
+		int count = pool.drainTo(dataList, d -> {
+			if(d.length() > capacity[0]) {
+				return false;
+			}
+			
+			capacity[0] -= d.length();
+			return true;
+		});
+		
+		assertEquals(3, count);
+		assertEquals(2, pool.size());
+		assertEquals(4, pool.peek().length());
+		assertEquals(4, pool.take().length());
+		assertEquals(5, pool.take().length());
+		assertTrue(pool.isEmpty());
+		assertNull(pool.peek());
+	}
+	
+	@Test
+	public void testMultiProducers() throws Exception {
+		RingBufferDataPool pool = new RingBufferDataPool(16);
+		int producerNum = 4;
+		int countPerProducer = 10000;
+		
+		CountDownLatch latch = new CountDownLatch(producerNum);
+		for(int i = 0; i < producerNum; i++) {
+			new Thread(() -> {
+				try {
+					for(int j = 0; j < countPerProducer; j++) {
+						pool.put(data(1));
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					latch.countDown();
+				}
+			}).start();
+		}
+		
+		long total = 0;
+		List<DataObject> dataList = new ArrayList<DataObject>();
+		while(total < producerNum * countPerProducer) {
+			dataList.add(pool.take());
+			pool.drainTo(dataList, d -> true);
+			total += dataList.size();
+			dataList.clear();
+		}
+		
+		latch.await();
+		assertEquals(producerNum * countPerProducer, total);
+		assertTrue(pool.isEmpty());
+	}
+}
@@ -0,0 +1,59 @@
+package com.bonree.brfs.duplication.datastream.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.bonree.brfs.duplication.filenode.FileNode;
+
+public class FileFreeSpaceIndexTest {
+
+	private static FileObject file(String name, long length) {
+		FileObject file = new FileObject(FileNode.newBuilder().setName(name).setCapacity(1000).build());
+		file.setLength(length);
+		return file;
+	}
+
+	@Test
+	public void bestFit() {
+		FileFreeSpaceIndex index = new FileFreeSpaceIndex();
+		FileObject f1 = file("f1", 100);
+		FileObject f2 = file("f2", 500);
+		FileObject f3 = file("f3", 500);
+		FileObject f4 = file("f4", 900);
+		index.add(f1);
+		index.add(f2);
+		index.add(f3);
+		index.add(f4);
+
+		assertSame(f4, index.first());
+		assertEquals(900, index.maxFree());
+		assertSame(f4, index.bestFit(100));
+		assertSame(f2, index.bestFit(101));
+		assertSame(f1, index.bestFit(501));
+		assertNull(index.bestFit(901));
+
+		index.remove(f2);
+		assertSame(f3, index.bestFit(101));
+		assertEquals(3, index.size());
+	}
+
+	@Test
+	public void updateFree() {
+		FileFreeSpaceIndex index = new FileFreeSpaceIndex();
+		FileObject f1 = file("f1", 0);
+		FileObject f2 = file("f2", 200);
+		index.add(f1);
+		index.add(f2);
+
+		f1.apply(500);
+		assertSame(f2, index.bestFit(600));
+
+		index.update(f1);
+		assertSame(f1, index.bestFit(400));
+		assertNull(index.bestFit(900));
+		assertEquals(800, index.maxFree());
+	}
+}
@@ -0,0 +1,61 @@
+package com.bonree.brfs.rebalance.recover;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class RecoverExecutorTest {
+
+	@Test
+	public void limitConcurrency() throws InterruptedException {
+		RecoverExecutor executor = new RecoverExecutor("test_recover", 8, 2, 3, 10);
+		ConcurrentHashMap<String, AtomicInteger> running = new ConcurrentHashMap<String, AtomicInteger>();
+		AtomicInteger maxDisk = new AtomicInteger();
+		AtomicInteger maxNode = new AtomicInteger();
+		AtomicInteger executed = new AtomicInteger();
+
+		for(int i = 0; i < 200; i++) {
+			String disk = "disk" + (i % 3);
+			String node = "node" + (i % 2);
+			executor.submit(disk, node, () -> {
+				int diskCount = running.computeIfAbsent(disk, k -> new AtomicInteger()).incrementAndGet();
+				int nodeCount = running.computeIfAbsent(node, k -> new AtomicInteger()).incrementAndGet();
+				maxDisk.accumulateAndGet(diskCount, Math::max);
+				maxNode.accumulateAndGet(nodeCount, Math::max);
+				Thread.sleep(1);
+				running.get(node).decrementAndGet();
+				running.get(disk).decrementAndGet();
+				executed.incrementAndGet();
+			});
+		}
+
+		executor.finish();
+		assertEquals(200, executed.get());
+		assertEquals(200, executor.getCompletedCount());
+		assertTrue(maxDisk.get() <= 2);
+		assertTrue(maxNode.get() <= 3);
+	}
+
+	@Test
+	public void stealFromBusyPartition() throws InterruptedException {
+		// 所有任务都在一个分区中，空闲的线程也能执行
+		RecoverExecutor executor = new RecoverExecutor("test_recover", 4, 4, 4, 100);
+		AtomicInteger concurrent = new AtomicInteger();
+		AtomicInteger max = new AtomicInteger();
+		for(int i = 0; i < 40; i++) {
+			executor.submit("disk", "node", () -> {
+				max.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+				Thread.sleep(5);
+				concurrent.decrementAndGet();
+			});
+		}
+
+		executor.finish();
+		assertEquals(40, executor.getCompletedCount());
+		assertTrue(max.get() > 1);
+	}
+}
@@ -0,0 +1,143 @@
+package com.bonree.brfs.rebalance.transfer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.bonree.brfs.common.utils.FileUtils;
+
+public class FileTransferTest {
+	private File baseDir;
+	private File serverDir;
+	private File clientDir;
+	private int port;
+
+	private SimpleFileServer server;
+	private Thread serverThread;
+	private FileTransferClient client;
+
+	@Before
+	public void setUp() throws IOException {
+		baseDir = Files.createTempDirectory("transfer").toFile();
+		serverDir = new File(baseDir, "server");
+		clientDir = new File(baseDir, "client");
+		serverDir.mkdirs();
+		clientDir.mkdirs();
+
+		try(ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+
+		server = new SimpleFileServer(port, serverDir.getAbsolutePath(), 4);
+		serverThread = new Thread(server::start);
+		serverThread.start();
+		client = new FileTransferClient(60 * 1000);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		client.close();
+		server.close();
+		serverThread.join();
+		FileUtils.deleteDir(baseDir.getAbsolutePath(), true);
+	}
+
+	private static byte[] createFile(File file, int size) throws IOException {
+		byte[] bytes = new byte[size];
+		new Random(size).nextBytes(bytes);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), bytes);
+		return bytes;
+	}
+
+	@Test
+	public void sendFiles() throws IOException {
+		byte[] first = createFile(new File(clientDir, "a"), 3 * 1024 * 1024 + 11);
+		byte[] second = createFile(new File(clientDir, "b"), 100);
+
+		client.sendFile("127.0.0.1", port, new File(clientDir, "a").getPath(), "/sn/1", "a");
+		client.sendFile("127.0.0.1", port, new File(clientDir, "b").getPath(), "/sn/1", "b");
+		assertArrayEquals(first, Files.readAllBytes(new File(serverDir, "sn/1/a").toPath()));
+		assertArrayEquals(second, Files.readAllBytes(new File(serverDir, "sn/1/b").toPath()));
+
+		// 已存在的文件不会被覆盖
+		createFile(new File(clientDir, "b"), 200);
+		client.sendFile("127.0.0.1", port, new File(clientDir, "b").getPath(), "/sn/1", "b");
+		assertArrayEquals(second, Files.readAllBytes(new File(serverDir, "sn/1/b").toPath()));
+	}
+
+	@Test
+	public void resumeSend() throws IOException {
+		byte[] bytes = createFile(new File(clientDir, "c"), 2 * 1024 * 1024);
+		File temp = new File(serverDir, "sn/1/c" + FileTransferProtocol.TEMP_SUFFIX);
+		temp.getParentFile().mkdirs();
+		Files.write(temp.toPath(), Arrays.copyOf(bytes, 1024 * 1024));
+
+		client.sendFile("127.0.0.1", port, new File(clientDir, "c").getPath(), "/sn/1", "c");
+		assertArrayEquals(bytes, Files.readAllBytes(new File(serverDir, "sn/1/c").toPath()));
+		assertFalse(temp.exists());
+
+		// 临时文件中的数据有误时整个文件重新传输
+		byte[] other = createFile(new File(clientDir, "d"), 4096);
+		temp = new File(serverDir, "sn/1/d" + FileTransferProtocol.TEMP_SUFFIX);
+		Files.write(temp.toPath(), new byte[1024]);
+		client.sendFile("127.0.0.1", port, new File(clientDir, "d").getPath(), "/sn/1", "d");
+		assertArrayEquals(other, Files.readAllBytes(new File(serverDir, "sn/1/d").toPath()));
+	}
+
+	@Test
+	public void fetchFiles() throws IOException {
+		byte[] bytes = createFile(new File(serverDir, "sn/2/e"), 1024 * 1024 + 3);
+		File local = new File(clientDir, "e");
+		assertTrue(client.fetchFile("127.0.0.1", port, 5000, "/sn/2/e", local.getPath()));
+		assertArrayEquals(bytes, Files.readAllBytes(local.toPath()));
+
+		File partial = new File(clientDir, "f");
+		Files.write(new File(partial.getPath() + FileTransferProtocol.TEMP_SUFFIX).toPath(), Arrays.copyOf(bytes, 1000));
+		assertTrue(client.fetchFile("127.0.0.1", port, 5000, "/sn/2/e", partial.getPath()));
+		assertArrayEquals(bytes, Files.readAllBytes(partial.toPath()));
+
+		assertFalse(client.fetchFile("127.0.0.1", port, 5000, "/sn/2/not_exist", new File(clientDir, "g").getPath()));
+
+		createFile(new File(serverDir, "sn/2/h.rd"), 10);
+		createFile(new File(serverDir, "sn/2/h"), 10);
+		assertFalse(client.fetchFile("127.0.0.1", port, 5000, "/sn/2/h", new File(clientDir, "h").getPath()));
+	}
+
+	@Test
+	public void fetchFromStalledPeer() throws IOException {
+		// 只接受连接不做响应的节点
+		try(ServerSocket stalled = new ServerSocket(0)) {
+			Thread acceptor = new Thread(() -> {
+				try(Socket socket = stalled.accept()) {
+					Thread.sleep(10 * 1000);
+				} catch (Exception e) {
+				}
+			});
+			acceptor.setDaemon(true);
+			acceptor.start();
+
+			long start = System.currentTimeMillis();
+			try {
+				client.fetchFile("127.0.0.1", stalled.getLocalPort(), 500, "/sn/2/e", new File(clientDir, "e").getPath());
+				fail("fetch from stalled peer should time out");
+			} catch (SocketTimeoutException e) {
+				assertTrue(System.currentTimeMillis() - start < 5000);
+			}
+		}
+	}
+}
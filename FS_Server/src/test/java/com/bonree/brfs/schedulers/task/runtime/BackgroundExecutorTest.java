@@ -0,0 +1,98 @@
+package com.bonree.brfs.schedulers.task.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class BackgroundExecutorTest {
+
+	@Test
+	public void runByPriority() throws InterruptedException {
+		BackgroundExecutor executor = new BackgroundExecutor("test_background", 1, 1);
+		try {
+			CountDownLatch blocker = new CountDownLatch(1);
+			CountDownLatch done = new CountDownLatch(4);
+			List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+			// 占住唯一的线程，使后面的任务都进入队列
+			executor.submit(executor.newEntry(TaskPriority.HIGH, IoClass.CPU, () -> {
+				try {
+					blocker.await();
+				} catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}));
+			Thread.sleep(50);
+
+			executor.submit(executor.newEntry(TaskPriority.LOW, IoClass.CPU, () -> { order.add("low"); done.countDown(); }));
+			executor.submit(executor.newEntry(TaskPriority.NORMAL, IoClass.CPU, () -> { order.add("normal1"); done.countDown(); }));
+			executor.submit(executor.newEntry(TaskPriority.HIGH, IoClass.CPU, () -> { order.add("high"); done.countDown(); }));
+			executor.submit(executor.newEntry(TaskPriority.NORMAL, IoClass.CPU, () -> { order.add("normal2"); done.countDown(); }));
+			blocker.countDown();
+
+			assertTrue(done.await(5, TimeUnit.SECONDS));
+			assertEquals(4, order.size());
+			assertEquals("high", order.get(0));
+			assertEquals("normal1", order.get(1));
+			assertEquals("normal2", order.get(2));
+			assertEquals("low", order.get(3));
+		} finally {
+			executor.close();
+		}
+	}
+
+	@Test
+	public void limitDiskTasks() throws InterruptedException {
+		BackgroundExecutor executor = new BackgroundExecutor("test_background", 4, 1);
+		try {
+			AtomicInteger running = new AtomicInteger();
+			AtomicInteger max = new AtomicInteger();
+			CountDownLatch done = new CountDownLatch(8);
+			for(int i = 0; i < 8; i++) {
+				executor.submit(executor.newEntry(TaskPriority.NORMAL, IoClass.DISK, () -> {
+					max.accumulateAndGet(running.incrementAndGet(), Math::max);
+					try {
+						Thread.sleep(5);
+					} catch(InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					running.decrementAndGet();
+					done.countDown();
+				}));
+			}
+
+			assertTrue(done.await(5, TimeUnit.SECONDS));
+			assertEquals(1, max.get());
+		} finally {
+			executor.close();
+		}
+	}
+
+	@Test
+	public void skipPausedTask() throws InterruptedException {
+		BackgroundExecutor executor = new BackgroundExecutor("test_background", 2, 2);
+		try {
+			CountDownLatch done = new CountDownLatch(1);
+			BackgroundExecutor.Entry entry = executor.newEntry(TaskPriority.HIGH, IoClass.CPU, done::countDown);
+			entry.paused = true;
+			executor.submit(entry);
+
+			assertTrue(!done.await(200, TimeUnit.MILLISECONDS));
+			assertEquals(1, executor.getQueueSize());
+
+			entry.paused = false;
+			executor.signal();
+			assertTrue(done.await(5, TimeUnit.SECONDS));
+		} finally {
+			executor.close();
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package com.bonree.brfs.schedulers.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.bonree.brfs.common.utils.FileUtils;
+import com.bonree.brfs.common.write.data.FSCode;
+
+public class FileVerificationEngineTest {
+	private File baseDir;
+	private File checkpointFile;
+
+	@Before
+	public void setUp() throws IOException {
+		baseDir = Files.createTempDirectory("verify").toFile();
+		checkpointFile = new File(baseDir, "check/verified.checkpoint");
+	}
+
+	@After
+	public void tearDown() {
+		FileUtils.deleteDir(baseDir.getAbsolutePath(), true);
+	}
+
+	private File createFile(String name, int contentSize) throws IOException {
+		byte[] content = new byte[contentSize];
+		new Random(contentSize).nextBytes(content);
+		CRC32 crc = new CRC32();
+		crc.update(content);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(FSCode.start);
+		out.write(0);
+		out.write(content);
+		out.write(FSCode.LongToByte(crc.getValue(), 8));
+		out.write(FSCode.tail);
+
+		File file = new File(baseDir, name);
+		Files.write(file.toPath(), out.toByteArray());
+		return file;
+	}
+
+	private static void corrupt(File file, long position) throws IOException {
+		try(RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.seek(position);
+			int b = raf.read();
+			raf.seek(position);
+			raf.write(b ^ 0xFF);
+		}
+	}
+
+	@Test
+	public void crcVerifier() throws IOException {
+		File small = createFile("small", 100);
+		File large = createFile("large", 3 * 1024 * 1024 + 7);
+		assertTrue(CrcVerifier.verify(small));
+		assertTrue(CrcVerifier.verify(large));
+
+		corrupt(large, 2 * 1024 * 1024);
+		assertFalse(CrcVerifier.verify(large));
+
+		corrupt(small, small.length() - 1);
+		assertFalse(CrcVerifier.verify(small));
+
+		assertFalse(CrcVerifier.verify(new File(baseDir, "not_exist")));
+	}
+
+	@Test
+	public void verifyAndCheckpoint() throws IOException {
+		File good = createFile("good", 4096);
+		File bad = createFile("bad", 4096);
+		corrupt(bad, 100);
+
+		VerifyCheckpoint checkpoint = new VerifyCheckpoint(checkpointFile, 60 * 1000);
+		FileVerificationEngine engine = new FileVerificationEngine(2, 0, checkpoint);
+		List<File> failed = engine.verify(Arrays.asList(good, bad));
+		assertEquals(Arrays.asList(bad), failed);
+		assertEquals(1, checkpoint.size());
+		assertTrue(checkpointFile.exists());
+
+		// 重新加载后已校验的文件不再校验
+		VerifyCheckpoint reloaded = new VerifyCheckpoint(checkpointFile, 60 * 1000);
+		assertTrue(reloaded.isVerified(good, System.currentTimeMillis()));
+		assertFalse(reloaded.isVerified(bad, System.currentTimeMillis()));
+
+		// 文件被修改后需要重新校验
+		corrupt(good, 100);
+		good.setLastModified(good.lastModified() + 2000);
+		assertFalse(reloaded.isVerified(good, System.currentTimeMillis()));
+		failed = new FileVerificationEngine(1, 1024 * 1024, reloaded).verify(Arrays.asList(good));
+		assertEquals(Arrays.asList(good), failed);
+		assertEquals(0, reloaded.size());
+	}
+
+	@Test
+	public void reverifyInterval() throws IOException {
+		File good = createFile("good", 1024);
+		VerifyCheckpoint checkpoint = new VerifyCheckpoint(checkpointFile, 1000);
+		checkpoint.markVerified(good, 0);
+		assertTrue(checkpoint.isVerified(good, 999));
+		assertFalse(checkpoint.isVerified(good, 1000));
+
+		checkpoint.save(5000);
+		assertEquals(0, checkpoint.size());
+	}
+}